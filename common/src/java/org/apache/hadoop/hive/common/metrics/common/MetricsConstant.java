@@ -83,4 +83,9 @@ public class MetricsConstant {
   public static final String QC_REJECTED_TOO_LARGE = "qc_rejected_too_large";
   public static final String QC_TOTAL_ENTRIES_ADDED = "qc_total_entries_added";
 
+  public static final String MSC_CACHE_HITS = "msc_cache_hits";
+  public static final String MSC_CACHE_MISSES = "msc_cache_misses";
+  // Entries removed from the metastore client cache after the notification events of their tables.
+  public static final String MSC_CACHE_INVALIDATIONS = "msc_cache_invalidations";
+
 }
\ No newline at end of file
@@ -415,8 +415,23 @@ private static void populateLlapDaemonVarsSet(Set<String> llapDaemonVarsSetLocal
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_USE_LRFU.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_LRFU_LAMBDA.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_LRFU_BP_WRAPPER_SIZE.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_USE_TINYLFU.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_TINYLFU_WINDOW_PERCENTAGE.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_CACHE_ALLOW_SYNTHETIC_FILEID.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_USE_FILEID_PATH.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_SNAPSHOT_PATH.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_SNAPSHOT_INTERVAL.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_COMPRESS_TABLES.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_SSD_PATH.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_SSD_SIZE.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_SSD_SEGMENT_SIZE.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_CACHE_POOL_QUOTAS.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_ASYNC_READ_THREADS.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_ASYNC_READ_SCHEMES.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_ASYNC_READ_MAX_GAP.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_ASYNC_READ_MAX_INFLIGHT.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_DAEMON_CACHE_SUMMARY_INTERVAL.varname);
+    llapDaemonVarsSetLocal.add(ConfVars.LLAP_DAEMON_CACHE_SUMMARY_MAX_FILES.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_DECODING_METRICS_PERCENTILE_INTERVALS.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_ORC_ENABLE_TIME_COUNTERS.varname);
     llapDaemonVarsSetLocal.add(ConfVars.LLAP_IO_THREADPOOL_SIZE.varname);
@@ -1919,6 +1934,15 @@ public static enum ConfVars {
         "Optimized hashtable (see hive.mapjoin.optimized.hashtable) uses a chain of buffers to\n" +
         "store data. This is one buffer size. HT may be slightly faster if this is larger, but for small\n" +
         "joins unnecessary memory will be allocated and then trimmed."),
+    HIVE_MAPJOIN_FAST_HASHTABLE_LOAD_THREADS("hive.mapjoin.fast.hashtable.load.threads", 1,
+        "Number of threads used to build a fast vectorized MapJoin hash table (Tez only). When\n" +
+        "greater than 1 the small table rows are hash partitioned into that many sub-tables\n" +
+        "(rounded down to a power of 2) that are built concurrently. FULL OUTER joins are always\n" +
+        "loaded by a single thread."),
+    HIVE_MAPJOIN_FAST_HASHTABLE_LOAD_POOL_SIZE("hive.mapjoin.fast.hashtable.load.pool.size", 0,
+        "Number of threads of the pool, shared by all the fragments of the process, building the\n" +
+        "sub-tables of the fast vectorized MapJoin hash tables when hive.mapjoin.fast.hashtable.load.threads\n" +
+        "is greater than 1. 0 uses the number of executors in LLAP, and the number of processors otherwise."),
     HIVEHYBRIDGRACEHASHJOINBLOOMFILTER("hive.mapjoin.hybridgrace.bloomfilter", true, "Whether to " +
         "use BloomFilter in Hybrid grace hash join to minimize unnecessary spilling."),
     HIVEMAPJOINFULLOUTER("hive.mapjoin.full.outer", true,
@@ -2500,6 +2524,13 @@ public static enum ConfVars {
         "that, when selecting from empty tables with data files, this can produce incorrect\n" +
         "results, so it's disabled by default. It works correctly for normal tables."),
     HIVENULLSCANOPTIMIZE("hive.optimize.null.scan", true, "Dont scan relations which are guaranteed to not generate any rows"),
+    HIVE_OPTIMIZE_PPR_PAGE_SIZE("hive.optimize.ppr.page.size", 0,
+        "When positive, the partition pruner fetches the partitions matching the pruning expression\n" +
+        "in pages of this many partitions, instead of in a single metastore call: it gets the names\n" +
+        "of the matching partitions first, and then fetches the partitions by name, a page at a time.\n" +
+        "This bounds the size of the metastore responses for the tables with a large number of\n" +
+        "partitions; the compiler still keeps all the pruned partitions in memory. 0 fetches all\n" +
+        "the matching partitions in one call."),
     HIVEOPTPPD_STORAGE("hive.optimize.ppd.storage", true,
         "Whether to push predicates down to storage handlers"),
     HIVEOPTGROUPBY("hive.optimize.groupby", true,
@@ -4206,6 +4237,11 @@ public static enum ConfVars {
          "This flag should be set to true to enable vector map join hash tables to\n" +
          "use max / max filtering for integer join queries using MapJoin.\n" +
          "The default value is false."),
+    HIVE_VECTORIZATION_MAPJOIN_NATIVE_BLOOM_FILTER_ENABLED("hive.vectorized.execution.mapjoin.bloomfilter.enabled", false,
+         "This flag should be set to true to enable native fast vector map join hash tables to\n" +
+         "build a Bloom filter of the small table keys that drops non-matching big table rows\n" +
+         "before the hash table lookups of inner and left semi join queries using MapJoin.\n" +
+         "Helps when few big table rows match.  The default value is false."),
     HIVE_VECTORIZATION_MAPJOIN_NATIVE_OVERFLOW_REPEATED_THRESHOLD("hive.vectorized.execution.mapjoin.overflow.repeated.threshold", -1,
          "The number of small table rows for a match in vector map join hash tables\n" +
          "where we use the repeated field optimization in overflow vectorized row batch for join queries using MapJoin.\n" +
@@ -4221,6 +4257,23 @@ public static enum ConfVars {
         "Exceeding this will trigger a flush irrelevant of memory pressure condition."),
     HIVE_VECTORIZATION_GROUPBY_FLUSH_PERCENT("hive.vectorized.groupby.flush.percent", (float) 0.1,
         "Percent of entries in the group by aggregation hash flushed when the memory threshold is exceeded."),
+    HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED("hive.vectorized.groupby.native.hashtable.enabled", false,
+        "This flag should be set to true to keep the vector group by aggregation hash in an open addressing\n" +
+        "hash table that stores long, two long and long/double/string keys in primitive arrays, instead\n" +
+        "of a HashMap of copied key wrappers. Other key types always use the HashMap."),
+    HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_ENABLED("hive.vectorized.groupby.reduce.hash.enabled", false,
+        "This flag should be set to true to let a vectorized MERGEPARTIAL group by in a Tez reducer aggregate\n" +
+        "its input in a hash table fed by an unordered edge, instead of sorting the shuffle input.\n" +
+        "Only chosen when the estimated group by output per reducer is below\n" +
+        "hive.vectorized.groupby.reduce.hash.max.bytes.per.reducer."),
+    HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_MAX_BYTES_PER_REDUCER(
+        "hive.vectorized.groupby.reduce.hash.max.bytes.per.reducer", 256L * 1024 * 1024,
+        "Max estimated size of the group by output of one reducer for which the reduce side hash\n" +
+        "aggregation is chosen. Above it the shuffle input is sorted as usual."),
+    HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_PARTITIONS("hive.vectorized.groupby.reduce.hash.partitions", 16,
+        "Number of hash partitions of the reduce side hash aggregation (a power of 2). When the\n" +
+        "memory threshold is exceeded the input rows of new keys of the largest partition are\n" +
+        "spilled to local disk and aggregated after the other partitions."),
     HIVE_VECTORIZATION_REDUCESINK_NEW_ENABLED("hive.vectorized.execution.reducesink.new.enabled", true,
         "This flag should be set to true to enable the new vectorization\n" +
         "of queries using ReduceSink.\ni" +
@@ -4280,6 +4333,10 @@ public static enum ConfVars {
         "This flag should be set to true to use overflow checked vector expressions when available.\n" +
         "For example, arithmetic expressions which can overflow the output data type can be evaluated using\n" +
         " checked vector expressions so that they produce same result as non-vectorized evaluation."),
+    HIVE_VECTORIZATION_VECTOR_API_ENABLED("hive.vectorized.execution.vector.api.enabled", false,
+        "This flag should be set to true to evaluate long and double arithmetic, comparison and filter\n" +
+        "vector expressions with the JDK Vector API (jdk.incubator.vector) instead of plain loops.\n" +
+        "Only takes effect on Java 17 or later with the JVM started with --add-modules jdk.incubator.vector."),
     HIVE_VECTORIZED_ADAPTOR_SUPPRESS_EVALUATE_EXCEPTIONS(
         "hive.vectorized.adaptor.suppress.evaluate.exceptions", false,
         "This flag should be set to true to suppress HiveException from the generic UDF function\n" +
@@ -4513,6 +4570,14 @@ public static enum ConfVars {
         "true and a cache miss happens during the read an exception will occur. Primarily used for testing."),
     LLAP_IO_ROW_WRAPPER_ENABLED("hive.llap.io.row.wrapper.enabled", true, "Whether the LLAP IO row wrapper is enabled for non-vectorized queries."),
     LLAP_IO_ACID_ENABLED("hive.llap.io.acid", true, "Whether the LLAP IO layer is enabled for ACID."),
+    LLAP_IO_ORC_DICTIONARY_VECTORS_ENABLED("hive.llap.io.orc.dictionary.vectors.enabled", true,
+        "Whether LLAP IO should produce string vectors that keep the dictionary ids of dictionary\n" +
+        "encoded ORC string and varchar columns, so that filters can be evaluated once per\n" +
+        "dictionary entry and GROUP BY on a single such key can group the rows on their ids."),
+    LLAP_IO_LATE_MATERIALIZATION_ENABLED("hive.llap.io.late.materialization.enabled", true,
+        "Whether LLAP IO should decode the columns of the filter pushed to an ORC table scan first,\n" +
+        "and the other columns only for the rows that pass it. Batches without such rows are skipped.\n" +
+        "Not used for ACID tables."),
     LLAP_IO_TRACE_SIZE("hive.llap.io.trace.size", "2Mb",
         new SizeValidator(0L, true, (long)Integer.MAX_VALUE, false),
         "The buffer size for a per-fragment LLAP debug trace. 0 to disable."),
@@ -4549,6 +4614,56 @@ public static enum ConfVars {
     LLAP_ALLOCATOR_MAPPED_PATH("hive.llap.io.allocator.mmap.path", "/tmp",
         new WritableDirectoryValidator(),
         "The directory location for mapping NVDIMM/NVMe flash storage into the ORC low-level cache."),
+    LLAP_IO_CACHE_SNAPSHOT_PATH("hive.llap.io.cache.snapshot.path", "",
+        "The local directory where LLAP persists the contents of the ORC data and metadata caches,\n" +
+        "so that a restarted daemon reloads them instead of starting with an empty cache. The\n" +
+        "snapshot is written on clean shutdown and periodically. Empty disables the snapshot."),
+    LLAP_IO_CACHE_SNAPSHOT_INTERVAL("hive.llap.io.cache.snapshot.interval", "1h",
+        new TimeValidator(TimeUnit.SECONDS),
+        "How often LLAP writes the cache snapshot, in addition to clean shutdown; 0 only writes it\n" +
+        "on shutdown. Only used when hive.llap.io.cache.snapshot.path is set."),
+    LLAP_IO_CACHE_COMPRESS_TABLES("hive.llap.io.cache.compress.tables", "",
+        "Comma-separated list of the tables, as db.table, whose data LLAP keeps LZ4-compressed in\n" +
+        "the ORC data cache. More of their data fits in the cache, at the cost of decompressing it\n" +
+        "on every cache hit. db.* matches all the tables of a database, and * all the tables. Empty\n" +
+        "keeps all the data uncompressed."),
+    LLAP_IO_CACHE_SSD_PATH("hive.llap.io.cache.ssd.path", "",
+        "A local directory, preferably on an SSD, for the second tier of the ORC data cache. The\n" +
+        "data evicted from the cache memory is written there instead of being discarded, and read\n" +
+        "back into the cache memory on a cache miss. Empty disables the second tier."),
+    LLAP_IO_CACHE_SSD_SIZE("hive.llap.io.cache.ssd.size", "16Gb", new SizeValidator(),
+        "The maximum size of the second tier of the ORC data cache."),
+    LLAP_IO_CACHE_SSD_SEGMENT_SIZE("hive.llap.io.cache.ssd.segment.size", "64Mb", new SizeValidator(),
+        "The size of the files of the second tier of the ORC data cache. When the tier is full,\n" +
+        "the data of the oldest file is dropped as a whole to make room for new data."),
+    LLAP_IO_CACHE_POOL_QUOTAS("hive.llap.io.cache.pool.quotas", "",
+        "Soft quotas on the ORC data cache usage of the workload management pools, as a\n" +
+        "comma-separated list of pool:fraction, e.g. bi:0.6,etl:0.2, with the fraction of the cache\n" +
+        "size that the data cached by the queries of the pool should use. A pool can use more while\n" +
+        "the cache has free memory; when the cache has to evict data, the oldest data of the pools\n" +
+        "over their quotas is evicted first. Requires hive.llap.io.track.cache.usage."),
+    LLAP_IO_CACHE_WM_POOL("hive.llap.io.cache.wm.pool", "",
+        "Internal. The workload management pool of the query, set by Hive for the LLAP cache\n" +
+        "accounting and quotas."),
+    LLAP_IO_PREWARM_PARTITIONS_PER_QUERY("hive.llap.io.prewarm.partitions.per.query", 16,
+        "The number of partitions read by each of the queries that \"llap cache -prewarm\" runs in\n" +
+        "the background to load a table into the LLAP IO cache. The queries run one at a time."),
+    LLAP_IO_PREWARM_MAX_TASKS("hive.llap.io.prewarm.max.tasks", 8,
+        "The maximum number of concurrently running tasks of each cache prewarm query, so that\n" +
+        "prewarming does not take over the LLAP executors needed by the other queries.\n" +
+        "0 or less means no limit."),
+    LLAP_IO_ASYNC_READ_THREADS("hive.llap.io.async.read.threads", 0,
+        "The number of threads issuing the parallel reads of the ORC stripe data missing from the LLAP cache,\n" +
+        "on the file systems in hive.llap.io.async.read.schemes. 0 disables the parallel reads."),
+    LLAP_IO_ASYNC_READ_SCHEMES("hive.llap.io.async.read.schemes", "s3a,abfs,abfss,wasb,wasbs,gs,oss",
+        "Comma-separated list of the file system schemes to read in parallel, typically the object\n" +
+        "stores where each request has a high latency. Empty means all the file systems."),
+    LLAP_IO_ASYNC_READ_MAX_GAP("hive.llap.io.async.read.max.gap", "1Mb", new SizeValidator(),
+        "The maximum gap between two missing ranges of a stripe that are read with a single request;\n" +
+        "reading the gap is cheaper than a separate request on an object store."),
+    LLAP_IO_ASYNC_READ_MAX_INFLIGHT("hive.llap.io.async.read.max.inflight", "256Mb", new SizeValidator(),
+        "The maximum number of bytes of the parallel reads in flight in the daemon. This also bounds\n" +
+        "the size of a single read request."),
     LLAP_ALLOCATOR_DISCARD_METHOD("hive.llap.io.allocator.discard.method", "both",
         new StringSet("freelist", "brute", "both"),
         "Which method to use to force-evict blocks to deal with fragmentation:\n" +
@@ -4578,6 +4693,14 @@ public static enum ConfVars {
     LLAP_LRFU_BP_WRAPPER_SIZE("hive.llap.io.lrfu.bp.wrapper.size", 64, "thread local queue "
         + "used to amortize the lock contention, the idea hear is to try locking as soon we reach max size / 2 "
         + "and block when max queue size reached"),
+    LLAP_USE_TINYLFU("hive.llap.io.use.tinylfu", false,
+        "Whether ORC low-level cache should use the W-TinyLFU cache policy. Takes precedence over\n" +
+        "hive.llap.io.use.lrfu. The policy records the buffer accesses without locking, and only\n" +
+        "admits the blocks evicted from its small LRU window into the main cache if they are\n" +
+        "accessed more often than the blocks they replace, so that large scans do not flush it."),
+    LLAP_TINYLFU_WINDOW_PERCENTAGE("hive.llap.io.tinylfu.window.percentage", 0.01f,
+        new RangeValidator(0.0f, 1.0f), "The percentage of the cache used by the admission window\n" +
+        "of the W-TinyLFU cache policy. Larger values favor recency over frequency."),
     LLAP_CACHE_ALLOW_SYNTHETIC_FILEID("hive.llap.cache.allow.synthetic.fileid", true,
         "Whether LLAP cache should use synthetic file ID if real one is not available. Systems\n" +
         "like HDFS, Isilon, etc. provide a unique file/inode ID. On other FSes (e.g. local\n" +
@@ -4606,6 +4729,10 @@ public static enum ConfVars {
         "org.apache.hadoop.mapred.TextInputFormat,",
         "The table input formats for which LLAP IO should re-encode and cache data.\n" +
         "Comma-separated list."),
+    LLAP_IO_PARQUET_ENABLED("hive.llap.io.parquet.enabled", false,
+        "Whether vectorized Parquet scans should be read thru the LLAP IO elevator, decoding the\n" +
+        "column chunks cached by LLAP on the IO threads. Otherwise, LLAP only provides its caches\n" +
+        "to the Parquet reader running in the executor."),
     LLAP_IO_ENCODE_ALLOC_SIZE("hive.llap.io.encode.alloc.size", "256Kb", new SizeValidator(),
         "Allocation size for the buffers used to cache encoded data from non-ORC files. Must\n" +
         "be a power of two between " + LLAP_ALLOCATOR_MIN_ALLOC + " and\n" +
@@ -4811,6 +4938,12 @@ public static enum ConfVars {
     LLAP_DAEMON_NUM_EXECUTORS("hive.llap.daemon.num.executors", 4,
       "Number of executors to use in LLAP daemon; essentially, the number of tasks that can be\n" +
       "executed in parallel.", "llap.daemon.num.executors"),
+    LLAP_DAEMON_VECTOR_BATCH_POOL_MAX_SIZE("hive.llap.daemon.vector.batch.pool.max.size", "256Mb",
+      new SizeValidator(),
+      "Maximum size of the vectorized row batches and string buffers the LLAP daemon keeps for\n" +
+      "reuse by the fragments of later queries. 0 disables the pool."),
+    LLAP_DAEMON_VECTOR_BATCH_POOL_BATCHES("hive.llap.daemon.vector.batch.pool.batches", 32,
+      "Maximum number of vectorized row batches of the same layout the LLAP daemon keeps for reuse."),
     LLAP_MAPJOIN_MEMORY_OVERSUBSCRIBE_FACTOR("hive.llap.mapjoin.memory.oversubscribe.factor", 0.2f,
       "Fraction of memory from hive.auto.convert.join.noconditionaltask.size that can be over subscribed\n" +
         "by queries running in LLAP mode. This factor has to be from 0.0 to 1.0. Default is 20% over subscription.\n"),
@@ -5002,6 +5135,19 @@ public static enum ConfVars {
         "instead of using the locations provided by the split itself. If there is no llap daemon " +
         "running, fall back to locations provided by the split. This is effective only if " +
         "hive.execution.mode is llap"),
+    LLAP_CLIENT_CACHE_AWARE_LOCATIONS("hive.llap.client.cache.aware.locations", 0,
+        "With consistent splits, the maximum number of additional task locations to add, in the\n" +
+        "order of preference, for the other daemons that likely have the files of the task's splits\n" +
+        "in their cache, according to the cache summaries they publish. The splits are still grouped\n" +
+        "by their consistent location only. The scheduler falls back to these when the first location\n" +
+        "is busy. 0 disables this."),
+    LLAP_DAEMON_CACHE_SUMMARY_INTERVAL("hive.llap.daemon.cache.summary.interval", "0s",
+        new TimeValidator(TimeUnit.SECONDS),
+        "How often LLAP daemon publishes the summary of the files in its IO cache in the registry,\n" +
+        "for hive.llap.client.cache.aware.locations. 0 disables publishing."),
+    LLAP_DAEMON_CACHE_SUMMARY_MAX_FILES("hive.llap.daemon.cache.summary.max.files", 100000,
+        "The maximum number of files in the cache summary of LLAP daemon. The summary is a Bloom\n" +
+        "filter taking about a byte per file."),
     LLAP_SPLIT_LOCATION_PROVIDER_CLASS("hive.llap.split.location.provider.class",
       "org.apache.hadoop.hive.ql.exec.tez.HostAffinitySplitLocationProvider",
       "Split location provider class to use during split generation for LLAP. This class should implement\n" +
@@ -5375,7 +5521,8 @@ public static enum ConfVars {
         "A nonpositive value means the notification log is never polled."),
 
     HIVE_NOTFICATION_EVENT_CONSUMERS("hive.notification.event.consumers",
-        "org.apache.hadoop.hive.ql.cache.results.QueryResultsCache$InvalidationEventConsumer",
+        "org.apache.hadoop.hive.ql.cache.results.QueryResultsCache$InvalidationEventConsumer," +
+        "org.apache.hadoop.hive.ql.metadata.SessionHiveMetaStoreClient$InvalidationEventConsumer",
         "Comma-separated list of class names extending EventConsumer," +
          "to handle the NotificationEvents retreived by the notification event poll."),
 
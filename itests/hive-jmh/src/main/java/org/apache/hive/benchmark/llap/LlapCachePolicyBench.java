@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hive.benchmark.llap;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.io.DataCache.DiskRangeListFactory;
+import org.apache.hadoop.hive.common.io.DiskRange;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.cache.BuddyAllocator;
+import org.apache.hadoop.hive.llap.cache.EvictionDispatcher;
+import org.apache.hadoop.hive.llap.cache.LlapDataBuffer;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.cache.LowLevelCacheImpl;
+import org.apache.hadoop.hive.llap.cache.LowLevelCacheMemoryManager;
+import org.apache.hadoop.hive.llap.cache.LowLevelCachePolicy;
+import org.apache.hadoop.hive.llap.cache.LowLevelFifoCachePolicy;
+import org.apache.hadoop.hive.llap.cache.LowLevelLrfuCachePolicy;
+import org.apache.hadoop.hive.llap.cache.LowLevelTinyLfuCachePolicy;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.apache.hadoop.hive.ql.io.orc.encoded.CacheChunk;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This test compares the LLAP IO cache policies under concurrent access, through the ORC data
+ * cache, the buddy allocator and the memory manager set up like in LlapIoImpl.
+ * <p/>
+ * Each thread reads blocks from a Zipf-distributed set of hot blocks 4 times as large as the
+ * cache, mixed with a given percentage of blocks read once by a table scan. The hits and misses
+ * counters give the hit ratio of the policy, and the throughput shows its locking overhead.
+ * <p/>
+ * This test uses JMH framework for benchmarking.
+ * You may execute this benchmark tool using JMH command line in different ways:
+ * <p/>
+ * To use the settings shown in the main() function, use:
+ * $ java -cp target/benchmarks.jar org.apache.hive.benchmark.llap.LlapCachePolicyBench
+ * <p/>
+ * To use more threads, or only some of the policies, use:
+ * $ java -jar target/benchmarks.jar org.apache.hive.benchmark.llap.LlapCachePolicyBench
+ * -t 32 -p policy=lrfu,tinylfu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+public class LlapCachePolicyBench {
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final long CACHE_SIZE = 256L * 1024 * 1024;
+  private static final int HOT_BLOCKS = (int) (4 * CACHE_SIZE / BLOCK_SIZE);
+  private static final int SAMPLES = 1 << 20;
+  private static final Long HOT_FILE = 1L, SCAN_FILE = 2L;
+
+  private static final DiskRangeListFactory FACTORY = new DiskRangeListFactory() {
+    @Override
+    public DiskRangeList createCacheChunk(MemoryBuffer buffer, long offset, long end) {
+      return new CacheChunk(buffer, offset, end);
+    }
+  };
+
+  @Param({ "fifo", "lrfu", "tinylfu" })
+  String policy;
+
+  @Param({ "0", "20" })
+  int scanPercentage;
+
+  private LowLevelCacheImpl cache;
+  private BuddyAllocator allocator;
+  private int[] hotBlockSamples;
+  private final AtomicLong nextScanBlock = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Configuration conf = new Configuration();
+    HiveConf.setBoolVar(conf, ConfVars.LLAP_ALLOCATOR_DIRECT, false);
+    HiveConf.setVar(conf, ConfVars.LLAP_ALLOCATOR_MIN_ALLOC, "4Kb");
+    HiveConf.setVar(conf, ConfVars.LLAP_ALLOCATOR_MAX_ALLOC, "64Kb");
+    HiveConf.setIntVar(conf, ConfVars.LLAP_ALLOCATOR_ARENA_COUNT, 8);
+    HiveConf.setVar(conf, ConfVars.LLAP_IO_MEMORY_MAX_SIZE, "256Mb");
+    LowLevelCachePolicy cachePolicy;
+    switch (policy) {
+    case "fifo":
+      cachePolicy = new LowLevelFifoCachePolicy();
+      break;
+    case "lrfu":
+      cachePolicy = new LowLevelLrfuCachePolicy(4 * 1024, CACHE_SIZE, conf);
+      break;
+    case "tinylfu":
+      cachePolicy = new LowLevelTinyLfuCachePolicy(4 * 1024, CACHE_SIZE, conf);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown policy " + policy);
+    }
+    LlapDaemonCacheMetrics metrics = LlapDaemonCacheMetrics.create("LlapCachePolicyBench", "1");
+    LowLevelCacheMemoryManager memoryManager =
+        new LowLevelCacheMemoryManager(CACHE_SIZE, cachePolicy, metrics);
+    allocator = new BuddyAllocator(conf, memoryManager, metrics);
+    cache = new LowLevelCacheImpl(metrics, cachePolicy, allocator, true);
+    cachePolicy.setEvictionListener(new EvictionDispatcher(cache, null, null, allocator));
+
+    // Zipf distribution with the exponent 1, by inverting the CDF.
+    double[] cdf = new double[HOT_BLOCKS];
+    double sum = 0;
+    for (int i = 0; i < HOT_BLOCKS; ++i) {
+      sum += 1.0 / (i + 1);
+      cdf[i] = sum;
+    }
+    Random random = new Random(1234);
+    hotBlockSamples = new int[SAMPLES];
+    for (int i = 0; i < SAMPLES; ++i) {
+      int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+      hotBlockSamples[i] = Math.min(HOT_BLOCKS - 1, index < 0 ? -index - 1 : index);
+    }
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long hits;
+    public long misses;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      hits = 0;
+      misses = 0;
+    }
+  }
+
+  @Benchmark
+  public void read(Counters counters) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (random.nextInt(100) < scanPercentage) {
+      readBlock(SCAN_FILE, nextScanBlock.getAndIncrement(), counters);
+    } else {
+      readBlock(HOT_FILE, hotBlockSamples[random.nextInt(SAMPLES)], counters);
+    }
+  }
+
+  private void readBlock(Long fileKey, long block, Counters counters) {
+    long offset = block * BLOCK_SIZE;
+    DiskRangeList range = new DiskRangeList(offset, offset + BLOCK_SIZE);
+    DiskRangeList result = cache.getFileData(fileKey, range, 0, FACTORY, null, null);
+    if (result instanceof CacheChunk) {
+      ++counters.hits;
+      cache.decRefBuffer(((CacheChunk) result).getBuffer());
+      return;
+    }
+    ++counters.misses;
+    MemoryBuffer[] buffers = new MemoryBuffer[1];
+    allocator.allocateMultiple(buffers, BLOCK_SIZE, LlapDataBuffer::new);
+    cache.putFileData(fileKey, new DiskRange[] { new DiskRange(offset, offset + BLOCK_SIZE) },
+        buffers, 0, Priority.NORMAL, null, null);
+    cache.decRefBuffer(buffers[0]);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(".*" + LlapCachePolicyBench.class.getSimpleName() + ".*")
+        .build();
+    new Runner(opt).run();
+  }
+}
@@ -16,6 +16,8 @@
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
@@ -56,6 +58,22 @@ protected VectorizedRowBatch buildRowBatch(ColumnVector output, int colNum, Colu
   @Setup
   public abstract void setup();
 
+  /**
+   * Initializes the expression with hive.vectorized.execution.vector.api.enabled, so it runs
+   * the Vector API kernels.  Only takes effect on Java 17 and later with the benchmark JVM
+   * started with --add-modules=jdk.incubator.vector (e.g. -jvmArgsAppend).
+   */
+  protected VectorExpression withVectorApi(VectorExpression expression) {
+    Configuration conf = new Configuration();
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_VECTOR_API_ENABLED, true);
+    try {
+      expression.transientInit(conf);
+    } catch (HiveException e) {
+      throw new RuntimeException(e);
+    }
+    return expression;
+  }
+
   @Benchmark
   @Warmup(iterations = 2, time = 2, timeUnit = TimeUnit.MILLISECONDS)
   @Measurement(iterations = 2, time = 2, timeUnit = TimeUnit.MILLISECONDS)
@@ -20,6 +20,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.DoubleColDivideDoubleColumn;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.LongColAddLongColumn;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.LongColAddLongColumnChecked;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.LongColMultiplyLongScalar;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
@@ -126,6 +127,59 @@ public void setup() {
     }
   }
 
+  public static class LongColAddLongColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getLongColumnVector(),
+          getLongColumnVector());
+      expression = withVectorApi(new LongColAddLongColumn(0, 1, 2));
+      expression.setOutputTypeInfo(TypeInfoFactory.getPrimitiveTypeInfo("int"));
+    }
+  }
+
+  public static class LongColAddRepeatingLongColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getLongColumnVector(),
+          getRepeatingLongColumnVector());
+      expression = withVectorApi(new LongColAddLongColumn(0, 1, 2));
+    }
+  }
+
+  public static class DoubleColAddDoubleColumnBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new DoubleColumnVector(), 2, getDoubleColumnVector(),
+          getDoubleColumnVector());
+      expression = new DoubleColAddDoubleColumn(0, 1, 2);
+    }
+  }
+
+  public static class DoubleColAddDoubleColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new DoubleColumnVector(), 2, getDoubleColumnVector(),
+          getDoubleColumnVector());
+      expression = withVectorApi(new DoubleColAddDoubleColumn(0, 1, 2));
+    }
+  }
+
+  public static class LongColMultiplyLongScalarBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 1, getLongColumnVector());
+      expression = new LongColMultiplyLongScalar(0, 3, 1);
+    }
+  }
+
+  public static class LongColMultiplyLongScalarVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 1, getLongColumnVector());
+      expression = withVectorApi(new LongColMultiplyLongScalar(0, 3, 1));
+    }
+  }
+
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder().include(".*" + VectorizedArithmeticBench.class.getSimpleName() +
         ".*").build();
@@ -190,6 +190,70 @@ public void setup() {
     }
   }
 
+  public static class LongColLessLongColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getLongColumnVector(), getLongColumnVector());
+      expression = withVectorApi(new LongColLessLongColumn(0, 1, 2));
+    }
+  }
+
+  public static class LongColLessLongScalarVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 1, getLongColumnVector());
+      expression = withVectorApi(new LongColLessLongScalar(0, 0, 1));
+    }
+  }
+
+  public static class DoubleColLessDoubleColumnBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getDoubleColumnVector(), getDoubleColumnVector());
+      expression = new DoubleColLessDoubleColumn(0, 1, 2);
+    }
+  }
+
+  public static class DoubleColLessDoubleColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getDoubleColumnVector(), getDoubleColumnVector());
+      expression = withVectorApi(new DoubleColLessDoubleColumn(0, 1, 2));
+    }
+  }
+
+  public static class FilterLongColLessLongScalarBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 1, getLongColumnVector());
+      expression = new FilterLongColLessLongScalar(0, 0);
+    }
+  }
+
+  public static class FilterLongColLessLongScalarVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 1, getLongColumnVector());
+      expression = withVectorApi(new FilterLongColLessLongScalar(0, 0));
+    }
+  }
+
+  public static class FilterDoubleColLessDoubleColumnBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getDoubleColumnVector(), getDoubleColumnVector());
+      expression = new FilterDoubleColLessDoubleColumn(0, 1);
+    }
+  }
+
+  public static class FilterDoubleColLessDoubleColumnVectorApiBench extends AbstractExpression {
+    @Override
+    public void setup() {
+      rowBatch = buildRowBatch(new LongColumnVector(), 2, getDoubleColumnVector(), getDoubleColumnVector());
+      expression = withVectorApi(new FilterDoubleColLessDoubleColumn(0, 1));
+    }
+  }
+
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder().include(".*" + VectorizedComparisonBench.class.getSimpleName() +
         ".*").build();
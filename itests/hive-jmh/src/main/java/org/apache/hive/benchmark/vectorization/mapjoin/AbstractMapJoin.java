@@ -14,15 +14,23 @@
 package org.apache.hive.benchmark.vectorization.mapjoin;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.exec.MapJoinOperator;
 import org.apache.hadoop.hive.ql.exec.Operator;
 import org.apache.hadoop.hive.ql.exec.tez.ObjectCache;
+import org.apache.hadoop.hive.ql.exec.util.rowobjects.RowTestObjects;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer;
 import org.apache.hadoop.hive.ql.exec.util.collectoroperator.CountCollectorTestOperator;
 import org.apache.hadoop.hive.ql.exec.util.collectoroperator.CountVectorCollectorTestOperator;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorRandomBatchSource;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.MapJoinTestConfig;
@@ -36,6 +44,8 @@
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.VectorMapJoinVariation;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.tez.runtime.common.objectregistry.ObjectRegistryImpl;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -131,6 +141,50 @@ protected void setupMapJoin(HiveConf hiveConf, long seed, int rowCount,
     }
   }
 
+  /**
+   * The big table batches are generated from a few random rows whose keys almost all end up in
+   * the small table.  Replaces the single long or string key of the big table batches so that
+   * about matchOutOfAThousand of a thousand rows have a small table key, and the other rows a
+   * key that is not in the small table.  Only for the vectorized implementations.
+   */
+  protected void setBigTableKeyMatchRate(long seed, int matchOutOfAThousand) {
+    Random random = new Random(seed);
+    Set<RowTestObjects> smallTableKeySet = testData.getSmallTableKeys();
+    List<RowTestObjects> smallTableKeys = new ArrayList<RowTestObjects>();
+    for (RowTestObjects smallTableKey : smallTableKeySet) {
+      if (smallTableKey.getRow()[0] != null) {
+        smallTableKeys.add(smallTableKey);
+      }
+    }
+    final int keyColumnNum = testDesc.bigTableKeyColumnNums[0];
+    for (VectorizedRowBatch batch : bigTableBatches) {
+      ColumnVector keyColumn = batch.cols[keyColumnNum];
+      keyColumn.reset();
+      if (keyColumn instanceof BytesColumnVector) {
+        ((BytesColumnVector) keyColumn).initBuffer();
+      }
+      Arrays.fill(keyColumn.isNull, false);
+      for (int logical = 0; logical < batch.size; logical++) {
+        final int batchIndex = (batch.selectedInUse ? batch.selected[logical] : logical);
+        Object key;
+        if (random.nextInt(1000) < matchOutOfAThousand) {
+          key = smallTableKeys.get(random.nextInt(smallTableKeys.size())).getRow()[0];
+        } else {
+          do {
+            key = (keyColumn instanceof LongColumnVector ?
+                new LongWritable(random.nextLong()) : new Text(Long.toHexString(random.nextLong())));
+          } while (smallTableKeySet.contains(new RowTestObjects(new Object[] {key})));
+        }
+        if (keyColumn instanceof LongColumnVector) {
+          ((LongColumnVector) keyColumn).vector[batchIndex] = ((LongWritable) key).get();
+        } else {
+          Text text = (Text) key;
+          ((BytesColumnVector) keyColumn).setVal(batchIndex, text.getBytes(), 0, text.getLength());
+        }
+      }
+    }
+  }
+
   private static boolean isVectorOutput(MapJoinTestImplementation mapJoinImplementation) {
     return
         (mapJoinImplementation != MapJoinTestImplementation.ROW_MODE_HASH_MAP &&
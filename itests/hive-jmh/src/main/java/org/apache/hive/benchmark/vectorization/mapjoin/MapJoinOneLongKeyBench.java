@@ -21,6 +21,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.MapJoinTestConfig.MapJoinTestImplementation;
 import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.VectorMapJoinVariation;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.runner.Runner;
@@ -40,6 +41,9 @@
  *    X
  *  {ROW_MODE_HASH_MAP, ROW_MODE_OPTIMIZED, VECTOR_PASS_THROUGH, NATIVE_VECTOR_OPTIMIZED, NATIVE_VECTOR_FAST}
  *
+ *  and NATIVE_VECTOR_FAST with and without the Bloom filter for {INNER, INNER_BIG_ONLY, LEFT_SEMI},
+ *  with big table keys replaced so that about 5% of the big table rows have a small table key.
+ *
  */
 @State(Scope.Benchmark)
 public class MapJoinOneLongKeyBench extends AbstractMapJoin {
@@ -84,6 +88,18 @@ public void setup() throws Exception {
     }
   }
 
+  public static class MapJoinOneLongKeyInnerNativeVectorFastLowMatchBench extends MapJoinOneLongKeyBenchBase {
+
+    @Param({"true", "false"})
+    public boolean bloomFilterEnabled;
+
+    @Setup
+    public void setup() throws Exception {
+      doSetup(VectorMapJoinVariation.INNER, MapJoinTestImplementation.NATIVE_VECTOR_FAST,
+          bloomFilterEnabled, 50);
+    }
+  }
+
   //-----------------------------------------------------------------------------------------------
 
   public static class MapJoinOneLongKeyInnerBigOnlyRowModeHashMapBench extends MapJoinOneLongKeyBenchBase {
@@ -126,6 +142,18 @@ public void setup() throws Exception {
     }
   }
 
+  public static class MapJoinOneLongKeyInnerBigOnlyNativeVectorFastLowMatchBench extends MapJoinOneLongKeyBenchBase {
+
+    @Param({"true", "false"})
+    public boolean bloomFilterEnabled;
+
+    @Setup
+    public void setup() throws Exception {
+      doSetup(VectorMapJoinVariation.INNER_BIG_ONLY, MapJoinTestImplementation.NATIVE_VECTOR_FAST,
+          bloomFilterEnabled, 50);
+    }
+  }
+
   //-----------------------------------------------------------------------------------------------
 
   public static class MapJoinOneLongKeyLeftSemiRowModeHashMapBench extends MapJoinOneLongKeyBenchBase {
@@ -168,6 +196,18 @@ public void setup() throws Exception {
     }
   }
 
+  public static class MapJoinOneLongKeyLeftSemiNativeVectorFastLowMatchBench extends MapJoinOneLongKeyBenchBase {
+
+    @Param({"true", "false"})
+    public boolean bloomFilterEnabled;
+
+    @Setup
+    public void setup() throws Exception {
+      doSetup(VectorMapJoinVariation.LEFT_SEMI, MapJoinTestImplementation.NATIVE_VECTOR_FAST,
+          bloomFilterEnabled, 50);
+    }
+  }
+
   //-----------------------------------------------------------------------------------------------
 
   public static class MapJoinOneLongKeyOuterRowModeHashMapBench extends MapJoinOneLongKeyBenchBase {
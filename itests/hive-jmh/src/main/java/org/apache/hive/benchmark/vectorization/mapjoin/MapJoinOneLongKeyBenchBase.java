@@ -30,8 +30,20 @@ public abstract class MapJoinOneLongKeyBenchBase extends AbstractMapJoin {
   
   public void doSetup(VectorMapJoinVariation vectorMapJoinVariation,
       MapJoinTestImplementation mapJoinImplementation) throws Exception {
+    doSetup(vectorMapJoinVariation, mapJoinImplementation, false, -1);
+  }
+
+  /**
+   * @param bigTableMatchOutOfAThousand when not negative, the big table keys are replaced so that
+   *     this many of a thousand rows have a small table key
+   */
+  public void doSetup(VectorMapJoinVariation vectorMapJoinVariation,
+      MapJoinTestImplementation mapJoinImplementation, boolean bloomFilterEnabled,
+      int bigTableMatchOutOfAThousand) throws Exception {
     
     HiveConf hiveConf = new HiveConf();
+    HiveConf.setBoolVar(hiveConf,
+        HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_BLOOM_FILTER_ENABLED, bloomFilterEnabled);
 
     long seed = 2543;
 
@@ -63,5 +75,9 @@ public void doSetup(VectorMapJoinVariation vectorMapJoinVariation,
         bigTableRetainColumnNums,
         smallTableRetainKeyColumnNums, smallTableRetainValueColumnNums,
         smallTableGenerationParameters);
+
+    if (bigTableMatchOutOfAThousand >= 0) {
+      setBigTableKeyMatchRate(seed, bigTableMatchOutOfAThousand);
+    }
   }
 }
\ No newline at end of file
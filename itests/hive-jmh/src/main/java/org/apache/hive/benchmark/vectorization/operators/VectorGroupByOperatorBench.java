@@ -17,9 +17,11 @@
 package org.apache.hive.benchmark.vectorization.operators;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.CompilationOpContext;
 import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
 import org.apache.hadoop.hive.ql.exec.Operator;
@@ -45,7 +47,6 @@
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 import org.apache.hive.benchmark.vectorization.ColumnVectorGenUtil;
-import org.apache.orc.TypeDescription;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
@@ -117,9 +118,30 @@ public class VectorGroupByOperatorBench extends AbstractOperatorBench {
   })
   private String dataType;
 
+  // GROUP BY key columns for the HASH processing mode: none, one bigint, two bigint or one string.
+  @Param({
+    "none",
+    "long",
+    "twoLong",
+    "string"
+  })
+  private String keys;
+
+  // Compares the primitive open addressing hash table against the HashMap of key wrappers.
+  @Param({
+    "false",
+    "true"
+  })
+  private boolean nativeHashTable;
+
+  // Number of distinct input batches cycled through; with random keys each batch adds new groups.
+  private static final int KEY_BATCH_COUNT = 16;
+
   private Random rand = new Random(1234);
   private VectorGroupByOperator vgo;
   private VectorizedRowBatch vrb;
+  private VectorizedRowBatch[] keyedBatches;
+  private int batchIndex;
   private int size = VectorizedRowBatch.DEFAULT_SIZE;
 
   @Setup
@@ -127,18 +149,33 @@ public void setup() {
     try {
       dataType = dataType.replaceAll("_", ",");
       TypeInfo typeInfo = TypeInfoFactory.getPrimitiveTypeInfo(dataType);
+      List<TypeInfo> keyTypeInfos = getKeyTypeInfos();
+      if (!keyTypeInfos.isEmpty() && processMode != VectorGroupByDesc.ProcessingMode.HASH) {
+        throw new HiveException("GROUP BY keys are only benchmarked in HASH mode");
+      }
       ColumnVector cv = ColumnVectorGenUtil.generateColumnVector(typeInfo, hasNulls, isRepeating, size, rand);
-      TypeDescription typeDescription = TypeDescription.fromString(dataType);
-      vrb = typeDescription.createRowBatch(size);
-      vrb.size = size;
-      vrb.cols[0] = cv;
-      VectorizationContext ctx = new VectorizationContext("name", ImmutableList.of("A"));
+      vrb = createBatch(typeInfo, cv, keyTypeInfos);
+      keyedBatches = new VectorizedRowBatch[KEY_BATCH_COUNT];
+      keyedBatches[0] = vrb;
+      for (int i = 1; i < KEY_BATCH_COUNT && !keyTypeInfos.isEmpty(); i++) {
+        keyedBatches[i] = createBatch(typeInfo, cv, keyTypeInfos);
+      }
+      List<String> columnNames = new ArrayList<>();
+      columnNames.add("A");
+      for (int i = 0; i < keyTypeInfos.size(); i++) {
+        columnNames.add("K" + i);
+      }
+      VectorizationContext ctx = new VectorizationContext("name", columnNames);
       GroupByDesc desc = buildGroupByDescType(aggregation, evalMode, "A", typeInfo, processMode);
+      addKeys(desc, keyTypeInfos);
       Operator<? extends OperatorDesc> groupByOp = OperatorFactory.get(new CompilationOpContext(), desc);
       VectorGroupByDesc vectorGroupByDesc = new VectorGroupByDesc();
       vectorGroupByDesc.setProcessingMode(ProcessingMode.HASH);
       vgo = (VectorGroupByOperator) Vectorizer.vectorizeGroupByOperator(groupByOp, ctx, vectorGroupByDesc);
-      vgo.initialize(new Configuration(), null);
+      Configuration conf = new Configuration();
+      HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED,
+          nativeHashTable);
+      vgo.initialize(conf, null);
     } catch (Exception e) {
       // likely unsupported combination of params
       // https://bugs.openjdk.java.net/browse/CODETOOLS-7901296 is not available yet to skip benchmark cleanly
@@ -147,6 +184,45 @@ public void setup() {
     }
   }
 
+  private List<TypeInfo> getKeyTypeInfos() {
+    switch (keys) {
+    case "none":
+      return ImmutableList.of();
+    case "long":
+      return ImmutableList.of(TypeInfoFactory.longTypeInfo);
+    case "twoLong":
+      return ImmutableList.of(TypeInfoFactory.longTypeInfo, TypeInfoFactory.longTypeInfo);
+    case "string":
+      return ImmutableList.of(TypeInfoFactory.stringTypeInfo);
+    default:
+      throw new IllegalArgumentException("Unknown keys " + keys);
+    }
+  }
+
+  private VectorizedRowBatch createBatch(TypeInfo typeInfo, ColumnVector cv,
+      List<TypeInfo> keyTypeInfos) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(1 + keyTypeInfos.size(), size);
+    batch.size = size;
+    batch.cols[0] = cv;
+    for (int i = 0; i < keyTypeInfos.size(); i++) {
+      batch.cols[i + 1] = ColumnVectorGenUtil.generateColumnVector(keyTypeInfos.get(i), hasNulls,
+          false, size, rand);
+    }
+    return batch;
+  }
+
+  private void addKeys(GroupByDesc desc, List<TypeInfo> keyTypeInfos) {
+    ArrayList<ExprNodeDesc> keyExprs = new ArrayList<ExprNodeDesc>();
+    ArrayList<String> outputColumnNames = new ArrayList<String>();
+    for (int i = 0; i < keyTypeInfos.size(); i++) {
+      keyExprs.add(new ExprNodeColumnDesc(keyTypeInfos.get(i), "K" + i, "table", false));
+      outputColumnNames.add("_col" + i);
+    }
+    outputColumnNames.add("_col" + keyTypeInfos.size());
+    desc.setKeys(keyExprs);
+    desc.setOutputColumnNames(outputColumnNames);
+  }
+
   private GroupByDesc buildGroupByDescType(
     String aggregate,
     GenericUDAFEvaluator.Mode mode,
@@ -206,7 +282,12 @@ public void tearDown() throws HiveException {
 
   @Benchmark
   public void testAggCount() throws HiveException {
-    vgo.process(vrb, 0);
+    if (keyedBatches[1] == null) {
+      vgo.process(vrb, 0);
+    } else {
+      vgo.process(keyedBatches[batchIndex], 0);
+      batchIndex = (batchIndex + 1) % KEY_BATCH_COUNT;
+    }
   }
 
   /*
@@ -221,6 +302,7 @@ public void testAggCount() throws HiveException {
    *    $ java -jar target/benchmarks.jar VectorGroupByOperatorCountBench -prof perfasm  -f 1 (Linux)
    *    $ java -jar target/benchmarks.jar VectorGroupByOperatorCountBench -prof gc  -f 1 (allocation counting via gc)
    *    $ java -jar target/benchmarks.jar VectorGroupByOperatorBench -p hasNulls=true -p isRepeating=false -p aggregation=bloom_filter  -p processMode=HASH -p evalMode=PARTIAL1
+   *    $ java -jar target/benchmarks.jar VectorGroupByOperatorBench -p processMode=HASH -p evalMode=PARTIAL1 -p aggregation=sum -p dataType=bigint -p keys=long -p nativeHashTable=true,false -prof gc
    *    $ java -agentlib:jdwp=transport=dt_socket,address=127.0.0.1:6006,suspend=y,server=y -jar target/benchmarks.jar VectorGroupByOperatorBench
    */
 
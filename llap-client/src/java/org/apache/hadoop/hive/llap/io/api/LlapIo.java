@@ -70,6 +70,12 @@ InputFormat<NullWritable, T> getInputFormat(
 
   void initCacheOnlyInputFormat(InputFormat<?, ?> inputFormat);
 
+  /**
+   * Returns the URI strings of the files with data in the cache, as far as they are known. Used to publish the
+   * summary of the cache contents for the split locations.
+   */
+  List<String> getCachedFilePaths();
+
   /**
    * Creates an LLAP record reader for a given file, by creating a split from this file, and passing it into a new
    * LLAP record reader. May return null when attempting with unsupported schema evolution between reader and file
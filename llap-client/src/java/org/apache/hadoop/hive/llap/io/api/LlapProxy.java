@@ -21,6 +21,8 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.llap.coordinator.LlapCoordinator;
 
+import com.google.common.annotations.VisibleForTesting;
+
 @SuppressWarnings("rawtypes")
 public class LlapProxy {
   private final static String IO_IMPL_CLASS = "org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl";
@@ -43,6 +45,11 @@ public static LlapIo getIo() {
     return io;
   }
 
+  @VisibleForTesting
+  public static void setIo(LlapIo io) {
+    LlapProxy.io = io;
+  }
+
   public static void initializeLlapIo(Configuration conf) {
     if (io != null) {
       return; // already initialized
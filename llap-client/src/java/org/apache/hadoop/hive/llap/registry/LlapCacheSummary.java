@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.registry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.apache.hive.common.util.BloomKFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact summary of the files in the LLAP IO cache of a daemon: a Bloom filter of the file paths, published by
+ * the daemon as an attribute of its registry record. A false positive only costs a less useful location.
+ */
+public final class LlapCacheSummary {
+  private static final Logger LOG = LoggerFactory.getLogger(LlapCacheSummary.class);
+
+  /** The registry attribute holding the summary. */
+  public static final String LLAP_DAEMON_CACHE_SUMMARY = "hive.llap.daemon.cache.summary";
+
+  private final BloomKFilter filter;
+
+  private LlapCacheSummary(BloomKFilter filter) {
+    this.filter = filter;
+  }
+
+  /**
+   * @param paths the URI strings of the cached files
+   * @param maxFiles the maximum number of paths to include, to bound the size of the summary
+   */
+  public static LlapCacheSummary create(Collection<String> paths, int maxFiles) {
+    int count = Math.min(paths.size(), maxFiles);
+    BloomKFilter filter = new BloomKFilter(Math.max(1, count));
+    Iterator<String> iter = paths.iterator();
+    for (int i = 0; i < count; ++i) {
+      filter.addString(iter.next());
+    }
+    return new LlapCacheSummary(filter);
+  }
+
+  /** @return Whether the file with the given URI string might be cached. */
+  public boolean mightContain(String path) {
+    return filter.testString(path);
+  }
+
+  public String serialize() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      BloomKFilter.serialize(out, filter);
+    } catch (IOException e) {
+      throw new AssertionError("Cannot serialize to memory", e);
+    }
+    return Base64.getEncoder().encodeToString(out.toByteArray());
+  }
+
+  public static LlapCacheSummary deserialize(String value) throws IOException {
+    try {
+      return new LlapCacheSummary(BloomKFilter.deserialize(
+          new ByteArrayInputStream(Base64.getDecoder().decode(value))));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid LLAP cache summary", e);
+    }
+  }
+
+  /** @return The summary published by the instance, or null if there is none. */
+  public static LlapCacheSummary fromInstance(LlapServiceInstance instance) {
+    String value = instance.getProperties().get(LLAP_DAEMON_CACHE_SUMMARY);
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    try {
+      return deserialize(value);
+    } catch (IOException e) {
+      LOG.warn("Ignoring the cache summary of " + instance.getWorkerIdentity(), e);
+      return null;
+    }
+  }
+}
@@ -27,6 +27,7 @@ public enum LlapIOCounters {
   SELECTED_ROWGROUPS(true),
   NUM_ERRORS(true),
   ROWS_EMITTED(true),
+  NUM_SKIPPED_VECTOR_BATCHES(true),
   METADATA_CACHE_HIT(true),
   METADATA_CACHE_MISS(true),
   CACHE_HIT_BYTES(true),
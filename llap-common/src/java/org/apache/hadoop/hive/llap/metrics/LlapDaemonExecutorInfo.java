@@ -67,6 +67,9 @@ public enum LlapDaemonExecutorInfo implements MetricsInfo {
   ExecutorFallOffNumCompletedFragments("Number of completed fragments w.r.t falloff values"),
   AverageQueueTime("Average queue time for tasks"),
   AverageResponseTime("Average response time for successful tasks"),
+  ExecutorBatchPoolHits("Number of vectorized row batches and string buffers reused from the pool"),
+  ExecutorBatchPoolMisses("Number of vectorized row batches and string buffers not found in the pool"),
+  ExecutorBatchPoolRetainedBytes("Estimated size of the vectorized row batches and string buffers in the pool"),
   ;
 
   private final String desc;
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.io.Allocator;
+import org.apache.hadoop.hive.common.io.Allocator.AllocatorOutOfMemoryException;
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+
+/**
+ * Keeps the data of the configured tables LZ4-compressed in the ORC data cache. The buffers are
+ * compressed when they are put in the cache; the reader that put them keeps using the originals,
+ * which are not cached. A cache hit decompresses the buffer into a new buffer that is not cached
+ * either, and is deallocated when the reader releases it.
+ */
+final class CacheCompressor {
+  private static final ThreadLocal<Lz4Compressor> COMPRESSOR = ThreadLocal.withInitial(Lz4Compressor::new);
+  private static final ThreadLocal<ByteBuffer> SCRATCH = new ThreadLocal<>();
+  private static final Lz4Decompressor DECOMPRESSOR = new Lz4Decompressor();
+
+  private final Set<String> tables = new HashSet<>();
+  private final Allocator allocator;
+  private final LlapDaemonCacheMetrics metrics;
+
+  /** @return The compressor for the configured tables; null if no table is configured. */
+  static CacheCompressor create(Configuration conf, Allocator allocator, LlapDaemonCacheMetrics metrics) {
+    String[] tables = HiveConf.getTrimmedStringsVar(conf, ConfVars.LLAP_IO_CACHE_COMPRESS_TABLES);
+    return tables.length == 0 ? null : new CacheCompressor(tables, allocator, metrics);
+  }
+
+  CacheCompressor(String[] tables, Allocator allocator, LlapDaemonCacheMetrics metrics) {
+    for (String table : tables) {
+      this.tables.add(table.toLowerCase());
+    }
+    this.allocator = allocator;
+    this.metrics = metrics;
+    LlapIoImpl.LOG.info("Keeping the cached data of {} compressed", this.tables);
+  }
+
+  boolean isEnabledFor(CacheTag tag) {
+    if (tag == null) {
+      return false;
+    }
+    String table = tag.getTableName().toLowerCase();
+    if (tables.contains("*") || tables.contains(table)) {
+      return true;
+    }
+    int dbEnd = table.indexOf('.');
+    return dbEnd > 0 && tables.contains(table.substring(0, dbEnd) + ".*");
+  }
+
+  /**
+   * @return A new, unlocked buffer with the data of the buffer compressed; null if compressing
+   *         the data would not save memory.
+   */
+  LlapDataBuffer compress(LlapDataBuffer buffer) {
+    ByteBuffer data = buffer.getByteBufferDup();
+    int length = data.remaining();
+    Lz4Compressor compressor = COMPRESSOR.get();
+    ByteBuffer scratch = getScratch(compressor.maxCompressedLength(length));
+    compressor.compress(data, scratch);
+    scratch.flip();
+    int compressedLength = scratch.remaining();
+    // The allocations are powers of two; the compressed data has to fit in half the allocation.
+    if (compressedLength > buffer.allocSize / 2) {
+      return null;
+    }
+    LlapDataBuffer result = allocate(compressedLength);
+    if (result == null) {
+      return null;
+    }
+    ByteBuffer target = result.getByteBufferRaw();
+    int start = target.position();
+    target.put(scratch);
+    target.limit(target.position());
+    target.position(start);
+    result.decompressedLength = length;
+    metrics.incrCacheCompressed(length, result.allocSize);
+    return result;
+  }
+
+  /**
+   * @return A new, unlocked buffer with the data of the compressed buffer, that is not cached;
+   *         null if the memory cannot be allocated.
+   */
+  LlapDataBuffer decompress(LlapDataBuffer buffer) {
+    LlapDataBuffer result = allocate(buffer.decompressedLength);
+    if (result == null) {
+      return null;
+    }
+    long startTime = System.nanoTime();
+    decompress(buffer, result.getByteBufferRaw());
+    metrics.addCacheDecompression(System.nanoTime() - startTime);
+    return result;
+  }
+
+  /** Updates the metrics for a compressed buffer that is no longer cached. */
+  void notifyEvicted(LlapDataBuffer buffer) {
+    metrics.incrCacheCompressed(-buffer.decompressedLength, -buffer.allocSize);
+  }
+
+  /**
+   * Decompresses the data of the compressed buffer into the target, and sets the limit of the
+   * target to the end of the data.
+   */
+  static void decompress(LlapDataBuffer buffer, ByteBuffer target) {
+    int start = target.position();
+    DECOMPRESSOR.decompress(buffer.getByteBufferDup(), target);
+    assert target.position() - start == buffer.decompressedLength;
+    target.limit(target.position());
+    target.position(start);
+  }
+
+  private LlapDataBuffer allocate(int size) {
+    MemoryBuffer[] dest = new MemoryBuffer[1];
+    try {
+      allocator.allocateMultiple(dest, size, LlapDataBuffer::new);
+    } catch (AllocatorOutOfMemoryException e) {
+      LlapIoImpl.CACHE_LOGGER.info("Cannot allocate {} bytes for the cached data: {}", size, e.getMessage());
+      return null;
+    }
+    return (LlapDataBuffer) dest[0];
+  }
+
+  private static ByteBuffer getScratch(int size) {
+    ByteBuffer scratch = SCRATCH.get();
+    if (scratch == null || scratch.capacity() < size) {
+      scratch = ByteBuffer.allocate(size);
+      SCRATCH.set(scratch);
+    }
+    scratch.clear();
+    return scratch;
+  }
+}
@@ -19,29 +19,54 @@
 package org.apache.hadoop.hive.llap.cache;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
 import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
 
 import static java.util.stream.Collectors.joining;
 
 /**
- * A wrapper around cache eviction policy that tracks cache contents via tags.
+ * A wrapper around cache eviction policy that tracks cache contents via tags, and the cache usage
+ * of the workload management pools. The pools can have soft quotas: when the cache has to evict,
+ * the oldest buffers of the pools over their quotas are evicted before asking the real policy.
  */
-public class CacheContentsTracker implements LowLevelCachePolicy, ProactiveEvictingCachePolicy, EvictionListener {
+public class CacheContentsTracker implements LowLevelCachePolicy, ProactiveEvictingCachePolicy, EvictionListener,
+    CacheContentsTrackerMXBean {
   private static final long CLEANUP_TIME_MS = 3600 * 1000L, MIN_TIME_MS = 300 * 1000L;
 
   private final ConcurrentSkipListMap<CacheTag, TagState> tagInfo = new ConcurrentSkipListMap<>();
+  private final ConcurrentHashMap<String, PoolState> poolInfo = new ConcurrentHashMap<>();
+  private final Map<String, Long> poolQuotas;
   private EvictionListener evictionListener;
   private LowLevelCachePolicy realPolicy;
   private final Thread cleanupThread;
 
   public CacheContentsTracker(LowLevelCachePolicy realPolicy) {
+    this(realPolicy, Collections.emptyMap());
+  }
+
+  public CacheContentsTracker(LowLevelCachePolicy realPolicy, Configuration conf, long totalMemorySize) {
+    this(realPolicy, parsePoolQuotas(HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_POOL_QUOTAS), totalMemorySize));
+  }
+
+  private CacheContentsTracker(LowLevelCachePolicy realPolicy, Map<String, Long> poolQuotas) {
     this.realPolicy = realPolicy;
+    this.poolQuotas = poolQuotas;
+    if (!poolQuotas.isEmpty()) {
+      LlapIoImpl.LOG.info("LLAP cache quotas of the pools: {}", poolQuotas);
+    }
     realPolicy.setEvictionListener(this);
     this.cleanupThread = new Thread(new CleanupRunnable());
     this.cleanupThread.start();
@@ -88,10 +113,67 @@ private static class TagState {
     public long bufferCount, totalSize, maxCount, maxSize;
   }
 
+  /**
+   * The cache usage of a workload management pool.
+   */
+  private static final class PoolState {
+    PoolState(long quota) {
+      this.quota = quota;
+      this.buffers = quota < 0 ? null : new LinkedHashSet<>();
+    }
+    /** The quota in bytes; -1 if the pool has none. */
+    final long quota;
+    long bufferCount, totalSize;
+    /** The buffers in the order they were cached, to evict the oldest first; only for a pool with a quota. */
+    final LinkedHashSet<LlapCacheableBuffer> buffers;
+
+    /** @return The oldest buffer of the pool, removed from the pool, if the pool is over its quota. */
+    synchronized LlapCacheableBuffer pollIfOverQuota() {
+      if (buffers == null || totalSize <= quota || buffers.isEmpty()) {
+        return null;
+      }
+      Iterator<LlapCacheableBuffer> iter = buffers.iterator();
+      LlapCacheableBuffer buffer = iter.next();
+      iter.remove();
+      return buffer;
+    }
+  }
+
+  static Map<String, Long> parsePoolQuotas(String value, long totalMemorySize) {
+    Map<String, Long> result = new HashMap<>();
+    for (String entry : value.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) continue;
+      int ix = entry.lastIndexOf(':');
+      double fraction;
+      try {
+        fraction = ix <= 0 ? -1 : Double.parseDouble(entry.substring(ix + 1).trim());
+      } catch (NumberFormatException e) {
+        fraction = -1;
+      }
+      if (fraction < 0 || fraction > 1) {
+        throw new IllegalArgumentException("Invalid pool quota " + entry + " in "
+            + ConfVars.LLAP_IO_CACHE_POOL_QUOTAS.varname + "; expected pool:fraction, with a fraction in [0, 1]");
+      }
+      result.put(entry.substring(0, ix).trim(), (long) (fraction * totalMemorySize));
+    }
+    return result;
+  }
+
   private void reportCached(LlapCacheableBuffer buffer) {
     long size = buffer.getMemoryUsage();
     TagState state = getTagState(buffer);
     reportCached(state, size);
+    if (buffer.wmPool != null) {
+      PoolState pool = getPoolState(buffer.wmPool);
+      synchronized (pool) {
+        ++pool.bufferCount;
+        pool.totalSize += size;
+        if (pool.buffers != null) {
+          pool.buffers.add(buffer);
+        }
+      }
+    }
   }
 
   private void reportCached(TagState state, long size) {
@@ -107,6 +189,16 @@ private void reportRemoved(LlapCacheableBuffer buffer) {
     long size = buffer.getMemoryUsage();
     TagState state = getTagState(buffer);
     reportRemoved(state, size);
+    if (buffer.wmPool != null) {
+      PoolState pool = getPoolState(buffer.wmPool);
+      synchronized (pool) {
+        --pool.bufferCount;
+        pool.totalSize -= size;
+        if (pool.buffers != null) {
+          pool.buffers.remove(buffer);
+        }
+      }
+    }
   }
 
   private void reportRemoved(TagState state, long size) {
@@ -134,6 +226,9 @@ private TagState getTagState(CacheTag tag) {
     return state;
   }
 
+  private PoolState getPoolState(String pool) {
+    return poolInfo.computeIfAbsent(pool, p -> new PoolState(poolQuotas.getOrDefault(p, -1L)));
+  }
 
   @Override
   public void cache(LlapCacheableBuffer buffer, Priority priority) {
@@ -163,7 +258,41 @@ public long purge() {
 
   @Override
   public long evictSomeBlocks(long memoryToReserve) {
-    return realPolicy.evictSomeBlocks(memoryToReserve);
+    long evicted = poolQuotas.isEmpty() ? 0 : evictOverQuota(memoryToReserve);
+    if (evicted < memoryToReserve) {
+      evicted += realPolicy.evictSomeBlocks(memoryToReserve - evicted);
+    }
+    return evicted;
+  }
+
+  /**
+   * Evicts the oldest buffers of the pools over their quotas. The real policy drops the evicted
+   * buffers when it finds them invalidated.
+   */
+  private long evictOverQuota(long memoryToReserve) {
+    long evicted = 0;
+    for (PoolState pool : poolInfo.values()) {
+      if (pool.buffers == null) continue;
+      ArrayList<LlapCacheableBuffer> lockedBuffers = new ArrayList<>();
+      while (evicted < memoryToReserve) {
+        LlapCacheableBuffer buffer = pool.pollIfOverQuota();
+        if (buffer == null) break;
+        long memUsage = buffer.getMemoryUsage();
+        int invalidateResult = buffer.invalidate();
+        if (invalidateResult == LlapCacheableBuffer.INVALIDATE_OK) {
+          evicted += memUsage;
+          notifyEvicted(buffer);
+        } else if (invalidateResult == LlapCacheableBuffer.INVALIDATE_FAILED) {
+          lockedBuffers.add(buffer); // In use; keep it, as the most recent buffer of the pool.
+        }
+      }
+      if (!lockedBuffers.isEmpty()) {
+        synchronized (pool) {
+          pool.buffers.addAll(lockedBuffers);
+        }
+      }
+    }
+    return evicted;
   }
 
   @Override
@@ -195,6 +324,46 @@ public void debugDumpShort(StringBuilder sb) {
     }
     sb.append("\nCache state: \n");
     sb.append(endResult.stream().sorted().collect(joining("\n")));
+    if (!poolInfo.isEmpty()) {
+      sb.append("\nCache pools: ");
+      for (Map.Entry<String, PoolState> e : new TreeMap<>(poolInfo).entrySet()) {
+        PoolState pool = e.getValue();
+        synchronized (pool) {
+          sb.append("\n").append(e.getKey()).append(" : ").append(pool.bufferCount).append(", ")
+              .append(pool.totalSize);
+        }
+        if (pool.quota >= 0) {
+          sb.append("/").append(pool.quota);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Long> getTableUsage() {
+    Map<String, Long> result = new TreeMap<>();
+    for (TagState state : tagInfo.values()) {
+      synchronized (state) {
+        result.merge(state.cacheTag.getTableName(), state.totalSize, Long::sum);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getPoolUsage() {
+    Map<String, Long> result = new TreeMap<>();
+    for (Map.Entry<String, PoolState> e : poolInfo.entrySet()) {
+      synchronized (e.getValue()) {
+        result.put(e.getKey(), e.getValue().totalSize);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> getPoolQuotas() {
+    return new TreeMap<>(poolQuotas);
   }
 
   /**
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import java.util.Map;
+
+import javax.management.MXBean;
+
+/**
+ * MXbean to expose the cache usage of the tables and the workload management pools through JMX.
+ */
+@MXBean public interface CacheContentsTrackerMXBean {
+
+  /**
+   * Gets the bytes of the cache used by each table, partitions included.
+   *
+   * @return cache usage per table
+   */
+  Map<String, Long> getTableUsage();
+
+  /**
+   * Gets the bytes of the cache used by the queries of each workload management pool.
+   *
+   * @return cache usage per pool
+   */
+  Map<String, Long> getPoolUsage();
+
+  /**
+   * Gets the soft quotas of the workload management pools, in bytes.
+   *
+   * @return quota per pool
+   */
+  Map<String, Long> getPoolQuotas();
+
+}
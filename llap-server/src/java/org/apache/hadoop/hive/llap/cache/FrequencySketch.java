@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+/**
+ * Count-min sketch of the access frequency of the cached keys, for TinyLFU admission.
+ * Each key has four 4-bit counters (so the frequency saturates at 15) in different longs of
+ * the table, and its frequency is the smallest of them. Once the number of increments reaches
+ * 10x the table size, all the counters are halved, so that the old history fades away.
+ * Not thread-safe; the cache policy only uses it under its lock.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  /** Caps the sketch at 16Mb for very large caches of small buffers. */
+  private static final int MAX_TABLE_SIZE = 1 << 21;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  FrequencySketch(long expectedKeys) {
+    int tableSize = (int) Math.min(MAX_TABLE_SIZE, Math.max(16, expectedKeys));
+    tableSize = Integer.highestOneBit(tableSize - 1) << 1;
+    table = new long[tableSize];
+    tableMask = tableSize - 1;
+    sampleSize = 10 * tableSize;
+  }
+
+  /** @return The estimated number of accesses to the key, up to 15. */
+  int frequency(long keyHash) {
+    int hash = spread(keyHash);
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; ++i) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(long keyHash) {
+    int hash = spread(keyHash);
+    int start = (hash & 3) << 2;
+    boolean isAdded = false;
+    for (int i = 0; i < 4; ++i) {
+      isAdded |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (isAdded && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) == mask) {
+      return false; // Saturated.
+    }
+    table[index] += 1L << offset;
+    return true;
+  }
+
+  private void reset() {
+    int oddCount = 0;
+    for (int i = 0; i < table.length; ++i) {
+      oddCount += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size - (oddCount >>> 2)) >>> 1;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  private static int spread(long keyHash) {
+    int x = (int) (keyHash ^ (keyHash >>> 32));
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
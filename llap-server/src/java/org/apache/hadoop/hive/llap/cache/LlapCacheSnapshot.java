@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.hive.common.io.Allocator.AllocatorOutOfMemoryException;
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.common.io.DiskRange;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBufferOrBuffers;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.io.metadata.MetadataCache;
+import org.apache.hadoop.hive.llap.io.metadata.MetadataCache.LlapBufferOrBuffers;
+import org.apache.hadoop.hive.ql.io.SyntheticFileId;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Persists the contents of the ORC data and metadata caches to a local file, so that a restarted
+ * daemon can reload them instead of starting cold.
+ *
+ * The arenas themselves cannot be re-attached (the allocator unlinks the mapped files, and the
+ * buffer headers live on heap), so the snapshot holds the cached bytes together with their index:
+ * file key, cache tag, file offset and declared (compressed) length. Data buffers are written in
+ * the order of their cache policy priority, so that the hottest ones are reloaded first when the
+ * cache has shrunk. Only native (inode) and synthetic (path, length and modification time) file
+ * ids are persisted; both identify an immutable version of the file, so a stale entry can never
+ * be hit. The snapshot is discarded as a whole if it was written with a different default FS or
+ * file id settings, or if its checksum does not match.
+ */
+public class LlapCacheSnapshot {
+  public static final String SNAPSHOT_FILE_NAME = "llap-cache.snapshot";
+
+  private static final int MAGIC = 0x4c4c4353; // LLCS
+  private static final int VERSION = 1;
+  private static final byte RECORD_END = 0, RECORD_METADATA = 1, RECORD_DATA = 2;
+  private static final byte KEY_NATIVE = 1, KEY_SYNTHETIC = 2;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final String configFingerprint;
+  private final LowLevelCacheImpl dataCache;
+  private final MetadataCache metadataCache;
+  private final long maxRestoreBytes;
+
+  public LlapCacheSnapshot(Configuration conf, LowLevelCacheImpl dataCache, MetadataCache metadataCache) {
+    this(new File(HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_SNAPSHOT_PATH), SNAPSHOT_FILE_NAME),
+        createConfigFingerprint(conf), dataCache, metadataCache,
+        HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_MEMORY_MAX_SIZE));
+  }
+
+  @VisibleForTesting
+  LlapCacheSnapshot(File file, String configFingerprint, LowLevelCacheImpl dataCache,
+      MetadataCache metadataCache, long maxRestoreBytes) {
+    this.file = file;
+    this.configFingerprint = configFingerprint;
+    this.dataCache = dataCache;
+    this.metadataCache = metadataCache;
+    this.maxRestoreBytes = maxRestoreBytes;
+  }
+
+  public static boolean isEnabled(Configuration conf) {
+    return !HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_SNAPSHOT_PATH).trim().isEmpty();
+  }
+
+  /**
+   * The file keys in the snapshot are only meaningful under the same file id settings and
+   * against the same default FS; the data buffers have to fit the maximum allocation.
+   */
+  private static String createConfigFingerprint(Configuration conf) {
+    return FileSystem.getDefaultUri(conf)
+        + "|" + HiveConf.getBoolVar(conf, ConfVars.LLAP_CACHE_ALLOW_SYNTHETIC_FILEID)
+        + "|" + HiveConf.getBoolVar(conf, ConfVars.LLAP_CACHE_DEFAULT_FS_FILE_ID)
+        + "|" + HiveConf.getBoolVar(conf, ConfVars.LLAP_IO_USE_FILEID_PATH)
+        + "|" + HiveConf.getSizeVar(conf, ConfVars.LLAP_ALLOCATOR_MAX_ALLOC);
+  }
+
+  /**
+   * Writes the current cache contents; the previous snapshot is replaced atomically.
+   * @return The number of cached bytes written.
+   */
+  public long save() throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create the cache snapshot directory " + dir);
+    }
+    File tmpFile = new File(dir, file.getName() + ".tmp");
+    long bytes;
+    try (OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(tmpFile), COPY_BUFFER_SIZE)) {
+      CRC32 crc = new CRC32();
+      DataOutputStream out = new DataOutputStream(new CheckedOutputStream(fileOut, crc));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(configFingerprint);
+      byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+      bytes = saveMetadata(out, copyBuffer) + saveData(out, copyBuffer);
+      out.writeByte(RECORD_END);
+      out.flush();
+      // The checksum itself is not a part of the checksummed stream.
+      new DataOutputStream(fileOut).writeLong(crc.getValue());
+    } catch (IOException | RuntimeException e) {
+      if (!tmpFile.delete()) {
+        LlapIoImpl.LOG.warn("Cannot delete the partial cache snapshot {}", tmpFile);
+      }
+      throw e;
+    }
+    Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    return bytes;
+  }
+
+  private long saveMetadata(DataOutputStream out, byte[] copyBuffer) throws IOException {
+    if (metadataCache == null) {
+      return 0;
+    }
+    long bytes = 0;
+    for (Map.Entry<Object, LlapBufferOrBuffers> e : metadataCache.getFileMetadataEntries().entrySet()) {
+      if (!isPersistableKey(e.getKey())) {
+        continue;
+      }
+      LlapAllocatorBuffer singleBuffer = e.getValue().getSingleLlapBuffer();
+      LlapAllocatorBuffer[] buffers = singleBuffer != null
+          ? new LlapAllocatorBuffer[] { singleBuffer } : e.getValue().getMultipleLlapBuffers();
+      int lockedCount = 0;
+      try {
+        for (LlapAllocatorBuffer buffer : buffers) {
+          if (buffer.tryIncRef() < 0) {
+            break;
+          }
+          ++lockedCount;
+        }
+        if (lockedCount < buffers.length) {
+          continue; // Being evicted.
+        }
+        int length = 0;
+        for (LlapAllocatorBuffer buffer : buffers) {
+          length += buffer.getByteBufferRaw().remaining();
+        }
+        out.writeByte(RECORD_METADATA);
+        writeKey(out, e.getKey());
+        writeTag(out, buffers[0].getTag());
+        out.writeInt(length);
+        for (LlapAllocatorBuffer buffer : buffers) {
+          writeBytes(out, buffer.getByteBufferDup(), copyBuffer);
+        }
+        bytes += length;
+      } finally {
+        for (int i = 0; i < lockedCount; ++i) {
+          buffers[i].decRef();
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private long saveData(DataOutputStream out, byte[] copyBuffer) throws IOException {
+    List<LlapDataBuffer> buffers = new ArrayList<>();
+    for (LlapDataBuffer buffer : dataCache.getCachedBuffers()) {
+      if (isPersistableKey(buffer.getFileKey())) {
+        buffers.add(buffer);
+      }
+    }
+    // The priorities can change under us; the order only has to be roughly right.
+    double[] priorities = new double[buffers.size()];
+    List<Integer> order = new ArrayList<>(buffers.size());
+    for (int i = 0; i < priorities.length; ++i) {
+      priorities[i] = buffers.get(i).priority;
+      order.add(i);
+    }
+    order.sort(Comparator.comparingDouble((Integer i) -> priorities[i]).reversed());
+
+    long bytes = 0;
+    for (int i : order) {
+      LlapDataBuffer buffer = buffers.get(i);
+      if (buffer.tryIncRef() < 0) {
+        continue; // Evicted or being moved.
+      }
+      try {
+        int declaredLength = buffer.declaredCachedLength;
+        if (declaredLength == LlapDataBuffer.UNKNOWN_CACHED_LENGTH) {
+          continue;
+        }
+        ByteBuffer bb = buffer.getByteBufferDup();
+        if (buffer.isCompressedInMemory()) {
+          // Write the data as is; the restore compresses it again, if needed.
+          bb = ByteBuffer.allocate(buffer.decompressedLength);
+          CacheCompressor.decompress(buffer, bb);
+        }
+        out.writeByte(RECORD_DATA);
+        writeKey(out, buffer.getFileKey());
+        writeTag(out, buffer.getTag());
+        out.writeLong(buffer.getStart());
+        out.writeInt(declaredLength);
+        out.writeInt(bb.remaining());
+        bytes += bb.remaining();
+        writeBytes(out, bb, copyBuffer);
+      } finally {
+        buffer.decRef();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Loads a previously saved snapshot into the caches, up to the cache size.
+   * @return The number of cached bytes restored; 0 if there is no valid snapshot.
+   */
+  public long restore() throws IOException {
+    if (!file.exists()) {
+      LlapIoImpl.LOG.info("No LLAP cache snapshot found at {}", file);
+      return 0;
+    }
+    if (!verifyChecksum()) {
+      LlapIoImpl.LOG.warn("Ignoring the corrupt LLAP cache snapshot {}", file);
+      return 0;
+    }
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file), COPY_BUFFER_SIZE))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LlapIoImpl.LOG.warn("Ignoring the LLAP cache snapshot {} of an unknown version", file);
+        return 0;
+      }
+      String snapshotFingerprint = in.readUTF();
+      if (!configFingerprint.equals(snapshotFingerprint)) {
+        LlapIoImpl.LOG.warn("Ignoring the LLAP cache snapshot {} written for {}; the current setup is {}",
+            file, snapshotFingerprint, configFingerprint);
+        return 0;
+      }
+      long bytes = 0, allocatedBytes = 0;
+      while (true) {
+        byte recordType = in.readByte();
+        if (recordType == RECORD_END) {
+          break;
+        }
+        Object fileKey = readKey(in);
+        CacheTag tag = readTag(in);
+        if (recordType == RECORD_METADATA) {
+          int length = in.readInt();
+          ByteBuffer bb = ByteBuffer.allocate(length);
+          in.readFully(bb.array());
+          if (metadataCache != null) {
+            MemoryBufferOrBuffers result = metadataCache.putFileMetadata(fileKey, bb, tag);
+            metadataCache.decRefBuffer(result);
+            bytes += length;
+          }
+          continue;
+        }
+        if (recordType != RECORD_DATA) {
+          throw new IOException("Unexpected record type " + recordType);
+        }
+        long offset = in.readLong();
+        int declaredLength = in.readInt();
+        int length = in.readInt();
+        // The data records are written hottest first, and after all the metadata ones.
+        LlapDataBuffer buffer = allocatedBytes < maxRestoreBytes ? allocateDataBuffer(length) : null;
+        if (buffer == null) {
+          LlapIoImpl.LOG.info("LLAP cache is full; not restoring the rest of the snapshot {}", file);
+          break;
+        }
+        allocatedBytes += buffer.allocSize;
+        ByteBuffer dest = buffer.getByteBufferRaw();
+        int startPos = dest.position();
+        readBytes(in, dest, length);
+        dest.position(startPos);
+        dest.limit(startPos + length);
+        MemoryBuffer[] buffers = new MemoryBuffer[] { buffer };
+        dataCache.putFileData(fileKey, new DiskRange[] { new DiskRange(offset, offset + declaredLength) },
+            buffers, 0, Priority.NORMAL, null, tag);
+        // The buffer may have been replaced by one cached in the meantime; unlock whichever is cached.
+        dataCache.decRefBuffer(buffers[0]);
+        bytes += length;
+      }
+      return bytes;
+    }
+  }
+
+  private boolean verifyChecksum() throws IOException {
+    long length = file.length();
+    if (length < Long.BYTES) {
+      return false;
+    }
+    try (InputStream fileIn = new BufferedInputStream(new FileInputStream(file), COPY_BUFFER_SIZE)) {
+      CheckedInputStream in = new CheckedInputStream(fileIn, new CRC32());
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      long remaining = length - Long.BYTES;
+      while (remaining > 0) {
+        int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (read < 0) {
+          throw new EOFException();
+        }
+        remaining -= read;
+      }
+      return in.getChecksum().getValue() == new DataInputStream(fileIn).readLong();
+    }
+  }
+
+  private static boolean isPersistableKey(Object fileKey) {
+    return fileKey instanceof Long || fileKey instanceof SyntheticFileId;
+  }
+
+  private static void writeKey(DataOutputStream out, Object fileKey) throws IOException {
+    if (fileKey instanceof Long) {
+      out.writeByte(KEY_NATIVE);
+      out.writeLong((Long) fileKey);
+    } else {
+      out.writeByte(KEY_SYNTHETIC);
+      ((SyntheticFileId) fileKey).write(out);
+    }
+  }
+
+  private static Object readKey(DataInputStream in) throws IOException {
+    byte keyType = in.readByte();
+    switch (keyType) {
+    case KEY_NATIVE:
+      return in.readLong();
+    case KEY_SYNTHETIC:
+      SyntheticFileId fileId = new SyntheticFileId();
+      fileId.readFields(in);
+      return fileId;
+    default:
+      throw new IOException("Unexpected file key type " + keyType);
+    }
+  }
+
+  private static void writeTag(DataOutputStream out, CacheTag tag) throws IOException {
+    out.writeBoolean(tag != null);
+    if (tag == null) {
+      return;
+    }
+    out.writeUTF(tag.getTableName());
+    if (!(tag instanceof CacheTag.PartitionCacheTag)) {
+      out.writeInt(0);
+      return;
+    }
+    Map<String, String> partDescMap = ((CacheTag.PartitionCacheTag) tag).getPartitionDescMap();
+    out.writeInt(partDescMap.size());
+    for (Map.Entry<String, String> e : partDescMap.entrySet()) {
+      out.writeUTF(e.getKey());
+      out.writeUTF(e.getValue());
+    }
+  }
+
+  private static CacheTag readTag(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    String tableName = in.readUTF();
+    int partCount = in.readInt();
+    if (partCount == 0) {
+      return CacheTag.build(tableName);
+    }
+    LinkedHashMap<String, String> partDescMap = new LinkedHashMap<>();
+    for (int i = 0; i < partCount; ++i) {
+      partDescMap.put(in.readUTF(), in.readUTF());
+    }
+    return CacheTag.build(tableName, partDescMap);
+  }
+
+  private static void writeBytes(DataOutputStream out, ByteBuffer bb, byte[] copyBuffer) throws IOException {
+    if (bb.hasArray()) {
+      out.write(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+      return;
+    }
+    while (bb.hasRemaining()) {
+      int toCopy = Math.min(copyBuffer.length, bb.remaining());
+      bb.get(copyBuffer, 0, toCopy);
+      out.write(copyBuffer, 0, toCopy);
+    }
+  }
+
+  private static void readBytes(DataInputStream in, ByteBuffer dest, int length) throws IOException {
+    if (dest.hasArray()) {
+      in.readFully(dest.array(), dest.arrayOffset() + dest.position(), length);
+      return;
+    }
+    byte[] copyBuffer = new byte[Math.min(COPY_BUFFER_SIZE, length)];
+    int remaining = length;
+    while (remaining > 0) {
+      int toCopy = Math.min(copyBuffer.length, remaining);
+      in.readFully(copyBuffer, 0, toCopy);
+      dest.put(copyBuffer, 0, toCopy);
+      remaining -= toCopy;
+    }
+  }
+
+  /** @return The new buffer, or null if the cache cannot make room for it. */
+  private LlapDataBuffer allocateDataBuffer(int length) {
+    MemoryBuffer[] dest = new MemoryBuffer[1];
+    try {
+      dataCache.getAllocator().allocateMultiple(dest, length, LlapDataBuffer::new);
+    } catch (AllocatorOutOfMemoryException e) {
+      return null;
+    }
+    return (LlapDataBuffer) dest[0];
+  }
+}
@@ -42,6 +42,8 @@ public abstract class LlapCacheableBuffer {
   public LlapCacheableBuffer next = null;
   /** Index in heap for LRFU/LFU cache policies. */
   public int indexInHeap = NOT_IN_CACHE;
+  /** Workload management pool of the query that cached the buffer, for the cache quotas; null if none. */
+  public String wmPool = null;
 
   public static final int INVALIDATE_OK = 0, INVALIDATE_FAILED = 1, INVALIDATE_ALREADY_INVALID = 2;
   protected abstract int invalidate();
@@ -20,6 +20,7 @@
 
 public final class LlapDataBuffer extends BaseLlapDataBuffer {
   public static final int UNKNOWN_CACHED_LENGTH = -1;
+  public static final int NOT_COMPRESSED = -1;
 
   /**
    * The starting position of the buffer in the compressed file. Required for cache hydration.
@@ -30,6 +31,13 @@ public final class LlapDataBuffer extends BaseLlapDataBuffer {
    * the lookup is on compressed ranges, so we need to know this. */
   public int declaredCachedLength = UNKNOWN_CACHED_LENGTH;
 
+  /** When the cache keeps the data LZ4-compressed in memory, the length of the data; the buffer
+   * has to be decompressed before use. See CacheCompressor. */
+  public int decompressedLength = NOT_COMPRESSED;
+
+  public boolean isCompressedInMemory() {
+    return decompressedLength != NOT_COMPRESSED;
+  }
 
   public void setStart(long start){
     this.start = start;
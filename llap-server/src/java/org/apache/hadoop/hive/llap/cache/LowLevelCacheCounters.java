@@ -24,4 +24,6 @@ public interface LowLevelCacheCounters {
   void recordHdfsTime(long timeNs);
   void recordThreadTimes(long cpuNs, long userNs);
   long startTimeCounter();
+  /** @return The workload management pool of the query, to account the data it caches to; null if none. */
+  String getWmPool();
 }
\ No newline at end of file
@@ -28,7 +28,9 @@
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.common.io.Allocator;
+import org.apache.hadoop.hive.common.io.Allocator.AllocatorOutOfMemoryException;
 import org.apache.hadoop.hive.common.io.CacheTag;
 import org.apache.hadoop.hive.common.io.DataCache.BooleanRef;
 import org.apache.hadoop.hive.common.io.DataCache.DiskRangeListFactory;
@@ -59,6 +61,8 @@ public class LowLevelCacheImpl implements LowLevelCache, BufferUsageManager, Lla
   private final long cleanupInterval;
   private final LlapDaemonCacheMetrics metrics;
   private final boolean doAssumeGranularBlocks;
+  private CacheCompressor compressor;
+  private SsdCacheTier ssdTier;
 
   private static final Function<Void, ConcurrentSkipListMap<Long, LlapDataBuffer>> CACHE_CTOR =
       new Function<Void, ConcurrentSkipListMap<Long, LlapDataBuffer>>() {
@@ -84,6 +88,14 @@ public LowLevelCacheImpl(LlapDaemonCacheMetrics metrics, LowLevelCachePolicy cac
     this.doAssumeGranularBlocks = doAssumeGranularBlocks;
   }
 
+  public void setConf(Configuration conf) {
+    this.compressor = CacheCompressor.create(conf, allocator, metrics);
+  }
+
+  public void setSsdTier(SsdCacheTier ssdTier) {
+    this.ssdTier = ssdTier;
+  }
+
   public void startThreads() {
     if (cleanupInterval < 0) return;
     cleanupThread = new CleanupThread(cache, newEvictions, cleanupInterval);
@@ -94,6 +106,9 @@ public void startThreads() {
   public DiskRangeList getFileData(Object fileKey, DiskRangeList ranges, long baseOffset,
       DiskRangeListFactory factory, LowLevelCacheCounters qfCounters, BooleanRef gotAllData) {
     if (ranges == null) return null;
+    if (ssdTier != null) {
+      readFromSsdTier(fileKey, ranges, baseOffset, qfCounters);
+    }
     DiskRangeList prev = ranges.prev;
     FileCache<ConcurrentSkipListMap<Long, LlapDataBuffer>> subCache = cache.get(fileKey);
     if (subCache == null || !subCache.incRef()) {
@@ -178,9 +193,75 @@ public DiskRangeList getFileData(Object fileKey, DiskRangeList ranges, long base
     return prev.next;
   }
 
+  /**
+   * Puts the data of the ranges that is in the SSD tier, but not in memory, back in the cache
+   * memory, for the lookup to find it.
+   */
+  private void readFromSsdTier(Object fileKey, DiskRangeList ranges, long baseOffset,
+      LowLevelCacheCounters qfCounters) {
+    for (DiskRangeList current = ranges; current != null; current = current.next) {
+      List<SsdCacheTier.Entry> entries = ssdTier.getEntries(
+          fileKey, current.getOffset() + baseOffset, current.getEnd() + baseOffset);
+      if (entries.isEmpty()) {
+        continue;
+      }
+      FileCache<ConcurrentSkipListMap<Long, LlapDataBuffer>> subCache =
+          FileCache.getOrAddFileSubCache(cache, fileKey, CACHE_CTOR, entries.get(0).tag);
+      try {
+        for (SsdCacheTier.Entry entry : entries) {
+          LlapDataBuffer oldVal = subCache.getCache().get(entry.offset);
+          if (oldVal != null) {
+            if (!oldVal.isInvalid()) continue;
+            subCache.getCache().remove(entry.offset, oldVal);
+          }
+          LlapDataBuffer buffer = readFromSsdTier(entry);
+          if (buffer == null) continue;
+          lockBuffer(buffer, false);
+          buffer.declaredCachedLength = entry.declaredCachedLength;
+          if (subCache.getCache().putIfAbsent(entry.offset, buffer) == null) {
+            buffer.setStart(entry.offset);
+            buffer.setFileCache(subCache);
+            if (qfCounters != null) {
+              buffer.wmPool = qfCounters.getWmPool();
+            }
+            cachePolicy.cache(buffer, Priority.NORMAL);
+          } else {
+            buffer.declaredCachedLength = LlapDataBuffer.UNKNOWN_CACHED_LENGTH;
+          }
+          unlockBuffer(buffer, true);
+        }
+      } finally {
+        subCache.decRef();
+      }
+    }
+  }
+
+  private LlapDataBuffer readFromSsdTier(SsdCacheTier.Entry entry) {
+    MemoryBuffer[] dest = new MemoryBuffer[1];
+    try {
+      allocator.allocateMultiple(dest, entry.length, LlapDataBuffer::new);
+    } catch (AllocatorOutOfMemoryException e) {
+      LlapIoImpl.CACHE_LOGGER.info("Cannot allocate {} bytes for the SSD tier data: {}", entry.length, e.getMessage());
+      return null;
+    }
+    LlapDataBuffer buffer = (LlapDataBuffer) dest[0];
+    if (!ssdTier.read(entry, buffer.getByteBufferRaw())) {
+      allocator.deallocate(buffer);
+      return null;
+    }
+    buffer.decompressedLength = entry.decompressedLength;
+    if (buffer.isCompressedInMemory()) {
+      metrics.incrCacheCompressed(buffer.decompressedLength, buffer.allocSize);
+    }
+    return buffer;
+  }
+
   @Override
   public long markBuffersForProactiveEviction(Predicate<CacheTag> predicate, boolean isInstantDeallocation) {
     long markedBytes = 0;
+    if (ssdTier != null) {
+      ssdTier.evict(predicate);
+    }
     // Proactive eviction does not need to be perfectly accurate - the iterator returned here might be missing some
     // concurrent inserts / removals but it's fine for us here.
     Collection<FileCache<ConcurrentSkipListMap<Long, LlapDataBuffer>>> fileCaches = cache.values();
@@ -236,13 +317,26 @@ private void getOverlappingRanges(long baseOffset, DiskRangeList currentNotCache
         }
         continue;
       }
+      LlapDataBuffer data = buffer;
+      if (buffer.isCompressedInMemory()) {
+        // Give the reader a decompressed copy that is not cached; the cached buffer is not needed.
+        data = compressor.decompress(buffer);
+        unlockBuffer(buffer, true);
+        if (data == null) {
+          if (gotAllData != null) {
+            gotAllData.value = false;
+          }
+          continue;
+        }
+        lockBuffer(data, false);
+      }
       long cacheOffset = e.getKey();
       if (cacheEnd > cacheOffset) { // compare with old cacheEnd
         throw new AssertionError("Cache has overlapping buffers: " + cacheEnd + ") and ["
             + cacheOffset + ", " + (cacheOffset + buffer.declaredCachedLength) + ")");
       }
       cacheEnd = cacheOffset + buffer.declaredCachedLength;
-      DiskRangeList currentCached = factory.createCacheChunk(buffer,
+      DiskRangeList currentCached = factory.createCacheChunk(data,
           cacheOffset - baseOffset, cacheEnd - baseOffset);
       currentNotCached = addCachedBufferToIter(currentNotCached, currentCached, gotAllData);
       metrics.incrCacheHitBytes(Math.min(requestedLength, currentCached.getLength()));
@@ -331,16 +425,31 @@ public long[] putFileData(Object fileKey, DiskRange[] ranges, MemoryBuffer[] buf
         assert canLock;
         long offset = ranges[i].getOffset() + baseOffset;
         assert buffer.declaredCachedLength == LlapDataBuffer.UNKNOWN_CACHED_LENGTH;
-        buffer.declaredCachedLength = ranges[i].getLength();
+        // When the data is cached compressed, the caller keeps using its buffer, which is not cached.
+        LlapDataBuffer cacheBuffer = buffer;
+        if (compressor != null && compressor.isEnabledFor(subCache.getTag())) {
+          LlapDataBuffer compressed = compressor.compress(buffer);
+          if (compressed != null) {
+            lockBuffer(compressed, false);
+            cacheBuffer = compressed;
+          }
+        }
+        cacheBuffer.declaredCachedLength = ranges[i].getLength();
         while (true) { // Overwhelmingly executes once, or maybe twice (replacing stale value).
-          LlapDataBuffer oldVal = subCache.getCache().putIfAbsent(offset, buffer);
+          LlapDataBuffer oldVal = subCache.getCache().putIfAbsent(offset, cacheBuffer);
           if (oldVal == null) {
-            buffer.setStart(offset);
-            buffer.setFileCache(subCache);
+            cacheBuffer.setStart(offset);
+            cacheBuffer.setFileCache(subCache);
+            if (qfCounters != null) {
+              cacheBuffer.wmPool = qfCounters.getWmPool();
+            }
             // Cached successfully, add to policy.
-            cachePolicy.cache(buffer, priority);
+            cachePolicy.cache(cacheBuffer, priority);
             if (qfCounters != null) {
-              qfCounters.recordAllocBytes(buffer.byteBuffer.remaining(), buffer.allocSize);
+              qfCounters.recordAllocBytes(cacheBuffer.byteBuffer.remaining(), cacheBuffer.allocSize);
+            }
+            if (cacheBuffer != buffer) {
+              unlockBuffer(cacheBuffer, true);
             }
             break;
           }
@@ -355,9 +464,9 @@ public long[] putFileData(Object fileKey, DiskRange[] ranges, MemoryBuffer[] buf
           if (lockBuffer(oldVal, true)) {
             // We don't do proper overlap checking because it would cost cycles and we
             // think it will never happen. We do perform the most basic check here.
-            if (oldVal.declaredCachedLength != buffer.declaredCachedLength) {
+            if (oldVal.declaredCachedLength != cacheBuffer.declaredCachedLength) {
               throw new RuntimeException("Found a block with different length at the same offset: "
-                  + oldVal.declaredCachedLength + " vs " + buffer.declaredCachedLength + " @" + offset
+                  + oldVal.declaredCachedLength + " vs " + cacheBuffer.declaredCachedLength + " @" + offset
                   + " (base " + baseOffset + ")");
             }
             // We found an old, valid block for this key in the cache.
@@ -369,7 +478,16 @@ public long[] putFileData(Object fileKey, DiskRange[] ranges, MemoryBuffer[] buf
             // This is always set to ranges[i].getLength() prior inserting into the map to avoid inconsistency with the
             // check above. However once we decided that this new buffer will not be cached, we should unset
             // declaredCachedLength, so that it can be instantly deallocated at unlockBuffer()'s else branch.
-            buffer.declaredCachedLength = LlapDataBuffer.UNKNOWN_CACHED_LENGTH;
+            cacheBuffer.declaredCachedLength = LlapDataBuffer.UNKNOWN_CACHED_LENGTH;
+            if (cacheBuffer != buffer) {
+              compressor.notifyEvicted(cacheBuffer);
+              unlockBuffer(cacheBuffer, true);
+            }
+            if (oldVal.isCompressedInMemory()) {
+              // The caller cannot use the compressed data; it keeps its own buffer.
+              unlockBuffer(oldVal, true);
+              break;
+            }
             unlockBuffer(buffer, false);
             buffers[i] = oldVal;
             if (result == null) {
@@ -431,6 +549,16 @@ public static LlapDataBuffer allocateFake() {
   @Override
   public final void notifyEvicted(MemoryBuffer buffer) {
     newEvictions.incrementAndGet();
+    LlapDataBuffer dataBuffer = (LlapDataBuffer) buffer;
+    if (compressor != null && dataBuffer.isCompressedInMemory()) {
+      compressor.notifyEvicted(dataBuffer);
+    }
+    // The memory is released after this returns; the tier copies the data before that, and writes
+    // it in the background. The data of the proactively evicted buffers is no longer needed.
+    if (ssdTier != null && !dataBuffer.isMarkedForEviction()
+        && dataBuffer.declaredCachedLength != LlapDataBuffer.UNKNOWN_CACHED_LENGTH) {
+      ssdTier.write(dataBuffer);
+    }
   }
 
   private static final class CleanupThread
@@ -480,6 +608,28 @@ public Allocator getAllocator() {
     return allocator;
   }
 
+  /** @return The keys of the files with some data in the cache. */
+  public List<Object> getCachedFileKeys() {
+    return new ArrayList<>(cache.keySet());
+  }
+
+  /**
+   * @return The buffers of all the cached files, for the cache snapshot. The buffers are not
+   *         locked; the caller has to lock each one before reading it.
+   */
+  List<LlapDataBuffer> getCachedBuffers() {
+    List<LlapDataBuffer> result = new ArrayList<>();
+    for (FileCache<ConcurrentSkipListMap<Long, LlapDataBuffer>> fileCache : cache.values()) {
+      if (!fileCache.incRef()) continue;
+      try {
+        result.addAll(fileCache.getCache().values());
+      } finally {
+        fileCache.decRef();
+      }
+    }
+    return result;
+  }
+
   @Override
   public void debugDumpShort(StringBuilder sb) {
     sb.append("\nORC cache state ");
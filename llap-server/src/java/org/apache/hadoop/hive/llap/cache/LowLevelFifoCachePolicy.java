@@ -86,10 +86,13 @@ private long evictInternal(long memoryToReserve, int minSize) {
         long memUsage = buffer.getMemoryUsage();
         if (memUsage < minSize || (minSize > 0
             && !(buffer instanceof LlapAllocatorBuffer))) continue;
-        if (LlapCacheableBuffer.INVALIDATE_OK == buffer.invalidate()) {
+        int invalidateResult = buffer.invalidate();
+        if (LlapCacheableBuffer.INVALIDATE_OK == invalidateResult) {
           iter.remove();
           evicted += memUsage;
           evictionListener.notifyEvicted(buffer);
+        } else if (LlapCacheableBuffer.INVALIDATE_ALREADY_INVALID == invalidateResult) {
+          iter.remove(); // Evicted outside of the policy, e.g. over the pool quota.
         }
       }
     } finally {
@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.llap.LlapUtil;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.io.metadata.MetadataCache.LlapMetadataBuffer;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * W-TinyLFU cache policy (see "TinyLFU: A Highly Efficient Cache Admission Policy").
+ *
+ * The buffers live in three LRU lists: a small admission window, and the probation and protected
+ * segments of the main region. New buffers enter the window; a buffer accessed in probation is
+ * promoted to protected. When the window is over its share of the cache, its LRU buffer has to
+ * beat the probation LRU buffer on the estimated access frequency to get into the main region,
+ * and the loser is evicted; so a large one-off scan only churns the window.
+ *
+ * Unlike LRFU, the accesses (notifyUnlock) do not take the policy lock. They are recorded in
+ * lossy striped ring buffers, and applied in batches, asynchronously or before the eviction.
+ * Losing some accesses under contention only makes the recency and frequency slightly less
+ * accurate. New buffers are queued losslessly, since a buffer has to be in the policy to ever
+ * be evicted.
+ */
+public final class LowLevelTinyLfuCachePolicy extends ProactiveEvictingCachePolicy.Impl
+    implements LowLevelCachePolicy {
+  // The region of a buffer is kept in indexInHeap.
+  private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+  private static final String[] REGION_NAMES = { "window", "probation", "protected" };
+  private static final int[] EVICTION_ORDER = { PROBATION, PROTECTED, WINDOW };
+  private static final double PROTECTED_PERCENTAGE = 0.8;
+  private static final int READ_BUFFER_SIZE = 16, READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int MAX_READ_BUFFERS = 256;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LlapCacheableBuffer[] heads = new LlapCacheableBuffer[3], tails = new LlapCacheableBuffer[3];
+  private final long[] regionSizes = new long[3];
+  private int bufferCount;
+  private final long windowMaxSize, mainMaxSize, protectedMaxSize;
+  private final FrequencySketch sketch;
+  private EvictionListener evictionListener;
+
+  private final ReadBuffer[] readBuffers;
+  private final Queue<LlapCacheableBuffer> addedBuffers = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean isDrainScheduled = new AtomicBoolean(false);
+  private final Runnable drainTask = this::drainBuffers;
+
+  public LowLevelTinyLfuCachePolicy(int minBufferSize, long maxSize, Configuration conf) {
+    super(conf);
+    float windowPercentage = HiveConf.getFloatVar(conf, HiveConf.ConfVars.LLAP_TINYLFU_WINDOW_PERCENTAGE);
+    windowMaxSize = (long) (maxSize * windowPercentage);
+    mainMaxSize = maxSize - windowMaxSize;
+    protectedMaxSize = (long) (mainMaxSize * PROTECTED_PERCENTAGE);
+    sketch = new FrequencySketch(maxSize / minBufferSize);
+
+    int readBufferCount = Math.min(MAX_READ_BUFFERS, 4 * Runtime.getRuntime().availableProcessors());
+    readBufferCount = Integer.highestOneBit(readBufferCount - 1) << 1;
+    readBuffers = new ReadBuffer[Math.max(readBufferCount, 1)];
+    for (int i = 0; i < readBuffers.length; ++i) {
+      readBuffers[i] = new ReadBuffer();
+    }
+    LlapIoImpl.LOG.info("TinyLFU cache policy with window {} and {} access buffers",
+        LlapUtil.humanReadableByteCount(windowMaxSize), readBuffers.length);
+  }
+
+  @Override
+  public void cache(LlapCacheableBuffer buffer, Priority priority) {
+    // The priority only counts as the initial frequency; like in LRFU, high priority (metadata)
+    // buffers are considered accessed a few times.
+    buffer.priority = (priority == Priority.HIGH) ? 3 : 1;
+    addedBuffers.add(buffer);
+    scheduleDrain();
+  }
+
+  @Override
+  public void notifyLock(LlapCacheableBuffer buffer) {
+    // Locked buffers stay in their list, and are skipped by the eviction. The access is recorded
+    // on unlock, like in LRFU.
+  }
+
+  @Override
+  public void notifyUnlock(LlapCacheableBuffer buffer) {
+    // In the very rare chance that a buffer was marked but then accessed again we remove the mark from it
+    // - except if instant deallocation is turned on of course -
+    if (proactiveEvictionEnabled && !instantProactiveEviction) {
+      buffer.removeProactiveEvictionMark();
+    }
+    long threadId = Thread.currentThread().getId();
+    int stripe = Long.hashCode(threadId * 0x9e3779b97f4a7c15L) & (readBuffers.length - 1);
+    if (readBuffers[stripe].offer(buffer)) {
+      scheduleDrain();
+    }
+  }
+
+  @Override
+  public void setEvictionListener(EvictionListener listener) {
+    this.evictionListener = listener;
+  }
+
+  private void scheduleDrain() {
+    if (!isDrainScheduled.get() && isDrainScheduled.compareAndSet(false, true)) {
+      ForkJoinPool.commonPool().execute(drainTask);
+    }
+  }
+
+  @VisibleForTesting
+  void drainBuffers() {
+    lock.lock();
+    try {
+      drainBuffersUnderLock();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void drainBuffersUnderLock() {
+    // Reset first, so that the accesses recorded while we drain schedule another drain.
+    isDrainScheduled.set(false);
+    LlapCacheableBuffer buffer;
+    while ((buffer = addedBuffers.poll()) != null) {
+      onAdd(buffer);
+    }
+    for (ReadBuffer readBuffer : readBuffers) {
+      readBuffer.drain(this);
+    }
+  }
+
+  private void onAdd(LlapCacheableBuffer buffer) {
+    long keyHash = keyHash(buffer);
+    for (int i = 0; i < (int) buffer.priority; ++i) {
+      sketch.increment(keyHash);
+    }
+    buffer.priority = sketch.frequency(keyHash);
+    linkFirst(WINDOW, buffer);
+  }
+
+  private void onAccess(LlapCacheableBuffer buffer) {
+    int region = buffer.indexInHeap;
+    if (region < 0) {
+      return; // Already evicted.
+    }
+    long keyHash = keyHash(buffer);
+    sketch.increment(keyHash);
+    // Not used by the policy itself, but makes the priority meaningful for e.g. the cache snapshot.
+    buffer.priority = sketch.frequency(keyHash);
+    unlink(buffer);
+    if (region == WINDOW) {
+      linkFirst(WINDOW, buffer);
+      return;
+    }
+    linkFirst(PROTECTED, buffer);
+    // Demote the LRU protected buffers if a promotion made the segment too large.
+    while (regionSizes[PROTECTED] > protectedMaxSize && tails[PROTECTED] != buffer) {
+      LlapCacheableBuffer demoted = tails[PROTECTED];
+      unlink(demoted);
+      linkFirst(PROBATION, demoted);
+    }
+  }
+
+  /**
+   * The key has to survive the eviction of the buffer for TinyLFU to work, so it is derived from
+   * the cache key (file and offset, or metadata key) rather than from the buffer object.
+   */
+  private static long keyHash(LlapCacheableBuffer buffer) {
+    if (buffer instanceof BaseLlapDataBuffer) {
+      Object fileKey = ((BaseLlapDataBuffer) buffer).getFileKey();
+      if (fileKey == null) {
+        return System.identityHashCode(buffer);
+      }
+      long hash = fileKey.hashCode();
+      if (buffer instanceof LlapDataBuffer) {
+        hash = 31 * hash + ((LlapDataBuffer) buffer).getStart();
+      }
+      return hash;
+    }
+    if (buffer instanceof LlapMetadataBuffer) {
+      return 31L * ((LlapMetadataBuffer<?>) buffer).getKey().hashCode() + 1;
+    }
+    return System.identityHashCode(buffer);
+  }
+
+  @Override
+  public long evictSomeBlocks(long memoryToReserve) {
+    List<LlapCacheableBuffer> evictedBuffers = new ArrayList<>();
+    List<LlapCacheableBuffer> deallocatedBuffers = new ArrayList<>();
+    long evicted = 0;
+    lock.lock();
+    try {
+      drainBuffersUnderLock();
+      // First, make room in the window for the new buffer. The window LRU buffers go to the main
+      // region if there's room there, or have to win against its LRU buffer on frequency.
+      int attempts = bufferCount;
+      while (evicted < memoryToReserve && heads[WINDOW] != null && attempts-- > 0
+          && regionSizes[WINDOW] + (memoryToReserve - evicted) > windowMaxSize) {
+        LlapCacheableBuffer candidate = tails[WINDOW];
+        unlink(candidate);
+        if (regionSizes[PROBATION] + regionSizes[PROTECTED] + candidate.getMemoryUsage() <= mainMaxSize) {
+          linkFirst(PROBATION, candidate);
+          continue;
+        }
+        LlapCacheableBuffer victim = tails[PROBATION] != null ? tails[PROBATION] : tails[PROTECTED];
+        if (victim == null || sketch.frequency(keyHash(candidate)) <= sketch.frequency(keyHash(victim))) {
+          // Not admitted; put it back at the tail of the window to be evicted.
+          linkLast(WINDOW, candidate);
+          victim = candidate;
+        } else {
+          linkFirst(PROBATION, candidate);
+        }
+        long victimSize = tryEvictUnderLock(victim, evictedBuffers, deallocatedBuffers);
+        if (victimSize < 0) {
+          // Locked; move it out of the way for now.
+          int region = victim.indexInHeap;
+          unlink(victim);
+          linkFirst(region, victim);
+        } else {
+          evicted += victimSize;
+        }
+      }
+      // Then, evict the LRU buffers, skipping the locked ones, in the order of their importance.
+      for (int region : EVICTION_ORDER) {
+        LlapCacheableBuffer current = tails[region];
+        while (evicted < memoryToReserve && current != null) {
+          LlapCacheableBuffer prev = current.prev;
+          evicted += Math.max(0, tryEvictUnderLock(current, evictedBuffers, deallocatedBuffers));
+          current = prev;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (LlapCacheableBuffer buffer : deallocatedBuffers) {
+      // Cleanup an already marked and deallocated buffer - this call is needed for administration purposes
+      evictionListener.notifyProactivelyEvicted(buffer);
+    }
+    for (LlapCacheableBuffer buffer : evictedBuffers) {
+      evictionListener.notifyEvicted(buffer);
+    }
+    return evicted;
+  }
+
+  /**
+   * @return The memory evicted (0 for a buffer that was already invalidated, e.g. proactively
+   *         evicted, and is just removed from the policy), or -1 if the buffer is locked.
+   */
+  private long tryEvictUnderLock(LlapCacheableBuffer buffer,
+      List<LlapCacheableBuffer> evictedBuffers, List<LlapCacheableBuffer> deallocatedBuffers) {
+    int invalidateResult = buffer.invalidate();
+    if (invalidateResult == LlapCacheableBuffer.INVALIDATE_OK) {
+      unlink(buffer);
+      evictedBuffers.add(buffer);
+      return buffer.getMemoryUsage();
+    }
+    if (invalidateResult == LlapCacheableBuffer.INVALIDATE_ALREADY_INVALID) {
+      unlink(buffer);
+      if (instantProactiveEviction && buffer.isMarkedForEviction()) {
+        deallocatedBuffers.add(buffer);
+      }
+      return 0;
+    }
+    return -1;
+  }
+
+  @Override
+  public long purge() {
+    long evicted = evictAll(true);
+    LlapIoImpl.LOG.info("PURGE: evicted {} from TinyLFU policy", LlapUtil.humanReadableByteCount(evicted));
+    return evicted;
+  }
+
+  @Override
+  public void evictProactively() {
+    long evicted = evictAll(false);
+    LlapIoImpl.LOG.info("PROACTIVE_EVICTION: evicted {} from TinyLFU policy",
+        LlapUtil.humanReadableByteCount(evicted));
+  }
+
+  /**
+   * Evicts all the unlocked buffers for a purge, or all the unlocked buffers marked for eviction
+   * for a proactive eviction sweep.
+   */
+  private long evictAll(boolean isPurge) {
+    List<LlapCacheableBuffer> evictedBuffers = new ArrayList<>();
+    List<LlapCacheableBuffer> deallocatedBuffers = new ArrayList<>();
+    long evicted = 0;
+    lock.lock();
+    try {
+      drainBuffersUnderLock();
+      for (int region : EVICTION_ORDER) {
+        LlapCacheableBuffer current = tails[region];
+        while (current != null) {
+          LlapCacheableBuffer prev = current.prev;
+          if (isPurge || current.isMarkedForEviction()) {
+            evicted += Math.max(0, tryEvictUnderLock(current, evictedBuffers, deallocatedBuffers));
+          }
+          current = prev;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    for (LlapCacheableBuffer buffer : deallocatedBuffers) {
+      evictionListener.notifyProactivelyEvicted(buffer);
+    }
+    for (LlapCacheableBuffer buffer : evictedBuffers) {
+      if (isPurge) {
+        evictionListener.notifyEvicted(buffer);
+      } else {
+        evictionListener.notifyProactivelyEvicted(buffer);
+      }
+    }
+    return evicted;
+  }
+
+  private void linkFirst(int region, LlapCacheableBuffer buffer) {
+    buffer.indexInHeap = region;
+    buffer.prev = null;
+    buffer.next = heads[region];
+    if (heads[region] != null) {
+      heads[region].prev = buffer;
+    } else {
+      tails[region] = buffer;
+    }
+    heads[region] = buffer;
+    regionSizes[region] += buffer.getMemoryUsage();
+    ++bufferCount;
+  }
+
+  private void linkLast(int region, LlapCacheableBuffer buffer) {
+    buffer.indexInHeap = region;
+    buffer.next = null;
+    buffer.prev = tails[region];
+    if (tails[region] != null) {
+      tails[region].next = buffer;
+    } else {
+      heads[region] = buffer;
+    }
+    tails[region] = buffer;
+    regionSizes[region] += buffer.getMemoryUsage();
+    ++bufferCount;
+  }
+
+  private void unlink(LlapCacheableBuffer buffer) {
+    int region = buffer.indexInHeap;
+    if (buffer.prev != null) {
+      buffer.prev.next = buffer.next;
+    } else {
+      heads[region] = buffer.next;
+    }
+    if (buffer.next != null) {
+      buffer.next.prev = buffer.prev;
+    } else {
+      tails[region] = buffer.prev;
+    }
+    buffer.prev = null;
+    buffer.next = null;
+    buffer.indexInHeap = LlapCacheableBuffer.NOT_IN_CACHE;
+    regionSizes[region] -= buffer.getMemoryUsage();
+    --bufferCount;
+  }
+
+  @Override
+  public void debugDumpShort(StringBuilder sb) {
+    lock.lock();
+    try {
+      sb.append("\nTinyLFU policy: ").append(bufferCount).append(" buffers");
+      for (int region = WINDOW; region <= PROTECTED; ++region) {
+        sb.append(", ").append(REGION_NAMES[region]).append(' ')
+            .append(LlapUtil.humanReadableByteCount(regionSizes[region]));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Lossy ring buffer of the accesses made by some of the threads. Any number of threads can
+   * offer; only the policy, under its lock, drains.
+   */
+  private static final class ReadBuffer {
+    private final AtomicLong writeCounter = new AtomicLong();
+    private final AtomicReferenceArray<LlapCacheableBuffer> slots =
+        new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private volatile long readCounter;
+
+    /** @return Whether the buffer is full enough to be drained. */
+    boolean offer(LlapCacheableBuffer buffer) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      long size = tail - head;
+      if (size >= READ_BUFFER_SIZE) {
+        return true; // Full; the access is dropped.
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        slots.lazySet((int) (tail & READ_BUFFER_MASK), buffer);
+      } // Otherwise, another thread of the stripe got there first; the access is dropped.
+      return size + 1 >= READ_BUFFER_SIZE / 2;
+    }
+
+    void drain(LowLevelTinyLfuCachePolicy policy) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      for (; head < tail; ++head) {
+        int index = (int) (head & READ_BUFFER_MASK);
+        LlapCacheableBuffer buffer = slots.get(index);
+        if (buffer == null) {
+          break; // Not published yet; will be drained next time.
+        }
+        slots.lazySet(index, null);
+        policy.onAccess(buffer);
+      }
+      readCounter = head;
+    }
+  }
+}
@@ -290,6 +290,11 @@ public void startThreads() {
     cleanupThread.start();
   }
 
+  /** @return The keys of the files with some data in the cache. */
+  public List<Object> getCachedFileKeys() {
+    return new ArrayList<>(cache.keySet());
+  }
+
   public FileData getFileData(Object fileKey, long start, long end, boolean[] includes,
       DiskRangeListFactory factory, LowLevelCacheCounters qfCounters, BooleanRef gotAllData)
           throws IOException {
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The second tier of the ORC data cache, on a local SSD. The buffers evicted from the cache memory
+ * are written to the tier instead of being discarded, and read back into the cache memory on a
+ * miss. The tier is a ring of segment files of a fixed size: the data is appended to the current
+ * segment and, when the tier is full, the oldest segment is dropped as a whole and reused. The
+ * index of the tier is in memory; the files are emptied when the daemon starts.
+ * The evicted data is copied on the eviction path and written by a background writer thread, so
+ * that the eviction doesn't wait for the SSD; the copies pending the writer are limited to the
+ * size of one segment, and the data evicted beyond that is discarded as before the tier.
+ */
+public class SsdCacheTier {
+  private static final String FILE_PREFIX = "llap-cache-tier-";
+
+  private final File dir;
+  private final Segment[] segments;
+  private final int segmentSize;
+  private final LlapDaemonCacheMetrics metrics;
+  private final ConcurrentHashMap<Object, ConcurrentSkipListMap<Long, Entry>> index =
+      new ConcurrentHashMap<>();
+  private int currentSegment = 0; // Guarded by this.
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("LLAP-Cache-Tier-Writer").setDaemon(true).build());
+  private final AtomicLong pendingBytes = new AtomicLong();
+
+  public static boolean isEnabled(Configuration conf) {
+    return !HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_SSD_PATH).isEmpty();
+  }
+
+  public SsdCacheTier(Configuration conf, LlapDaemonCacheMetrics metrics) throws IOException {
+    this(new File(HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_SSD_PATH)),
+        HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_CACHE_SSD_SIZE),
+        (int) Math.min(Integer.MAX_VALUE, HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_CACHE_SSD_SEGMENT_SIZE)),
+        metrics);
+  }
+
+  @VisibleForTesting
+  SsdCacheTier(File dir, long size, int segmentSize, LlapDaemonCacheMetrics metrics) throws IOException {
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Cannot create the LLAP cache tier directory " + dir);
+    }
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.metrics = metrics;
+    // At least two segments, so that dropping one doesn't empty the tier.
+    this.segments = new Segment[(int) Math.max(2, size / segmentSize)];
+    for (int i = 0; i < segments.length; ++i) {
+      segments[i] = new Segment(FileChannel.open(new File(dir, FILE_PREFIX + i).toPath(),
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING));
+    }
+    LlapIoImpl.LOG.info("LLAP cache tier in {}: {} segments of {} bytes", dir, segments.length, segmentSize);
+  }
+
+  /**
+   * Schedules the write of the data of the buffer evicted from the cache memory, unless the tier
+   * already has it. The data is copied before this returns, so the buffer memory can be released
+   * right after; the write itself is done by the writer thread.
+   */
+  void write(LlapDataBuffer buffer) {
+    Object fileKey = buffer.getFileKey();
+    long offset = buffer.getStart();
+    if (contains(fileKey, offset)) {
+      return; // Read from the tier before; the data in the tier is still valid.
+    }
+    ByteBuffer data = buffer.getByteBufferDup();
+    int length = data.remaining();
+    if (length > segmentSize) {
+      return;
+    }
+    if (pendingBytes.addAndGet(length) > segmentSize) {
+      // The writer is behind; don't hold more of the evicted data in the heap.
+      pendingBytes.addAndGet(-length);
+      return;
+    }
+    byte[] copy = new byte[length];
+    data.get(copy);
+    CacheTag tag = buffer.getTag();
+    int declaredCachedLength = buffer.declaredCachedLength, decompressedLength = buffer.decompressedLength;
+    try {
+      writer.execute(() -> {
+        try {
+          writeData(fileKey, offset, tag, declaredCachedLength, decompressedLength, ByteBuffer.wrap(copy));
+        } finally {
+          pendingBytes.addAndGet(-length);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      pendingBytes.addAndGet(-length); // The tier is closed.
+    }
+  }
+
+  private boolean contains(Object fileKey, long offset) {
+    ConcurrentSkipListMap<Long, Entry> fileIndex = index.get(fileKey);
+    return fileIndex != null && fileIndex.containsKey(offset);
+  }
+
+  private void writeData(Object fileKey, long offset, CacheTag tag, int declaredCachedLength,
+      int decompressedLength, ByteBuffer data) {
+    if (contains(fileKey, offset)) {
+      return; // Evicted twice before the first write.
+    }
+    int length = data.remaining();
+    Entry entry;
+    synchronized (this) {
+      Segment segment = segments[currentSegment];
+      if (segment.writePosition + length > segmentSize) {
+        currentSegment = (currentSegment + 1) % segments.length;
+        segment = segments[currentSegment];
+        drop(segment);
+      }
+      entry = new Entry(fileKey, offset, tag, declaredCachedLength, decompressedLength,
+          segment, segment.generation, segment.writePosition, length);
+      segment.writePosition += length;
+      segment.entries.add(entry);
+    }
+    try {
+      long position = entry.position;
+      while (data.hasRemaining()) {
+        position += entry.segment.channel.write(data, position);
+      }
+    } catch (IOException e) {
+      LlapIoImpl.LOG.warn("Cannot write to the LLAP cache tier in " + dir, e);
+      return;
+    }
+    index.compute(fileKey, (key, entries) -> {
+      if (entries == null) {
+        entries = new ConcurrentSkipListMap<>();
+      }
+      entries.put(entry.offset, entry);
+      return entries;
+    });
+    metrics.incrCacheTierWrittenBytes(length);
+  }
+
+  /** Waits for the writes scheduled so far. */
+  @VisibleForTesting
+  void flush() throws InterruptedException, ExecutionException {
+    writer.submit(() -> { }).get();
+  }
+
+  /** @return The entries with the data of the file in [start, end), in the order of the offsets. */
+  List<Entry> getEntries(Object fileKey, long start, long end) {
+    ConcurrentSkipListMap<Long, Entry> fileIndex = index.get(fileKey);
+    if (fileIndex == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(fileIndex.subMap(start, end).values());
+  }
+
+  /**
+   * Reads the data of the entry into the target, and sets the limit of the target to the end of
+   * the data.
+   * @return Whether the data was read; false if the segment has been reused since the data was
+   *         written, or the read failed.
+   */
+  boolean read(Entry entry, ByteBuffer target) {
+    ByteBuffer dest = target.duplicate();
+    dest.limit(dest.position() + entry.length);
+    try {
+      long position = entry.position;
+      while (dest.hasRemaining()) {
+        int read = entry.segment.channel.read(dest, position);
+        if (read < 0) {
+          throw new EOFException("Reading past the end of the segment at " + position);
+        }
+        position += read;
+      }
+    } catch (IOException e) {
+      LlapIoImpl.LOG.warn("Cannot read from the LLAP cache tier in " + dir, e);
+      return false;
+    }
+    // The segment is reused after its generation is changed; check it after reading the data.
+    if (entry.segment.generation != entry.generation) {
+      remove(entry);
+      return false;
+    }
+    target.limit(target.position() + entry.length);
+    metrics.incrCacheTierReadBytes(entry.length);
+    return true;
+  }
+
+  /**
+   * Drops the data of the matching tables or partitions, for proactive eviction.
+   * @return The number of bytes dropped.
+   */
+  long evict(Predicate<CacheTag> predicate) {
+    long bytes = 0;
+    for (ConcurrentSkipListMap<Long, Entry> fileIndex : index.values()) {
+      Iterator<Entry> iter = fileIndex.values().iterator();
+      while (iter.hasNext()) {
+        Entry entry = iter.next();
+        if (entry.tag != null && predicate.test(entry.tag)) {
+          remove(entry);
+          bytes += entry.length;
+        }
+      }
+    }
+    return bytes;
+  }
+
+  public void close() {
+    writer.shutdownNow();
+    try {
+      if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+        LlapIoImpl.LOG.warn("The LLAP cache tier writer did not stop in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (int i = 0; i < segments.length; ++i) {
+      try {
+        segments[i].channel.close();
+      } catch (IOException e) {
+        LlapIoImpl.LOG.warn("Cannot close the LLAP cache tier segment " + i, e);
+      }
+      new File(dir, FILE_PREFIX + i).delete();
+    }
+  }
+
+  private void drop(Segment segment) {
+    segment.generation++;
+    for (Entry entry : segment.entries) {
+      remove(entry);
+    }
+    metrics.incrCacheTierDroppedBytes(segment.writePosition);
+    segment.entries.clear();
+    segment.writePosition = 0;
+  }
+
+  private void remove(Entry entry) {
+    index.computeIfPresent(entry.fileKey, (key, entries) -> {
+      entries.remove(entry.offset, entry);
+      return entries.isEmpty() ? null : entries;
+    });
+  }
+
+  private static final class Segment {
+    final FileChannel channel;
+    volatile long generation = 0;
+    // Guarded by the tier.
+    int writePosition = 0;
+    final List<Entry> entries = new ArrayList<>();
+
+    Segment(FileChannel channel) {
+      this.channel = channel;
+    }
+  }
+
+  /**
+   * The location and the cache fields of a buffer written to the tier.
+   */
+  static final class Entry {
+    final Object fileKey;
+    final long offset;
+    final CacheTag tag;
+    final int declaredCachedLength;
+    final int decompressedLength;
+    private final Segment segment;
+    private final long generation;
+    private final long position;
+    final int length;
+
+    Entry(Object fileKey, long offset, CacheTag tag, int declaredCachedLength, int decompressedLength,
+        Segment segment, long generation, long position, int length) {
+      this.fileKey = fileKey;
+      this.offset = offset;
+      this.tag = tag;
+      this.declaredCachedLength = declaredCachedLength;
+      this.decompressedLength = decompressedLength;
+      this.segment = segment;
+      this.generation = generation;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  @VisibleForTesting
+  int getEntryCount() {
+    int count = 0;
+    for (Map<Long, Entry> fileIndex : index.values()) {
+      count += fileIndex.size();
+    }
+    return count;
+  }
+}
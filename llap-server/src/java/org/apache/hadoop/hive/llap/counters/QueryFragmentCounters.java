@@ -41,12 +41,15 @@ public static enum Desc {
   private final AtomicLongArray fixedCounters;
   private final Object[] descs;
   private final TezCounters tezCounters;
+  private final String wmPool;
 
   public QueryFragmentCounters(Configuration conf, final TezCounters tezCounters) {
     fixedCounters = new AtomicLongArray(LlapIOCounters.values().length);
     descs = new Object[Desc.values().length];
     doUseTimeCounters = HiveConf.getBoolVar(conf, ConfVars.LLAP_ORC_ENABLE_TIME_COUNTERS);
     this.tezCounters = tezCounters;
+    String wmPool = HiveConf.getVar(conf, ConfVars.LLAP_IO_CACHE_WM_POOL);
+    this.wmPool = wmPool.isEmpty() ? null : wmPool;
     if (!doUseTimeCounters) {
       setCounter(LlapIOCounters.TOTAL_IO_TIME_NS, -1);
       setCounter(LlapIOCounters.DECODE_TIME_NS, -1);
@@ -66,6 +69,11 @@ public void incrCounter(LlapIOCounters counter, long delta) {
     }
   }
 
+  @Override
+  public String getWmPool() {
+    return wmPool;
+  }
+
   @Override
   public final long startTimeCounter() {
     return (doUseTimeCounters ? System.nanoTime() : 0);
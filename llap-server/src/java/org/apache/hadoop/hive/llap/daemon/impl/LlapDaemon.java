@@ -23,11 +23,14 @@
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,11 +65,13 @@
 import org.apache.hadoop.hive.llap.daemon.rpc.LlapDaemonProtocolProtos.SetCapacityRequestProto;
 import org.apache.hadoop.hive.llap.daemon.rpc.LlapDaemonProtocolProtos.SetCapacityResponseProto;
 import org.apache.hadoop.hive.llap.daemon.services.impl.LlapWebServices;
+import org.apache.hadoop.hive.llap.io.api.LlapIo;
 import org.apache.hadoop.hive.llap.io.api.LlapProxy;
 import org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorMetrics;
 import org.apache.hadoop.hive.llap.metrics.LlapDaemonJvmMetrics;
 import org.apache.hadoop.hive.llap.metrics.LlapMetricsSystem;
 import org.apache.hadoop.hive.llap.metrics.MetricsUtils;
+import org.apache.hadoop.hive.llap.registry.LlapCacheSummary;
 import org.apache.hadoop.hive.llap.registry.impl.LlapRegistryService;
 import org.apache.hadoop.hive.llap.security.LlapExtClientJwtHelper;
 import org.apache.hadoop.hive.llap.security.LlapUgiFactoryFactory;
@@ -74,6 +79,7 @@
 import org.apache.hadoop.hive.llap.shufflehandler.ShuffleHandler;
 import org.apache.hadoop.hive.ql.exec.SerializationUtilities;
 import org.apache.hadoop.hive.ql.exec.UDF;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchPool;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBridge;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBridge.UdfWhitelistChecker;
@@ -95,6 +101,7 @@
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class LlapDaemon extends CompositeService implements ContainerRunner, LlapDaemonMXBean {
 
@@ -112,6 +119,8 @@ public class LlapDaemon extends CompositeService implements ContainerRunner, Lla
   private final ObjectName llapDaemonInfoBean;
   private final LlapDaemonExecutorMetrics metrics;
   private final FunctionLocalizer fnLocalizer;
+  private ScheduledExecutorService cacheSummaryExecutor;
+  private String publishedCacheSummary;
 
   // Parameters used for JMX
   private final boolean llapIoEnabled;
@@ -290,6 +299,7 @@ public LlapDaemon(Configuration daemonConf, int numExecutors, long executorMemor
     LlapDaemonJvmMetrics.create(displayNameJvm, sessionId, daemonConf);
     String displayName = "LlapDaemonExecutorMetrics-" + hostName;
     daemonConf.set("llap.daemon.metrics.sessionid", sessionId);
+    shuffleHandlerConf.set("llap.daemon.metrics.sessionid", sessionId);
     String[] strIntervals = HiveConf.getTrimmedStringsVar(daemonConf,
         HiveConf.ConfVars.LLAP_DAEMON_TASK_PREEMPTION_METRICS_INTERVALS);
     List<Integer> intervalList = new ArrayList<>();
@@ -309,6 +319,7 @@ public LlapDaemon(Configuration daemonConf, int numExecutors, long executorMemor
     this.metrics.setMemoryPerInstance(executorMemoryPerInstance);
     this.metrics.setCacheMemoryPerInstance(ioMemoryBytes);
     this.metrics.setJvmMaxMemory(maxJvmMemory);
+    VectorizedRowBatchPool.initialize(daemonConf);
     this.metrics.getJvmMetrics().setPauseMonitor(pauseMonitor);
     this.llapDaemonInfoBean = MBeans.register("LlapDaemon", "LlapDaemonInfo", this);
     LOG.info("Started LlapMetricsSystem with displayName: " + displayName +
@@ -509,13 +520,48 @@ public void serviceStart() throws Exception {
 
     this.registry.init(getConfig());
     this.registry.start();
+    startCacheSummaryPublisher();
     LOG.info(
         "LlapDaemon serviceStart complete. RPC Port={}, ManagementPort={}, ShuflePort={}, WebPort={}",
         server.getBindAddress().getPort(), server.getManagementBindAddress().getPort(),
         ShuffleHandler.get().getPort(), (webServices == null ? "" : webServices.getPort()));
   }
 
+  /**
+   * Periodically publishes the summary of the files in the IO cache in the registry, for the split locations to
+   * prefer the daemons that have the data when the consistent location is busy.
+   */
+  private void startCacheSummaryPublisher() {
+    long intervalSec = HiveConf.getTimeVar(
+        getConfig(), ConfVars.LLAP_DAEMON_CACHE_SUMMARY_INTERVAL, TimeUnit.SECONDS);
+    if (!llapIoEnabled || intervalSec <= 0) {
+      return;
+    }
+    int maxFiles = HiveConf.getIntVar(getConfig(), ConfVars.LLAP_DAEMON_CACHE_SUMMARY_MAX_FILES);
+    cacheSummaryExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("LlapCacheSummaryPublisher").build());
+    cacheSummaryExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        LlapIo<?> io = LlapProxy.getIo();
+        if (io == null) {
+          return;
+        }
+        String summary = LlapCacheSummary.create(io.getCachedFilePaths(), maxFiles).serialize();
+        if (!summary.equals(publishedCacheSummary)) {
+          registry.updateRegistration(Collections.singletonMap(
+              LlapCacheSummary.LLAP_DAEMON_CACHE_SUMMARY, summary).entrySet());
+          publishedCacheSummary = summary;
+        }
+      } catch (Throwable t) {
+        LOG.warn("Failed to publish the cache summary", t);
+      }
+    }, intervalSec, intervalSec, TimeUnit.SECONDS);
+  }
+
   public void serviceStop() throws Exception {
+    if (cacheSummaryExecutor != null) {
+      cacheSummaryExecutor.shutdownNow();
+    }
     if (registry != null) {
       this.registry.stop();
     }
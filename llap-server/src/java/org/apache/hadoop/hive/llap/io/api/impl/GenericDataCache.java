@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.io.api.impl;
+
+import org.apache.hadoop.hive.common.io.Allocator;
+import org.apache.hadoop.hive.common.io.Allocator.BufferObjectFactory;
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.common.io.DataCache;
+import org.apache.hadoop.hive.common.io.DiskRange;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
+import org.apache.hadoop.hive.llap.cache.LlapDataBuffer;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.cache.LowLevelCacheCounters;
+import org.apache.hadoop.hive.llap.cache.PathCache;
+
+/**
+ * Exposes the LLAP data cache to the readers outside of LLAP IO (e.g. Parquet) as a DataCache.
+ */
+public class GenericDataCache implements DataCache, BufferObjectFactory {
+  private final LowLevelCache lowLevelCache;
+  private final PathCache pathCache;
+  private final BufferUsageManager bufferManager;
+  private final LowLevelCacheCounters counters;
+
+  /**
+   * @param pathCache the cache of the file paths by file key; null if the paths are not tracked.
+   * @param counters the fragment counters to update; null when the reader doesn't use LlapRecordReader.
+   */
+  public GenericDataCache(LowLevelCache lowLevelCache, PathCache pathCache, BufferUsageManager bufferManager,
+      LowLevelCacheCounters counters) {
+    this.lowLevelCache = lowLevelCache;
+    this.pathCache = pathCache;
+    this.bufferManager = bufferManager;
+    this.counters = counters;
+  }
+
+  @Override
+  public DiskRangeList getFileData(Object fileKey, DiskRangeList range,
+      long baseOffset, DiskRangeListFactory factory, BooleanRef gotAllData) {
+    // TODO: Create counters for non-elevator-using fragments also?
+    return lowLevelCache.getFileData(fileKey, range, baseOffset, factory, counters, gotAllData);
+  }
+
+  @Override
+  public long[] putFileData(Object fileKey, DiskRange[] ranges,
+      MemoryBuffer[] data, long baseOffset) {
+    return putFileData(fileKey, ranges, data, baseOffset, null);
+  }
+
+  @Override
+  public long[] putFileData(Object fileKey, DiskRange[] ranges,
+      MemoryBuffer[] data, long baseOffset, CacheTag tag) {
+    return lowLevelCache.putFileData(
+        fileKey, ranges, data, baseOffset, Priority.NORMAL, counters, tag);
+  }
+
+  @Override
+  public void touchFilePath(Object fileKey, String path) {
+    if (pathCache != null) {
+      pathCache.touch(fileKey, path);
+    }
+  }
+
+  @Override
+  public void releaseBuffer(MemoryBuffer buffer) {
+    bufferManager.decRefBuffer(buffer);
+  }
+
+  @Override
+  public void reuseBuffer(MemoryBuffer buffer) {
+    boolean isReused = bufferManager.incRefBuffer(buffer);
+    assert isReused;
+  }
+
+  @Override
+  public Allocator getAllocator() {
+    return bufferManager.getAllocator();
+  }
+
+  @Override
+  public BufferObjectFactory getDataBufferFactory() {
+    return this;
+  }
+
+  @Override
+  public MemoryBuffer create() {
+    return new LlapDataBuffer();
+  }
+}
@@ -23,7 +23,9 @@
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
@@ -32,6 +34,7 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.io.CacheTag;
 import org.apache.hadoop.hive.llap.ProactiveEviction;
+import org.apache.hadoop.hive.llap.cache.LlapCacheSnapshot;
 import org.apache.hadoop.hive.llap.cache.MemoryLimitedPathCache;
 import org.apache.hadoop.hive.llap.cache.PathCache;
 import org.apache.hadoop.hive.llap.cache.ProactiveEvictingCachePolicy;
@@ -40,19 +43,13 @@
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.common.io.Allocator;
-import org.apache.hadoop.hive.common.io.DataCache;
-import org.apache.hadoop.hive.common.io.DiskRange;
-import org.apache.hadoop.hive.common.io.DiskRangeList;
 import org.apache.hadoop.hive.common.io.FileMetadataCache;
-import org.apache.hadoop.hive.common.io.Allocator.BufferObjectFactory;
-import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
 import org.apache.hadoop.hive.llap.cache.BuddyAllocator;
 import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
 import org.apache.hadoop.hive.llap.cache.CacheContentsTracker;
 import org.apache.hadoop.hive.llap.cache.EvictionDispatcher;
-import org.apache.hadoop.hive.llap.cache.LlapDataBuffer;
 import org.apache.hadoop.hive.llap.cache.LlapIoDebugDump;
 import org.apache.hadoop.hive.llap.cache.LowLevelCache;
 import org.apache.hadoop.hive.llap.cache.LowLevelCacheImpl;
@@ -60,15 +57,18 @@
 import org.apache.hadoop.hive.llap.cache.LowLevelCachePolicy;
 import org.apache.hadoop.hive.llap.cache.LowLevelFifoCachePolicy;
 import org.apache.hadoop.hive.llap.cache.LowLevelLrfuCachePolicy;
+import org.apache.hadoop.hive.llap.cache.LowLevelTinyLfuCachePolicy;
 import org.apache.hadoop.hive.llap.cache.SerDeLowLevelCacheImpl;
+import org.apache.hadoop.hive.llap.cache.SsdCacheTier;
 import org.apache.hadoop.hive.llap.cache.SimpleAllocator;
 import org.apache.hadoop.hive.llap.cache.SimpleBufferManager;
-import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
 import org.apache.hadoop.hive.llap.daemon.rpc.LlapDaemonProtocolProtos;
 import org.apache.hadoop.hive.llap.io.api.LlapIo;
 import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer;
 import org.apache.hadoop.hive.llap.io.decode.GenericColumnVectorProducer;
 import org.apache.hadoop.hive.llap.io.decode.OrcColumnVectorProducer;
+import org.apache.hadoop.hive.llap.io.decode.ParquetColumnVectorProducer;
+import org.apache.hadoop.hive.llap.io.encoded.AsyncRangeReader;
 import org.apache.hadoop.hive.llap.io.encoded.OrcEncodedDataReader;
 import org.apache.hadoop.hive.llap.io.metadata.MetadataCache;
 import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
@@ -79,6 +79,8 @@
 import org.apache.hadoop.hive.ql.io.orc.OrcSplit;
 import org.apache.hadoop.hive.ql.io.orc.encoded.IoTrace;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.VectorizedParquetInputFormat;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.serde2.Deserializer;
 import org.apache.hadoop.io.NullWritable;
@@ -90,6 +92,7 @@
 import org.apache.orc.impl.OrcTail;
 
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -102,12 +105,14 @@ public class LlapIoImpl implements LlapIo<VectorizedRowBatch>, LlapIoDebugDump {
   private static final String MODE_CACHE = "cache";
 
   // TODO: later, we may have a map
-  private final ColumnVectorProducer orcCvp, genericCvp;
+  private final ColumnVectorProducer orcCvp, genericCvp, parquetCvp;
   private final ExecutorService executor;
   private final ExecutorService encodeExecutor;
   private final LlapDaemonCacheMetrics cacheMetrics;
   private final LlapDaemonIOMetrics ioMetrics;
   private ObjectName buddyAllocatorMXBean;
+  private ObjectName cacheContentsTrackerMXBean;
+  private CacheContentsTracker cacheContentsTracker;
   private final Allocator allocator;
   private final FileMetadataCache fileMetadataCache;
   private final LowLevelCache dataCache;
@@ -116,6 +121,10 @@ public class LlapIoImpl implements LlapIo<VectorizedRowBatch>, LlapIoDebugDump {
   private final Configuration daemonConf;
   private final LowLevelCacheMemoryManager memoryManager;
   private PathCache pathCache;
+  private final LlapCacheSnapshot cacheSnapshot;
+  private final SsdCacheTier ssdTier;
+  private final ScheduledExecutorService snapshotExecutor;
+  private final AsyncRangeReader asyncRangeReader;
 
   private List<LlapIoDebugDump> debugDumpComponents = new ArrayList<>();
 
@@ -150,16 +159,23 @@ private LlapIoImpl(Configuration conf) throws IOException {
     MetadataCache metadataCache = null;
     SerDeLowLevelCacheImpl serdeCache = null; // TODO: extract interface when needed
     BufferUsageManager bufferManagerOrc = null, bufferManagerGeneric = null;
+    LlapCacheSnapshot cacheSnapshot = null;
+    SsdCacheTier ssdTier = null;
     boolean isEncodeEnabled = useLowLevelCache
         && HiveConf.getBoolVar(conf, ConfVars.LLAP_IO_ENCODE_ENABLED);
     if (useLowLevelCache) {
       // Memory manager uses cache policy to trigger evictions, so create the policy first.
       boolean useLrfu = HiveConf.getBoolVar(conf, HiveConf.ConfVars.LLAP_USE_LRFU);
+      boolean useTinyLfu = HiveConf.getBoolVar(conf, HiveConf.ConfVars.LLAP_USE_TINYLFU);
       long totalMemorySize = HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_MEMORY_MAX_SIZE);
       int minAllocSize = (int) HiveConf.getSizeVar(conf, ConfVars.LLAP_ALLOCATOR_MIN_ALLOC);
-      LowLevelCachePolicy
-          realCachePolicy =
-          useLrfu ? new LowLevelLrfuCachePolicy(minAllocSize, totalMemorySize, conf) : new LowLevelFifoCachePolicy();
+      LowLevelCachePolicy realCachePolicy;
+      if (useTinyLfu) {
+        realCachePolicy = new LowLevelTinyLfuCachePolicy(minAllocSize, totalMemorySize, conf);
+      } else {
+        realCachePolicy =
+            useLrfu ? new LowLevelLrfuCachePolicy(minAllocSize, totalMemorySize, conf) : new LowLevelFifoCachePolicy();
+      }
       if (!(realCachePolicy instanceof ProactiveEvictingCachePolicy.Impl)) {
         HiveConf.setBoolVar(this.daemonConf, ConfVars.LLAP_IO_PROACTIVE_EVICTION_ENABLED, false);
         LOG.info("Turning off proactive cache eviction, as selected cache policy does not support it.");
@@ -167,7 +183,8 @@ private LlapIoImpl(Configuration conf) throws IOException {
       boolean trackUsage = HiveConf.getBoolVar(conf, HiveConf.ConfVars.LLAP_TRACK_CACHE_USAGE);
       LowLevelCachePolicy cachePolicyWrapper;
       if (trackUsage) {
-        cachePolicyWrapper = new CacheContentsTracker(realCachePolicy);
+        cacheContentsTracker = new CacheContentsTracker(realCachePolicy, conf, totalMemorySize);
+        cachePolicyWrapper = cacheContentsTracker;
       } else {
         cachePolicyWrapper = realCachePolicy;
       }
@@ -180,6 +197,11 @@ private LlapIoImpl(Configuration conf) throws IOException {
       this.allocator = allocator;
       LowLevelCacheImpl cacheImpl = new LowLevelCacheImpl(
           cacheMetrics, cachePolicyWrapper, allocator, true);
+      cacheImpl.setConf(conf);
+      if (SsdCacheTier.isEnabled(conf)) {
+        ssdTier = new SsdCacheTier(conf, cacheMetrics);
+        cacheImpl.setSsdTier(ssdTier);
+      }
       dataCache = cacheImpl;
       if (isEncodeEnabled) {
         SerDeLowLevelCacheImpl serdeCacheImpl = new SerDeLowLevelCacheImpl(
@@ -213,6 +235,9 @@ private LlapIoImpl(Configuration conf) throws IOException {
       }
       debugDumpComponents.add(allocator);
       pathCache = new MemoryLimitedPathCache(conf);
+      if (LlapCacheSnapshot.isEnabled(conf)) {
+        cacheSnapshot = new LlapCacheSnapshot(conf, cacheImpl, metadataCache);
+      }
     } else {
       this.allocator = new SimpleAllocator(conf);
       fileMetadataCache = null;
@@ -228,6 +253,9 @@ public void debugDumpShort(StringBuilder sb) {
       });
     }
     this.serdeCache = serdeCache;
+    this.cacheSnapshot = cacheSnapshot;
+    this.ssdTier = ssdTier;
+    this.snapshotExecutor = cacheSnapshot != null ? startCacheSnapshots() : null;
     // IO thread pool. Listening is used for unhandled errors for now (TODO: remove?)
     int numThreads = HiveConf.getIntVar(conf, HiveConf.ConfVars.LLAP_IO_THREADPOOL_SIZE);
     executor = new StatsRecordingThreadPool(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
@@ -244,18 +272,61 @@ public void debugDumpShort(StringBuilder sb) {
       encodeExecutor = null;
     }
 
+    // Reads the ORC stripes in parallel on the object stores; the pool is shared by all the fragments.
+    this.asyncRangeReader = AsyncRangeReader.isEnabled(conf) ? new AsyncRangeReader(conf) : null;
+
     // TODO: this should depends on input format and be in a map, or something.
-    this.orcCvp = new OrcColumnVectorProducer(
-        metadataCache, dataCache, pathCache, bufferManagerOrc, conf, cacheMetrics, ioMetrics, tracePool);
+    this.orcCvp = new OrcColumnVectorProducer(metadataCache, dataCache, pathCache, bufferManagerOrc, conf,
+        cacheMetrics, ioMetrics, tracePool, asyncRangeReader);
     this.genericCvp = isEncodeEnabled ? new GenericColumnVectorProducer(
-        serdeCache, bufferManagerGeneric, conf, cacheMetrics, ioMetrics, tracePool, encodeExecutor) : null;
+        serdeCache, pathCache, bufferManagerGeneric, conf, cacheMetrics, ioMetrics, tracePool, encodeExecutor) : null;
+    this.parquetCvp = fileMetadataCache != null ? new ParquetColumnVectorProducer(
+        fileMetadataCache, dataCache, pathCache, bufferManager, conf, cacheMetrics, ioMetrics) : null;
     LOG.info("LLAP IO initialized");
 
     registerMXBeans();
   }
 
+  private ScheduledExecutorService startCacheSnapshots() {
+    ScheduledExecutorService result = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("LlapCacheSnapshot").setDaemon(true).build());
+    // Restore in the background so that the daemon does not wait for it; the fragments that run in
+    // the meantime just miss the cache. The periodic snapshots are only taken after the restore.
+    result.execute(this::restoreCacheSnapshot);
+    long interval = HiveConf.getTimeVar(daemonConf, ConfVars.LLAP_IO_CACHE_SNAPSHOT_INTERVAL, TimeUnit.SECONDS);
+    if (interval > 0) {
+      result.scheduleWithFixedDelay(this::saveCacheSnapshot, interval, interval, TimeUnit.SECONDS);
+    }
+    return result;
+  }
+
+  private void restoreCacheSnapshot() {
+    long time = System.currentTimeMillis();
+    try {
+      long bytes = cacheSnapshot.restore();
+      time = System.currentTimeMillis() - time;
+      cacheMetrics.setCacheSnapshotRestored(time, bytes);
+      LOG.info("Restored {} bytes from the LLAP cache snapshot in {} ms", bytes, time);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to restore the LLAP cache snapshot", e);
+    }
+  }
+
+  private void saveCacheSnapshot() {
+    long time = System.currentTimeMillis();
+    try {
+      long bytes = cacheSnapshot.save();
+      LOG.info("Saved {} bytes to the LLAP cache snapshot in {} ms", bytes, System.currentTimeMillis() - time);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to save the LLAP cache snapshot", e);
+    }
+  }
+
   private void registerMXBeans() {
     buddyAllocatorMXBean = MBeans.register("LlapDaemon", "BuddyAllocatorInfo", allocator);
+    if (cacheContentsTracker != null) {
+      cacheContentsTrackerMXBean = MBeans.register("LlapDaemon", "CacheUsageInfo", cacheContentsTracker);
+    }
   }
 
   @Override
@@ -311,16 +382,35 @@ public long evictEntity(LlapDaemonProtocolProtos.EvictEntityRequestProto protoRe
   @Override
   public InputFormat<NullWritable, VectorizedRowBatch> getInputFormat(
       InputFormat<?, ?> sourceInputFormat, Deserializer sourceSerDe) {
-    ColumnVectorProducer cvp = genericCvp;
-    if (sourceInputFormat instanceof OrcInputFormat) {
-      cvp = orcCvp; // Special-case for ORC.
-    } else if (cvp == null) {
-      LOG.warn("LLAP encode is disabled; cannot use for " + sourceInputFormat.getClass());
+    ColumnVectorProducer cvp = getColumnVectorProducer(sourceInputFormat, orcCvp, genericCvp, parquetCvp);
+    if (cvp == null) {
       return null;
     }
     return new LlapInputFormat(sourceInputFormat, sourceSerDe, cvp, executor, daemonConf);
   }
 
+  /**
+   * @return The producer reading the format thru IO elevator, or null if there is none; the cause is logged.
+   */
+  @VisibleForTesting
+  static ColumnVectorProducer getColumnVectorProducer(InputFormat<?, ?> sourceInputFormat,
+      ColumnVectorProducer orcCvp, ColumnVectorProducer genericCvp, ColumnVectorProducer parquetCvp) {
+    if (sourceInputFormat instanceof OrcInputFormat) {
+      return orcCvp; // Special-case for ORC.
+    }
+    if (sourceInputFormat instanceof MapredParquetInputFormat
+        || sourceInputFormat instanceof VectorizedParquetInputFormat) {
+      if (parquetCvp == null) {
+        LOG.warn("LLAP cache is disabled; cannot use for " + sourceInputFormat.getClass());
+      }
+      return parquetCvp;
+    }
+    if (genericCvp == null) {
+      LOG.warn("LLAP encode is disabled; cannot use for " + sourceInputFormat.getClass());
+    }
+    return genericCvp;
+  }
+
   @Override
   public void close() {
     LOG.info("Closing LlapIoImpl..");
@@ -328,10 +418,33 @@ public void close() {
       MBeans.unregister(buddyAllocatorMXBean);
       buddyAllocatorMXBean = null;
     }
+    if (cacheContentsTrackerMXBean != null) {
+      MBeans.unregister(cacheContentsTrackerMXBean);
+      cacheContentsTrackerMXBean = null;
+    }
     executor.shutdownNow();
     if (encodeExecutor != null) {
       encodeExecutor.shutdownNow();
     }
+    if (asyncRangeReader != null) {
+      asyncRangeReader.close();
+    }
+    if (snapshotExecutor != null) {
+      // Cancels the periodic snapshots; a restore or a snapshot in progress is allowed to finish.
+      snapshotExecutor.shutdown();
+      try {
+        if (snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+          saveCacheSnapshot();
+        } else {
+          LOG.warn("Not saving the LLAP cache snapshot; the previous snapshot operation is still running");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (ssdTier != null) {
+      ssdTier.close();
+    }
   }
 
 
@@ -339,64 +452,29 @@ public void close() {
   public void initCacheOnlyInputFormat(InputFormat<?, ?> inputFormat) {
     LlapCacheOnlyInputFormatInterface cacheIf = (LlapCacheOnlyInputFormatInterface)inputFormat;
     cacheIf.injectCaches(fileMetadataCache,
-        new GenericDataCache(dataCache, bufferManager), daemonConf);
+        new GenericDataCache(dataCache, pathCache, bufferManager, null), daemonConf);
   }
 
-  private class GenericDataCache implements DataCache, BufferObjectFactory {
-    private final LowLevelCache lowLevelCache;
-    private final BufferUsageManager bufferManager;
-
-    public GenericDataCache(LowLevelCache lowLevelCache, BufferUsageManager bufferManager) {
-      this.lowLevelCache = lowLevelCache;
-      this.bufferManager = bufferManager;
-    }
-
-    @Override
-    public DiskRangeList getFileData(Object fileKey, DiskRangeList range,
-        long baseOffset, DiskRangeListFactory factory, BooleanRef gotAllData) {
-      // TODO: we currently pass null counters because this doesn't use LlapRecordReader.
-      //       Create counters for non-elevator-using fragments also?
-      return lowLevelCache.getFileData(fileKey, range, baseOffset, factory, null, gotAllData);
-    }
-
-    @Override
-    public long[] putFileData(Object fileKey, DiskRange[] ranges,
-        MemoryBuffer[] data, long baseOffset) {
-      return putFileData(fileKey, ranges, data, baseOffset, null);
-    }
-
-    @Override
-    public long[] putFileData(Object fileKey, DiskRange[] ranges,
-        MemoryBuffer[] data, long baseOffset, CacheTag tag) {
-      return lowLevelCache.putFileData(
-          fileKey, ranges, data, baseOffset, Priority.NORMAL, null, tag);
-    }
-
-    @Override
-    public void releaseBuffer(MemoryBuffer buffer) {
-      bufferManager.decRefBuffer(buffer);
-    }
-
-    @Override
-    public void reuseBuffer(MemoryBuffer buffer) {
-      boolean isReused = bufferManager.incRefBuffer(buffer);
-      assert isReused;
+  @Override
+  public List<String> getCachedFilePaths() {
+    List<String> paths = new ArrayList<>();
+    if (pathCache == null) {
+      return paths;
     }
-
-    @Override
-    public Allocator getAllocator() {
-      return bufferManager.getAllocator();
+    List<Object> fileKeys = new ArrayList<>();
+    if (dataCache instanceof LowLevelCacheImpl) {
+      fileKeys.addAll(((LowLevelCacheImpl) dataCache).getCachedFileKeys());
     }
-
-    @Override
-    public BufferObjectFactory getDataBufferFactory() {
-      return this;
+    if (serdeCache != null) {
+      fileKeys.addAll(serdeCache.getCachedFileKeys());
     }
-
-    @Override
-    public MemoryBuffer create() {
-      return new LlapDataBuffer();
+    for (Object fileKey : fileKeys) {
+      String path = pathCache.resolve(fileKey);
+      if (path != null) {
+        paths.add(path);
+      }
     }
+    return paths;
   }
 
   @Override
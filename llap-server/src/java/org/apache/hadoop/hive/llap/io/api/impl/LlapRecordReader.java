@@ -41,6 +41,7 @@
 import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer;
 import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer.Includes;
 import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer.SchemaEvolutionFactory;
+import org.apache.hadoop.hive.llap.io.decode.LateMaterializationFilter;
 import org.apache.hadoop.hive.llap.io.decode.ReadPipeline;
 import org.apache.hadoop.hive.llap.tezplugins.LlapTezUtils;
 import org.apache.hadoop.hive.ql.exec.TableScanOperator;
@@ -206,6 +207,10 @@ private LlapRecordReader(MapWork mapWork, JobConf job, FileSplit split,
       includes.setProbeDecodeContext(mapWork.getProbeDecodeContext());
       LOG.info("LlapRecordReader ProbeDecode is enabled");
     }
+    if (isVectorized && !isAcidScan && ctx != null) {
+      includes.setLateMaterializationFilter(
+          LateMaterializationFilter.create(job, rbCtx, includes.getPhysicalColumnIds()));
+    }
 
     // Create the consumer of encoded data; it will coordinate decoding to CVBs.
     feedback = rp = cvp.createReadPipeline(this, split, includes, sarg, counters, includes,
@@ -422,8 +427,7 @@ public boolean next(NullWritable key, VectorizedRowBatch vrb) throws IOException
         int ixInVrb = includes.getPhysicalColumnIds().get(ixInReadSet);
         cvb.swapColumnVector(ixInReadSet, vrb.cols, ixInVrb);
       }
-      vrb.selectedInUse = false;//why?
-      vrb.size = cvb.size;
+      setRows(cvb, vrb);
     }
 
     if (wasFirst) {
@@ -432,6 +436,19 @@ public boolean next(NullWritable key, VectorizedRowBatch vrb) throws IOException
     return true;
   }
 
+  @VisibleForTesting
+  static void setRows(ColumnVectorBatch cvb, VectorizedRowBatch vrb) {
+    if (cvb.filterContext.isSelectedInUse()) {
+      // Only the selected rows of the columns decoded late are valid.
+      vrb.selectedInUse = true;
+      vrb.size = cvb.filterContext.getSelectedSize();
+      System.arraycopy(cvb.filterContext.getSelected(), 0, vrb.selected, 0, vrb.size);
+    } else {
+      vrb.selectedInUse = false;//why?
+      vrb.size = cvb.size;
+    }
+  }
+
   private void ensureAcidInputVrb(int acidColCount, int dataColCount) {
     if (acidInputVrb == null) {
       //+1 is the OrcRecordUpdater.ROW
@@ -650,6 +667,8 @@ private static class IncludesImpl implements SchemaEvolutionFactory, Includes {
     // ProbeDecode Context for row-level filtering
     private TableScanOperator.ProbeDecodeContext probeDecodeContext = null;
 
+    private LateMaterializationFilter lateMaterializationFilter = null;
+
     public IncludesImpl(List<Integer> tableIncludedCols, boolean isAcidScan,
         VectorizedRowBatchCtx rbCtx, TypeDescription readerSchema,
         JobConf jobConf, boolean includeAcidColumns) {
@@ -733,6 +752,15 @@ public void setProbeDecodeContext(TableScanOperator.ProbeDecodeContext currProbe
       this.probeDecodeContext = currProbeDecodeContext;
     }
 
+    public void setLateMaterializationFilter(LateMaterializationFilter lateMaterializationFilter) {
+      this.lateMaterializationFilter = lateMaterializationFilter;
+    }
+
+    @Override
+    public LateMaterializationFilter getLateMaterializationFilter() {
+      return lateMaterializationFilter;
+    }
+
     @Override
     public List<Integer> getPhysicalColumnIds() {
       return filePhysicalColumnIds;
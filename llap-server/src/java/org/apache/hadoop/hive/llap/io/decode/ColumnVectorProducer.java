@@ -56,6 +56,7 @@ public interface Includes {
     String getProbeCacheKey();
     String getProbeColName();
     int getProbeColIdx();
+    LateMaterializationFilter getLateMaterializationFilter();
   }
 
   ReadPipeline createReadPipeline(Consumer<ColumnVectorBatch> consumer, FileSplit split,
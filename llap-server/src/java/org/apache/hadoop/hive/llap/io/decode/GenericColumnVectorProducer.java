@@ -28,6 +28,7 @@
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
+import org.apache.hadoop.hive.llap.cache.PathCache;
 import org.apache.hadoop.hive.llap.cache.SerDeLowLevelCacheImpl;
 import org.apache.hadoop.hive.llap.counters.QueryFragmentCounters;
 import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
@@ -62,6 +63,7 @@
 
 public class GenericColumnVectorProducer implements ColumnVectorProducer {
   private final SerDeLowLevelCacheImpl cache;
+  private final PathCache pathCache;
   private final BufferUsageManager bufferManager;
   private final Configuration conf;
   private final LlapDaemonCacheMetrics cacheMetrics;
@@ -69,11 +71,12 @@ public class GenericColumnVectorProducer implements ColumnVectorProducer {
   private final FixedSizedObjectPool<IoTrace> tracePool;
   private final ExecutorService encodeExecutor;
 
-  public GenericColumnVectorProducer(SerDeLowLevelCacheImpl serdeCache,
+  public GenericColumnVectorProducer(SerDeLowLevelCacheImpl serdeCache, PathCache pathCache,
       BufferUsageManager bufferManager, Configuration conf, LlapDaemonCacheMetrics cacheMetrics,
       LlapDaemonIOMetrics ioMetrics, FixedSizedObjectPool<IoTrace> tracePool, ExecutorService encodeExecutor) {
     LlapIoImpl.LOG.info("Initializing ORC column vector producer");
     this.cache = serdeCache;
+    this.pathCache = pathCache;
     this.bufferManager = bufferManager;
     this.conf = conf;
     this.cacheMetrics = cacheMetrics;
@@ -100,7 +103,7 @@ public ReadPipeline createReadPipeline(Consumer<ColumnVectorBatch> consumer, Fil
     // TODO: add tracing to serde reader
     SerDeEncodedDataReader reader = new SerDeEncodedDataReader(cache, bufferManager, conf,
         split, includes.getPhysicalColumnIds(), edc, job, reporter, sourceInputFormat,
-        sourceSerDe, counters, fm.getSchema(), parts, encodeExecutor);
+        sourceSerDe, counters, fm.getSchema(), parts, encodeExecutor, pathCache);
     edc.init(reader, reader, new IoTrace(0, false));
     return edc;
   }
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.llap.io.decode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.common.type.DataTypePhysicalVariation;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
+import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
+import org.apache.hadoop.hive.ql.exec.SerializationUtilities;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizationContext;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedBatchUtil;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.ConstantVectorExpression;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDescUtils;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDynamicListDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDynamicValueDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+import org.apache.hadoop.mapred.JobConf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Evaluates the filter pushed down to the table scan on the columns it references, so that
+ * the decoder can read those columns first and only decode the other columns of the rows
+ * that pass (or skip them altogether when no row of the batch does).
+ *
+ * The selected rows are a superset of the final result: the FilterOperator above the scan
+ * still evaluates the whole predicate. Not thread-safe; each consumer needs its own instance.
+ *
+ * The readers of a fragment, and of the queries running on the daemon, share the deserialized
+ * filters that can be evaluated in IO; the vector expression, which keeps state between the
+ * batches, is built for each instance.
+ */
+public class LateMaterializationFilter {
+  private static final Logger LOG = LoggerFactory.getLogger(LateMaterializationFilter.class);
+
+  // By serialized filter; empty when the filter cannot be evaluated in IO.
+  private static final Cache<String, Optional<ExprNodeGenericFuncDesc>> FILTER_EXPRS =
+      CacheBuilder.newBuilder().maximumSize(1000).expireAfterAccess(300, TimeUnit.SECONDS).build();
+
+  private final VectorExpression filterExpression;
+  private final VectorizedRowBatch filterBatch;
+  // Both indexed by the position of the column in the read set.
+  private final boolean[] isFilterColumn;
+  private final int[] batchColumnNums;
+  private final int firstScratchColumn;
+
+  private LateMaterializationFilter(VectorExpression filterExpression, boolean[] isFilterColumn,
+      int[] batchColumnNums, int firstScratchColumn, String[] scratchColumnTypeNames,
+      DataTypePhysicalVariation[] scratchVariations) {
+    this.filterExpression = filterExpression;
+    this.isFilterColumn = isFilterColumn;
+    this.batchColumnNums = batchColumnNums;
+    this.firstScratchColumn = firstScratchColumn;
+    this.filterBatch = new VectorizedRowBatch(firstScratchColumn + scratchColumnTypeNames.length);
+    for (int i = 0; i < scratchColumnTypeNames.length; ++i) {
+      filterBatch.cols[firstScratchColumn + i] = VectorizedBatchUtil.createColumnVector(
+          scratchColumnTypeNames[i], scratchVariations[i]);
+    }
+  }
+
+  /**
+   * @return The filter for the non-ACID vectorized scan, or null if late materialization is
+   *         disabled or would not help, e.g. because the filter needs all the columns read.
+   */
+  public static LateMaterializationFilter create(JobConf job, VectorizedRowBatchCtx rbCtx,
+      List<Integer> readColumnIds) {
+    if (!HiveConf.getBoolVar(job, ConfVars.LLAP_IO_LATE_MATERIALIZATION_ENABLED)) {
+      return null;
+    }
+    String filterExprSerialized = job.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+    if (filterExprSerialized == null) {
+      return null;
+    }
+    ExprNodeGenericFuncDesc filterExpr = getFilterExpr(filterExprSerialized);
+    if (filterExpr == null) {
+      return null;
+    }
+
+    String[] rowColumnNames = rbCtx.getRowColumnNames();
+    int dataColumnCount = rbCtx.getDataColumnCount();
+    List<String> columnNames = Arrays.asList(rowColumnNames);
+    boolean[] isFilterColumn = new boolean[readColumnIds.size()];
+    int filterColumnCount = 0;
+    for (ExprNodeColumnDesc columnDesc : ExprNodeDescUtils.findAllColumnDescs(filterExpr)) {
+      int columnNum = columnNames.indexOf(columnDesc.getColumn());
+      int ixInReadSet = readColumnIds.indexOf(columnNum);
+      if (columnNum < 0 || columnNum >= dataColumnCount || ixInReadSet < 0) {
+        // Partition or virtual columns, or columns that are not read.
+        return null;
+      }
+      if (!isFilterColumn[ixInReadSet]) {
+        isFilterColumn[ixInReadSet] = true;
+        ++filterColumnCount;
+      }
+    }
+    if (filterColumnCount == 0 || filterColumnCount == isFilterColumn.length) {
+      // Nothing would be decoded late.
+      return null;
+    }
+
+    DataTypePhysicalVariation[] variations = rbCtx.getRowdataTypePhysicalVariations();
+    if (variations == null) {
+      variations = new DataTypePhysicalVariation[rowColumnNames.length];
+      Arrays.fill(variations, DataTypePhysicalVariation.NONE);
+    }
+    VectorExpression filterExpression;
+    VectorizationContext vContext;
+    try {
+      vContext = new VectorizationContext("LateMaterialization", columnNames,
+          Arrays.asList(rbCtx.getRowColumnTypeInfos()), Arrays.asList(variations), (HiveConf) null);
+      vContext.setHiveConfVars(job);
+      filterExpression = vContext.getVectorExpression(filterExpr, VectorExpressionDescriptor.Mode.FILTER);
+      if (filterExpression instanceof ConstantVectorExpression) {
+        return null;
+      }
+      VectorExpression.doTransientInit(filterExpression, job);
+    } catch (HiveException e) {
+      LOG.info("Not using late materialization, cannot vectorize the filter: {}", e.getMessage());
+      return null;
+    }
+
+    int[] batchColumnNums = new int[readColumnIds.size()];
+    for (int i = 0; i < batchColumnNums.length; ++i) {
+      batchColumnNums[i] = readColumnIds.get(i);
+    }
+    LOG.debug("Using late materialization with filter {} on {} of {} columns",
+        filterExpression, filterColumnCount, isFilterColumn.length);
+    return new LateMaterializationFilter(filterExpression, isFilterColumn, batchColumnNums,
+        rowColumnNames.length, vContext.getScratchColumnTypeNames(),
+        vContext.getScratchDataTypePhysicalVariations());
+  }
+
+  /**
+   * @return A copy of the filter the readers can vectorize on their own, or null if it cannot
+   *         be evaluated in IO.
+   */
+  private static ExprNodeGenericFuncDesc getFilterExpr(String filterExprSerialized) {
+    Optional<ExprNodeGenericFuncDesc> filterExpr;
+    try {
+      filterExpr = FILTER_EXPRS.get(filterExprSerialized, () -> {
+        ExprNodeGenericFuncDesc expr = SerializationUtilities.deserializeExpression(filterExprSerialized);
+        return expr != null && canEvaluateInIo(expr) ? Optional.of(expr) : Optional.empty();
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      LOG.info("Not using late materialization, cannot deserialize the filter", e);
+      return null;
+    }
+    return filterExpr.isPresent() ? (ExprNodeGenericFuncDesc) filterExpr.get().clone() : null;
+  }
+
+  /*
+   * Dynamic values are only available in the task thread, and the rows selected by a
+   * non-deterministic filter would not be the ones the FilterOperator selects later.
+   */
+  private static boolean canEvaluateInIo(ExprNodeDesc expr) {
+    if (expr instanceof ExprNodeDynamicValueDesc || expr instanceof ExprNodeDynamicListDesc) {
+      return false;
+    }
+    if (expr instanceof ExprNodeGenericFuncDesc
+        && !FunctionRegistry.isConsistentWithinQuery(((ExprNodeGenericFuncDesc) expr).getGenericUDF())) {
+      return false;
+    }
+    if (expr.getChildren() != null) {
+      for (ExprNodeDesc child : expr.getChildren()) {
+        if (!canEvaluateInIo(child)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @VisibleForTesting
+  VectorExpression getFilterExpression() {
+    return filterExpression;
+  }
+
+  public boolean isFilterColumn(int ixInReadSet) {
+    return isFilterColumn[ixInReadSet];
+  }
+
+  /**
+   * Evaluates the filter on the filter columns of the batch, which must have been decoded,
+   * and sets the filter context of the batch to the selected rows.
+   * @return The number of rows selected.
+   */
+  public int filter(ColumnVectorBatch cvb) throws HiveException {
+    for (int ixInReadSet = 0; ixInReadSet < isFilterColumn.length; ++ixInReadSet) {
+      if (isFilterColumn[ixInReadSet]) {
+        filterBatch.cols[batchColumnNums[ixInReadSet]] = cvb.cols[ixInReadSet];
+      }
+    }
+    for (int i = firstScratchColumn; i < filterBatch.cols.length; ++i) {
+      filterBatch.cols[i].reset();
+    }
+    filterBatch.selectedInUse = false;
+    filterBatch.size = cvb.size;
+    filterExpression.evaluate(filterBatch);
+
+    int selectedSize = filterBatch.size;
+    if (filterBatch.selectedInUse) {
+      int[] selected = cvb.filterContext.updateSelected(selectedSize);
+      System.arraycopy(filterBatch.selected, 0, selected, 0, selectedSize);
+      cvb.filterContext.setSelectedInUse(true);
+      cvb.filterContext.setSelectedSize(selectedSize);
+    }
+    // Don't keep references to the vectors of the batch.
+    for (int ixInReadSet = 0; ixInReadSet < isFilterColumn.length; ++ixInReadSet) {
+      if (isFilterColumn[ixInReadSet]) {
+        filterBatch.cols[batchColumnNums[ixInReadSet]] = null;
+      }
+    }
+    return selectedSize;
+  }
+}
@@ -33,6 +33,7 @@
 import org.apache.hadoop.hive.llap.counters.QueryFragmentCounters;
 import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
 import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.io.encoded.AsyncRangeReader;
 import org.apache.hadoop.hive.llap.io.encoded.OrcEncodedDataReader;
 import org.apache.hadoop.hive.llap.io.metadata.MetadataCache;
 import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
@@ -63,11 +64,12 @@ public class OrcColumnVectorProducer implements ColumnVectorProducer {
   // TODO: if using in multiple places, e.g. SerDe cache, pass this in.
   // TODO: should this rather use a threadlocal for NUMA affinity?
   private final FixedSizedObjectPool<IoTrace> tracePool;
+  private final AsyncRangeReader asyncRangeReader;
 
   public OrcColumnVectorProducer(MetadataCache metadataCache,
       LowLevelCache lowLevelCache, PathCache pathCache, BufferUsageManager bufferManager,
       Configuration conf, LlapDaemonCacheMetrics cacheMetrics, LlapDaemonIOMetrics ioMetrics,
-      FixedSizedObjectPool<IoTrace> tracePool) {
+      FixedSizedObjectPool<IoTrace> tracePool, AsyncRangeReader asyncRangeReader) {
     LlapIoImpl.LOG.info("Initializing ORC column vector producer");
 
     this.metadataCache = metadataCache;
@@ -77,6 +79,7 @@ public OrcColumnVectorProducer(MetadataCache metadataCache,
     this.conf = conf;
     this.cacheMetrics = cacheMetrics;
     this.ioMetrics = ioMetrics;
+    this.asyncRangeReader = asyncRangeReader;
     this.tracePool = tracePool;
   }
 
@@ -92,8 +95,10 @@ public ReadPipeline createReadPipeline(
       Map<Path, PartitionDesc> parts) throws IOException {
     cacheMetrics.incrCacheReadRequests();
     OrcEncodedDataConsumer edc = new OrcEncodedDataConsumer(consumer, includes, counters, ioMetrics);
+    edc.setLateMaterializationFilter(includes.getLateMaterializationFilter());
     OrcEncodedDataReader reader = new OrcEncodedDataReader(lowLevelCache, bufferManager,
-        metadataCache, conf, job, split, includes, sarg, edc, counters, sef, tracePool, parts, pathCache);
+        metadataCache, conf, job, split, includes, sarg, edc, counters, sef, tracePool, parts, pathCache,
+        asyncRangeReader);
     edc.init(reader, reader, reader.getTrace());
     return edc;
   }
@@ -36,6 +36,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.DateColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.Decimal64ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ListColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
@@ -44,6 +45,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.TimestampColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.UnionColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.orc.CompressionCodec;
 import org.apache.orc.OrcProto.CalendarKind;
 import org.apache.orc.impl.PositionProvider;
@@ -62,6 +64,8 @@
 import org.apache.orc.impl.WriterImpl;
 import org.apache.orc.OrcProto;
 
+import com.google.common.annotations.VisibleForTesting;
+
 
 public class OrcEncodedDataConsumer
   extends EncodedDataConsumer<OrcBatchKey, OrcEncodedColumnBatch> {
@@ -75,6 +79,10 @@
   private final Includes includes;
   private TypeDescription[] batchSchemas;
   private boolean useDecimal64ColumnVectors;
+  private boolean useDictionaryVectors;
+  private LateMaterializationFilter lateMaterializationFilter;
+  // By column; the vectors the runs of selected rows are decoded to before being copied.
+  private ColumnVector[] lateScratchColumns;
 
   public OrcEncodedDataConsumer(Consumer<ColumnVectorBatch> consumer, Includes includes,
                                 QueryFragmentCounters counters, LlapDaemonIOMetrics ioMetrics) {
@@ -90,6 +98,14 @@ public void setUseDecimal64ColumnVectors(final boolean useDecimal64ColumnVectors
     this.useDecimal64ColumnVectors = useDecimal64ColumnVectors;
   }
 
+  public void setUseDictionaryVectors(final boolean useDictionaryVectors) {
+    this.useDictionaryVectors = useDictionaryVectors;
+  }
+
+  public void setLateMaterializationFilter(LateMaterializationFilter lateMaterializationFilter) {
+    this.lateMaterializationFilter = lateMaterializationFilter;
+  }
+
   public void setFileMetadata(ConsumerFileMetadata f) {
     assert fileMetadata == null;
     fileMetadata = f;
@@ -155,6 +171,17 @@ protected void decodeBatch(OrcEncodedColumnBatch batch,
         cvb.filterContext.reset();
         // assert cvb.cols.length == batch.getColumnIxs().length; // Must be constant per split.
         cvb.size = batchSize;
+        if (lateMaterializationFilter != null) {
+          int selectedSize = decodeBatchLate(cvb, batchSize);
+          if (selectedSize == 0) {
+            counters.incrCounter(LlapIOCounters.NUM_SKIPPED_VECTOR_BATCHES);
+            returnData(cvb);
+          } else {
+            downstreamConsumer.consumeData(cvb);
+            counters.incrCounter(LlapIOCounters.ROWS_EMITTED, selectedSize);
+          }
+          continue;
+        }
         for (int idx = 0; idx < columnReaders.length; ++idx) {
           /*
            * Currently, ORC's TreeReaderFactory class does this:
@@ -204,14 +231,98 @@ protected void decodeBatch(OrcEncodedColumnBatch batch,
       counters.incrWallClockCounter(LlapIOCounters.DECODE_TIME_NS, startTime);
       counters.incrCounter(LlapIOCounters.NUM_VECTOR_BATCHES, maxBatchesRG);
       counters.incrCounter(LlapIOCounters.NUM_DECODED_BATCHES);
-    } catch (IOException e) {
+    } catch (IOException | HiveException e) {
       // Caller will return the batch.
       downstreamConsumer.setError(e);
     }
   }
 
+  /*
+   * Decodes the columns of the filter, then only the selected rows of the other columns; the
+   * rows that are not selected are skipped.
+   * @return The number of rows selected; when it is 0 no column is decoded besides the filter's.
+   */
+  @VisibleForTesting
+  int decodeBatchLate(ColumnVectorBatch cvb, int batchSize) throws IOException, HiveException {
+    for (int idx = 0; idx < columnReaders.length; ++idx) {
+      if (lateMaterializationFilter.isFilterColumn(idx)) {
+        ColumnVector cv = prepareColumnVector(cvb, idx, batchSize);
+        columnReaders[idx].nextVector(cv, null, batchSize);
+      }
+    }
+    int selectedSize = lateMaterializationFilter.filter(cvb);
+    int[] selected = cvb.filterContext.getSelected();
+    boolean isSelectedInUse = selectedSize > 0 && cvb.filterContext.isSelectedInUse();
+    for (int idx = 0; idx < columnReaders.length; ++idx) {
+      if (lateMaterializationFilter.isFilterColumn(idx)) {
+        continue;
+      }
+      TreeReader reader = columnReaders[idx];
+      if (selectedSize == 0) {
+        reader.skipRows(batchSize);
+      } else if (!isSelectedInUse) {
+        ColumnVector cv = prepareColumnVector(cvb, idx, batchSize);
+        reader.nextVector(cv, null, batchSize);
+      } else if (selected[selectedSize - 1] == selectedSize - 1) {
+        // The selected rows are the first ones of the batch.
+        ColumnVector cv = prepareColumnVector(cvb, idx, selectedSize);
+        reader.nextVector(cv, null, selectedSize);
+        reader.skipRows(batchSize - selectedSize);
+      } else {
+        decodeSelectedRows(cvb, idx, selected, selectedSize, batchSize);
+      }
+    }
+    return selectedSize;
+  }
+
+  /*
+   * The readers can only decode to the start of a vector, so each run of consecutive selected
+   * rows is decoded to a scratch vector and copied to its rows of the batch's vector.
+   */
+  private void decodeSelectedRows(ColumnVectorBatch cvb, int idx, int[] selected, int selectedSize,
+      int batchSize) throws IOException {
+    TreeReader reader = columnReaders[idx];
+    ColumnVector cv = prepareColumnVector(cvb, idx, batchSize);
+    if (lateScratchColumns[idx] == null) {
+      lateScratchColumns[idx] = createColumn(batchSchemas[idx], VectorizedRowBatch.DEFAULT_SIZE,
+          useDecimal64ColumnVectors);
+    }
+    ColumnVector scratch = lateScratchColumns[idx];
+    int nextRow = 0;
+    int runStart = 0;
+    while (runStart < selectedSize) {
+      int runEnd = runStart + 1;
+      while (runEnd < selectedSize && selected[runEnd] == selected[runEnd - 1] + 1) {
+        ++runEnd;
+      }
+      int firstRow = selected[runStart];
+      int runLength = runEnd - runStart;
+      if (firstRow > nextRow) {
+        reader.skipRows(firstRow - nextRow);
+      }
+      scratch.reset();
+      scratch.ensureSize(runLength, false);
+      reader.nextVector(scratch, null, runLength);
+      for (int i = 0; i < runLength; ++i) {
+        cv.setElement(firstRow + i, i, scratch);
+      }
+      nextRow = firstRow + runLength;
+      runStart = runEnd;
+    }
+    if (nextRow < batchSize) {
+      reader.skipRows(batchSize - nextRow);
+    }
+  }
+
+  @VisibleForTesting
+  void setColumnReaders(TreeReader[] columnReaders, TypeDescription[] batchSchemas) {
+    this.columnReaders = columnReaders;
+    this.batchSchemas = batchSchemas;
+    this.lateScratchColumns = new ColumnVector[columnReaders.length];
+  }
+
   private ColumnVector prepareColumnVector(ColumnVectorBatch cvb, int idx, int batchSize) {
-    if (cvb.cols[idx] == null) {
+    if (cvb.cols[idx] == null || isPlainDictionaryColumn(cvb.cols[idx], batchSchemas[idx])) {
       // Orc store rows inside a root struct (hive writes it this way).
       // When we populate column vectors we skip over the root struct.
       cvb.cols[idx] = createColumn(batchSchemas[idx], VectorizedRowBatch.DEFAULT_SIZE, useDecimal64ColumnVectors);
@@ -223,6 +334,24 @@ private ColumnVector prepareColumnVector(ColumnVectorBatch cvb, int idx, int bat
     return cv;
   }
 
+  /*
+   * The columns are swapped with the ones of the reader's batch, which are plain
+   * BytesColumnVectors to begin with; replace those so the dictionary ids are not lost.
+   */
+  private boolean isPlainDictionaryColumn(ColumnVector cv, TypeDescription type) {
+    return useDictionaryVectors && isDictionaryType(type) && !(cv instanceof DictionaryBytesColumnVector);
+  }
+
+  private static boolean isDictionaryType(TypeDescription type) {
+    switch (type.getCategory()) {
+      case STRING:
+      case VARCHAR:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private void createColumnReaders(OrcEncodedColumnBatch batch,
       ConsumerStripeMetadata stripeMetadata, TypeDescription fileSchema) throws IOException {
     TreeReaderFactory.Context context = new TreeReaderFactory.ReaderContext()
@@ -232,6 +361,7 @@ private void createColumnReaders(OrcEncodedColumnBatch batch,
             .useUTCTimestamp(true)
             .setProlepticGregorian(fileMetadata != null && fileMetadata.getCalendar() == CalendarKind.PROLEPTIC_GREGORIAN, true);
     this.batchSchemas = includes.getBatchReaderTypes(fileSchema);
+    this.lateScratchColumns = new ColumnVector[batchSchemas.length];
     StructTreeReader treeReader = EncodedTreeReaderFactory.createRootTreeReader(
         batchSchemas, stripeMetadata.getEncodings(), batch, codec, context, useDecimal64ColumnVectors);
     this.columnReaders = treeReader.getChildReaders();
@@ -258,10 +388,15 @@ private ColumnVector createColumn(TypeDescription type, int batchSize, final boo
       case FLOAT:
       case DOUBLE:
         return new DoubleColumnVector(batchSize);
-      case BINARY:
       case STRING:
-      case CHAR:
       case VARCHAR:
+        if (useDictionaryVectors) {
+          // CHAR values are trimmed after reading, so only these keep the dictionary references.
+          return new DictionaryBytesColumnVector(batchSize);
+        }
+        return new BytesColumnVector(batchSize);
+      case BINARY:
+      case CHAR:
         return new BytesColumnVector(batchSize);
       case TIMESTAMP:
         return new TimestampColumnVector(batchSize);
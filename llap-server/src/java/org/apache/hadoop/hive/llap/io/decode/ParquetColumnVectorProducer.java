@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.io.decode;
+
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.io.FileMetadataCache;
+import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache;
+import org.apache.hadoop.hive.llap.cache.PathCache;
+import org.apache.hadoop.hive.llap.counters.LlapIOCounters;
+import org.apache.hadoop.hive.llap.counters.QueryFragmentCounters;
+import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
+import org.apache.hadoop.hive.llap.io.api.impl.GenericDataCache;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonIOMetrics;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.encoded.Consumer;
+import org.apache.hadoop.hive.ql.io.parquet.vector.VectorizedParquetRecordReader;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.plan.PartitionDesc;
+import org.apache.hadoop.hive.serde2.Deserializer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.impl.SchemaEvolution;
+import org.apache.tez.common.CallableWithNdc;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Reads Parquet files thru the IO elevator. The column chunks are read via the LLAP data cache and the footers via
+ * the metadata cache, the same way as for the cache-only Parquet reader; but the pages are decoded into the column
+ * vectors on the IO thread, ahead of the consumer, and the cache usage is reported in the fragment counters.
+ */
+public class ParquetColumnVectorProducer implements ColumnVectorProducer {
+  private final FileMetadataCache metadataCache;
+  private final LowLevelCache lowLevelCache;
+  private final PathCache pathCache;
+  private final BufferUsageManager bufferManager;
+  private final Configuration conf;
+  private final LlapDaemonCacheMetrics cacheMetrics;
+  private final LlapDaemonIOMetrics ioMetrics;
+
+  public ParquetColumnVectorProducer(FileMetadataCache metadataCache, LowLevelCache lowLevelCache,
+      PathCache pathCache, BufferUsageManager bufferManager, Configuration conf, LlapDaemonCacheMetrics cacheMetrics,
+      LlapDaemonIOMetrics ioMetrics) {
+    LlapIoImpl.LOG.info("Initializing Parquet column vector producer");
+    this.metadataCache = metadataCache;
+    this.lowLevelCache = lowLevelCache;
+    this.pathCache = pathCache;
+    this.bufferManager = bufferManager;
+    this.conf = conf;
+    this.cacheMetrics = cacheMetrics;
+    this.ioMetrics = ioMetrics;
+  }
+
+  @Override
+  public ReadPipeline createReadPipeline(Consumer<ColumnVectorBatch> consumer, FileSplit split,
+      Includes includes, SearchArgument sarg, QueryFragmentCounters counters,
+      SchemaEvolutionFactory sef, InputFormat<?, ?> sourceInputFormat, Deserializer sourceSerDe,
+      Reporter reporter, JobConf job, Map<Path, PartitionDesc> parts) throws IOException {
+    cacheMetrics.incrCacheReadRequests();
+    JobConf jobConf = new JobConf(job);
+    // Disable buffer splitting, like for the cache-only reader.
+    jobConf.setInt("parquet.read.allocation.size", 1024 * 1024 * 1024);
+    // The file schema is the table schema; Parquet reader handles the differences by itself.
+    TypeDescription schema = OrcInputFormat.getDesiredRowTypeDescr(job, false, Integer.MAX_VALUE);
+    if (schema == null) {
+      schema = TypeDescription.createStruct();
+    }
+    return new ParquetReadPipeline(consumer, split, includes.getPhysicalColumnIds(), counters,
+        sef.createSchemaEvolution(schema), jobConf,
+        new GenericDataCache(lowLevelCache, pathCache, bufferManager, counters), Utilities.getVectorizedRowBatchCtx(jobConf));
+  }
+
+  @VisibleForTesting
+  class ParquetReadPipeline extends CallableWithNdc<Void> implements ReadPipeline {
+    private final Consumer<ColumnVectorBatch> consumer;
+    private final FileSplit split;
+    private final List<Integer> columnIds;
+    private final QueryFragmentCounters counters;
+    private final SchemaEvolution schemaEvolution;
+    private final JobConf jobConf;
+    private final GenericDataCache dataCache;
+    private final VectorizedRowBatchCtx rbCtx;
+    private final UserGroupInformation ugi;
+    // The batches returned by the consumer, to be filled again.
+    private final Queue<ParquetBatch> freeBatches = new ConcurrentLinkedQueue<>();
+    private volatile boolean isStopped = false;
+    // Set once the reader is done; the batches returned afterwards go straight back to the batch pool.
+    private volatile boolean isDone = false;
+
+    ParquetReadPipeline(Consumer<ColumnVectorBatch> consumer, FileSplit split, List<Integer> columnIds,
+        QueryFragmentCounters counters, SchemaEvolution schemaEvolution, JobConf jobConf,
+        GenericDataCache dataCache, VectorizedRowBatchCtx rbCtx) throws IOException {
+      this.consumer = consumer;
+      this.split = split;
+      this.columnIds = columnIds;
+      this.counters = counters;
+      this.schemaEvolution = schemaEvolution;
+      this.jobConf = jobConf;
+      this.dataCache = dataCache;
+      this.rbCtx = rbCtx;
+      this.ugi = UserGroupInformation.getCurrentUser();
+    }
+
+    @Override
+    protected Void callInternal() throws IOException, InterruptedException {
+      return ugi.doAs(new PrivilegedExceptionAction<Void>() {
+        @Override
+        public Void run() throws Exception {
+          return performDataRead();
+        }
+      });
+    }
+
+    @VisibleForTesting
+    Void performDataRead() throws IOException, InterruptedException {
+      long startTime = counters.startTimeCounter();
+      LlapIoImpl.LOG.info("Processing data for {}", split.getPath());
+      counters.setDesc(QueryFragmentCounters.Desc.FILE, split.getPath());
+      RecordReader<NullWritable, VectorizedRowBatch> reader = null;
+      // The batch being filled, until it is handed to the consumer.
+      ParquetBatch batch = null;
+      try {
+        reader = createReader();
+        while (!isStopped) {
+          batch = freeBatches.poll();
+          if (batch == null) {
+            batch = new ParquetBatch(rbCtx.createVectorizedRowBatch(), columnIds);
+          }
+          long decodeStartTime = counters.startTimeCounter();
+          long decodeStart = System.currentTimeMillis();
+          boolean hasRows = batch.readNext(reader);
+          counters.incrWallClockCounter(LlapIOCounters.DECODE_TIME_NS, decodeStartTime);
+          ioMetrics.addDecodeBatchTime(System.currentTimeMillis() - decodeStart);
+          if (!hasRows) {
+            break;
+          }
+          counters.incrCounter(LlapIOCounters.NUM_VECTOR_BATCHES);
+          counters.incrCounter(LlapIOCounters.NUM_DECODED_BATCHES);
+          counters.incrCounter(LlapIOCounters.ROWS_EMITTED, batch.size);
+          ParquetBatch consumed = batch;
+          batch = null;
+          consumer.consumeData(consumed);
+        }
+      } catch (Throwable e) {
+        LlapIoImpl.LOG.error("Exception while processing", e);
+        consumer.setError(e);
+        throw e;
+      } finally {
+        if (reader != null) {
+          try {
+            reader.close();
+          } catch (IOException ex) {
+            LlapIoImpl.LOG.error("Failed to close the Parquet reader", ex);
+          }
+        }
+        counters.incrWallClockCounter(LlapIOCounters.TOTAL_IO_TIME_NS, startTime);
+        if (batch != null) {
+          releaseBatch(batch);
+        }
+        isDone = true;
+        releaseFreeBatches();
+      }
+      consumer.setDone();
+      return null;
+    }
+
+    @VisibleForTesting
+    RecordReader<NullWritable, VectorizedRowBatch> createReader() throws IOException {
+      return new VectorizedParquetRecordReader(split, jobConf, metadataCache, dataCache, conf);
+    }
+
+    private void releaseFreeBatches() {
+      ParquetBatch batch;
+      while ((batch = freeBatches.poll()) != null) {
+        releaseBatch(batch);
+      }
+    }
+
+    private void releaseBatch(ParquetBatch batch) {
+      rbCtx.releaseVectorizedRowBatch(batch.takeColumnsBack());
+    }
+
+    @Override
+    public Callable<Void> getReadCallable() {
+      return this;
+    }
+
+    @Override
+    public SchemaEvolution getSchemaEvolution() {
+      return schemaEvolution;
+    }
+
+    @Override
+    public void returnData(ColumnVectorBatch data) {
+      freeBatches.offer((ParquetBatch) data);
+      if (isDone) {
+        // The reader has already released its free batches; release this one too.
+        releaseFreeBatches();
+      }
+    }
+
+    @Override
+    public void pause() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unpause() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void stop() {
+      LlapIoImpl.LOG.debug("Parquet reader is being stopped");
+      isStopped = true;
+    }
+  }
+
+  /**
+   * The batch of the included columns, backed by a full VRB for the Parquet reader to fill.
+   */
+  private static final class ParquetBatch extends ColumnVectorBatch {
+    private final VectorizedRowBatch vrb;
+    private final List<Integer> columnIds;
+
+    ParquetBatch(VectorizedRowBatch vrb, List<Integer> columnIds) {
+      super(columnIds.size());
+      this.vrb = vrb;
+      this.columnIds = columnIds;
+    }
+
+    /**
+     * The consumer swaps the column vectors with those of its VRB; takes these over into the VRB, so that none of
+     * its vectors is shared with the consumer anymore.
+     */
+    VectorizedRowBatch takeColumnsBack() {
+      for (int i = 0; i < cols.length; ++i) {
+        if (cols[i] != null) {
+          vrb.cols[columnIds.get(i)] = cols[i];
+        }
+      }
+      return vrb;
+    }
+
+    boolean readNext(RecordReader<NullWritable, VectorizedRowBatch> reader) throws IOException {
+      takeColumnsBack();
+      if (!reader.next(NullWritable.get(), vrb)) {
+        return false;
+      }
+      for (int i = 0; i < cols.length; ++i) {
+        cols[i] = vrb.cols[columnIds.get(i)];
+      }
+      size = vrb.size;
+      return true;
+    }
+  }
+}
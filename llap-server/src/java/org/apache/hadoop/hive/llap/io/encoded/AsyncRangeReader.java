@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.io.encoded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.impl.LlapIoImpl;
+import org.apache.orc.impl.BufferChunk;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads the missing disk ranges of a stripe with parallel positional reads. On object stores, where each request has
+ * a high latency, reading the ranges of all the columns one after another makes cache-cold reads latency-bound.
+ * The missing ranges closer than the max gap are coalesced into one request; the requests run on a dedicated pool
+ * shared by all the readers of the daemon, and the bytes of the requests in flight are bounded.
+ *
+ * The positional reads of some streams (S3A for one) are synchronized, so each request in flight uses a stream of
+ * its own, taken from the StreamPool of the reader.
+ */
+public class AsyncRangeReader {
+  private final ExecutorService executor;
+  private final Semaphore inFlightBytes;
+  private final int maxReadSize;
+  private final long maxGap;
+  private final Set<String> schemes;
+
+  public static boolean isEnabled(Configuration conf) {
+    return HiveConf.getIntVar(conf, ConfVars.LLAP_IO_ASYNC_READ_THREADS) > 0;
+  }
+
+  public AsyncRangeReader(Configuration conf) {
+    this(createExecutor(HiveConf.getIntVar(conf, ConfVars.LLAP_IO_ASYNC_READ_THREADS)),
+        HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_ASYNC_READ_MAX_GAP),
+        (int) Math.min(Integer.MAX_VALUE, HiveConf.getSizeVar(conf, ConfVars.LLAP_IO_ASYNC_READ_MAX_INFLIGHT)),
+        HiveConf.getTrimmedStringsVar(conf, ConfVars.LLAP_IO_ASYNC_READ_SCHEMES));
+  }
+
+  @VisibleForTesting
+  AsyncRangeReader(ExecutorService executor, long maxGap, int maxInFlightBytes, String[] schemes) {
+    this.executor = executor;
+    this.maxGap = maxGap;
+    this.maxReadSize = maxInFlightBytes;
+    this.inFlightBytes = new Semaphore(maxInFlightBytes);
+    this.schemes = new HashSet<>();
+    for (String scheme : schemes) {
+      this.schemes.add(scheme.toLowerCase());
+    }
+    LlapIoImpl.LOG.info("Async range reads for {} with max gap {}, max in flight {}",
+        this.schemes.isEmpty() ? "all file systems" : this.schemes, maxGap, maxInFlightBytes);
+  }
+
+  private static ExecutorService createExecutor(int threads) {
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder().setNameFormat("IO-Elevator-Thread-AsyncRead-%d").setDaemon(true).build());
+  }
+
+  /** @return Whether the reads from the file should be done by this reader. */
+  public boolean isEnabledFor(Path path) {
+    if (schemes.isEmpty()) {
+      return true;
+    }
+    String scheme = path.toUri().getScheme();
+    return scheme != null && schemes.contains(scheme.toLowerCase());
+  }
+
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  /** Opens another stream of the file. */
+  public interface StreamOpener {
+    FSDataInputStream open() throws IOException;
+  }
+
+  /**
+   * The streams of one file used by the requests of a reader. The streams are opened on demand, so there are no more
+   * of them than the requests of the reader that were in flight at the same time; they are kept open for the next
+   * reads until the pool is closed.
+   */
+  public static final class StreamPool implements Closeable {
+    private final StreamOpener opener;
+    private final Queue<FSDataInputStream> idle = new ConcurrentLinkedQueue<>();
+    private final List<FSDataInputStream> opened = new ArrayList<>();
+    private boolean isClosed = false;
+
+    /**
+     * @param file the stream of the reader, used as the first stream of the pool but not closed with it
+     * @param opener opens the other streams
+     */
+    public StreamPool(FSDataInputStream file, StreamOpener opener) {
+      this.opener = opener;
+      if (file != null) {
+        idle.add(file);
+      }
+    }
+
+    FSDataInputStream take() throws IOException {
+      FSDataInputStream stream = idle.poll();
+      if (stream != null) {
+        return stream;
+      }
+      stream = opener.open();
+      synchronized (opened) {
+        if (!isClosed) {
+          opened.add(stream);
+          return stream;
+        }
+      }
+      stream.close();
+      throw new IOException("The stream pool is closed");
+    }
+
+    void giveBack(FSDataInputStream stream) {
+      idle.add(stream);
+    }
+
+    @VisibleForTesting
+    int getOpenedCount() {
+      synchronized (opened) {
+        return opened.size();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOException error = null;
+      synchronized (opened) {
+        isClosed = true;
+        for (FSDataInputStream stream : opened) {
+          try {
+            stream.close();
+          } catch (IOException e) {
+            error = e;
+          }
+        }
+        opened.clear();
+      }
+      idle.clear();
+      if (error != null) {
+        throw error;
+      }
+    }
+  }
+
+  /**
+   * Reads the ranges without data, like LlapRecordReaderUtils.readDiskRanges.
+   * @param streams the streams of the file to read
+   * @param base the base of the stripe
+   * @param range the disk ranges within the stripe to read
+   * @param doForceDirect whether to return direct buffers
+   * @param maxChunkLimit the maximum size of a buffer returned
+   * @return the head of the list, with the ranges replaced by the data read
+   */
+  public DiskRangeList readDiskRanges(StreamPool streams, long base, DiskRangeList range,
+      boolean doForceDirect, int maxChunkLimit) throws IOException {
+    if (range == null) {
+      return null;
+    }
+    DiskRangeList prev = range.prev;
+    if (prev == null) {
+      prev = new DiskRangeList.MutateHelper(range);
+    }
+    List<ReadRequest> requests = planReads(range, maxGap, Math.min(maxChunkLimit, maxReadSize));
+    int submitted = 0;
+    boolean isDone = false;
+    try {
+      for (; submitted < requests.size(); ++submitted) {
+        ReadRequest request = requests.get(submitted);
+        int length = request.getLength();
+        inFlightBytes.acquire(length);
+        try {
+          request.future = executor.submit(() -> {
+            try {
+              byte[] buffer = new byte[length];
+              FSDataInputStream stream = streams.take();
+              try {
+                stream.readFully(base + request.offset, buffer, 0, length);
+              } finally {
+                streams.giveBack(stream);
+              }
+              return buffer;
+            } finally {
+              inFlightBytes.release(length);
+            }
+          });
+        } catch (RuntimeException e) {
+          inFlightBytes.release(length);
+          throw e;
+        }
+      }
+      DiskRangeList lastChunk = null;
+      for (ReadRequest request : requests) {
+        ByteBuffer data = toBuffer(request.future.get(), doForceDirect);
+        for (Piece piece : request.pieces) {
+          ByteBuffer bb = data.duplicate();
+          bb.position((int) (piece.offset - request.offset));
+          bb.limit((int) (piece.end - request.offset));
+          BufferChunk bc = new BufferChunk(bb.slice(), piece.offset);
+          if (piece.offset == piece.range.getOffset()) {
+            piece.range.replaceSelfWith(bc);
+          } else {
+            lastChunk.insertAfter(bc);
+          }
+          lastChunk = bc;
+        }
+      }
+      isDone = true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+    } finally {
+      if (!isDone) {
+        for (int i = 0; i < submitted; ++i) {
+          requests.get(i).future.cancel(false);
+        }
+      }
+    }
+    return prev.next;
+  }
+
+  private static ByteBuffer toBuffer(byte[] buffer, boolean doForceDirect) {
+    if (!doForceDirect) {
+      return ByteBuffer.wrap(buffer);
+    }
+    ByteBuffer result = ByteBuffer.allocateDirect(buffer.length);
+    result.put(buffer);
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Splits the ranges without data into pieces of at most maxReadSize, and groups the pieces separated by at most
+   * maxGap into requests of at most maxReadSize.
+   */
+  @VisibleForTesting
+  static List<ReadRequest> planReads(DiskRangeList range, long maxGap, int maxReadSize) {
+    List<ReadRequest> requests = new ArrayList<>();
+    ReadRequest current = null;
+    for (; range != null; range = range.next) {
+      if (range.hasData()) {
+        continue;
+      }
+      long offset = range.getOffset();
+      while (offset < range.getEnd()) {
+        long end = Math.min(range.getEnd(), offset + maxReadSize);
+        if (current == null || offset - current.end > maxGap || end - current.offset > maxReadSize) {
+          current = new ReadRequest(offset);
+          requests.add(current);
+        }
+        current.pieces.add(new Piece(range, offset, end));
+        current.end = Math.max(current.end, end);
+        offset = end;
+      }
+    }
+    return requests;
+  }
+
+  @VisibleForTesting
+  static final class ReadRequest {
+    final long offset;
+    long end;
+    final List<Piece> pieces = new ArrayList<>();
+    Future<byte[]> future;
+
+    ReadRequest(long offset) {
+      this.offset = offset;
+      this.end = offset;
+    }
+
+    int getLength() {
+      return (int) (end - offset);
+    }
+  }
+
+  private static final class Piece {
+    final DiskRangeList range;
+    final long offset, end;
+
+    Piece(DiskRangeList range, long offset, long end) {
+      this.range = range;
+      this.offset = offset;
+      this.end = end;
+    }
+  }
+}
@@ -58,7 +58,15 @@ static HadoopShims.ZeroCopyReaderShim createZeroCopyShim(FSDataInputStream file,
   }
 
   public static LlapDataReader createDefaultLlapDataReader(DataReaderProperties properties) {
-    return new LlapRecordReaderUtils.DefaultLLapDataReader(properties);
+    return new LlapRecordReaderUtils.DefaultLLapDataReader(properties, null);
+  }
+
+  /**
+   * @param asyncRangeReader if not null, used to read the stripe data unless zero-copy reads are used
+   */
+  public static LlapDataReader createDefaultLlapDataReader(DataReaderProperties properties,
+      AsyncRangeReader asyncRangeReader) {
+    return new LlapRecordReaderUtils.DefaultLLapDataReader(properties, asyncRangeReader);
   }
 
   /**
@@ -240,9 +248,11 @@ private static class DefaultLLapDataReader implements LlapDataReader {
     private final int bufferSize;
     private CompressionKind compressionKind;
     private final int maxDiskRangeChunkLimit;
+    private final AsyncRangeReader asyncRangeReader;
+    private AsyncRangeReader.StreamPool asyncStreams;
     private boolean isOpen = false;
 
-    private DefaultLLapDataReader(DataReaderProperties properties) {
+    private DefaultLLapDataReader(DataReaderProperties properties, AsyncRangeReader asyncRangeReader) {
       this.fileSystemSupplier = properties.getFileSystemSupplier();
       this.path = properties.getPath();
       this.file = properties.getFile();
@@ -251,6 +261,7 @@ private DefaultLLapDataReader(DataReaderProperties properties) {
       this.compressionKind = codec == null ? CompressionKind.NONE : codec.getKind();
       this.bufferSize = codec == null ? 0 : properties.getCompression().getBufferSize();
       this.maxDiskRangeChunkLimit = properties.getMaxDiskRangeChunkLimit();
+      this.asyncRangeReader = asyncRangeReader;
     }
 
     @Override
@@ -382,6 +393,13 @@ public OrcProto.StripeFooter readStripeFooter(StripeInformation stripe) throws I
     @Override
     public DiskRangeList readFileData(
         DiskRangeList range, long baseOffset, boolean doForceDirect) throws IOException {
+      if (asyncRangeReader != null && zcr == null && fileSystemSupplier != null) {
+        if (asyncStreams == null) {
+          asyncStreams = new AsyncRangeReader.StreamPool(file, () -> fileSystemSupplier.get().open(path));
+        }
+        return asyncRangeReader.readDiskRanges(
+            asyncStreams, baseOffset, range, doForceDirect, maxDiskRangeChunkLimit);
+      }
       return readDiskRanges(file, zcr, baseOffset, range, doForceDirect, maxDiskRangeChunkLimit);
     }
 
@@ -394,8 +412,10 @@ public void close() throws IOException {
       if (pool != null) {
         pool.clear();
       }
-      // close both zcr and file
-      try (HadoopShims.ZeroCopyReaderShim myZcr = zcr) {
+      // close the streams of the async reads, zcr and file
+      try (AsyncRangeReader.StreamPool myAsyncStreams = asyncStreams;
+           HadoopShims.ZeroCopyReaderShim myZcr = zcr) {
+        asyncStreams = null;
         if (file != null) {
           file.close();
           file = null;
@@ -422,6 +442,7 @@ public LlapDataReader clone() {
       }
       try {
         DefaultLLapDataReader clone = (DefaultLLapDataReader) super.clone();
+        clone.asyncStreams = null;
         if (codec != null) {
           // Make sure we don't share the same codec between two readers.
           clone.codec = OrcCodecPool.getCodec(clone.compressionKind);
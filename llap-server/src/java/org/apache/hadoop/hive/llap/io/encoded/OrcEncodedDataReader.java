@@ -172,6 +172,8 @@ public Pool<OrcEncodedColumnBatch> createEncodedColumnBatchPool() {
   private Path path;
   private Reader orcReader;
   private LlapDataReader rawDataReader;
+  /** Reads the stripe data in parallel on object stores; null if not enabled for this file. */
+  private final AsyncRangeReader asyncRangeReader;
   private boolean isRawDataReaderOpen = false;
   private EncodedReader stripeReader;
   private CompressionCodec codec;
@@ -199,7 +201,7 @@ public OrcEncodedDataReader(LowLevelCache lowLevelCache, BufferUsageManager buff
       MetadataCache metadataCache, Configuration daemonConf, Configuration jobConf,
       FileSplit split, Includes includes, SearchArgument sarg, OrcEncodedDataConsumer consumer,
       QueryFragmentCounters counters, SchemaEvolutionFactory sef, Pool<IoTrace> tracePool,
-      Map<Path, PartitionDesc> parts, PathCache pathCache)
+      Map<Path, PartitionDesc> parts, PathCache pathCache, AsyncRangeReader asyncRangeReader)
           throws IOException {
     this.lowLevelCache = lowLevelCache;
     this.metadataCache = metadataCache;
@@ -213,6 +215,8 @@ public OrcEncodedDataReader(LowLevelCache lowLevelCache, BufferUsageManager buff
     this.tracePool = tracePool;
     this.parts = parts;
     this.pathCache = pathCache;
+    this.asyncRangeReader = (asyncRangeReader != null && asyncRangeReader.isEnabledFor(split.getPath()))
+        ? asyncRangeReader : null;
     try {
       this.ugi = UserGroupInformation.getCurrentUser();
     } catch (IOException e) {
@@ -249,6 +253,8 @@ public OrcEncodedDataReader(LowLevelCache lowLevelCache, BufferUsageManager buff
     this.evolution = sef.createSchemaEvolution(fileMetadata.getSchema());
     consumer.setUseDecimal64ColumnVectors(HiveConf.getVar(jobConf,
       ConfVars.HIVE_VECTORIZED_INPUT_FORMAT_SUPPORTS_ENABLED).equalsIgnoreCase("decimal_64"));
+    consumer.setUseDictionaryVectors(
+        HiveConf.getBoolVar(jobConf, ConfVars.LLAP_IO_ORC_DICTIONARY_VECTORS_ENABLED));
     consumer.setFileMetadata(fileMetadata);
     consumer.setSchemaEvolution(evolution);
     isReadCacheOnly = HiveConf.getBoolVar(jobConf, ConfVars.LLAP_IO_CACHE_ONLY);
@@ -863,7 +869,7 @@ private void ensureRawDataReader(boolean isOpen) throws IOException {
         .withFileSystemSupplier(fsSupplier).withPath(path)
         .withCompression(options)
         .withZeroCopy(useZeroCopy)
-        .build());
+        .build(), asyncRangeReader);
 
     if (isOpen) {
       rawDataReader.open();
@@ -50,6 +50,7 @@
 import org.apache.hadoop.hive.llap.SchemaAwareCacheKey;
 import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
 import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.cache.PathCache;
 import org.apache.hadoop.hive.llap.cache.SerDeLowLevelCacheImpl;
 import org.apache.hadoop.hive.llap.cache.SerDeLowLevelCacheImpl.FileData;
 import org.apache.hadoop.hive.llap.cache.SerDeLowLevelCacheImpl.LlapSerDeDataBuffer;
@@ -158,6 +159,7 @@ public DiskRangeList createCacheChunk(MemoryBuffer buffer, long offset, long end
 
   private final Object fileKey;
   private final CacheTag cacheTag;
+  private final PathCache pathCache;
   private final FileSystem fs;
 
   private AtomicBoolean isStopped = new AtomicBoolean(false);
@@ -188,7 +190,7 @@ public SerDeEncodedDataReader(SerDeLowLevelCacheImpl cache, BufferUsageManager b
       Configuration daemonConf, FileSplit split, List<Integer> columnIds, OrcEncodedDataConsumer consumer,
       JobConf jobConf, Reporter reporter, InputFormat<?, ?> sourceInputFormat, Deserializer sourceSerDe,
       QueryFragmentCounters counters, TypeDescription schema, Map<Path, PartitionDesc> parts,
-      ExecutorService encodeExecutor) throws IOException {
+      ExecutorService encodeExecutor, PathCache pathCache) throws IOException {
     assert cache != null;
     this.cache = cache;
     this.bufferManager = bufferManager;
@@ -244,6 +246,7 @@ public MemoryBuffer create() {
     consumer.setSchemaEvolution(evolution);
     isReadCacheOnly = HiveConf.getBoolVar(jobConf, ConfVars.LLAP_IO_CACHE_ONLY);
     this.encodeExecutor = encodeExecutor;
+    this.pathCache = pathCache;
   }
 
   private static int determineAllocSize(BufferUsageManager bufferManager, Configuration conf) {
@@ -829,6 +832,7 @@ private void lockAllBuffers(StripeData sd) {
 
   public Boolean readFileWithCache(long startTime) throws IOException, InterruptedException {
     if (fileKey == null) return false;
+    pathCache.touch(fileKey, split.getPath().toUri().toString());
     BooleanRef gotAllData = new BooleanRef();
     long endOfSplit = split.getStart() + split.getLength();
     this.cachedData = cache.getFileData(fileKey, split.getStart(),
@@ -28,6 +28,8 @@
 
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
@@ -180,6 +182,20 @@ public LlapBufferOrBuffers getFileMetadata(Object fileKey) {
     return getInternal(fileKey);
   }
 
+  /**
+   * @return The cached file tails, for the cache snapshot; stripe tails are left out. The buffers
+   *         are not locked.
+   */
+  public Map<Object, LlapBufferOrBuffers> getFileMetadataEntries() {
+    Map<Object, LlapBufferOrBuffers> result = new HashMap<>();
+    for (Map.Entry<Object, LlapBufferOrBuffers> e : metadata.entrySet()) {
+      if (!(e.getKey() instanceof StripeKey)) {
+        result.put(e.getKey(), e.getValue());
+      }
+    }
+    return result;
+  }
+
   public LlapBufferOrBuffers getStripeTail(OrcBatchKey stripeKey) {
     return getInternal(new StripeKey(stripeKey.fileKey, stripeKey.stripeIx));
   }
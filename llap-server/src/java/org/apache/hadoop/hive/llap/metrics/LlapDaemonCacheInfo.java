@@ -36,7 +36,16 @@ public enum LlapDaemonCacheInfo implements MetricsInfo {
   CacheHitRatio("Ratio of disk ranges cached vs requested"),
   CacheReadRequests("Number of disk range requests to cache"),
   CacheAllocatedArena("Number of arenas allocated"),
-  CacheNumLockedBuffers("Number of locked buffers in cache");
+  CacheNumLockedBuffers("Number of locked buffers in cache"),
+  CacheSnapshotRestoreTime("Time taken to restore the cache snapshot at startup in ms"),
+  CacheSnapshotRestoredBytes("Amount of cached data restored from the cache snapshot in bytes"),
+  CacheCompressedDataBytes("Amount of cached data kept compressed in memory, before compression, in bytes"),
+  CacheCompressedBytes("Amount of memory used by the cached data kept compressed in bytes"),
+  CacheDecompressions("Number of cache hits that decompressed the cached data"),
+  CacheDecompressTime("Time spent decompressing the cached data on cache hits in ns"),
+  CacheTierWrittenBytes("Amount of evicted data written to the second cache tier in bytes"),
+  CacheTierReadBytes("Amount of data read back from the second cache tier on cache misses in bytes"),
+  CacheTierDroppedBytes("Amount of data dropped from the full second cache tier in bytes");
 
   private final String desc;
 
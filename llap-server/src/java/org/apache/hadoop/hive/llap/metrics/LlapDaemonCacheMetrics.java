@@ -22,12 +22,21 @@
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheCapacityRemainingPercentage;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheCapacityTotal;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheCapacityUsed;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheCompressedBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheCompressedDataBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheDecompressTime;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheDecompressions;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheHitBytes;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheHitRatio;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheMetrics;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheNumLockedBuffers;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheReadRequests;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheRequestedBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheSnapshotRestoreTime;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheSnapshotRestoredBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheTierDroppedBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheTierReadBytes;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheInfo.CacheTierWrittenBytes;
 import static org.apache.hadoop.metrics2.impl.MsInfo.ProcessName;
 import static org.apache.hadoop.metrics2.impl.MsInfo.SessionId;
 
@@ -66,6 +75,24 @@ public class LlapDaemonCacheMetrics implements MetricsSource {
   MutableCounterLong cacheAllocatedArena;
   @Metric
   MutableCounterLong cacheNumLockedBuffers;
+  @Metric
+  MutableGaugeLong cacheSnapshotRestoreTime;
+  @Metric
+  MutableGaugeLong cacheSnapshotRestoredBytes;
+  @Metric
+  MutableCounterLong cacheCompressedDataBytes;
+  @Metric
+  MutableCounterLong cacheCompressedBytes;
+  @Metric
+  MutableCounterLong cacheDecompressions;
+  @Metric
+  MutableCounterLong cacheDecompressTime;
+  @Metric
+  MutableCounterLong cacheTierWrittenBytes;
+  @Metric
+  MutableCounterLong cacheTierReadBytes;
+  @Metric
+  MutableCounterLong cacheTierDroppedBytes;
 
   private LlapDaemonCacheMetrics(String name, String sessionId) {
     this.name = name;
@@ -111,6 +138,33 @@ public void decrCacheNumLockedBuffers() {
     cacheNumLockedBuffers.incr(-1);
   }
 
+  public void setCacheSnapshotRestored(long timeMs, long bytes) {
+    cacheSnapshotRestoreTime.set(timeMs);
+    cacheSnapshotRestoredBytes.set(bytes);
+  }
+
+  public void incrCacheCompressed(long dataBytes, long compressedBytes) {
+    cacheCompressedDataBytes.incr(dataBytes);
+    cacheCompressedBytes.incr(compressedBytes);
+  }
+
+  public void addCacheDecompression(long timeNs) {
+    cacheDecompressions.incr();
+    cacheDecompressTime.incr(timeNs);
+  }
+
+  public void incrCacheTierWrittenBytes(long delta) {
+    cacheTierWrittenBytes.incr(delta);
+  }
+
+  public void incrCacheTierReadBytes(long delta) {
+    cacheTierReadBytes.incr(delta);
+  }
+
+  public void incrCacheTierDroppedBytes(long delta) {
+    cacheTierDroppedBytes.incr(delta);
+  }
+
   public String getName() {
     return name;
   }
@@ -125,6 +179,16 @@ public long getCacheHitBytes() {
     return cacheHitBytes.value();
   }
 
+  @VisibleForTesting
+  public long getCacheDecompressions() {
+    return cacheDecompressions.value();
+  }
+
+  @VisibleForTesting
+  public long getCacheTierReadBytes() {
+    return cacheTierReadBytes.value();
+  }
+
   @Override
   public void getMetrics(MetricsCollector collector, boolean b) {
     MetricsRecordBuilder rb = collector.addRecord(CacheMetrics)
@@ -150,6 +214,15 @@ private void getCacheStats(MetricsRecordBuilder rb) {
         .addCounter(CacheHitBytes, cacheHitBytes.value())
         .addCounter(CacheAllocatedArena, cacheAllocatedArena.value())
         .addCounter(CacheNumLockedBuffers, cacheNumLockedBuffers.value())
+        .addGauge(CacheSnapshotRestoreTime, cacheSnapshotRestoreTime.value())
+        .addGauge(CacheSnapshotRestoredBytes, cacheSnapshotRestoredBytes.value())
+        .addCounter(CacheCompressedDataBytes, cacheCompressedDataBytes.value())
+        .addCounter(CacheCompressedBytes, cacheCompressedBytes.value())
+        .addCounter(CacheDecompressions, cacheDecompressions.value())
+        .addCounter(CacheDecompressTime, cacheDecompressTime.value())
+        .addCounter(CacheTierWrittenBytes, cacheTierWrittenBytes.value())
+        .addCounter(CacheTierReadBytes, cacheTierReadBytes.value())
+        .addCounter(CacheTierDroppedBytes, cacheTierDroppedBytes.value())
         .addGauge(CacheHitRatio, cacheHitRatio);
   }
 
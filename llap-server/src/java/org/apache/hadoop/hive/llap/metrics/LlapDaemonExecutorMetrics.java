@@ -21,6 +21,9 @@
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.AverageResponseTime;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorAvailableFreeSlots;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorAvailableFreeSlotsPercent;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorBatchPoolHits;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorBatchPoolMisses;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorBatchPoolRetainedBytes;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorCacheMemoryPerInstance;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorFallOffNumCompletedFragments;
 import static org.apache.hadoop.hive.llap.metrics.LlapDaemonExecutorInfo.ExecutorJvmMaxMemory;
@@ -72,6 +75,7 @@
 import org.apache.hadoop.hive.common.JvmMetrics;
 import org.apache.hadoop.hive.llap.daemon.impl.ContainerRunnerImpl;
 import org.apache.hadoop.hive.llap.daemon.impl.TaskExecutorService;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchPool;
 import org.apache.hadoop.metrics2.MetricsCollector;
 import org.apache.hadoop.metrics2.MetricsInfo;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
@@ -430,6 +434,12 @@ private void getExecutorStats(MetricsRecordBuilder rb) {
     if (runningTime != null) {
       rb.addGauge(AverageResponseTime, runningTime.getSum() / runningTime.getN());
     }
+    VectorizedRowBatchPool batchPool = VectorizedRowBatchPool.get();
+    if (batchPool != null) {
+      rb.addCounter(ExecutorBatchPoolHits, batchPool.getHitCount())
+          .addCounter(ExecutorBatchPoolMisses, batchPool.getMissCount())
+          .addGauge(ExecutorBatchPoolRetainedBytes, batchPool.getRetainedBytes());
+    }
 
     for (MutableQuantiles q : percentileTimeToKill) {
       q.snapshot(rb, true);
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.metrics;
+
+import com.google.common.base.MoreObjects;
+import org.apache.hadoop.metrics2.MetricsInfo;
+
+/**
+ * Llap daemon shuffle handler metrics
+ */
+public enum LlapDaemonShuffleInfo implements MetricsInfo {
+  ShuffleMetrics("Llap daemon shuffle handler metrics"),
+  PercentileFetchLatency("Percentile time to serve a shuffle fetch request, in ms"),
+  ShuffleRangeFetchRequests("Number of fetch requests for a range of partitions"),
+  ShuffleSegmentsServed("Number of map output segments served"),
+  ShuffleBytesServed("Number of map output bytes served"),
+  ShuffleSegmentCacheHits("Number of segments served from the in-memory segment cache"),
+  ShuffleSegmentCacheMisses("Number of segments loaded into the in-memory segment cache");
+
+  private final String desc;
+
+  LlapDaemonShuffleInfo(String desc) {
+    this.desc = desc;
+  }
+
+  @Override
+  public String description() {
+    return desc;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("name", name()).add("description", desc)
+        .toString();
+  }
+}
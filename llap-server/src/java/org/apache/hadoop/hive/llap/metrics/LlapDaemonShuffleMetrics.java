@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.metrics;
+
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleBytesServed;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleMetrics;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleRangeFetchRequests;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleSegmentCacheHits;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleSegmentCacheMisses;
+import static org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleInfo.ShuffleSegmentsServed;
+import static org.apache.hadoop.metrics2.impl.MsInfo.ProcessName;
+import static org.apache.hadoop.metrics2.impl.MsInfo.SessionId;
+
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.MetricsSystem;
+import org.apache.hadoop.metrics2.annotation.Metric;
+import org.apache.hadoop.metrics2.annotation.Metrics;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
+import org.apache.hadoop.metrics2.lib.MutableRate;
+
+/**
+ * Metrics of the shuffle handler of the daemon.
+ */
+@Metrics(about = "LlapDaemon Shuffle Metrics", context = "shuffle")
+public class LlapDaemonShuffleMetrics implements MetricsSource {
+  private final String name;
+  private final String sessionId;
+  private final MetricsRegistry registry;
+
+  @Metric
+  MutableRate rateOfFetches;
+  final MutableQuantiles[] fetchLatencies;
+  @Metric
+  MutableCounterLong rangeFetchRequests;
+  @Metric
+  MutableCounterLong segmentsServed;
+  @Metric
+  MutableCounterLong bytesServed;
+  @Metric
+  MutableCounterLong segmentCacheHits;
+  @Metric
+  MutableCounterLong segmentCacheMisses;
+
+  private LlapDaemonShuffleMetrics(String displayName, String sessionId, int[] intervals) {
+    this.name = displayName;
+    this.sessionId = sessionId;
+    this.registry = new MetricsRegistry("LlapDaemonShuffleRegistry");
+    this.registry.tag(ProcessName, MetricsUtils.METRICS_PROCESS_NAME).tag(SessionId, sessionId);
+
+    final int len = intervals == null ? 0 : intervals.length;
+    this.fetchLatencies = new MutableQuantiles[len];
+    for (int i = 0; i < len; i++) {
+      fetchLatencies[i] = registry.newQuantiles(
+          LlapDaemonShuffleInfo.PercentileFetchLatency.name() + "_" + intervals[i] + "s",
+          LlapDaemonShuffleInfo.PercentileFetchLatency.description(),
+          "ops", "latency", intervals[i]);
+    }
+  }
+
+  public static LlapDaemonShuffleMetrics create(String displayName, String sessionId, int[] intervals) {
+    MetricsSystem ms = LlapMetricsSystem.instance();
+    return ms.register(displayName, null, new LlapDaemonShuffleMetrics(displayName, sessionId, intervals));
+  }
+
+  @Override
+  public void getMetrics(MetricsCollector collector, boolean b) {
+    MetricsRecordBuilder rb = collector.addRecord(ShuffleMetrics)
+        .setContext("shuffle")
+        .tag(ProcessName, MetricsUtils.METRICS_PROCESS_NAME)
+        .tag(SessionId, sessionId);
+    getShuffleStats(rb);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @param latency the time from receiving the request to writing out the last segment, in ms
+   * @param segments the number of (map, partition) segments in the response
+   * @param bytes the number of map output bytes in the response
+   * @param isRange whether a range of partitions was requested
+   */
+  public void addFetch(long latency, int segments, long bytes, boolean isRange) {
+    rateOfFetches.add(latency);
+    for (MutableQuantiles q : fetchLatencies) {
+      q.add(latency);
+    }
+    segmentsServed.incr(segments);
+    bytesServed.incr(bytes);
+    if (isRange) {
+      rangeFetchRequests.incr();
+    }
+  }
+
+  public void incrSegmentCacheHits() {
+    segmentCacheHits.incr();
+  }
+
+  public void incrSegmentCacheMisses() {
+    segmentCacheMisses.incr();
+  }
+
+  private void getShuffleStats(MetricsRecordBuilder rb) {
+    rb.addCounter(ShuffleRangeFetchRequests, rangeFetchRequests.value())
+        .addCounter(ShuffleSegmentsServed, segmentsServed.value())
+        .addCounter(ShuffleBytesServed, bytesServed.value())
+        .addCounter(ShuffleSegmentCacheHits, segmentCacheHits.value())
+        .addCounter(ShuffleSegmentCacheMisses, segmentCacheMisses.value());
+    rateOfFetches.snapshot(rb, true);
+
+    for (MutableQuantiles q : fetchLatencies) {
+      q.snapshot(rb, true);
+    }
+  }
+}
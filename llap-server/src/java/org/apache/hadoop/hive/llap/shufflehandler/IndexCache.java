@@ -75,7 +75,25 @@ private void initLocalFs() {
   public TezIndexRecord getIndexInformation(String mapId, int reduce,
                                          Path fileName, String expectedIndexOwner)
       throws IOException {
+    return getIndexInformation(mapId, reduce, reduce, fileName, expectedIndexOwner)[0];
+  }
 
+  /**
+   * This method gets the index information for the given mapId and the reduces
+   * from firstReduce to lastReduce, inclusive.
+   * It reads the index file into cache if it is not already present.
+   * @param mapId
+   * @param firstReduce
+   * @param lastReduce
+   * @param fileName The file to read the index information from if it is not
+   *                 already present in the cache
+   * @param expectedIndexOwner The expected owner of the index file
+   * @return The Index Information, by reduce
+   * @throws IOException
+   */
+  public TezIndexRecord[] getIndexInformation(String mapId, int firstReduce, int lastReduce,
+                                           Path fileName, String expectedIndexOwner)
+      throws IOException {
     IndexInformation info = cache.get(mapId);
 
     if (info == null) {
@@ -94,12 +112,17 @@ public TezIndexRecord getIndexInformation(String mapId, int reduce,
     }
 
     if (info.mapSpillRecord.size() == 0 ||
-        info.mapSpillRecord.size() <= reduce) {
+        info.mapSpillRecord.size() <= lastReduce || firstReduce < 0 || firstReduce > lastReduce) {
       throw new IOException("Invalid request " +
-          " Map Id = " + mapId + " Reducer = " + reduce +
+          " Map Id = " + mapId + " Reducer = " + firstReduce +
+          (firstReduce == lastReduce ? "" : "-" + lastReduce) +
           " Index Info Length = " + info.mapSpillRecord.size());
     }
-    return info.mapSpillRecord.getIndex(reduce);
+    TezIndexRecord[] records = new TezIndexRecord[lastReduce - firstReduce + 1];
+    for (int i = 0; i < records.length; ++i) {
+      records[i] = info.mapSpillRecord.getIndex(firstReduce + i);
+    }
+    return records;
   }
 
   private boolean isUnderConstruction(IndexInformation info) {
@@ -58,16 +58,20 @@
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.cache.Weigher;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.LocalDirAllocator;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleMetrics;
+import org.apache.hadoop.hive.llap.metrics.MetricsUtils;
 import org.apache.hadoop.io.DataInputByteBuffer;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.ReadaheadPool;
 import org.apache.hadoop.io.SecureIOUtils;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.metrics2.annotation.Metric;
 import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.MutableCounterInt;
@@ -215,6 +219,17 @@ public class ShuffleHandler implements AttemptRegistrationListener {
       "llap.shuffle.transferTo.allowed";
   public static final boolean DEFAULT_SHUFFLE_TRANSFERTO_ALLOWED = true;
 
+  public static final String SHUFFLE_SEGMENT_CACHE_SIZE = "llap.shuffle.segment.cache.size";
+  public static final long DEFAULT_SHUFFLE_SEGMENT_CACHE_SIZE = 0; // 0 disables the cache
+
+  public static final String SHUFFLE_SEGMENT_CACHE_MAX_SEGMENT_SIZE =
+      "llap.shuffle.segment.cache.max.segment.size";
+  public static final int DEFAULT_SHUFFLE_SEGMENT_CACHE_MAX_SEGMENT_SIZE = 64 * 1024;
+
+  public static final String SHUFFLE_METRICS_PERCENTILE_INTERVALS =
+      "llap.shuffle.metrics.percentiles.intervals";
+  public static final String DEFAULT_SHUFFLE_METRICS_PERCENTILE_INTERVALS = "30";
+
   static final String DATA_FILE_NAME = "file.out";
   static final String INDEX_FILE_NAME = "file.out.index";
   private static final AtomicBoolean started = new AtomicBoolean(false);
@@ -230,6 +245,8 @@ public class ShuffleHandler implements AttemptRegistrationListener {
   private final LocalDirAllocator lDirAlloc =
       new LocalDirAllocator(SHUFFLE_HANDLER_LOCAL_DIRS);
   private final Shuffle shuffle;
+  private final LlapDaemonShuffleMetrics metrics;
+  private final ShuffleSegmentCache segmentCache;
 
   @Override
   public void registerAttemptDirs(AttemptPathIdentifier identifier,
@@ -260,7 +277,8 @@ public void operationComplete(ChannelFuture future) throws Exception {
     }
   }
 
-  private ShuffleHandler(Configuration conf) {
+  @VisibleForTesting
+  ShuffleHandler(Configuration conf) {
     this.conf = conf;
     manageOsCache = conf.getBoolean(SHUFFLE_MANAGE_OS_CACHE,
         DEFAULT_SHUFFLE_MANAGE_OS_CACHE);
@@ -311,6 +329,23 @@ private ShuffleHandler(Configuration conf) {
         Math.max(1, conf.getInt(SHUFFLE_MAPOUTPUT_META_INFO_CACHE_SIZE,
             DEFAULT_SHUFFLE_MAPOUTPUT_META_INFO_CACHE_SIZE));
 
+    String[] strIntervals = conf.getTrimmedStrings(SHUFFLE_METRICS_PERCENTILE_INTERVALS,
+        DEFAULT_SHUFFLE_METRICS_PERCENTILE_INTERVALS);
+    List<Integer> intervalList = new ArrayList<>();
+    for (String strInterval : strIntervals) {
+      try {
+        intervalList.add(Integer.valueOf(strInterval));
+      } catch (NumberFormatException e) {
+        LOG.warn("Ignoring shuffle metrics interval {} as it is invalid", strInterval);
+      }
+    }
+    metrics = LlapDaemonShuffleMetrics.create("LlapDaemonShuffleMetrics-" + MetricsUtils.getHostName(),
+        conf.get("llap.daemon.metrics.sessionid", MetricsUtils.getUUID()), Ints.toArray(intervalList));
+    long segmentCacheSize = conf.getLong(SHUFFLE_SEGMENT_CACHE_SIZE, DEFAULT_SHUFFLE_SEGMENT_CACHE_SIZE);
+    segmentCache = segmentCacheSize <= 0 ? null : new ShuffleSegmentCache(segmentCacheSize,
+        conf.getInt(SHUFFLE_SEGMENT_CACHE_MAX_SEGMENT_SIZE, DEFAULT_SHUFFLE_SEGMENT_CACHE_MAX_SEGMENT_SIZE),
+        metrics);
+
     userRsrc = new ConcurrentHashMap<>();
     secretManager = new JobTokenSecretManager();
     shuffle = new Shuffle(conf);
@@ -331,10 +366,10 @@ private ShuffleHandler(Configuration conf) {
         + ", maxShuffleConnections:{}, localDirs:{}"
         + ", shuffleBufferSize:{}, shuffleTransferToAllowed:{}"
         + ", connectionKeepAliveEnabled:{}, connectionKeepAliveTimeOut:{}"
-        + ", mapOutputMetaInfoCacheSize:{}, sslFileBufferSize:{}",
+        + ", mapOutputMetaInfoCacheSize:{}, sslFileBufferSize:{}, segmentCacheSize:{}",
         manageOsCache, shouldAlwaysEvictOsCache,readaheadLength, maxShuffleConnections, localDirs,
         shuffleBufferSize, shuffleTransferToAllowed, connectionKeepAliveEnabled,
-        connectionKeepAliveTimeOut, mapOutputMetaInfoCacheSize, sslFileBufferSize);
+        connectionKeepAliveTimeOut, mapOutputMetaInfoCacheSize, sslFileBufferSize, segmentCacheSize);
   }
 
 
@@ -513,6 +548,10 @@ public void unregisterDag(String dir, String applicationIdString, int dagIdentif
     if (dirWatcher != null) {
       dirWatcher.unregisterDagDir(dir, applicationIdString, dagIdentifier);
     }
+    // The dag dir is being deleted; its segments won't be requested again.
+    if (segmentCache != null) {
+      segmentCache.invalidateDir(dir);
+    }
   }
 
 
@@ -748,6 +787,7 @@ public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
       final List<String> reduceQ = q.get("reduce");
       final List<String> jobQ = q.get("job");
       final List<String> dagIdQ = q.get("dag");
+      final long startTime = System.currentTimeMillis();
       if (LOG.isDebugEnabled()) {
         LOG.debug("RECV: " + request.getUri() +
             "\n  mapId: " + mapIds +
@@ -765,11 +805,11 @@ public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
         sendError(ctx, "Too many job/reduce parameters", BAD_REQUEST);
         return;
       }
-      int reduceId;
+      ReduceRange reduceRange;
       String jobId;
       int dagId;
       try {
-        reduceId = Integer.parseInt(reduceQ.get(0));
+        reduceRange = ReduceRange.parse(reduceQ.get(0));
         jobId = jobQ.get(0);
         dagId = Integer.parseInt(dagIdQ.get(0));
       } catch (NumberFormatException e) {
@@ -808,7 +848,7 @@ public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
       String user = userRsrc.get(jobId);
 
       try {
-        populateHeaders(mapIds, jobId, dagId, user, reduceId,
+        populateHeaders(mapIds, jobId, dagId, user, reduceRange,
             response, keepAliveParam, mapOutputInfoMap);
       } catch (DiskErrorException e) { // fatal error: fetcher should be aware of that
         LOG.error("Shuffle error in populating headers (fatal: DiskErrorException):", e);
@@ -827,21 +867,25 @@ public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
       ch.write(response);
       // TODO refactor the following into the pipeline
       ChannelFuture lastMap = null;
+      int numSegments = 0;
+      long numBytes = 0;
       for (String mapId : mapIds) {
         try {
           MapOutputInfo info = mapOutputInfoMap.get(mapId);
           // This will be hit if there's a large number of mapIds in a single request
           // (Determined by the cache size further up), in which case we go to disk again.
           if (info == null) {
-            info = getMapOutputInfo(jobId, dagId, mapId, reduceId, user);
+            info = getMapOutputInfo(jobId, dagId, mapId, reduceRange, user);
           }
           lastMap =
               sendMapOutput(ctx, ch, user, mapId,
-                reduceId, info);
+                reduceRange, info);
           if (null == lastMap) {
             sendError(ctx, NOT_FOUND);
             return;
           }
+          numSegments += reduceRange.size();
+          numBytes += info.getDataLength();
         } catch (IOException e) {
           LOG.error("Shuffle error :", e);
           String errorMessage = getErrorMessage(e);
@@ -849,6 +893,17 @@ public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
           return;
         }
       }
+      final int fetchedSegments = numSegments;
+      final long fetchedBytes = numBytes;
+      lastMap.addListener(new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+          if (future.isSuccess()) {
+            metrics.addFetch(System.currentTimeMillis() - startTime, fetchedSegments, fetchedBytes,
+                reduceRange.isRange);
+          }
+        }
+      });
       // If Keep alive is enabled, do not close the connection.
       if (!keepAliveParam && !connectionKeepAliveEnabled) {
         lastMap.addListener(ChannelFutureListener.CLOSE);
@@ -879,7 +934,7 @@ private String getErrorMessage(Throwable t) {
 
 
     protected MapOutputInfo getMapOutputInfo(String jobId, int dagId, String mapId,
-                                             int reduce, String user) throws IOException {
+                                             ReduceRange reduceRange, String user) throws IOException {
       AttemptPathInfo pathInfo;
       try {
         AttemptPathIdentifier identifier = new AttemptPathIdentifier(jobId, dagId, user, mapId);
@@ -896,8 +951,8 @@ protected MapOutputInfo getMapOutputInfo(String jobId, int dagId, String mapId,
         }
       }
 
-      TezIndexRecord info =
-          indexCache.getIndexInformation(mapId, reduce, pathInfo.indexPath, user);
+      TezIndexRecord[] info = indexCache.getIndexInformation(
+          mapId, reduceRange.first, reduceRange.last, pathInfo.indexPath, user);
 
       if (LOG.isDebugEnabled()) {
         LOG.debug("jobId=" + jobId + ", mapId=" + mapId + ",dataFile=" + pathInfo.dataPath +
@@ -905,12 +960,12 @@ protected MapOutputInfo getMapOutputInfo(String jobId, int dagId, String mapId,
       }
 
       // TODO Get rid of MapOutputInfo if possible
-      MapOutputInfo outputInfo = new MapOutputInfo(pathInfo.dataPath, info);
+      MapOutputInfo outputInfo = new MapOutputInfo(pathInfo.dataPath, info, reduceRange);
       return outputInfo;
     }
 
     protected void populateHeaders(List<String> mapIds, String jobId, int dagId,
-        String user, int reduce, HttpResponse response,
+        String user, ReduceRange reduceRange, HttpResponse response,
         boolean keepAliveParam, Map<String, MapOutputInfo> mapOutputInfoMap)
         throws IOException {
       // Reads the index file for each requested mapId, and figures out the overall
@@ -918,19 +973,13 @@ protected void populateHeaders(List<String> mapIds, String jobId, int dagId,
 
       long contentLength = 0;
       for (String mapId : mapIds) {
-        MapOutputInfo outputInfo = getMapOutputInfo(jobId, dagId, mapId, reduce, user);
+        MapOutputInfo outputInfo = getMapOutputInfo(jobId, dagId, mapId, reduceRange, user);
         // mapOutputInfoMap is used to share the lookups with the caller
         if (mapOutputInfoMap.size() < mapOutputMetaInfoCacheSize) {
           mapOutputInfoMap.put(mapId, outputInfo);
         }
-        ShuffleHeader header =
-            new ShuffleHeader(mapId, outputInfo.indexRecord.getPartLength(),
-                outputInfo.indexRecord.getRawLength(), reduce);
-        DataOutputBuffer dob = new DataOutputBuffer();
-        header.write(dob);
-
-        contentLength += outputInfo.indexRecord.getPartLength();
-        contentLength += dob.getLength();
+        contentLength += outputInfo.writeHeaders(mapId).getLength();
+        contentLength += outputInfo.getDataLength();
       }
 
       // Now set the response headers.
@@ -954,11 +1003,52 @@ protected void setResponseHeaders(HttpResponse response,
 
     class MapOutputInfo {
       final Path mapOutputFileName; // 100-200 byte string. Maybe replace with a local-dir-id, and construct on the fly.
-      final TezIndexRecord indexRecord; // 3 longs + reference overheads.
+      final TezIndexRecord[] indexRecords; // 3 longs + reference overheads, per reduce.
+      final ReduceRange reduceRange;
 
-      MapOutputInfo(Path mapOutputFileName, TezIndexRecord indexRecord) {
+      MapOutputInfo(Path mapOutputFileName, TezIndexRecord[] indexRecords, ReduceRange reduceRange) {
         this.mapOutputFileName = mapOutputFileName;
-        this.indexRecord = indexRecord;
+        this.indexRecords = indexRecords;
+        this.reduceRange = reduceRange;
+      }
+
+      /**
+       * For a single reduce, the response for the map is the header and the data of the partition. For a range,
+       * it is the number of partitions, all the headers, then the data of all the partitions, which are contiguous
+       * in the file; the same as the Tez shuffle handler, so that it can be sent with a single transfer.
+       */
+      DataOutputBuffer writeHeaders(String mapId) throws IOException {
+        DataOutputBuffer dob = new DataOutputBuffer();
+        if (reduceRange.isRange) {
+          WritableUtils.writeVInt(dob, indexRecords.length);
+        }
+        for (int i = 0; i < indexRecords.length; ++i) {
+          TezIndexRecord info = indexRecords[i];
+          new ShuffleHeader(mapId, info.getPartLength(), info.getRawLength(), reduceRange.first + i).write(dob);
+        }
+        return dob;
+      }
+
+      /** @return The offset in the file of the data to send. */
+      long getDataOffset() {
+        for (TezIndexRecord info : indexRecords) {
+          // Only the records with a non-zero part length are valid.
+          if (info.getPartLength() != 0) {
+            return info.getStartOffset();
+          }
+        }
+        return indexRecords[0].getStartOffset();
+      }
+
+      /** @return The length of the data to send. */
+      long getDataLength() {
+        for (int i = indexRecords.length - 1; i >= 0; --i) {
+          TezIndexRecord info = indexRecords[i];
+          if (info.getPartLength() != 0) {
+            return info.getStartOffset() + info.getPartLength() - getDataOffset();
+          }
+        }
+        return 0;
       }
     }
 
@@ -1004,16 +1094,36 @@ protected void verifyRequest(String appid, ChannelHandlerContext ctx,
     }
 
     protected ChannelFuture sendMapOutput(ChannelHandlerContext ctx, Channel ch,
-        String user, String mapId, int reduce, MapOutputInfo mapOutputInfo)
+        String user, String mapId, ReduceRange reduceRange, MapOutputInfo mapOutputInfo)
         throws IOException {
-      final TezIndexRecord info = mapOutputInfo.indexRecord;
-      final ShuffleHeader header =
-        new ShuffleHeader(mapId, info.getPartLength(), info.getRawLength(), reduce);
-      final DataOutputBuffer dob = new DataOutputBuffer();
-      header.write(dob);
-      ch.write(wrappedBuffer(dob.getData(), 0, dob.getLength()));
+      final DataOutputBuffer dob = mapOutputInfo.writeHeaders(mapId);
+      ChannelFuture writeFuture = ch.write(wrappedBuffer(dob.getData(), 0, dob.getLength()));
+      final long offset = mapOutputInfo.getDataOffset();
+      final long length = mapOutputInfo.getDataLength();
+      if (reduceRange.isRange && length == 0) {
+        return writeFuture;
+      }
       final File spillfile =
           new File(mapOutputInfo.mapOutputFileName.toString());
+      if (segmentCache != null) {
+        byte[] data;
+        try {
+          data = segmentCache.get(spillfile.getPath(), offset, length, () -> {
+            byte[] buffer = new byte[(int) length];
+            try (RandomAccessFile spill = SecureIOUtils.openForRandomRead(spillfile, "r", user, null)) {
+              spill.seek(offset);
+              spill.readFully(buffer);
+            }
+            return buffer;
+          });
+        } catch (FileNotFoundException e) {
+          LOG.info(spillfile + " not found");
+          return null;
+        }
+        if (data != null) {
+          return ch.write(wrappedBuffer(data));
+        }
+      }
       RandomAccessFile spill;
       try {
         spill = SecureIOUtils.openForRandomRead(spillfile, "r", user, null);
@@ -1021,14 +1131,13 @@ protected ChannelFuture sendMapOutput(ChannelHandlerContext ctx, Channel ch,
         LOG.info(spillfile + " not found");
         return null;
       }
-      ChannelFuture writeFuture;
       if (ch.getPipeline().get(SslHandler.class) == null) {
         boolean canEvictAfterTransfer = true;
         if (!shouldAlwaysEvictOsCache) {
-          canEvictAfterTransfer = (reduce > 0); // e.g broadcast data
+          canEvictAfterTransfer = (reduceRange.first > 0); // e.g broadcast data
         }
         final FadvisedFileRegion partition = new FadvisedFileRegion(spill,
-            info.getStartOffset(), info.getPartLength(), manageOsCache, readaheadLength,
+            offset, length, manageOsCache, readaheadLength,
             readaheadPool, spillfile.getAbsolutePath(), 
             shuffleBufferSize, shuffleTransferToAllowed, canEvictAfterTransfer);
         writeFuture = ch.write(partition);
@@ -1046,7 +1155,7 @@ public void operationComplete(ChannelFuture future) {
       } else {
         // HTTPS cannot be done with zero copy.
         final FadvisedChunkedFile chunk = new FadvisedChunkedFile(spill,
-            info.getStartOffset(), info.getPartLength(), sslFileBufferSize,
+            offset, length, sslFileBufferSize,
             manageOsCache, readaheadLength, readaheadPool,
             spillfile.getAbsolutePath());
         writeFuture = ch.write(chunk);
@@ -1139,6 +1248,45 @@ private static String getBaseLocation(String jobIdString, int dagId, String user
     return baseStr;
   }
 
+  /**
+   * The partitions requested by a fetch: a single one ("reduce=5"), or a range ("reduce=5-9") to fetch the
+   * partitions of several consumers in one response.
+   */
+  static class ReduceRange {
+    final int first;
+    final int last;
+    final boolean isRange;
+
+    ReduceRange(int first, int last, boolean isRange) {
+      this.first = first;
+      this.last = last;
+      this.isRange = isRange;
+    }
+
+    static ReduceRange parse(String value) {
+      int dash = value.indexOf('-');
+      if (dash < 0) {
+        int reduce = Integer.parseInt(value);
+        return new ReduceRange(reduce, reduce, false);
+      }
+      int first = Integer.parseInt(value.substring(0, dash));
+      int last = Integer.parseInt(value.substring(dash + 1));
+      if (first < 0 || last < first) {
+        throw new NumberFormatException("Invalid reduce range " + value);
+      }
+      return new ReduceRange(first, last, true);
+    }
+
+    int size() {
+      return last - first + 1;
+    }
+
+    @Override
+    public String toString() {
+      return isRange ? first + "-" + last : Integer.toString(first);
+    }
+  }
+
   static class AttemptPathInfo {
     // TODO Change this over to just store local dir indices, instead of the entire path. Far more efficient.
     private final Path indexPath;
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.shufflehandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonShuffleMetrics;
+
+/**
+ * Keeps the small map output segments that are fetched repeatedly, e.g. for broadcast edges, in memory, so that
+ * serving them again doesn't need to open and read the data file. A segment is only loaded on its second request;
+ * the first one is served from the file as usual. The data files don't change once written, and the path of the
+ * file identifies the attempt, so the entries only need to be dropped when the directory of the DAG is cleaned up;
+ * otherwise they expire after some time unused.
+ */
+class ShuffleSegmentCache {
+  private final int maxSegmentSize;
+  private final Cache<SegmentKey, byte[]> segments;
+  // The segments requested once; these are loaded when requested again.
+  private final Cache<SegmentKey, Boolean> candidates;
+  private final LlapDaemonShuffleMetrics metrics;
+
+  ShuffleSegmentCache(long maxBytes, int maxSegmentSize, LlapDaemonShuffleMetrics metrics) {
+    this.maxSegmentSize = maxSegmentSize;
+    this.metrics = metrics;
+    this.segments = CacheBuilder.newBuilder().expireAfterAccess(300, TimeUnit.SECONDS)
+        .concurrencyLevel(16).maximumWeight(maxBytes)
+        .weigher((SegmentKey key, byte[] value) -> value.length + key.path.length()).build();
+    // Bound the candidates by the number of the smallest segments that would fit.
+    this.candidates = CacheBuilder.newBuilder().expireAfterAccess(300, TimeUnit.SECONDS)
+        .concurrencyLevel(16).maximumSize(Math.max(1024, maxBytes / 1024)).build();
+  }
+
+  /**
+   * @param path the data file
+   * @param offset the offset of the segment in the file
+   * @param length the length of the segment
+   * @param loader reads the segment from the file
+   * @return the data of the segment, or null if the segment should be sent from the file
+   */
+  byte[] get(String path, long offset, long length, Callable<byte[]> loader) throws IOException {
+    if (length > maxSegmentSize) {
+      return null;
+    }
+    SegmentKey key = new SegmentKey(path, offset, length);
+    byte[] data = segments.getIfPresent(key);
+    if (data != null) {
+      if (metrics != null) {
+        metrics.incrSegmentCacheHits();
+      }
+      return data;
+    }
+    if (candidates.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+      return null;
+    }
+    candidates.invalidate(key);
+    try {
+      data = segments.get(key, loader);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+    }
+    if (metrics != null) {
+      metrics.incrSegmentCacheMisses();
+    }
+    return data;
+  }
+
+  /**
+   * Drops the segments of the files under the directory, e.g. the directory of a DAG that is cleaned up.
+   */
+  void invalidateDir(String dir) {
+    String prefix = new File(dir).getPath() + File.separator;
+    segments.asMap().keySet().removeIf(key -> key.path.startsWith(prefix));
+    candidates.asMap().keySet().removeIf(key -> key.path.startsWith(prefix));
+  }
+
+  long size() {
+    return segments.size();
+  }
+
+  private static final class SegmentKey {
+    final String path;
+    final long offset, length;
+
+    SegmentKey(String path, long offset, long length) {
+      this.path = path;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int hashCode() {
+      return (path.hashCode() * 31 + Long.hashCode(offset)) * 31 + Long.hashCode(length);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SegmentKey)) {
+        return false;
+      }
+      SegmentKey other = (SegmentKey) obj;
+      return offset == other.offset && length == other.length && path.equals(other.path);
+    }
+  }
+}
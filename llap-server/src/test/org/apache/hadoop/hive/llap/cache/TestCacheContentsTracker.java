@@ -22,6 +22,7 @@
 import java.util.Map;
 
 import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.conf.HiveConf;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -31,6 +32,9 @@
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for TestCacheContentsTracker functions.
@@ -84,6 +88,44 @@ public void testAggregatedStatsGeneration() {
   }
 
 
+  /**
+   * Checks that the oldest unlocked buffers of a pool over its quota are evicted before asking the
+   * real policy, and that a pool under its quota is left alone.
+   */
+  @Test
+  public void testPoolQuotaEviction() {
+    LowLevelCachePolicy realPolicy = mock(LowLevelCachePolicy.class);
+    EvictionListener listener = mock(EvictionListener.class);
+    HiveConf conf = new HiveConf();
+    conf.setVar(HiveConf.ConfVars.LLAP_IO_CACHE_POOL_QUOTAS, "bi:0.5, etl:0.8");
+    CacheContentsTracker poolTracker = new CacheContentsTracker(realPolicy, conf, 1000);
+    poolTracker.setEvictionListener(listener);
+
+    CacheTag tag = cacheTagBuilder("default.pooltable");
+    LlapCacheableBuffer locked = createMockBuffer(200, tag, "bi", LlapCacheableBuffer.INVALIDATE_FAILED);
+    LlapCacheableBuffer oldest = createMockBuffer(200, tag, "bi", LlapCacheableBuffer.INVALIDATE_OK);
+    LlapCacheableBuffer newest = createMockBuffer(200, tag, "bi", LlapCacheableBuffer.INVALIDATE_OK);
+    LlapCacheableBuffer other = createMockBuffer(200, tag, "etl", LlapCacheableBuffer.INVALIDATE_OK);
+    for (LlapCacheableBuffer buffer : new LlapCacheableBuffer[] { locked, oldest, newest, other }) {
+      poolTracker.cache(buffer, null);
+    }
+    assertEquals(Long.valueOf(600), poolTracker.getPoolUsage().get("bi"));
+    assertEquals(Long.valueOf(800), poolTracker.getTableUsage().get("default.pooltable"));
+    assertEquals(Long.valueOf(500), poolTracker.getPoolQuotas().get("bi"));
+
+    assertEquals(200, poolTracker.evictSomeBlocks(100));
+    verify(listener).notifyEvicted(oldest);
+    verify(listener, never()).notifyEvicted(locked);
+    verify(realPolicy, never()).evictSomeBlocks(100);
+    assertEquals(Long.valueOf(400), poolTracker.getPoolUsage().get("bi"));
+
+    // Both pools are within their quotas now; the real policy decides.
+    assertEquals(0, poolTracker.evictSomeBlocks(100));
+    verify(realPolicy).evictSomeBlocks(100);
+    verify(listener, never()).notifyEvicted(newest);
+    verify(listener, never()).notifyEvicted(other);
+  }
+
   /**
    * Tests CacheTag.compareTo().
    */
@@ -167,6 +209,14 @@ private static LlapCacheableBuffer createMockBuffer(long size, CacheTag cacheTag
     return llapCacheableBufferMock;
   }
 
+  private static LlapCacheableBuffer createMockBuffer(long size, CacheTag cacheTag, String wmPool,
+      int invalidateResult) {
+    LlapCacheableBuffer llapCacheableBufferMock = createMockBuffer(size, cacheTag);
+    llapCacheableBufferMock.wmPool = wmPool;
+    when(llapCacheableBufferMock.invalidate()).thenReturn(invalidateResult);
+    return llapCacheableBufferMock;
+  }
+
   public static CacheTag cacheTagBuilder(String dbAndTable, String... partitions) {
     if (partitions != null && partitions.length > 0) {
       LinkedHashMap<String, String> partDescs = new LinkedHashMap<>();
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.common.io.DataCache.DiskRangeListFactory;
+import org.apache.hadoop.hive.common.io.DiskRange;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.hadoop.hive.common.io.DiskRangeList.CreateHelper;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.cache.TestBuddyAllocator.DummyMemoryManager;
+import org.apache.hadoop.hive.llap.io.metadata.MetadataCache;
+import org.apache.hadoop.hive.llap.io.metadata.MetadataCache.LlapBufferOrBuffers;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.apache.hadoop.hive.ql.io.SyntheticFileId;
+import org.apache.hadoop.hive.ql.io.orc.encoded.CacheChunk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestLlapCacheSnapshot {
+  private static final int MAX_ALLOC = 256;
+  private static final String FINGERPRINT = "hdfs://nn|true|true|true|" + MAX_ALLOC;
+
+  private static final DiskRangeListFactory testFactory = new DiskRangeListFactory() {
+    public DiskRangeList createCacheChunk(MemoryBuffer buffer, long offset, long end) {
+      return new CacheChunk(buffer, offset, end);
+    }
+  };
+
+  private static class DummyCachePolicy implements LowLevelCachePolicy {
+    public void cache(LlapCacheableBuffer buffer, Priority pri) {
+    }
+
+    public void notifyLock(LlapCacheableBuffer buffer) {
+    }
+
+    public void notifyUnlock(LlapCacheableBuffer buffer) {
+    }
+
+    public long evictSomeBlocks(long memoryToReserve) {
+      return memoryToReserve;
+    }
+
+    public void setEvictionListener(EvictionListener listener) {
+    }
+
+    @Override
+    public long purge() {
+      return 0;
+    }
+
+    @Override
+    public void debugDumpShort(StringBuilder sb) {
+    }
+  }
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Random random = new Random(1234);
+  private File snapshotFile;
+  private LowLevelCacheImpl dataCache;
+  private MetadataCache metadataCache;
+
+  @Before
+  public void setUp() {
+    snapshotFile = new File(folder.getRoot(), LlapCacheSnapshot.SNAPSHOT_FILE_NAME);
+    createCaches();
+  }
+
+  private void createCaches() {
+    DummyMemoryManager mm = new DummyMemoryManager();
+    DummyCachePolicy cp = new DummyCachePolicy();
+    LlapDaemonCacheMetrics metrics = LlapDaemonCacheMetrics.create("test", "1");
+    BuddyAllocator allocator = new BuddyAllocator(
+        false, false, 8, MAX_ALLOC, 1, 16 * MAX_ALLOC, 0, null, mm, metrics, null, true);
+    dataCache = new LowLevelCacheImpl(metrics, cp, allocator, true, -1);
+    metadataCache = new MetadataCache(allocator, mm, cp, true, metrics);
+  }
+
+  private LlapCacheSnapshot createSnapshot(String fingerprint, long maxRestoreBytes) {
+    return new LlapCacheSnapshot(snapshotFile, fingerprint, dataCache, metadataCache, maxRestoreBytes);
+  }
+
+  @Test
+  public void testSaveAndRestore() throws Exception {
+    Object fileKey1 = 1L;
+    Object fileKey2 = new SyntheticFileId(new Path("/warehouse/t/p=1/000000_0"), 1000, 12345);
+    LinkedHashMap<String, String> partDescMap = new LinkedHashMap<>();
+    partDescMap.put("p", "1");
+    CacheTag tag1 = CacheTag.build("default.t");
+    CacheTag tag2 = CacheTag.build("default.t", partDescMap);
+
+    byte[] data1 = randomBytes(MAX_ALLOC), data2 = randomBytes(100), data3 = randomBytes(MAX_ALLOC / 2);
+    putData(fileKey1, tag1, 0, data1, 50);
+    putData(fileKey1, tag1, 500, data2, 20);
+    putData(fileKey2, tag2, 3, data3, data3.length);
+    byte[] metadata = randomBytes(MAX_ALLOC * 2 + 10);
+    metadataCache.decRefBuffer(metadataCache.putFileMetadata(fileKey1, ByteBuffer.wrap(metadata), tag1));
+    // Not persisted; such keys do not identify the file across restarts.
+    putData(new Object(), null, 0, randomBytes(10), 10);
+
+    long expectedBytes = data1.length + data2.length + data3.length + metadata.length;
+    assertEquals(expectedBytes, createSnapshot(FINGERPRINT, Long.MAX_VALUE).save());
+
+    createCaches();
+    assertEquals(expectedBytes, createSnapshot(FINGERPRINT, Long.MAX_VALUE).restore());
+    assertData(fileKey1, tag1, 0, 50, data1);
+    assertData(fileKey1, tag1, 500, 20, data2);
+    assertData(fileKey2, tag2, 3, data3.length, data3);
+    LlapBufferOrBuffers result = metadataCache.getFileMetadata(fileKey1);
+    assertNotNull(result);
+    ByteBuffer restored = ByteBuffer.allocate(metadata.length);
+    for (LlapAllocatorBuffer buffer : result.getMultipleLlapBuffers()) {
+      restored.put(buffer.getByteBufferDup());
+      assertEquals(tag1, buffer.getTag());
+    }
+    metadataCache.decRefBuffer(result);
+    assertArrayEquals(metadata, restored.array());
+  }
+
+  @Test
+  public void testRestoreHottestFirst() throws Exception {
+    byte[] cold = randomBytes(MAX_ALLOC), hot = randomBytes(MAX_ALLOC);
+    putData(1L, null, 0, cold, cold.length).priority = 1;
+    putData(1L, null, 1000, hot, hot.length).priority = 5;
+    createSnapshot(FINGERPRINT, Long.MAX_VALUE).save();
+
+    createCaches();
+    assertEquals(hot.length, createSnapshot(FINGERPRINT, 1).restore());
+    assertData(1L, null, 1000, hot.length, hot);
+    assertNull(getData(1L, 0, cold.length));
+  }
+
+  @Test
+  public void testRestoreInvalidSnapshot() throws Exception {
+    putData(1L, null, 0, randomBytes(MAX_ALLOC), MAX_ALLOC);
+    createSnapshot(FINGERPRINT, Long.MAX_VALUE).save();
+
+    createCaches();
+    // Written for a different FS or file id settings.
+    assertEquals(0, createSnapshot("file:///|true|true|true|" + MAX_ALLOC, Long.MAX_VALUE).restore());
+    assertNull(getData(1L, 0, MAX_ALLOC));
+
+    try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+      file.seek(file.length() / 2);
+      int value = file.read();
+      file.seek(file.length() / 2);
+      file.write(value ^ 1);
+    }
+    assertEquals(0, createSnapshot(FINGERPRINT, Long.MAX_VALUE).restore());
+    assertNull(getData(1L, 0, MAX_ALLOC));
+
+    assertEquals(0, new LlapCacheSnapshot(new File(folder.getRoot(), "missing"), FINGERPRINT,
+        dataCache, metadataCache, Long.MAX_VALUE).restore());
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    random.nextBytes(result);
+    return result;
+  }
+
+  private LlapDataBuffer putData(Object fileKey, CacheTag tag, long offset, byte[] data, int declaredLength) {
+    MemoryBuffer[] buffers = new MemoryBuffer[1];
+    dataCache.getAllocator().allocateMultiple(buffers, data.length, LlapDataBuffer::new);
+    ByteBuffer bb = buffers[0].getByteBufferRaw();
+    int startPos = bb.position();
+    bb.put(data);
+    bb.position(startPos);
+    bb.limit(startPos + data.length);
+    dataCache.putFileData(fileKey, new DiskRange[] { new DiskRange(offset, offset + declaredLength) },
+        buffers, 0, Priority.NORMAL, null, tag);
+    dataCache.decRefBuffer(buffers[0]);
+    return (LlapDataBuffer) buffers[0];
+  }
+
+  private CacheChunk getData(Object fileKey, long offset, int declaredLength) {
+    CreateHelper list = new CreateHelper();
+    list.addOrMerge(offset, offset + declaredLength, true, true);
+    DiskRangeList result = dataCache.getFileData(fileKey, list.get(), 0, testFactory, null, null);
+    return result instanceof CacheChunk ? (CacheChunk) result : null;
+  }
+
+  private void assertData(Object fileKey, CacheTag tag, long offset, int declaredLength, byte[] expected) {
+    CacheChunk chunk = getData(fileKey, offset, declaredLength);
+    assertNotNull(chunk);
+    assertEquals(offset + declaredLength, chunk.getEnd());
+    LlapDataBuffer buffer = (LlapDataBuffer) chunk.getBuffer();
+    try {
+      ByteBuffer bb = buffer.getByteBufferDup();
+      byte[] actual = new byte[bb.remaining()];
+      bb.get(actual);
+      assertArrayEquals(expected, actual);
+      assertEquals(tag, buffer.getTag());
+    } finally {
+      dataCache.decRefBuffer(buffer);
+    }
+  }
+}
@@ -18,12 +18,14 @@
 package org.apache.hadoop.hive.llap.cache;
 
 import static org.apache.hadoop.hive.llap.cache.LlapCacheableBuffer.INVALIDATE_OK;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.concurrent.Callable;
@@ -38,12 +40,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.common.io.CacheTag;
 import org.apache.hadoop.hive.common.io.DiskRange;
 import org.apache.hadoop.hive.common.io.DiskRangeList;
 import org.apache.hadoop.hive.common.io.DataCache.DiskRangeListFactory;
 import org.apache.hadoop.hive.common.io.DiskRangeList.CreateHelper;
 import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
 import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
 import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
 import org.apache.hadoop.hive.ql.io.orc.encoded.CacheChunk;
@@ -290,6 +295,55 @@ public void testDeclaredLengthUnsetForCollidedBuffer() throws Exception {
 
   }
 
+  @Test
+  public void testCompressedInMemory() {
+    LlapDaemonCacheMetrics metrics = LlapDaemonCacheMetrics.create("test", "1");
+    BuddyAllocator allocator = new BuddyAllocator(false, false, 8, 1024, 1, 16 * 1024, 0, null,
+        new TestBuddyAllocator.DummyMemoryManager(), metrics, null, true);
+    LowLevelCacheImpl cache = new LowLevelCacheImpl(
+        metrics, new DummyCachePolicy(), allocator, true, -1); // no cleanup thread
+    Configuration conf = new Configuration();
+    HiveConf.setVar(conf, ConfVars.LLAP_IO_CACHE_COMPRESS_TABLES, "default.*");
+    cache.setConf(conf);
+    byte[] data = new byte[1024];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) (i % 10);
+    }
+
+    LlapDataBuffer buffer = allocate(allocator, data);
+    MemoryBuffer[] buffers = new MemoryBuffer[] { buffer };
+    assertNull(cache.putFileData(1L, drs(0), buffers, 0, Priority.NORMAL, null, CacheTag.build("default.t")));
+    // A compressed copy is cached; the caller keeps its buffer, that is deallocated on release.
+    assertSame(buffer, buffers[0]);
+    assertEquals(LlapDataBuffer.UNKNOWN_CACHED_LENGTH, buffer.declaredCachedLength);
+    cache.decRefBuffer(buffer);
+    assertTrue(buffer.isInvalid());
+
+    DiskRangeList result = cache.getFileData(1L, dr(0, 1), 0, testFactory, null, null);
+    LlapDataBuffer hit = (LlapDataBuffer) ((CacheChunk) result).getBuffer();
+    assertFalse(hit.isCompressedInMemory());
+    ByteBuffer hitData = hit.getByteBufferDup();
+    byte[] hitBytes = new byte[hitData.remaining()];
+    hitData.get(hitBytes);
+    assertArrayEquals(data, hitBytes);
+    assertEquals(1, metrics.getCacheDecompressions());
+    cache.decRefBuffer(hit);
+    assertTrue(hit.isInvalid());
+
+    // The other tables are cached as is.
+    LlapDataBuffer other = allocate(allocator, data);
+    cache.putFileData(2L, drs(0), new MemoryBuffer[] { other }, 0, Priority.NORMAL, null, CacheTag.build("other.t"));
+    assertEquals(1, other.declaredCachedLength);
+  }
+
+  private static LlapDataBuffer allocate(BuddyAllocator allocator, byte[] data) {
+    MemoryBuffer[] dest = new MemoryBuffer[1];
+    allocator.allocateMultiple(dest, data.length, LlapDataBuffer::new);
+    LlapDataBuffer buffer = (LlapDataBuffer) dest[0];
+    buffer.getByteBufferDup().put(data);
+    return buffer;
+  }
+
   @Test
   public void testProactiveEvictionMark() {
     _testProactiveEvictionMark(false);
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.cache.TestLowLevelLrfuCachePolicy.EvictionTracker;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.junit.Test;
+
+public class TestLowLevelTinyLfuCachePolicy {
+
+  @Test
+  public void testScanResistance() {
+    int cacheSize = 100;
+    EvictionTracker et = new EvictionTracker();
+    LowLevelTinyLfuCachePolicy policy = new LowLevelTinyLfuCachePolicy(1, cacheSize, new Configuration());
+    LowLevelCacheMemoryManager mm = createMemoryManager(cacheSize, policy, et);
+    List<LlapDataBuffer> hot = new ArrayList<>(), cold = new ArrayList<>();
+    for (int i = 0; i < cacheSize; ++i) {
+      LlapDataBuffer buffer = LowLevelCacheImpl.allocateFake();
+      assertTrue(cache(mm, policy, buffer));
+      (i % 2 == 0 ? hot : cold).add(buffer);
+    }
+    for (int i = 0; i < 5; ++i) {
+      for (LlapDataBuffer buffer : hot) {
+        lock(policy, buffer);
+        unlock(policy, buffer);
+        // The accesses are recorded in lossy buffers; make sure none is dropped.
+        policy.drainBuffers();
+      }
+    }
+    // A scan larger than the cache; LRU would evict everything.
+    int scanSize = 2 * cacheSize;
+    for (int i = 0; i < scanSize; ++i) {
+      assertTrue(cache(mm, policy, LowLevelCacheImpl.allocateFake()));
+    }
+    assertEquals(scanSize, et.evicted.size());
+    for (LlapDataBuffer buffer : hot) {
+      assertFalse(et.evicted.contains(buffer));
+    }
+  }
+
+  @Test
+  public void testEvictionSkipsLockedBuffers() {
+    int cacheSize = 3;
+    EvictionTracker et = new EvictionTracker();
+    LowLevelTinyLfuCachePolicy policy = new LowLevelTinyLfuCachePolicy(1, cacheSize, new Configuration());
+    LowLevelCacheMemoryManager mm = createMemoryManager(cacheSize, policy, et);
+    LlapDataBuffer[] buffers = new LlapDataBuffer[cacheSize];
+    for (int i = 0; i < cacheSize; ++i) {
+      buffers[i] = LowLevelCacheImpl.allocateFake();
+      assertTrue(cache(mm, policy, buffers[i]));
+    }
+    lock(policy, buffers[0]);
+    lock(policy, buffers[2]);
+    assertTrue(mm.reserveMemory(1, false, null));
+    assertEquals(1, et.evicted.size());
+    assertSame(buffers[1], et.evicted.get(0));
+    assertFalse(mm.reserveMemory(1, false, null));
+    unlock(policy, buffers[0]);
+    assertTrue(mm.reserveMemory(1, false, null));
+    assertSame(buffers[0], et.evicted.get(1));
+    unlock(policy, buffers[2]);
+  }
+
+  @Test
+  public void testPurge() {
+    int cacheSize = 8;
+    EvictionTracker et = new EvictionTracker();
+    LowLevelTinyLfuCachePolicy policy = new LowLevelTinyLfuCachePolicy(1, cacheSize, new Configuration());
+    LowLevelCacheMemoryManager mm = createMemoryManager(cacheSize, policy, et);
+    LlapDataBuffer locked = null;
+    for (int i = 0; i < cacheSize; ++i) {
+      LlapDataBuffer buffer = LowLevelCacheImpl.allocateFake();
+      assertTrue(cache(mm, policy, buffer));
+      if (i == 3) {
+        locked = buffer;
+      }
+    }
+    lock(policy, locked);
+    assertEquals(cacheSize - 1, policy.purge());
+    assertEquals(cacheSize - 1, et.evicted.size());
+    assertFalse(et.evicted.contains(locked));
+    unlock(policy, locked);
+    assertEquals(1, policy.purge());
+    assertEquals(0, policy.purge());
+  }
+
+  @Test
+  public void testFrequencySketch() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    long key = 42;
+    assertEquals(0, sketch.frequency(key));
+    for (int i = 0; i < 5; ++i) {
+      sketch.increment(key);
+    }
+    assertEquals(5, sketch.frequency(key));
+    for (int i = 0; i < 20; ++i) {
+      sketch.increment(key);
+    }
+    assertEquals(15, sketch.frequency(key));
+    // Other keys eventually cause the counters to be halved.
+    for (long other = 1000; other < 10000 && sketch.frequency(key) == 15; ++other) {
+      sketch.increment(other);
+    }
+    assertEquals(7, sketch.frequency(key));
+  }
+
+  private static LowLevelCacheMemoryManager createMemoryManager(
+      int cacheSize, LowLevelTinyLfuCachePolicy policy, EvictionTracker et) {
+    policy.setEvictionListener(et);
+    return new LowLevelCacheMemoryManager(cacheSize, policy, LlapDaemonCacheMetrics.create("test", "1"));
+  }
+
+  // Buffers in test are fakes not linked to cache; notify cache policy explicitly.
+  private static boolean cache(
+      LowLevelCacheMemoryManager mm, LowLevelTinyLfuCachePolicy policy, LlapDataBuffer buffer) {
+    if (!mm.reserveMemory(1, false, null)) {
+      return false;
+    }
+    buffer.incRef();
+    policy.cache(buffer, Priority.NORMAL);
+    buffer.decRef();
+    policy.notifyUnlock(buffer);
+    return true;
+  }
+
+  private static void lock(LowLevelTinyLfuCachePolicy policy, LlapDataBuffer locked) {
+    locked.incRef();
+    policy.notifyLock(locked);
+  }
+
+  private static void unlock(LowLevelTinyLfuCachePolicy policy, LlapDataBuffer locked) {
+    locked.decRef();
+    policy.notifyUnlock(locked);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.cache;
+
+import static org.apache.hadoop.hive.llap.cache.LlapCacheableBuffer.INVALIDATE_OK;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.apache.hadoop.hive.common.io.CacheTag;
+import org.apache.hadoop.hive.common.io.DataCache.DiskRangeListFactory;
+import org.apache.hadoop.hive.common.io.DiskRange;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.hadoop.hive.common.io.encoded.MemoryBuffer;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache.Priority;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.apache.hadoop.hive.ql.io.orc.encoded.CacheChunk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the SSD tier of the data cache, using a local temporary directory as the tier.
+ */
+public class TestSsdCacheTier {
+  private static final int MAX_ALLOC = 256;
+  private static final CacheTag TAG = CacheTag.build("default.t");
+
+  private static final DiskRangeListFactory testFactory = new DiskRangeListFactory() {
+    public DiskRangeList createCacheChunk(MemoryBuffer buffer, long offset, long end) {
+      return new CacheChunk(buffer, offset, end);
+    }
+  };
+
+  private static class DummyCachePolicy implements LowLevelCachePolicy {
+    public void cache(LlapCacheableBuffer buffer, Priority pri) {
+    }
+
+    public void notifyLock(LlapCacheableBuffer buffer) {
+    }
+
+    public void notifyUnlock(LlapCacheableBuffer buffer) {
+    }
+
+    public long evictSomeBlocks(long memoryToReserve) {
+      return memoryToReserve;
+    }
+
+    public void setEvictionListener(EvictionListener listener) {
+    }
+
+    @Override
+    public long purge() {
+      return 0;
+    }
+
+    @Override
+    public void debugDumpShort(StringBuilder sb) {
+    }
+  }
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Random random = new Random(1234);
+  private LlapDaemonCacheMetrics metrics;
+  private BuddyAllocator allocator;
+  private LowLevelCacheImpl cache;
+  private SsdCacheTier tier;
+
+  @Before
+  public void setUp() throws Exception {
+    metrics = LlapDaemonCacheMetrics.create("test", "1");
+    allocator = new BuddyAllocator(false, false, 8, MAX_ALLOC, 1, 16 * MAX_ALLOC, 0, null,
+        new TestBuddyAllocator.DummyMemoryManager(), metrics, null, true);
+    cache = new LowLevelCacheImpl(metrics, new DummyCachePolicy(), allocator, true, -1);
+    // Two segments of two buffers each.
+    tier = new SsdCacheTier(folder.newFolder("tier"), 4 * MAX_ALLOC, 2 * MAX_ALLOC, metrics);
+    cache.setSsdTier(tier);
+  }
+
+  @After
+  public void tearDown() {
+    tier.close();
+  }
+
+  @Test
+  public void testReadEvictedData() throws Exception {
+    byte[] data = randomBytes(MAX_ALLOC);
+    LlapDataBuffer buffer = putData(1L, 100, data);
+    evict(buffer);
+    assertEquals(1, tier.getEntryCount());
+
+    LlapDataBuffer result = getData(1L, 100, data.length);
+    assertNotSame(buffer, result);
+    assertArrayEquals(data, getBytes(result));
+    assertEquals(data.length, metrics.getCacheTierReadBytes());
+    cache.decRefBuffer(result);
+
+    // The data in the tier is still valid; evicting the buffer again doesn't write it again.
+    evict(result);
+    assertEquals(1, tier.getEntryCount());
+    result = getData(1L, 100, data.length);
+    assertArrayEquals(data, getBytes(result));
+    cache.decRefBuffer(result);
+  }
+
+  @Test
+  public void testDropOldestSegment() throws Exception {
+    byte[][] data = new byte[5][];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = randomBytes(MAX_ALLOC);
+      evict(putData(1L, i * 1000, data[i]));
+    }
+    // The first segment was reused for the fifth buffer.
+    assertEquals(3, tier.getEntryCount());
+    assertEquals(0, tier.getEntries(1L, 0, 2000).size());
+    for (int i = 2; i < data.length; ++i) {
+      LlapDataBuffer result = getData(1L, i * 1000, data[i].length);
+      assertArrayEquals(data[i], getBytes(result));
+      cache.decRefBuffer(result);
+    }
+  }
+
+  @Test
+  public void testProactiveEviction() throws Exception {
+    evict(putData(1L, 0, randomBytes(MAX_ALLOC)));
+    assertEquals(1, tier.getEntryCount());
+    cache.markBuffersForProactiveEviction(tag -> tag.equals(TAG), false);
+    assertEquals(0, tier.getEntryCount());
+  }
+
+  private LlapDataBuffer putData(Object fileKey, int offset, byte[] data) {
+    MemoryBuffer[] dest = new MemoryBuffer[1];
+    allocator.allocateMultiple(dest, data.length, LlapDataBuffer::new);
+    LlapDataBuffer buffer = (LlapDataBuffer) dest[0];
+    buffer.getByteBufferDup().put(data);
+    cache.putFileData(fileKey, new DiskRange[] { new DiskRange(offset, offset + data.length) }, dest, 0,
+        Priority.NORMAL, null, TAG);
+    cache.decRefBuffer(buffer);
+    return buffer;
+  }
+
+  /**
+   * Evicts the buffer the way the cache policy and the eviction dispatcher do, reusing its memory
+   * right away, and waits for the tier to write the data.
+   */
+  private void evict(LlapDataBuffer buffer) throws Exception {
+    assertEquals(INVALIDATE_OK, buffer.invalidate());
+    cache.notifyEvicted(buffer);
+    buffer.getByteBufferDup().put(new byte[buffer.getByteBufferDup().remaining()]);
+    allocator.deallocateEvicted(buffer);
+    tier.flush();
+  }
+
+  private LlapDataBuffer getData(Object fileKey, int offset, int length) {
+    DiskRangeList result = cache.getFileData(
+        fileKey, new DiskRangeList(offset, offset + length), 0, testFactory, null, null);
+    assertTrue(result.hasData());
+    return (LlapDataBuffer) ((CacheChunk) result).getBuffer();
+  }
+
+  private static byte[] getBytes(LlapDataBuffer buffer) {
+    ByteBuffer bb = buffer.getByteBufferDup();
+    byte[] result = new byte[bb.remaining()];
+    bb.get(result);
+    return result;
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    random.nextBytes(result);
+    return result;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.io.api.impl;
+
+import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.VectorizedParquetInputFormat;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests the column vector producers reading the input formats thru IO elevator.
+ */
+public class LlapIoImplInputFormatTest {
+
+  private final ColumnVectorProducer orcCvp = Mockito.mock(ColumnVectorProducer.class);
+  private final ColumnVectorProducer genericCvp = Mockito.mock(ColumnVectorProducer.class);
+  private final ColumnVectorProducer parquetCvp = Mockito.mock(ColumnVectorProducer.class);
+
+  @Test public void testProducers() {
+    Assert.assertSame(orcCvp, LlapIoImpl.getColumnVectorProducer(
+        new OrcInputFormat(), orcCvp, genericCvp, parquetCvp));
+    Assert.assertSame(parquetCvp, LlapIoImpl.getColumnVectorProducer(
+        new VectorizedParquetInputFormat(), orcCvp, genericCvp, parquetCvp));
+    Assert.assertSame(parquetCvp, LlapIoImpl.getColumnVectorProducer(
+        new MapredParquetInputFormat(), orcCvp, genericCvp, parquetCvp));
+    Assert.assertSame(genericCvp, LlapIoImpl.getColumnVectorProducer(
+        new TextInputFormat(), orcCvp, genericCvp, parquetCvp));
+  }
+
+  @Test public void testNoProducer() {
+    // Without the LLAP cache, Parquet is not re-encoded either.
+    Assert.assertNull(LlapIoImpl.getColumnVectorProducer(
+        new VectorizedParquetInputFormat(), orcCvp, genericCvp, null));
+    Assert.assertNull(LlapIoImpl.getColumnVectorProducer(
+        new MapredParquetInputFormat(), orcCvp, genericCvp, null));
+    Assert.assertNull(LlapIoImpl.getColumnVectorProducer(
+        new TextInputFormat(), orcCvp, null, parquetCvp));
+    Assert.assertSame(orcCvp, LlapIoImpl.getColumnVectorProducer(
+        new OrcInputFormat(), orcCvp, null, null));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.io.api.impl;
+
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests the rows of the batches handed out for the column vectors decoded by LLAP IO.
+ */
+public class LlapRecordReaderRowsTest {
+
+  @Test public void testAllRows() {
+    ColumnVectorBatch cvb = new ColumnVectorBatch(1);
+    cvb.filterContext.reset();
+    cvb.size = 700;
+    VectorizedRowBatch vrb = new VectorizedRowBatch(1);
+    vrb.selectedInUse = true;
+    vrb.size = 5;
+
+    LlapRecordReader.setRows(cvb, vrb);
+    Assert.assertFalse(vrb.selectedInUse);
+    Assert.assertEquals(700, vrb.size);
+  }
+
+  @Test public void testSelectedRows() {
+    ColumnVectorBatch cvb = new ColumnVectorBatch(1);
+    cvb.filterContext.reset();
+    cvb.size = 700;
+    int[] selected = cvb.filterContext.updateSelected(3);
+    selected[0] = 2;
+    selected[1] = 100;
+    selected[2] = 699;
+    cvb.filterContext.setSelectedInUse(true);
+    cvb.filterContext.setSelectedSize(3);
+    VectorizedRowBatch vrb = new VectorizedRowBatch(1);
+
+    LlapRecordReader.setRows(cvb, vrb);
+    Assert.assertTrue(vrb.selectedInUse);
+    Assert.assertEquals(3, vrb.size);
+    Assert.assertArrayEquals(new int[] { 2, 100, 699 }, Arrays.copyOf(vrb.selected, vrb.size));
+
+    // The selection of the next batch is copied again, not shared.
+    selected[0] = 5;
+    Assert.assertEquals(2, vrb.selected[0]);
+    cvb.filterContext.reset();
+    cvb.size = 10;
+    LlapRecordReader.setRows(cvb, vrb);
+    Assert.assertFalse(vrb.selectedInUse);
+    Assert.assertEquals(10, vrb.size);
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.io.decode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
+import org.apache.hadoop.hive.ql.exec.SerializationUtilities;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+import org.apache.hadoop.hive.ql.udf.UDFRand;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBridge;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.Test;
+
+/**
+ * Tests the filter LLAP IO evaluates before decoding the other columns of a batch.
+ */
+public class TestLateMaterializationFilter {
+
+  // The columns a bigint, b string and c bigint, and the partition column p string.
+  static final VectorizedRowBatchCtx RB_CTX = new VectorizedRowBatchCtx(
+      new String[] { "a", "b", "c", "p" },
+      new TypeInfo[] { TypeInfoFactory.longTypeInfo, TypeInfoFactory.stringTypeInfo,
+          TypeInfoFactory.longTypeInfo, TypeInfoFactory.stringTypeInfo },
+      null, new int[] { 0, 1, 2 }, 1, 0, null, new String[0], null);
+
+  static ExprNodeDesc column(String name) {
+    TypeInfo typeInfo = RB_CTX.getRowColumnTypeInfos()[Arrays.asList(RB_CTX.getRowColumnNames()).indexOf(name)];
+    return new ExprNodeColumnDesc(typeInfo, name, "t", name.equals("p"));
+  }
+
+  static ExprNodeGenericFuncDesc greaterThan(ExprNodeDesc left, ExprNodeDesc right) {
+    List<ExprNodeDesc> children = new ArrayList<>();
+    children.add(left);
+    children.add(right);
+    return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPGreaterThan(),
+        children);
+  }
+
+  static JobConf createJob(ExprNodeGenericFuncDesc filterExpr) {
+    JobConf job = new JobConf();
+    job.setBoolean(ConfVars.LLAP_IO_LATE_MATERIALIZATION_ENABLED.varname, true);
+    if (filterExpr != null) {
+      job.set(TableScanDesc.FILTER_EXPR_CONF_STR, SerializationUtilities.serializeExpression(filterExpr));
+    }
+    return job;
+  }
+
+  // a > 10 on a scan of a and b.
+  static LateMaterializationFilter createFilter() {
+    JobConf job = createJob(greaterThan(column("a"), new ExprNodeConstantDesc(10L)));
+    return LateMaterializationFilter.create(job, RB_CTX, Arrays.asList(0, 1));
+  }
+
+  private static ColumnVectorBatch createBatch(long... values) {
+    ColumnVectorBatch cvb = new ColumnVectorBatch(2);
+    LongColumnVector col = new LongColumnVector();
+    System.arraycopy(values, 0, col.vector, 0, values.length);
+    cvb.cols[0] = col;
+    cvb.size = values.length;
+    cvb.filterContext.reset();
+    return cvb;
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    LateMaterializationFilter filter = createFilter();
+    assertNotNull(filter);
+    assertTrue(filter.isFilterColumn(0));
+    assertFalse(filter.isFilterColumn(1));
+
+    ColumnVectorBatch cvb = createBatch(5, 20, 3, 30, 1, 2);
+    assertEquals(2, filter.filter(cvb));
+    assertTrue(cvb.filterContext.isSelectedInUse());
+    assertEquals(2, cvb.filterContext.getSelectedSize());
+    assertArrayEquals(new int[] { 1, 3 },
+        Arrays.copyOf(cvb.filterContext.getSelected(), cvb.filterContext.getSelectedSize()));
+
+    cvb = createBatch(1, 2, 3);
+    assertEquals(0, filter.filter(cvb));
+
+    // Rows that all pass need no selection.
+    cvb = createBatch(11, 12, 13);
+    assertEquals(3, filter.filter(cvb));
+    assertFalse(cvb.filterContext.isSelectedInUse());
+  }
+
+  @Test
+  public void testNotUsed() {
+    ExprNodeGenericFuncDesc onA = greaterThan(column("a"), new ExprNodeConstantDesc(10L));
+    List<Integer> readAB = Arrays.asList(0, 1);
+
+    JobConf job = createJob(onA);
+    job.setBoolean(ConfVars.LLAP_IO_LATE_MATERIALIZATION_ENABLED.varname, false);
+    assertNull(LateMaterializationFilter.create(job, RB_CTX, readAB));
+
+    assertNull(LateMaterializationFilter.create(createJob(null), RB_CTX, readAB));
+
+    // Nothing would be decoded late.
+    assertNull(LateMaterializationFilter.create(createJob(onA), RB_CTX, Arrays.asList(0)));
+    ExprNodeGenericFuncDesc onAB = greaterThan(column("a"), column("c"));
+    assertNull(LateMaterializationFilter.create(createJob(onAB), RB_CTX, Arrays.asList(0, 2)));
+
+    // A column that is not read.
+    assertNull(LateMaterializationFilter.create(createJob(onA), RB_CTX, Arrays.asList(1, 2)));
+
+    // The partition column.
+    ExprNodeGenericFuncDesc onP = greaterThan(column("p"), new ExprNodeConstantDesc("x"));
+    assertNull(LateMaterializationFilter.create(createJob(onP), RB_CTX, readAB));
+
+    ExprNodeGenericFuncDesc rand = new ExprNodeGenericFuncDesc(TypeInfoFactory.doubleTypeInfo,
+        new GenericUDFBridge("rand", false, UDFRand.class.getName()), new ArrayList<>());
+    ExprNodeGenericFuncDesc onRand = greaterThan(column("a"), rand);
+    assertNull(LateMaterializationFilter.create(createJob(onRand), RB_CTX, readAB));
+  }
+
+  @Test
+  public void testFilterPerReader() throws Exception {
+    LateMaterializationFilter first = createFilter();
+    LateMaterializationFilter second = createFilter();
+    assertNotSame(first.getFilterExpression(), second.getFilterExpression());
+
+    // The readers of a fragment may decode at the same time.
+    ColumnVectorBatch firstCvb = createBatch(20, 1);
+    ColumnVectorBatch secondCvb = createBatch(1, 20, 30);
+    assertEquals(1, first.filter(firstCvb));
+    assertEquals(2, second.filter(secondCvb));
+    assertArrayEquals(new int[] { 0 },
+        Arrays.copyOf(firstCvb.filterContext.getSelected(), firstCvb.filterContext.getSelectedSize()));
+    assertArrayEquals(new int[] { 1, 2 },
+        Arrays.copyOf(secondCvb.filterContext.getSelected(), secondCvb.filterContext.getSelectedSize()));
+
+    // Another filter on the same columns.
+    JobConf job = createJob(greaterThan(column("c"), new ExprNodeConstantDesc(10L)));
+    LateMaterializationFilter onC = LateMaterializationFilter.create(job, RB_CTX, Arrays.asList(1, 2));
+    assertNotNull(onC);
+    assertFalse(onC.isFilterColumn(0));
+    assertTrue(onC.isFilterColumn(1));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.io.decode;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
+import org.apache.hadoop.hive.llap.io.decode.ColumnVectorProducer.Includes;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.io.orc.encoded.IoTrace;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.impl.TreeReaderFactory.TreeReader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the decoding of the batches of a scan with a filter evaluated by LLAP IO.
+ */
+public class TestOrcEncodedDataConsumer {
+
+  private OrcEncodedDataConsumer consumer;
+  private TreeReader filterReader;
+  private TreeReader otherReader;
+  private int selectedSize;
+  // The next row of the column decoded late.
+  private int otherRow;
+
+  @Before
+  public void setUp() {
+    Includes includes = mock(Includes.class);
+    when(includes.getPhysicalColumnIds()).thenReturn(Arrays.asList(0, 1));
+    consumer = new OrcEncodedDataConsumer(null, includes, null, null);
+    consumer.init(null, null, new IoTrace(0, false));
+    // a > 10 on a scan of a and b.
+    consumer.setLateMaterializationFilter(TestLateMaterializationFilter.createFilter());
+    filterReader = mock(TreeReader.class);
+    otherReader = mock(TreeReader.class);
+    consumer.setColumnReaders(new TreeReader[] { filterReader, otherReader },
+        new TypeDescription[] { TypeDescription.createLong(), TypeDescription.createString() });
+    doAnswer(invocation -> {
+      BytesColumnVector col = invocation.getArgument(0);
+      int batchSize = invocation.getArgument(2);
+      for (int i = 0; i < batchSize; ++i) {
+        byte[] value = ("row" + otherRow++).getBytes(StandardCharsets.UTF_8);
+        col.setRef(i, value, 0, value.length);
+      }
+      return null;
+    }).when(otherReader).nextVector(any(), any(), anyInt());
+    doAnswer(invocation -> {
+      otherRow += invocation.<Long>getArgument(0);
+      return null;
+    }).when(otherReader).skipRows(anyLong());
+  }
+
+  private ColumnVectorBatch decode(long... values) throws Exception {
+    doAnswer(invocation -> {
+      LongColumnVector col = invocation.getArgument(0);
+      System.arraycopy(values, 0, col.vector, 0, invocation.<Integer>getArgument(2));
+      return null;
+    }).when(filterReader).nextVector(any(), any(), anyInt());
+
+    ColumnVectorBatch cvb = new ColumnVectorBatch(2);
+    cvb.filterContext.reset();
+    cvb.size = values.length;
+    selectedSize = consumer.decodeBatchLate(cvb, values.length);
+    verify(filterReader).nextVector(any(ColumnVector.class), any(), eq(values.length));
+    return cvb;
+  }
+
+  @Test
+  public void testDecodeSelectedRows() throws Exception {
+    ColumnVectorBatch cvb = decode(5, 20, 30, 3, 40, 1, 2);
+    assertEquals(3, selectedSize);
+    assertTrue(cvb.filterContext.isSelectedInUse());
+    assertArrayEquals(new int[] { 1, 2, 4 },
+        Arrays.copyOf(cvb.filterContext.getSelected(), cvb.filterContext.getSelectedSize()));
+    // Only the runs of selected rows are decoded.
+    verify(otherReader).nextVector(any(ColumnVector.class), any(), eq(2));
+    verify(otherReader).nextVector(any(ColumnVector.class), any(), eq(1));
+    verify(otherReader, times(2)).skipRows(1);
+    verify(otherReader).skipRows(2);
+    assertEquals(7, otherRow);
+    BytesColumnVector col = (BytesColumnVector) cvb.cols[1];
+    assertEquals("row1", col.toString(1));
+    assertEquals("row2", col.toString(2));
+    assertEquals("row4", col.toString(4));
+  }
+
+  @Test
+  public void testDecodeFirstRows() throws Exception {
+    ColumnVectorBatch cvb = decode(20, 30, 1);
+    assertEquals(2, selectedSize);
+    assertTrue(cvb.filterContext.isSelectedInUse());
+    verify(otherReader).nextVector(any(ColumnVector.class), any(), eq(2));
+    verify(otherReader).skipRows(1);
+    BytesColumnVector col = (BytesColumnVector) cvb.cols[1];
+    assertEquals("row0", col.toString(0));
+    assertEquals("row1", col.toString(1));
+  }
+
+  @Test
+  public void testNoRowSelected() throws Exception {
+    decode(5, 3, 1);
+    assertEquals(0, selectedSize);
+    verify(otherReader, never()).nextVector(any(), any(), anyInt());
+    verify(otherReader).skipRows(3);
+  }
+
+  @Test
+  public void testAllRowsSelected() throws Exception {
+    ColumnVectorBatch cvb = decode(11, 20, 30);
+    assertEquals(3, selectedSize);
+    assertFalse(cvb.filterContext.isSelectedInUse());
+    verify(otherReader).nextVector(any(ColumnVector.class), any(), eq(3));
+    verify(otherReader, never()).skipRows(anyLong());
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.io.decode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.io.FileMetadataCache;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.cache.BufferUsageManager;
+import org.apache.hadoop.hive.llap.cache.LowLevelCache;
+import org.apache.hadoop.hive.llap.cache.PathCache;
+import org.apache.hadoop.hive.llap.counters.LlapIOCounters;
+import org.apache.hadoop.hive.llap.counters.QueryFragmentCounters;
+import org.apache.hadoop.hive.llap.io.api.impl.ColumnVectorBatch;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonCacheMetrics;
+import org.apache.hadoop.hive.llap.metrics.LlapDaemonIOMetrics;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchPool;
+import org.apache.hadoop.hive.ql.io.orc.encoded.Consumer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.tez.common.counters.TezCounters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the batches the Parquet read pipeline of LLAP IO fills and hands to the consumer.
+ */
+public class TestParquetColumnVectorProducer {
+
+  private JobConf conf;
+  private ParquetColumnVectorProducer producer;
+  private TezCounters tezCounters;
+  private QueryFragmentCounters counters;
+  // The batches the reader was asked to fill.
+  private final Set<VectorizedRowBatch> readBatches = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  @Before
+  public void setUp() {
+    conf = new JobConf();
+    HiveConf.setVar(conf, ConfVars.LLAP_DAEMON_VECTOR_BATCH_POOL_MAX_SIZE, "64Mb");
+    HiveConf.setIntVar(conf, ConfVars.LLAP_DAEMON_VECTOR_BATCH_POOL_BATCHES, 8);
+    VectorizedRowBatchPool.initialize(conf);
+    producer = new ParquetColumnVectorProducer(mock(FileMetadataCache.class), mock(LowLevelCache.class),
+        mock(PathCache.class), mock(BufferUsageManager.class), conf, mock(LlapDaemonCacheMetrics.class),
+        mock(LlapDaemonIOMetrics.class));
+    tezCounters = new TezCounters();
+    counters = new QueryFragmentCounters(conf, tezCounters);
+  }
+
+  @After
+  public void tearDown() {
+    HiveConf.setIntVar(conf, ConfVars.LLAP_DAEMON_VECTOR_BATCH_POOL_BATCHES, 0);
+    VectorizedRowBatchPool.initialize(conf);
+  }
+
+  /**
+   * The consumer, like LlapRecordReader, swaps the column vectors of a batch with those of its VRB.
+   */
+  private static abstract class SwappingConsumer implements Consumer<ColumnVectorBatch> {
+    // The column vectors given to the consumer, which the pipeline must not reuse.
+    final List<ColumnVector> consumedCols = new ArrayList<>();
+    final List<ColumnVectorBatch> batches = new ArrayList<>();
+    boolean isDone = false;
+
+    @Override
+    public void consumeData(ColumnVectorBatch data) throws InterruptedException {
+      consumedCols.addAll(Arrays.asList(data.cols));
+      data.cols[0] = new LongColumnVector();
+      data.cols[1] = new BytesColumnVector();
+      batches.add(data);
+      consumed(data);
+    }
+
+    abstract void consumed(ColumnVectorBatch data);
+
+    @Override
+    public void setDone() {
+      isDone = true;
+    }
+
+    @Override
+    public void setError(Throwable t) {
+      throw new AssertionError(t);
+    }
+  }
+
+  private ParquetColumnVectorProducer.ParquetReadPipeline createPipeline(Consumer<ColumnVectorBatch> consumer,
+      int batchCount) throws IOException {
+    FileSplit split = new FileSplit(new Path("/tmp/t/000000_0"), 0, 1024, (String[]) null);
+    return producer.new ParquetReadPipeline(consumer, split, Arrays.asList(0, 1), counters, null, conf, null,
+        TestLateMaterializationFilter.RB_CTX) {
+      @Override
+      RecordReader<NullWritable, VectorizedRowBatch> createReader() {
+        return new RecordReader<NullWritable, VectorizedRowBatch>() {
+          private int remaining = batchCount;
+
+          @Override
+          public boolean next(NullWritable key, VectorizedRowBatch value) {
+            readBatches.add(value);
+            if (remaining == 0) {
+              return false;
+            }
+            --remaining;
+            value.size = 100;
+            return true;
+          }
+
+          @Override
+          public NullWritable createKey() {
+            return NullWritable.get();
+          }
+
+          @Override
+          public VectorizedRowBatch createValue() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public long getPos() {
+            return 0;
+          }
+
+          @Override
+          public void close() {
+          }
+
+          @Override
+          public float getProgress() {
+            return 0;
+          }
+        };
+      }
+    };
+  }
+
+  // Checks that the batches read are back in the pool, without the column vectors of the consumer.
+  private void assertPooled(SwappingConsumer consumer) {
+    Set<VectorizedRowBatch> pooled = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = 0; i < readBatches.size(); ++i) {
+      VectorizedRowBatch vrb = TestLateMaterializationFilter.RB_CTX.createVectorizedRowBatch();
+      assertTrue(readBatches.contains(vrb));
+      for (ColumnVector col : vrb.cols) {
+        assertFalse(consumer.consumedCols.contains(col));
+      }
+      pooled.add(vrb);
+    }
+    assertEquals(readBatches.size(), pooled.size());
+  }
+
+  @Test
+  public void testBatchesReused() throws Exception {
+    final ParquetColumnVectorProducer.ParquetReadPipeline[] pipeline = { null };
+    SwappingConsumer consumer = new SwappingConsumer() {
+      @Override
+      void consumed(ColumnVectorBatch data) {
+        pipeline[0].returnData(data);
+      }
+    };
+    pipeline[0] = createPipeline(consumer, 3);
+    pipeline[0].performDataRead();
+
+    assertTrue(consumer.isDone);
+    assertEquals(3, consumer.batches.size());
+    assertEquals(3, tezCounters.findCounter(LlapIOCounters.NUM_DECODED_BATCHES).getValue());
+    assertEquals(300, tezCounters.findCounter(LlapIOCounters.ROWS_EMITTED).getValue());
+    // The batch returned each time is filled again.
+    assertEquals(1, readBatches.size());
+    assertSame(consumer.batches.get(0), consumer.batches.get(2));
+    assertPooled(consumer);
+  }
+
+  @Test
+  public void testBatchesReturnedWhenDone() throws Exception {
+    SwappingConsumer consumer = new SwappingConsumer() {
+      @Override
+      void consumed(ColumnVectorBatch data) {
+      }
+    };
+    ParquetColumnVectorProducer.ParquetReadPipeline pipeline = createPipeline(consumer, 2);
+    pipeline.performDataRead();
+
+    assertTrue(consumer.isDone);
+    assertEquals(2, consumer.batches.size());
+    assertNotSame(consumer.batches.get(0), consumer.batches.get(1));
+    // The batch of the last read, which found no rows, is released right away.
+    assertEquals(3, readBatches.size());
+    for (ColumnVectorBatch batch : consumer.batches) {
+      pipeline.returnData(batch);
+    }
+    assertPooled(consumer);
+  }
+
+  @Test
+  public void testStop() throws Exception {
+    final ParquetColumnVectorProducer.ParquetReadPipeline[] pipeline = { null };
+    SwappingConsumer consumer = new SwappingConsumer() {
+      @Override
+      void consumed(ColumnVectorBatch data) {
+        pipeline[0].stop();
+      }
+    };
+    pipeline[0] = createPipeline(consumer, 5);
+    pipeline[0].performDataRead();
+
+    assertEquals(1, consumer.batches.size());
+    assertEquals(1, readBatches.size());
+    pipeline[0].returnData(consumer.batches.get(0));
+    assertPooled(consumer);
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap.io.encoded;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.hive.common.io.DiskRangeList;
+import org.apache.orc.impl.BufferChunk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests AsyncRangeReader against an in-memory file with the latency of an object store.
+ */
+public class TestAsyncRangeReader {
+  private static final int FILE_SIZE = 1024 * 1024;
+  private static final long BASE = 100;
+
+  private final byte[] fileData = new byte[FILE_SIZE];
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    new Random(1234).nextBytes(fileData);
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testPlanReads() {
+    // Two ranges 10 bytes apart, then a cached range, then a range 1000 bytes further.
+    DiskRangeList head = ranges(new long[] { 0, 100, 110, 200, 200, 300, 1300, 1400 });
+    head.next.next.replaceSelfWith(new BufferChunk(ByteBuffer.allocate(100), 200));
+
+    List<AsyncRangeReader.ReadRequest> requests = AsyncRangeReader.planReads(head, 100, 1024);
+    assertEquals(2, requests.size());
+    assertRequest(requests.get(0), 0, 200, 2);
+    assertRequest(requests.get(1), 1300, 1400, 1);
+
+    // The gap is too large to coalesce.
+    requests = AsyncRangeReader.planReads(head, 5, 1024);
+    assertEquals(3, requests.size());
+
+    // The large ranges are split to the max read size.
+    requests = AsyncRangeReader.planReads(ranges(new long[] { 0, 250 }), 100, 100);
+    assertEquals(3, requests.size());
+    assertRequest(requests.get(0), 0, 100, 1);
+    assertRequest(requests.get(2), 200, 250, 1);
+  }
+
+  @Test
+  public void testReadDiskRanges() throws Exception {
+    SlowFile slowFile = new SlowFile(fileData, 20);
+    AsyncRangeReader reader = new AsyncRangeReader(executor, 1024, 64 * 1024, new String[0]);
+    DiskRangeList head = ranges(new long[] { 0, 1000, 1500, 40000, 40000, 50000, 200000, 300000, 500000, 500100 });
+    ByteBuffer cached = ByteBuffer.allocate(10000);
+    head.next.next.replaceSelfWith(new BufferChunk(cached, 40000));
+
+    AsyncRangeReader.StreamPool streams = slowFile.createStreamPool();
+    DiskRangeList result = reader.readDiskRanges(streams, BASE, head, false, 32 * 1024);
+
+    // All the ranges but the cached one are read, the large one in pieces of at most the chunk limit.
+    long expectedOffset = 0;
+    int chunks = 0;
+    for (DiskRangeList current = result; current != null; current = current.next) {
+      assertTrue(current.hasData());
+      if (current.getOffset() == 40000) {
+        assertTrue(current.getData() == cached);
+      } else {
+        assertTrue(current.getLength() <= 32 * 1024);
+        assertData(current);
+        ++chunks;
+      }
+      assertTrue(current.getOffset() >= expectedOffset);
+      expectedOffset = current.getEnd();
+    }
+    assertEquals(500100, expectedOffset);
+    assertEquals(1 + 2 + 4 + 1, chunks);
+    assertTrue("Expected parallel reads, got " + slowFile.maxConcurrentReads.get(),
+        slowFile.maxConcurrentReads.get() > 1);
+    // A stream per request in flight, at most one per thread besides the reader's own.
+    assertTrue(streams.getOpenedCount() >= 1);
+    assertTrue(streams.getOpenedCount() <= 4);
+
+    // The streams are reused by the next reads of the reader.
+    int openedCount = streams.getOpenedCount();
+    reader.readDiskRanges(streams, BASE, ranges(new long[] { 0, 1000, 600000, 601000 }), false, 32 * 1024);
+    assertTrue(streams.getOpenedCount() <= 4);
+    assertTrue(streams.getOpenedCount() >= openedCount);
+
+    streams.close();
+    assertEquals(0, streams.getOpenedCount());
+    assertEquals(0, slowFile.openStreams.get());
+  }
+
+  @Test
+  public void testInFlightBytesBounded() throws Exception {
+    SlowFile slowFile = new SlowFile(fileData, 10);
+    AsyncRangeReader reader = new AsyncRangeReader(executor, 0, 20000, new String[0]);
+    DiskRangeList head = ranges(new long[] { 0, 100000 });
+
+    DiskRangeList result = reader.readDiskRanges(slowFile.createStreamPool(), 0, head, true, 100000);
+
+    int chunks = 0;
+    for (DiskRangeList current = result; current != null; current = current.next) {
+      assertTrue(current.getData().isDirect());
+      assertData(current, 0);
+      ++chunks;
+    }
+    assertEquals(5, chunks);
+    assertEquals(1, slowFile.maxConcurrentReads.get());
+  }
+
+  @Test
+  public void testIsEnabledFor() {
+    AsyncRangeReader reader = new AsyncRangeReader(executor, 0, 1024, new String[] { "s3a", "ABFS" });
+    assertTrue(reader.isEnabledFor(new Path("s3a://bucket/warehouse/t/000000_0")));
+    assertTrue(reader.isEnabledFor(new Path("abfs://container@account/t/000000_0")));
+    assertFalse(reader.isEnabledFor(new Path("hdfs://nn:8020/warehouse/t/000000_0")));
+    assertFalse(reader.isEnabledFor(new Path("/warehouse/t/000000_0")));
+    assertTrue(new AsyncRangeReader(executor, 0, 1024, new String[0]).isEnabledFor(new Path("/t/000000_0")));
+  }
+
+  private void assertData(DiskRangeList range) {
+    assertData(range, BASE);
+  }
+
+  private void assertData(DiskRangeList range, long base) {
+    ByteBuffer data = range.getData().duplicate();
+    assertEquals(range.getLength(), data.remaining());
+    byte[] actual = new byte[data.remaining()];
+    data.get(actual);
+    byte[] expected = new byte[actual.length];
+    System.arraycopy(fileData, (int) (base + range.getOffset()), expected, 0, expected.length);
+    assertArrayEquals(expected, actual);
+  }
+
+  private static void assertRequest(AsyncRangeReader.ReadRequest request, long offset, long end, int pieces) {
+    assertEquals(offset, request.offset);
+    assertEquals(end, request.end);
+    assertEquals(pieces, request.pieces.size());
+  }
+
+  private static DiskRangeList ranges(long[] offsets) {
+    DiskRangeList.CreateHelper list = new DiskRangeList.CreateHelper();
+    for (int i = 0; i < offsets.length; i += 2) {
+      list.addOrMerge(offsets[i], offsets[i + 1], false, false);
+    }
+    return list.get();
+  }
+
+  /**
+   * A local stand-in for a file on an object store: every positional read waits for the latency of a request, and
+   * the positional reads of a stream are synchronized, like those of S3A.
+   */
+  private static final class SlowFile {
+    private final byte[] data;
+    private final long latencyMs;
+    private final AtomicInteger concurrentReads = new AtomicInteger();
+    final AtomicInteger maxConcurrentReads = new AtomicInteger();
+    final AtomicInteger openStreams = new AtomicInteger();
+
+    SlowFile(byte[] data, long latencyMs) {
+      this.data = data;
+      this.latencyMs = latencyMs;
+    }
+
+    FSDataInputStream open() {
+      openStreams.incrementAndGet();
+      return new FSDataInputStream(new SlowStream(this));
+    }
+
+    // The reader's own stream is not closed by the pool.
+    AsyncRangeReader.StreamPool createStreamPool() {
+      return new AsyncRangeReader.StreamPool(new FSDataInputStream(new SlowStream(this)), this::open);
+    }
+  }
+
+  private static final class SlowStream extends ByteArrayInputStream implements Seekable, PositionedReadable {
+    private final SlowFile file;
+    private boolean isClosed = false;
+
+    SlowStream(SlowFile file) {
+      super(file.data);
+      this.file = file;
+    }
+
+    @Override
+    public synchronized int read(long position, byte[] buffer, int offset, int length) throws IOException {
+      if (isClosed) {
+        throw new IOException("Stream closed");
+      }
+      int current = file.concurrentReads.incrementAndGet();
+      file.maxConcurrentReads.accumulateAndGet(current, Math::max);
+      try {
+        Thread.sleep(file.latencyMs);
+        int toRead = (int) Math.min(length, count - position);
+        if (toRead <= 0) {
+          return -1;
+        }
+        System.arraycopy(buf, (int) position, buffer, offset, toRead);
+        return toRead;
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      } finally {
+        file.concurrentReads.decrementAndGet();
+      }
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length) throws IOException {
+      if (read(position, buffer, offset, length) != length) {
+        throw new EOFException("Reading past the end at " + position);
+      }
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer) throws IOException {
+      readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public synchronized void seek(long pos) {
+      this.pos = (int) pos;
+    }
+
+    @Override
+    public synchronized long getPos() {
+      return pos;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) {
+      return false;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!isClosed) {
+        isClosed = true;
+        file.openStreams.decrementAndGet();
+      }
+    }
+  }
+}
@@ -202,6 +202,46 @@ public void testInvalidReduceNumberOrLength() throws Exception {
     }
   }
 
+  @Test
+  public void testReduceRange() throws Exception {
+    fs.delete(p, true);
+    conf.setInt(INDEX_CACHE_MB, 1);
+    final int partsPerMap = 10;
+    IndexCache cache = new IndexCache(conf);
+    String user = UserGroupInformation.getCurrentUser().getShortUserName();
+
+    Path f = new Path(p, "reduceRange");
+    writeRangeFile(fs, f, partsPerMap);
+
+    TezIndexRecord[] recs = cache.getIndexInformation("reduceRange", 3, 6, f, user);
+    assertEquals(4, recs.length);
+    for (int i = 0; i < recs.length; ++i) {
+      checkRangeRecord(recs[i], 3 + i);
+    }
+    // The whole map output, and a single reduce, from the cached index.
+    fs.delete(f, false);
+    recs = cache.getIndexInformation("reduceRange", 0, partsPerMap - 1, f, user);
+    assertEquals(partsPerMap, recs.length);
+    for (int i = 0; i < recs.length; ++i) {
+      checkRangeRecord(recs[i], i);
+    }
+    recs = cache.getIndexInformation("reduceRange", 7, 7, f, user);
+    assertEquals(1, recs.length);
+    checkRangeRecord(recs[0], 7);
+    checkRangeRecord(cache.getIndexInformation("reduceRange", 7, f, user), 7);
+
+    int[][] invalidRanges = { { 5, partsPerMap }, { -1, 2 }, { 6, 5 }, { partsPerMap, partsPerMap } };
+    for (int[] range : invalidRanges) {
+      try {
+        cache.getIndexInformation("reduceRange", range[0], range[1], f, user);
+        fail("Reduce range " + range[0] + "-" + range[1] + " did not fail");
+      } catch (IOException e) {
+        // Expected.
+      }
+    }
+    assertTrue(cache.checkTotalMemoryUsed());
+  }
+
   @Test
   public void testRemoveMap() throws Exception {
     // This test case use two thread to call getIndexInformation and
@@ -320,6 +360,26 @@ private static void checkRecord(TezIndexRecord rec, long fill) {
     assertEquals(fill, rec.getPartLength());
   }
 
+  // The record of each partition has its own values.
+  private static void checkRangeRecord(TezIndexRecord rec, int part) {
+    assertEquals(part * 100, rec.getStartOffset());
+    assertEquals(part * 10 + 1, rec.getRawLength());
+    assertEquals(part * 10, rec.getPartLength());
+  }
+
+  private static void writeRangeFile(FileSystem fs, Path f, int parts) throws IOException {
+    FSDataOutputStream out = fs.create(f, false);
+    CheckedOutputStream iout = new CheckedOutputStream(out, new CRC32());
+    DataOutputStream dout = new DataOutputStream(iout);
+    for (int i = 0; i < parts; ++i) {
+      dout.writeLong(i * 100);
+      dout.writeLong(i * 10 + 1);
+      dout.writeLong(i * 10);
+    }
+    out.writeLong(iout.getChecksum().getValue());
+    dout.close();
+  }
+
   private static void writeFile(FileSystem fs, Path f, long fill, int parts)
       throws IOException {
     FSDataOutputStream out = fs.create(f, false);
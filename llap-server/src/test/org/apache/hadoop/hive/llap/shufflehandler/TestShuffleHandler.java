@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.shufflehandler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.tez.runtime.library.common.shuffle.orderedgrouped.ShuffleHeader;
+import org.apache.tez.runtime.library.common.sort.impl.TezIndexRecord;
+import org.apache.tez.runtime.library.common.sort.impl.TezSpillRecord;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class TestShuffleHandler {
+  private static final String JOB_ID = "job_1500000000000_0001";
+  private static final int DAG_ID = 1;
+
+  // The partitions of the map outputs: 0 and 3 are empty, 1 and 2 are contiguous in file.out.
+  private static final TezIndexRecord[] RECORDS = {
+      new TezIndexRecord(100, 0, 0),
+      new TezIndexRecord(100, 60, 50),
+      new TezIndexRecord(150, 30, 20),
+      new TezIndexRecord(170, 0, 0) };
+
+  private static File root;
+  private static Configuration conf;
+  private static ShuffleHandler handler;
+  private static String user;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    root = new File(System.getProperty("test.build.data", "/tmp"), "TestShuffleHandler").getAbsoluteFile();
+    FileUtils.deleteDirectory(root);
+    conf = new Configuration();
+    conf.set(ShuffleHandler.SHUFFLE_HANDLER_LOCAL_DIRS, root.getPath());
+    conf.setLong(ShuffleHandler.SHUFFLE_SEGMENT_CACHE_SIZE, 1024 * 1024);
+    conf.setBoolean(ShuffleHandler.SHUFFLE_MANAGE_OS_CACHE, false);
+    handler = new ShuffleHandler(conf);
+    user = UserGroupInformation.getCurrentUser().getShortUserName();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    handler.stop();
+    FileUtils.deleteDirectory(root);
+  }
+
+  // Writes the output of a map attempt under the dag dir, and registers it with the shuffle.
+  private static void writeMapOutput(ShuffleHandler.Shuffle shuffle, File dagDir, String mapId)
+      throws IOException {
+    File attemptDir = new File(dagDir, "output/" + mapId);
+    assertTrue(attemptDir.mkdirs());
+    byte[] data = new byte[200];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) i;
+    }
+    File dataFile = new File(attemptDir, ShuffleHandler.DATA_FILE_NAME);
+    try (FileOutputStream out = new FileOutputStream(dataFile)) {
+      out.write(data);
+    }
+    TezSpillRecord spillRecord = new TezSpillRecord(RECORDS.length);
+    for (int i = 0; i < RECORDS.length; ++i) {
+      spillRecord.putIndex(RECORDS[i], i);
+    }
+    Path indexPath = new Path(new File(attemptDir, ShuffleHandler.INDEX_FILE_NAME).getPath());
+    spillRecord.writeToFile(indexPath, conf);
+    shuffle.registerAttemptDirs(new ShuffleHandler.AttemptPathIdentifier(JOB_ID, DAG_ID, user, mapId),
+        new ShuffleHandler.AttemptPathInfo(indexPath, new Path(dataFile.getPath())));
+  }
+
+  private static Channel createChannel() {
+    Channel ch = mock(Channel.class);
+    when(ch.write(any())).thenReturn(mock(ChannelFuture.class));
+    when(ch.getPipeline()).thenReturn(mock(ChannelPipeline.class));
+    return ch;
+  }
+
+  // The headers and the region of the data file written for a map output.
+  private static List<Object> captureWrites(Channel ch) {
+    ArgumentCaptor<Object> writes = ArgumentCaptor.forClass(Object.class);
+    verify(ch, times(2)).write(writes.capture());
+    return writes.getAllValues();
+  }
+
+  private static DataInputBuffer toInput(ChannelBuffer buffer) {
+    byte[] bytes = new byte[buffer.readableBytes()];
+    buffer.getBytes(buffer.readerIndex(), bytes);
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset(bytes, bytes.length);
+    return in;
+  }
+
+  private static DataInputBuffer toInput(DataOutputBuffer dob) {
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset(dob.getData(), dob.getLength());
+    return in;
+  }
+
+  private static void assertHeader(DataInputBuffer in, String mapId, int partition) throws IOException {
+    ShuffleHeader header = new ShuffleHeader();
+    header.readFields(in);
+    assertEquals(mapId, header.getMapId());
+    assertEquals(partition, header.getPartition());
+    assertEquals(RECORDS[partition].getPartLength(), header.getCompressedLength());
+    assertEquals(RECORDS[partition].getRawLength(), header.getUncompressedLength());
+  }
+
+  @Test
+  public void testReduceRange() {
+    ShuffleHandler.ReduceRange single = ShuffleHandler.ReduceRange.parse("5");
+    assertFalse(single.isRange);
+    assertEquals(5, single.first);
+    assertEquals(5, single.last);
+    assertEquals(1, single.size());
+    assertEquals("5", single.toString());
+
+    ShuffleHandler.ReduceRange range = ShuffleHandler.ReduceRange.parse("3-7");
+    assertTrue(range.isRange);
+    assertEquals(3, range.first);
+    assertEquals(7, range.last);
+    assertEquals(5, range.size());
+    assertEquals("3-7", range.toString());
+
+    // A range of one partition still uses the range format.
+    assertTrue(ShuffleHandler.ReduceRange.parse("4-4").isRange);
+
+    for (String invalid : new String[] { "7-3", "-1", "a-b", "", "1-", "-" }) {
+      try {
+        ShuffleHandler.ReduceRange.parse(invalid);
+        fail("Expected " + invalid + " to be rejected");
+      } catch (NumberFormatException e) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test
+  public void testMapOutputInfo() throws IOException {
+    ShuffleHandler.Shuffle shuffle = handler.getShuffle(conf);
+    Path path = new Path("/d/file.out");
+
+    ShuffleHandler.Shuffle.MapOutputInfo single = shuffle.new MapOutputInfo(path,
+        new TezIndexRecord[] { RECORDS[2] }, ShuffleHandler.ReduceRange.parse("2"));
+    assertEquals(150, single.getDataOffset());
+    assertEquals(20, single.getDataLength());
+    DataInputBuffer in = toInput(single.writeHeaders("attempt_0"));
+    assertHeader(in, "attempt_0", 2);
+    assertEquals(-1, in.read());
+
+    // The data of a range starts at the first non-empty partition and ends with the last one.
+    ShuffleHandler.Shuffle.MapOutputInfo range = shuffle.new MapOutputInfo(path, RECORDS,
+        ShuffleHandler.ReduceRange.parse("0-3"));
+    assertEquals(100, range.getDataOffset());
+    assertEquals(70, range.getDataLength());
+    in = toInput(range.writeHeaders("attempt_0"));
+    assertEquals(4, WritableUtils.readVInt(in));
+    for (int partition = 0; partition < 4; ++partition) {
+      assertHeader(in, "attempt_0", partition);
+    }
+    assertEquals(-1, in.read());
+
+    // A range of empty partitions has no data.
+    ShuffleHandler.Shuffle.MapOutputInfo empty = shuffle.new MapOutputInfo(path,
+        new TezIndexRecord[] { RECORDS[0] }, ShuffleHandler.ReduceRange.parse("0-0"));
+    assertEquals(0, empty.getDataLength());
+  }
+
+  @Test
+  public void testSendReduceRange() throws Exception {
+    ShuffleHandler.Shuffle shuffle = handler.getShuffle(conf);
+    File dagDir = new File(root, "range/" + DAG_ID);
+    writeMapOutput(shuffle, dagDir, "attempt_1500000000000_0001_1_00_000000_0");
+    writeMapOutput(shuffle, dagDir, "attempt_1500000000000_0001_1_00_000001_0");
+    List<String> mapIds = Arrays.asList(
+        "attempt_1500000000000_0001_1_00_000000_0", "attempt_1500000000000_0001_1_00_000001_0");
+    ShuffleHandler.ReduceRange reduceRange = ShuffleHandler.ReduceRange.parse("1-3");
+
+    // The content length covers the headers and the data of the partitions of both maps.
+    HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+    HashMap<String, ShuffleHandler.Shuffle.MapOutputInfo> infos = new HashMap<>();
+    shuffle.populateHeaders(mapIds, JOB_ID, DAG_ID, user, reduceRange, response, true, infos);
+    ShuffleHandler.Shuffle.MapOutputInfo info = infos.get(mapIds.get(0));
+    long headersLength = info.writeHeaders(mapIds.get(0)).getLength();
+    assertEquals(String.valueOf(2 * (headersLength + 70)), response.headers().get(HttpHeaders.Names.CONTENT_LENGTH));
+
+    Channel ch = createChannel();
+    shuffle.sendMapOutput(null, ch, user, mapIds.get(0), reduceRange, info);
+    List<Object> writes = captureWrites(ch);
+    DataInputBuffer in = toInput((ChannelBuffer) writes.get(0));
+    assertEquals(3, WritableUtils.readVInt(in));
+    for (int partition = 1; partition <= 3; ++partition) {
+      assertHeader(in, mapIds.get(0), partition);
+    }
+    assertEquals(-1, in.read());
+    // All the data of the partitions in one transfer.
+    FadvisedFileRegion region = (FadvisedFileRegion) writes.get(1);
+    try {
+      assertEquals(100, region.getPosition());
+      assertEquals(70, region.getCount());
+    } finally {
+      region.releaseExternalResources();
+    }
+  }
+
+  @Test
+  public void testSegmentCachePurgedWithDag() throws Exception {
+    ShuffleHandler.Shuffle shuffle = handler.getShuffle(conf);
+    File dagDir = new File(root, "purge/" + DAG_ID);
+    String mapId = "attempt_1500000000000_0001_1_01_000000_0";
+    writeMapOutput(shuffle, dagDir, mapId);
+    ShuffleHandler.ReduceRange reduceRange = ShuffleHandler.ReduceRange.parse("2");
+    ShuffleHandler.Shuffle.MapOutputInfo info =
+        shuffle.getMapOutputInfo(JOB_ID, DAG_ID, mapId, reduceRange, user);
+
+    // Served from the file the first time, then loaded into the cache.
+    Channel ch = createChannel();
+    shuffle.sendMapOutput(null, ch, user, mapId, reduceRange, info);
+    Object data = captureWrites(ch).get(1);
+    assertTrue(data instanceof FadvisedFileRegion);
+    ((FadvisedFileRegion) data).releaseExternalResources();
+
+    ch = createChannel();
+    shuffle.sendMapOutput(null, ch, user, mapId, reduceRange, info);
+    ChannelBuffer cached = (ChannelBuffer) captureWrites(ch).get(1);
+    byte[] expected = new byte[20];
+    for (int i = 0; i < expected.length; ++i) {
+      expected[i] = (byte) (150 + i);
+    }
+    byte[] actual = new byte[cached.readableBytes()];
+    cached.getBytes(cached.readerIndex(), actual);
+    assertArrayEquals(expected, actual);
+
+    // Once the dag is cleaned up, nothing is left in the cache.
+    handler.unregisterDag(dagDir.getPath(), "application_1500000000000_0001", DAG_ID);
+    ch = createChannel();
+    shuffle.sendMapOutput(null, ch, user, mapId, reduceRange, info);
+    data = captureWrites(ch).get(1);
+    assertTrue(data instanceof FadvisedFileRegion);
+    ((FadvisedFileRegion) data).releaseExternalResources();
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.llap.shufflehandler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TestShuffleSegmentCache {
+
+  @Test
+  public void testLoadedOnSecondRequest() throws IOException {
+    ShuffleSegmentCache cache = new ShuffleSegmentCache(1024 * 1024, 1024, null);
+    AtomicInteger loads = new AtomicInteger();
+    Callable<byte[]> loader = () -> {
+      loads.incrementAndGet();
+      return new byte[] { 1, 2, 3 };
+    };
+
+    // The first request is served from the file.
+    assertNull(cache.get("/d/file.out", 10, 3, loader));
+    assertEquals(0, loads.get());
+    assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get("/d/file.out", 10, 3, loader));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get("/d/file.out", 10, 3, loader));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.size());
+
+    // Another segment of the same file is a different entry.
+    assertNull(cache.get("/d/file.out", 13, 3, loader));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testLargeSegmentsNotCached() throws IOException {
+    ShuffleSegmentCache cache = new ShuffleSegmentCache(1024 * 1024, 1024, null);
+    Callable<byte[]> loader = () -> {
+      throw new AssertionError("Large segments should not be loaded");
+    };
+    for (int i = 0; i < 3; ++i) {
+      assertNull(cache.get("/d/file.out", 0, 1025, loader));
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testLoadFailure() throws IOException {
+    ShuffleSegmentCache cache = new ShuffleSegmentCache(1024 * 1024, 1024, null);
+    Callable<byte[]> loader = () -> {
+      throw new FileNotFoundException("/d/file.out");
+    };
+    assertNull(cache.get("/d/file.out", 0, 10, loader));
+    try {
+      cache.get("/d/file.out", 0, 10, loader);
+      fail("Expected the loader exception");
+    } catch (FileNotFoundException e) {
+      // Expected; the caller sends NOT_FOUND as for an uncached segment.
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testInvalidateDir() throws IOException {
+    ShuffleSegmentCache cache = new ShuffleSegmentCache(1024 * 1024, 1024, null);
+    Callable<byte[]> loader = () -> new byte[] { 1, 2, 3 };
+    String dagFile = "/local/usercache/u/appcache/app_1/1/output/attempt_0/file.out";
+    String otherDagFile = "/local/usercache/u/appcache/app_1/10/output/attempt_0/file.out";
+    for (int i = 0; i < 2; ++i) {
+      cache.get(dagFile, 0, 3, loader);
+      cache.get(otherDagFile, 0, 3, loader);
+    }
+    // Only requested once so far.
+    assertNull(cache.get(dagFile, 3, 3, loader));
+    assertEquals(2, cache.size());
+
+    cache.invalidateDir("/local/usercache/u/appcache/app_1/1");
+    assertEquals(1, cache.size());
+    // Neither the segment nor the candidate are left; the next request is served from the file again.
+    assertNull(cache.get(dagFile, 0, 3, loader));
+    assertNull(cache.get(dagFile, 3, 3, loader));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, cache.get(otherDagFile, 0, 3, loader));
+  }
+}
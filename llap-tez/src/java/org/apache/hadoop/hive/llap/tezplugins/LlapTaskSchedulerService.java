@@ -2052,6 +2052,9 @@ private ScheduleResult scheduleTask(TaskInfo taskInfo, Resource totalResource,
           taskInfo, nodeInfo.toShortString(), container.getId());
       dagStats.registerTaskAllocated(taskInfo.requestedHosts, taskInfo.requestedRacks,
           nodeInfo.getHost());
+      if (metrics != null) {
+        metrics.registerTaskAllocated(taskInfo.requestedHosts, nodeInfo.getHost());
+      }
       taskInfo.setAssignmentInfo(nodeInfo, container.getId(), clock.getTime());
       registerRunningTask(taskInfo);
       nodeInfo.registerTaskScheduled();
@@ -2766,6 +2769,7 @@ static class StatsPerDag {
     int numTotalAllocations = 0;
     int numLocalAllocations = 0;
     int numNonLocalAllocations = 0;
+    int numAlternateLocalAllocations = 0;
     int numAllocationsNoLocalityRequest = 0;
     int numRejectedTasks = 0;
     int numCommFailures = 0;
@@ -2781,6 +2785,7 @@ public String toString() {
       sb.append("NumRequestedAllocations=").append(numRequestedAllocations).append(", ");
       sb.append("NumRequestsWithlocation=").append(numRequestsWithLocation).append(", ");
       sb.append("NumLocalAllocations=").append(numLocalAllocations).append(",");
+      sb.append("NumAlternateLocalAllocations=").append(numAlternateLocalAllocations).append(",");
       sb.append("NumNonLocalAllocations=").append(numNonLocalAllocations).append(",");
       sb.append("NumTotalAllocations=").append(numTotalAllocations).append(",");
       sb.append("NumRequestsWithoutLocation=").append(numRequestsWithoutLocation).append(", ");
@@ -2810,6 +2815,9 @@ void registerTaskAllocated(String[] requestedHosts, String[] requestedRacks,
         Set<String> requestedHostSet = new HashSet<>(Arrays.asList(requestedHosts));
         if (requestedHostSet.contains(allocatedHost)) {
           numLocalAllocations++;
+          if (!requestedHosts[0].equals(allocatedHost)) {
+            numAlternateLocalAllocations++;
+          }
           _registerAllocationInHostMap(allocatedHost, localityBasedNumAllocationsPerHost);
         } else {
           numNonLocalAllocations++;
@@ -38,7 +38,11 @@ public enum LlapTaskSchedulerInfo implements MetricsInfo {
   SchedulerRunningTaskCount("Total number of running tasks"),
   SchedulerPendingPreemptionTaskCount("Total number of tasks pending for pre-emption"),
   SchedulerPreemptedTaskCount("Total number of tasks pre-empted"),
-  SchedulerCompletedDagCount("Number of DAGs completed");
+  SchedulerCompletedDagCount("Number of DAGs completed"),
+  SchedulerLocalAllocationCount("Number of tasks allocated on their preferred location"),
+  SchedulerAlternateLocalAllocationCount(
+      "Number of tasks allocated on one of their alternate locations, e.g. a node that might cache the data"),
+  SchedulerNonLocalAllocationCount("Number of tasks with locations allocated on another node");
 
   private final String desc;
 
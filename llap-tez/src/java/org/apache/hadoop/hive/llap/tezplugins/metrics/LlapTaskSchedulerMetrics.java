@@ -17,11 +17,14 @@
 
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerClusterNodeCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerCompletedDagCount;
+import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerAlternateLocalAllocationCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerCpuCoresPerInstance;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerDisabledNodeCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerExecutorsPerInstance;
+import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerLocalAllocationCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerMemoryPerInstance;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerMetrics;
+import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerNonLocalAllocationCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerPendingPreemptionTaskCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerPendingTaskCount;
 import static org.apache.hadoop.hive.llap.tezplugins.metrics.LlapTaskSchedulerInfo.SchedulerPreemptedTaskCount;
@@ -81,6 +84,12 @@ public class LlapTaskSchedulerMetrics implements MetricsSource {
   @Metric
   MutableCounterInt pendingPreemptionTasksCount;
   @Metric
+  MutableCounterInt localAllocationCount;
+  @Metric
+  MutableCounterInt alternateLocalAllocationCount;
+  @Metric
+  MutableCounterInt nonLocalAllocationCount;
+  @Metric
   MutableGaugeInt wmUnusedGuaranteedCount;
   @Metric
   MutableGaugeInt wmTotalGuaranteedCount;
@@ -192,6 +201,26 @@ public void decrPendingPreemptionTasksCount() {
     pendingPreemptionTasksCount.incr(-1);
   }
 
+  /**
+   * Counts the allocation by locality: on the first requested host, on another requested host, or elsewhere.
+   */
+  public void registerTaskAllocated(String[] requestedHosts, String allocatedHost) {
+    if (requestedHosts == null || requestedHosts.length == 0) {
+      return;
+    }
+    if (requestedHosts[0].equals(allocatedHost)) {
+      localAllocationCount.incr();
+      return;
+    }
+    for (int i = 1; i < requestedHosts.length; ++i) {
+      if (requestedHosts[i].equals(allocatedHost)) {
+        alternateLocalAllocationCount.incr();
+        return;
+      }
+    }
+    nonLocalAllocationCount.incr();
+  }
+
   public void setWmPendingStarted(boolean isGuaranteed) {
     if (isGuaranteed) {
       wmSpeculativeCount.incr(-1);
@@ -275,7 +304,10 @@ private void getTaskSchedulerStats(MetricsRecordBuilder rb) {
         .addCounter(SchedulerSuccessfulTaskCount, successfulTasksCount.value())
         .addCounter(SchedulerPendingPreemptionTaskCount, pendingPreemptionTasksCount.value())
         .addCounter(SchedulerPreemptedTaskCount, preemptedTasksCount.value())
-        .addCounter(SchedulerCompletedDagCount, completedDagcount.value());
+        .addCounter(SchedulerCompletedDagCount, completedDagcount.value())
+        .addCounter(SchedulerLocalAllocationCount, localAllocationCount.value())
+        .addCounter(SchedulerAlternateLocalAllocationCount, alternateLocalAllocationCount.value())
+        .addCounter(SchedulerNonLocalAllocationCount, nonLocalAllocationCount.value());
   }
 
   public JvmMetrics getJvmMetrics() {
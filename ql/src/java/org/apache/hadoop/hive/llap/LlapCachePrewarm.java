@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.ql.DriverUtils;
+import org.apache.hadoop.hive.ql.metadata.Hive;
+import org.apache.hadoop.hive.ql.metadata.HiveUtils;
+import org.apache.hadoop.hive.ql.metadata.Table;
+import org.apache.hadoop.hive.ql.parse.BaseSemanticAnalyzer;
+import org.apache.hadoop.hive.ql.session.SessionState;
+import org.apache.hive.common.util.ShutdownHookManager;
+import org.apache.tez.dag.api.TezConfiguration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Through this class the caller (typically HS2) can load the data of a table, or some of its partitions and columns,
+ * into the LLAP IO cache ahead of the queries that need it. The data is read by scan queries running in LLAP, so it
+ * gets cached by the daemons that the splits are assigned to (consistently, with HostAffinitySplitLocationProvider),
+ * i.e. the same daemons that will read it for the later queries.
+ */
+public final class LlapCachePrewarm {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LlapCachePrewarm.class);
+
+  static {
+    ShutdownHookManager.addShutdownHook(new Runnable() {
+      @Override
+      public void run() {
+        if (EXECUTOR != null) {
+          EXECUTOR.shutdownNow();
+        }
+      }
+    });
+  }
+
+  // A single thread, so that the prewarm requests are served one query at a time.
+  private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("LLAP-Cache-Prewarmer").setDaemon(true).build());
+
+  private LlapCachePrewarm() {
+    // Not to be used;
+  }
+
+  /**
+   * Schedule the background queries loading the entities of the request into the LLAP cache.
+   * @param conf
+   * @param user the user to run the queries as
+   * @param request
+   */
+  public static void prewarm(HiveConf conf, String user, Request request) {
+    LOG.info("Scheduling LLAP cache prewarm: {}", request);
+    EXECUTOR.execute(new PrewarmTask(conf, user, request));
+  }
+
+  /**
+   * Builds the scan queries for the request, each reading at most partitionsPerQuery partitions.
+   * @param partSpecs the (full or partial) specs of the partitions to read, empty for the whole table
+   */
+  @VisibleForTesting
+  static List<String> buildQueries(String dbName, String tableName, List<String> columns,
+      List<? extends Map<String, String>> partSpecs, int partitionsPerQuery, HiveConf conf) {
+    // Counting the values is cheap, but makes the reader load the columns.
+    StringBuilder select = new StringBuilder("SELECT ");
+    for (int i = 0; i < columns.size(); ++i) {
+      select.append(i == 0 ? "" : ", ").append("count(").append(HiveUtils.unparseIdentifier(columns.get(i), conf))
+          .append(')');
+    }
+    select.append(" FROM ").append(HiveUtils.unparseIdentifier(dbName, conf)).append('.')
+        .append(HiveUtils.unparseIdentifier(tableName, conf));
+    if (partSpecs.isEmpty()) {
+      return Collections.singletonList(select.toString());
+    }
+    List<String> queries = new ArrayList<>();
+    for (List<? extends Map<String, String>> batch : Lists.partition(partSpecs, Math.max(1, partitionsPerQuery))) {
+      StringBuilder query = new StringBuilder(select).append(" WHERE ");
+      for (int i = 0; i < batch.size(); ++i) {
+        query.append(i == 0 ? "(" : " OR (");
+        boolean isFirst = true;
+        for (Map.Entry<String, String> e : batch.get(i).entrySet()) {
+          query.append(isFirst ? "" : " AND ").append(HiveUtils.unparseIdentifier(e.getKey(), conf)).append(" = '")
+              .append(BaseSemanticAnalyzer.escapeSQLString(e.getValue())).append('\'');
+          isFirst = false;
+        }
+        query.append(')');
+      }
+      queries.add(query.toString());
+    }
+    return queries;
+  }
+
+  /**
+   * The executable task running the prewarm queries.
+   */
+  private static class PrewarmTask implements Runnable {
+    private final HiveConf conf;
+    private final String user;
+    private final Request request;
+
+    PrewarmTask(HiveConf conf, String user, Request request) {
+      this.conf = createQueryConf(conf);
+      this.user = user;
+      this.request = request;
+    }
+
+    private static HiveConf createQueryConf(HiveConf sessionConf) {
+      HiveConf conf = new HiveConf(sessionConf);
+      // Make sure that the data is read in LLAP, rather than answered from stats, the results cache, or HS2.
+      HiveConf.setVar(conf, HiveConf.ConfVars.HIVE_EXECUTION_MODE, "llap");
+      HiveConf.setVar(conf, HiveConf.ConfVars.LLAP_EXECUTION_MODE, "all");
+      HiveConf.setVar(conf, HiveConf.ConfVars.HIVEFETCHTASKCONVERSION, "none");
+      HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVEOPTIMIZEMETADATAQUERIES, false);
+      HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_QUERY_RESULTS_CACHE_ENABLED, false);
+      int maxTasks = HiveConf.getIntVar(conf, HiveConf.ConfVars.LLAP_IO_PREWARM_MAX_TASKS);
+      if (maxTasks > 0) {
+        conf.setInt(TezConfiguration.TEZ_AM_VERTEX_MAX_TASK_CONCURRENCY, maxTasks);
+      }
+      return conf;
+    }
+
+    @Override
+    public void run() {
+      try {
+        SessionState ss = DriverUtils.setUpSessionState(conf, user, true);
+        Table table = Hive.get(conf).getTable(request.getDbName(), request.getTableName());
+        List<String> columns = request.getColumns();
+        if (columns.isEmpty()) {
+          columns = new ArrayList<>();
+          for (FieldSchema col : table.getCols()) {
+            columns.add(col.getName());
+          }
+        }
+        List<? extends Map<String, String>> partSpecs = request.getPartSpecs();
+        if (partSpecs.isEmpty() && table.isPartitioned()) {
+          // Still go partition by partition, to keep the queries small.
+          List<Map<String, String>> allPartSpecs = new ArrayList<>();
+          for (String partName : Hive.get(conf).getPartitionNames(table.getDbName(), table.getTableName(), (short) -1)) {
+            allPartSpecs.add(Warehouse.makeSpecFromName(partName));
+          }
+          if (allPartSpecs.isEmpty()) {
+            return;
+          }
+          partSpecs = allPartSpecs;
+        }
+        int partitionsPerQuery = HiveConf.getIntVar(conf, HiveConf.ConfVars.LLAP_IO_PREWARM_PARTITIONS_PER_QUERY);
+        List<String> queries = buildQueries(table.getDbName(), table.getTableName(), columns, partSpecs,
+            partitionsPerQuery, conf);
+        long startTime = System.currentTimeMillis();
+        for (String query : queries) {
+          LOG.debug("Running LLAP cache prewarm query {}", query);
+          DriverUtils.runOnDriver(conf, user, ss, query);
+        }
+        LOG.info("LLAP cache prewarm of {} finished in {} ms with {} queries", request,
+            System.currentTimeMillis() - startTime, queries.size());
+      } catch (Exception e) {
+        // The session is closed on failure, and a new one is created for the next request.
+        LOG.warn("Exception while prewarming LLAP cache for " + request, e);
+      }
+    }
+  }
+
+  /**
+   * Holds the table to prewarm, and optionally its partitions and columns.
+   */
+  public static final class Request {
+    private final String dbName;
+    private final String tableName;
+    private final List<? extends Map<String, String>> partSpecs;
+    private final List<String> columns;
+
+    /**
+     * @param partSpecs the specs of the partitions to load, empty for all of them
+     * @param columns the columns to load, empty for all of them
+     */
+    public Request(String dbName, String tableName, List<? extends Map<String, String>> partSpecs,
+        List<String> columns) {
+      this.dbName = dbName;
+      this.tableName = tableName;
+      this.partSpecs = partSpecs;
+      this.columns = columns;
+    }
+
+    public String getDbName() {
+      return dbName;
+    }
+
+    public String getTableName() {
+      return tableName;
+    }
+
+    public List<? extends Map<String, String>> getPartSpecs() {
+      return partSpecs;
+    }
+
+    public List<String> getColumns() {
+      return columns;
+    }
+
+    @Override
+    public String toString() {
+      return "Request { table = " + dbName + "." + tableName + ", partitions = " + partSpecs + ", columns = "
+          + columns + " }";
+    }
+  }
+}
@@ -315,7 +315,8 @@ public List<Event> initialize() throws Exception {
           inputInitializerContext.addCounters(tezCounters);
         }
 
-        List<TaskLocationHint> locationHints = splitGrouper.createTaskLocationHints(flatSplits, generateConsistentSplits);
+        List<TaskLocationHint> locationHints =
+            splitGrouper.createTaskLocationHints(flatSplits, generateConsistentSplits, splitLocationProvider);
 
         inputSplitInfo =
             new InputSplitInfoMem(flatSplits, locationHints, flatSplits.length, null, jobConf);
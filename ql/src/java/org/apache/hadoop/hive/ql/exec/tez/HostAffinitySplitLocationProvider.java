@@ -15,16 +15,22 @@
 package org.apache.hadoop.hive.ql.exec.tez;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.hash.Hashing;
 
+import org.apache.hadoop.hive.llap.registry.LlapCacheSummary;
 import org.apache.hadoop.hive.serde2.SerDeUtils;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.split.SplitLocationProvider;
+import org.apache.hadoop.mapred.split.TezGroupedSplit;
 import org.apache.hive.common.util.Murmur3;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +45,10 @@
  *
  * TODO: Support for consistent hashing when combining the split location generator and the ServiceRegistry.
  *
+ * When the cache summaries of the locations are known, getCacheLocations returns the other locations whose caches
+ * might have the files of a split, so that the scheduler can fall back to them rather than to an arbitrary node when
+ * the consistent location is busy. getLocations only returns the consistent location: the splits are grouped by it,
+ * and the groups must not depend on the cache contents.
  */
 public class HostAffinitySplitLocationProvider implements SplitLocationProvider {
 
@@ -47,12 +57,26 @@ public class HostAffinitySplitLocationProvider implements SplitLocationProvider
 
   @VisibleForTesting
   final List<String> locations;
+  private final List<LlapCacheSummary> cacheSummaries;
+  private final int maxCacheLocations;
 
   public HostAffinitySplitLocationProvider(List<String> knownLocations) {
+    this(knownLocations, null, 0);
+  }
+
+  /**
+   * @param cacheSummaries the cache summaries of the locations, by index; null if unknown
+   * @param maxCacheLocations the max number of locations getCacheLocations returns
+   */
+  public HostAffinitySplitLocationProvider(List<String> knownLocations,
+      List<LlapCacheSummary> cacheSummaries, int maxCacheLocations) {
     Preconditions.checkState(knownLocations != null && !knownLocations.isEmpty(),
         HostAffinitySplitLocationProvider.class.getName() +
             " needs at least 1 location to function");
+    Preconditions.checkArgument(cacheSummaries == null || cacheSummaries.size() == knownLocations.size());
     this.locations = knownLocations;
+    this.cacheSummaries = cacheSummaries;
+    this.maxCacheLocations = maxCacheLocations;
   }
 
   @Override
@@ -71,6 +95,52 @@ public String[] getLocations(InputSplit split) throws IOException {
     return (location != null) ? new String[] { location } : null;
   }
 
+  /**
+   * @return The locations, other than the consistent ones, whose caches might have the files of the split, which
+   *         may be a file split or a group of them; at most the max number of cache locations.
+   */
+  public List<String> getCacheLocations(InputSplit split) throws IOException {
+    List<String> result = new ArrayList<>();
+    if (cacheSummaries == null || maxCacheLocations <= 0) {
+      return result;
+    }
+    List<InputSplit> splits = (split instanceof TezGroupedSplit)
+        ? ((TezGroupedSplit) split).getGroupedSplits() : Collections.singletonList(split);
+    List<FileSplit> fileSplits = new ArrayList<>(splits.size());
+    int[] indexes = new int[splits.size()];
+    Set<String> consistentLocations = new HashSet<>();
+    for (InputSplit s : splits) {
+      if (s instanceof FileSplit) {
+        FileSplit fsplit = (FileSplit) s;
+        int index = determineLocation(locations, fsplit.getPath().toString(), fsplit.getStart(),
+            "Split at " + fsplit.getPath() + " with offset= " + fsplit.getStart());
+        indexes[fileSplits.size()] = index;
+        fileSplits.add(fsplit);
+        consistentLocations.add(locations.get(index));
+      }
+    }
+    for (int i = 0; i < fileSplits.size() && result.size() < maxCacheLocations; ++i) {
+      addCacheLocations(indexes[i], fileSplits.get(i).getPath().toUri().toString(), consistentLocations, result);
+    }
+    if (LOG.isDebugEnabled() && !result.isEmpty()) {
+      LOG.debug("Split " + split + " may also be cached at " + result);
+    }
+    return result;
+  }
+
+  private void addCacheLocations(int index, String path, Set<String> consistentLocations, List<String> result) {
+    // Go around the locations from the consistent one, so that the order is stable for the file.
+    for (int i = 1; i < locations.size() && result.size() < maxCacheLocations; ++i) {
+      int candidate = (index + i) % locations.size();
+      String location = locations.get(candidate);
+      LlapCacheSummary summary = cacheSummaries.get(candidate);
+      if (location != null && summary != null && !consistentLocations.contains(location)
+          && !result.contains(location) && summary.mightContain(path)) {
+        result.add(location);
+      }
+    }
+  }
+
   @VisibleForTesting
   public static int determineLocation(
       List<String> locations, String path, long start, String desc) {
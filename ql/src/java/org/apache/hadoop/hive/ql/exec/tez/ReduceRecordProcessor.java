@@ -371,6 +371,13 @@ void close() {
       }
       ReportStats rps = new ReportStats(reporter, jconf);
       reducer.preorderMap(rps);
+      if (!abort && sources != null) {
+        for (ReduceRecordSource rs : sources) {
+          if (rs != null) {
+            rs.releaseBatch();
+          }
+        }
+      }
 
     } catch (Exception e) {
       if (!isAborted()) {
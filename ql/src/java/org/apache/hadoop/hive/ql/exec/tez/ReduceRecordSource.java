@@ -31,12 +31,14 @@
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorDeserializeRow;
+import org.apache.hadoop.hive.ql.exec.vector.VectorGroupByOperator;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedBatchUtil;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
 import org.apache.hadoop.hive.ql.log.PerfLogger;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorGroupByDesc;
 import org.apache.hadoop.hive.ql.session.SessionState;
 import org.apache.hadoop.hive.serde2.AbstractSerDe;
 import org.apache.hadoop.hive.serde2.SerDeException;
@@ -96,6 +98,7 @@ public class ReduceRecordSource implements RecordSource {
   private VectorDeserializeRow<LazyBinaryDeserializeRead> valueLazyBinaryDeserializeToRow;
 
   private VectorizedRowBatch batch;
+  private VectorizedRowBatchCtx batchContext;
 
   // number of columns pertaining to keys in a vectorized row batch
   private int firstValueColumnOffset;
@@ -123,6 +126,12 @@ public class ReduceRecordSource implements RecordSource {
   // Flush the last record when reader is out of records
   private boolean flushLastRecord = false;
 
+  // Pack the rows of an unordered input in to full batches, for reducers that do not need
+  // their input grouped by key.
+  private boolean batchUnorderedInput = false;
+  private int unorderedBatchMaxSize;
+  private int unorderedBatchBytes;
+
   void init(JobConf jconf, Operator<?> reducer, boolean vectorized, TableDesc keyTableDesc,
       TableDesc valueTableDesc, Reader reader, boolean handleGroupKey, byte tag,
       VectorizedRowBatchCtx batchContext, long vectorizedVertexNum,
@@ -178,6 +187,7 @@ void init(JobConf jconf, Operator<?> reducer, boolean vectorized, TableDesc keyT
 
         rowObjectInspector = Utilities.constructVectorizedReduceRowOI(keyStructInspector,
             valueStructInspectors);
+        this.batchContext = batchContext;
         batch = batchContext.createVectorizedRowBatch();
 
         // Setup vectorized deserialization for the key and value.
@@ -221,6 +231,22 @@ void init(JobConf jconf, Operator<?> reducer, boolean vectorized, TableDesc keyT
             }
           }
         }
+
+        batchUnorderedInput = (reader instanceof KeyValueReader) && isReduceHashGroupBy(reducer);
+        if (batchUnorderedInput) {
+          unorderedBatchMaxSize =
+              (vectorizedTestingReducerBatchSize > 0 ?
+                  Math.min(vectorizedTestingReducerBatchSize, batch.getMaxSize()) :
+                  batch.getMaxSize());
+
+          // Keys are deserialized in to every row, so the key bytes columns need buffers too.
+          for (int i = 0; i < firstValueColumnOffset; i++) {
+            ColumnVector colVector = batch.cols[i];
+            if (colVector instanceof BytesColumnVector) {
+              ((BytesColumnVector) colVector).initBuffer();
+            }
+          }
+        }
       } else {
         ois.add(keyObjectInspector);
         ois.add(valueObjectInspector);
@@ -387,7 +413,19 @@ public void next() throws HiveException {
     }
   }
 
+  private static boolean isReduceHashGroupBy(Operator<?> reducer) {
+    if (!(reducer instanceof VectorGroupByOperator)) {
+      return false;
+    }
+    VectorGroupByDesc vectorDesc =
+        (VectorGroupByDesc) ((VectorGroupByOperator) reducer).getVectorDesc();
+    return vectorDesc.getProcessingMode() == VectorGroupByDesc.ProcessingMode.REDUCE_HASH;
+  }
+
   private boolean pushRecordVector() {
+    if (batchUnorderedInput) {
+      return pushRecordVectorUnordered();
+    }
     try {
       if (!reader.next()) {
         return false;
@@ -512,6 +550,78 @@ private void processVectorGroup(BytesWritable keyWritable,
     }
   }
 
+  /**
+   * Fills a batch with the rows of an unordered input, deserializing the key of each row,
+   * and forwards it.  There is no group status since the rows are not grouped.
+   */
+  private boolean pushRecordVectorUnordered() {
+    try {
+      while (reader.next()) {
+        BytesWritable keyWritable = (BytesWritable) reader.getCurrentKey();
+        for (Object value : reader.getCurrentValues()) {
+          if (batch.size >= unorderedBatchMaxSize ||
+              (batch.size > 0 && unorderedBatchBytes >= BATCH_BYTES)) {
+            processUnorderedBatch();
+          }
+          addUnorderedRow(keyWritable, (BytesWritable) value);
+        }
+        if (batch.size >= unorderedBatchMaxSize || unorderedBatchBytes >= BATCH_BYTES) {
+          processUnorderedBatch();
+          return true;
+        }
+      }
+      if (batch.size > 0) {
+        // Flush final partial batch.
+        processUnorderedBatch();
+      }
+      return false;
+    } catch (Throwable e) {
+      abort = true;
+      if (e instanceof OutOfMemoryError) {
+        // Don't create a new object if we are already out of memory
+        throw (OutOfMemoryError) e;
+      } else {
+        l4j.error(StringUtils.stringifyException(e));
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  private void addUnorderedRow(BytesWritable keyWritable, BytesWritable valueWritable)
+      throws HiveException, IOException {
+    final int rowIdx = batch.size;
+    keyBinarySortableDeserializeToRow.setBytes(keyWritable.getBytes(), 0, keyWritable.getLength());
+    try {
+      keyBinarySortableDeserializeToRow.deserialize(batch, rowIdx);
+    } catch (Exception e) {
+      throw new HiveException(
+          "\nDeserializeRead details: " +
+              keyBinarySortableDeserializeToRow.getDetailedReadPositionString(),
+          e);
+    }
+    unorderedBatchBytes += keyWritable.getLength();
+    if (valueLazyBinaryDeserializeToRow != null) {
+      valueLazyBinaryDeserializeToRow.setBytes(valueWritable.getBytes(), 0,
+          valueWritable.getLength());
+      valueLazyBinaryDeserializeToRow.deserialize(batch, rowIdx);
+      unorderedBatchBytes += valueWritable.getLength();
+    }
+    batch.size++;
+  }
+
+  private void processUnorderedBatch() throws HiveException {
+    try {
+      reducer.process(batch, tag);
+    } catch (Exception e) {
+      l4j.error("Hive Runtime Error while processing vector batch (tag=" + tag
+          + ") (vectorizedVertexNum " + vectorizedVertexNum + ")", e);
+      throw new HiveException("Hive Runtime Error while processing vector batch (tag="
+          + tag + ") (vectorizedVertexNum " + vectorizedVertexNum + ")", e);
+    }
+    batch.reset();
+    unorderedBatchBytes = 0;
+  }
+
   boolean close() throws Exception {
     try {
       if (handleGroupKey && groupKey != null) {
@@ -528,6 +638,16 @@ boolean close() throws Exception {
     return abort;
   }
 
+  /**
+   * Gives the batch back to the batch pool, once the reducer is closed.
+   */
+  void releaseBatch() {
+    if (batch != null) {
+      batchContext.releaseVectorizedRowBatch(batch);
+      batch = null;
+    }
+  }
+
   public ObjectInspector getObjectInspector() {
     return rowObjectInspector;
   }
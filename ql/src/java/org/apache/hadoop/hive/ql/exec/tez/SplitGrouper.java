@@ -128,6 +128,20 @@ public Multimap<Integer, InputSplit> group(Configuration conf,
    * @throws IOException
    */
   public List<TaskLocationHint> createTaskLocationHints(InputSplit[] splits, boolean consistentLocations) throws IOException {
+    return createTaskLocationHints(splits, consistentLocations, null);
+  }
+
+  /**
+   * Create task location hints from a set of input splits
+   * @param splits the actual splits
+   * @param consistentLocations whether to re-order locations for each split, if it's a file split
+   * @param locationProvider the provider the splits were grouped with; when it knows the caches of the
+   *        locations, the locations that might have the files of a split are added after the split's own
+   * @return taskLocationHints - 1 per input split specified
+   * @throws IOException
+   */
+  public List<TaskLocationHint> createTaskLocationHints(InputSplit[] splits, boolean consistentLocations,
+      SplitLocationProvider locationProvider) throws IOException {
 
     List<TaskLocationHint> locationHints = Lists.newArrayListWithCapacity(splits.length);
 
@@ -136,6 +150,7 @@ public List<TaskLocationHint> createTaskLocationHints(InputSplit[] splits, boole
       if (rack == null) {
         String [] locations = split.getLocations();
         if (locations != null && locations.length > 0) {
+          LinkedHashSet<String> locationSet;
           // Worthwhile only if more than 1 split, consistentGroupingEnabled and is a FileSplit
           if (consistentLocations && locations.length > 1 && split instanceof FileSplit) {
             Arrays.sort(locations);
@@ -144,18 +159,19 @@ public List<TaskLocationHint> createTaskLocationHints(InputSplit[] splits, boole
             long startLocation = fileSplit.getStart();
             int hashCode = Objects.hash(path, startLocation);
             int startIndex = hashCode % locations.length;
-            LinkedHashSet<String> locationSet = new LinkedHashSet<>(locations.length);
+            locationSet = new LinkedHashSet<>(locations.length);
             // Set up the locations starting from startIndex, and wrapping around the sorted array.
             for (int i = 0 ; i < locations.length ; i++) {
               int index = (startIndex + i) % locations.length;
               locationSet.add(locations[index]);
             }
-            locationHints.add(TaskLocationHint.createTaskLocationHint(locationSet, null));
           } else {
-            locationHints.add(TaskLocationHint
-                .createTaskLocationHint(new LinkedHashSet<String>(Arrays.asList(split
-                    .getLocations())), null));
+            locationSet = new LinkedHashSet<String>(Arrays.asList(split.getLocations()));
+          }
+          if (locationProvider instanceof HostAffinitySplitLocationProvider) {
+            locationSet.addAll(((HostAffinitySplitLocationProvider) locationProvider).getCacheLocations(split));
           }
+          locationHints.add(TaskLocationHint.createTaskLocationHint(locationSet, null));
         } else {
           locationHints.add(TaskLocationHint.createTaskLocationHint(null, null));
         }
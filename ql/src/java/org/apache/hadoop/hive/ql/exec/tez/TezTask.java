@@ -209,6 +209,11 @@ public int execute() {
         Map<String, LocalResource> allResources = DagUtils.createTezLrMap(
             session.getAppJarLr(), allNonAppResources);
 
+        // The LLAP cache accounts the data cached by the query to its pool.
+        if (session instanceof WmTezSession && ((WmTezSession) session).getPoolName() != null) {
+          jobConf.set(HiveConf.ConfVars.LLAP_IO_CACHE_WM_POOL.varname, ((WmTezSession) session).getPoolName());
+        }
+
         // next we translate the TezWork to a Tez DAG
         DAG dag = build(jobConf, work, scratchDir, ctx, allResources);
         dag.setCallerContext(callerContext);
@@ -503,6 +508,11 @@ DAG build(JobConf conf, TezWork tezWork, Path scratchDir, Context ctx,
           LOG.info("Setting " + TEZ_MEMORY_RESERVE_FRACTION + " to " + frac);
           wx.setConf(TEZ_MEMORY_RESERVE_FRACTION, Double.toString(frac));
         } // Otherwise just leave it up to Tez to decide how much memory to allocate
+        String maxTaskConcurrency = wxConf.get(TezConfiguration.TEZ_AM_VERTEX_MAX_TASK_CONCURRENCY);
+        if (maxTaskConcurrency != null) {
+          // The AM only reads it from the vertex configuration; used e.g. to throttle the LLAP cache prewarm queries.
+          wx.setConf(TezConfiguration.TEZ_AM_VERTEX_MAX_TASK_CONCURRENCY, maxTaskConcurrency);
+        }
         dag.addVertex(wx);
         utils.addCredentials(workUnit, dag, conf);
         perfLogger.perfLogEnd(CLASS_NAME, PerfLogger.TEZ_CREATE_VERTEX + workUnit.getName());
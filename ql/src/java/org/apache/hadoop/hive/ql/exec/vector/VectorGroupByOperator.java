@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.hive.ql.exec.vector;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.ref.SoftReference;
@@ -49,10 +50,13 @@
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriterFactory;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.aggregates.VectorAggregateExpression;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.aggregates.VectorUDAFBloomFilterMerge;
+import org.apache.hadoop.hive.ql.exec.vector.groupby.VectorGroupByHashTable;
+import org.apache.hadoop.hive.ql.exec.vector.rowbytescontainer.VectorRowBytesContainer;
 import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBase;
 import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBatch;
 import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperGeneral;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.metadata.HiveUtils;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
 import org.apache.hadoop.hive.ql.plan.GroupByDesc;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
@@ -60,12 +64,17 @@
 import org.apache.hadoop.hive.ql.plan.VectorGroupByDesc;
 import org.apache.hadoop.hive.ql.plan.api.OperatorType;
 import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.lazybinary.fast.LazyBinaryDeserializeRead;
+import org.apache.hadoop.hive.serde2.lazybinary.fast.LazyBinarySerializeWrite;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hive.common.util.HashCodeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -325,6 +334,37 @@ final class ProcessingModeHashAggregate extends ProcessingModeBase {
     @VisibleForTesting
     Map<KeyWrapper, VectorAggregationBufferRow> mapKeysAggregationBuffers;
 
+    /**
+     * The primitive key-aggregation hash table, used instead of mapKeysAggregationBuffers
+     * when enabled and supported by the key types.
+     */
+    @VisibleForTesting
+    VectorGroupByHashTable hashTable;
+
+    /**
+     * The hashTable slot of each row of the current batch.
+     */
+    private int[] batchSlots;
+
+    /**
+     * Key wrapper the hashTable keys are read into when flushing.
+     */
+    private VectorHashKeyWrapperBase flushKeyWrapper;
+
+    /**
+     * With a single dictionary encoded string key, the aggregation buffer set of each id of the
+     * current dictionary.  The rows are grouped on their dictionary ids: only the first row of an
+     * id probes the hash table, whose entry keeps the key value for the flush.
+     */
+    private Object dictionaryKey;
+    private VectorAggregationBufferRow[] dictionaryBuffers;
+
+    /**
+     * The batch index and key wrapper of the rows whose id has no aggregation buffer set yet.
+     */
+    private int[] dictionaryMissRows;
+    private VectorHashKeyWrapperBase[] dictionaryMissKeyWrappers;
+
     private Queue<VectorAggregationBufferRow> reusableAggregationBufferRows =
         new ArrayDeque<>(VectorizedRowBatch.DEFAULT_SIZE);
 
@@ -420,7 +460,19 @@ public void initialize(Configuration hconf) throws HiveException {
 
       sumBatchSize = 0;
 
-      mapKeysAggregationBuffers = new HashMap<KeyWrapper, VectorAggregationBufferRow>();
+      final boolean useNativeHashTable = (null != hconf) ?
+          HiveConf.getBoolVar(hconf,
+              HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED) :
+          HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED.defaultBoolVal;
+      if (useNativeHashTable) {
+        hashTable = VectorGroupByHashTable.create(keyWrappersBatch, VectorizedRowBatch.DEFAULT_SIZE);
+      }
+      if (hashTable != null) {
+        batchSlots = new int[VectorizedRowBatch.DEFAULT_SIZE];
+        flushKeyWrapper = keyWrappersBatch.allocateKeyWrapper();
+      } else {
+        mapKeysAggregationBuffers = new HashMap<KeyWrapper, VectorAggregationBufferRow>();
+      }
       /*
        * The grouping sets expand the hash sizes by producing intermediate keys. 3 grouping sets
        * of (),(col1),(col1,col2), will turn 10 rows into 30 rows. If the col1 has an nDV of 2 and
@@ -449,9 +501,10 @@ public void initialize(Configuration hconf) throws HiveException {
             numRowsCompareHashAggr, minReductionHashAggr);
       }
       computeMemoryLimits();
-      LOG.debug("using hash aggregation processing mode");
+      LOG.debug("using hash aggregation processing mode (native hash table: {})", hashTable != null);
 
-      if (keyWrappersBatch.getVectorHashKeyWrappers()[0] instanceof VectorHashKeyWrapperGeneral) {
+      if (hashTable == null &&
+          keyWrappersBatch.getVectorHashKeyWrappers()[0] instanceof VectorHashKeyWrapperGeneral) {
         reusableKeyWrapperBuffer = new ArrayDeque<>(VectorizedRowBatch.DEFAULT_SIZE);
       }
     }
@@ -582,25 +635,168 @@ private void prepareBatchAggregationBufferSets(VectorizedRowBatch batch) throws
       final int n = keyExpressions.length == 0 ? 1 : batch.size;
       // note - the row mapping is not relevant when aggregationBatchInfo::getDistinctBufferSetCount() == 1
 
+      DictionaryBytesColumnVector dictionaryKeyColumn = getDictionaryKeyColumn(batch);
+      if (dictionaryKeyColumn != null) {
+        prepareBatchAggregationBufferSetsDictionary(batch, dictionaryKeyColumn, keyWrappers, n);
+        return;
+      }
+
+      if (hashTable != null) {
+        prepareBatchAggregationBufferSetsHashTable(keyWrappers, n);
+        return;
+      }
+
       for (int i=0; i < n; ++i) {
-        VectorHashKeyWrapperBase kw = keyWrappers[i];
-        VectorAggregationBufferRow aggregationBuffer = mapKeysAggregationBuffers.get(kw);
-        if (null == aggregationBuffer) {
-          // the probe failed, we must allocate a set of aggregation buffers
-          // and push the (keywrapper,buffers) pair into the hash.
-          // is very important to clone the keywrapper, the one we have from our
-          // keyWrappersBatch is going to be reset/reused on next batch.
-          aggregationBuffer = allocateAggregationBuffer();
-          KeyWrapper copyKeyWrapper = cloneKeyWrapper(kw);
-          mapKeysAggregationBuffers.put(copyKeyWrapper, aggregationBuffer);
-          numEntriesHashTable++;
-          numEntriesSinceCheck++;
+        VectorAggregationBufferRow aggregationBuffer = findOrAllocateAggregationBuffer(keyWrappers[i]);
+        aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, i);
+      }
+    }
+
+    private VectorAggregationBufferRow findOrAllocateAggregationBuffer(VectorHashKeyWrapperBase kw)
+        throws HiveException {
+      VectorAggregationBufferRow aggregationBuffer = mapKeysAggregationBuffers.get(kw);
+      if (null == aggregationBuffer) {
+        // the probe failed, we must allocate a set of aggregation buffers
+        // and push the (keywrapper,buffers) pair into the hash.
+        // is very important to clone the keywrapper, the one we have from our
+        // keyWrappersBatch is going to be reset/reused on next batch.
+        aggregationBuffer = allocateAggregationBuffer();
+        KeyWrapper copyKeyWrapper = cloneKeyWrapper(kw);
+        mapKeysAggregationBuffers.put(copyKeyWrapper, aggregationBuffer);
+        numEntriesHashTable++;
+        numEntriesSinceCheck++;
+      } else {
+        // for access tracking
+        aggregationBuffer.incrementAccessCount();
+        totalAccessCount++;
+      }
+      return aggregationBuffer;
+    }
+
+    /**
+     * Probes the whole batch in the primitive hash table first, then allocates the
+     * aggregation buffers of the keys that were added.
+     */
+    private void prepareBatchAggregationBufferSetsHashTable(VectorHashKeyWrapperBase[] keyWrappers,
+        int n) throws HiveException {
+      hashTable.probeBatch(keyWrappers, n, batchSlots);
+
+      for (int i = 0; i < n; ++i) {
+        VectorAggregationBufferRow aggregationBuffer = findOrAllocateAggregationBuffer(batchSlots[i]);
+        aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, i);
+      }
+    }
+
+    private VectorAggregationBufferRow findOrAllocateAggregationBuffer(int slot)
+        throws HiveException {
+      VectorAggregationBufferRow aggregationBuffer = hashTable.getValue(slot);
+      if (null == aggregationBuffer) {
+        aggregationBuffer = allocateAggregationBuffer();
+        hashTable.setValue(slot, aggregationBuffer);
+        numEntriesHashTable++;
+        numEntriesSinceCheck++;
+      } else {
+        // for access tracking
+        aggregationBuffer.incrementAccessCount();
+        totalAccessCount++;
+      }
+      return aggregationBuffer;
+    }
+
+    /**
+     * @return The key column when the only key is a dictionary encoded string column, else null.
+     */
+    private DictionaryBytesColumnVector getDictionaryKeyColumn(VectorizedRowBatch batch) {
+      if (groupingSetsPresent || keyExpressions.length != 1) {
+        return null;
+      }
+      ColumnVector keyColumn = batch.cols[keyExpressions[0].getOutputColumnNum()];
+      if (keyColumn instanceof DictionaryBytesColumnVector &&
+          ((DictionaryBytesColumnVector) keyColumn).isDictionaryEncoded) {
+        return (DictionaryBytesColumnVector) keyColumn;
+      }
+      return null;
+    }
+
+    /**
+     * Locates the aggregation buffer sets of a batch whose only key is dictionary encoded.  The
+     * rows of an id already seen in the current dictionary take its buffer set; the others, and
+     * the NULL keys, are probed in the hash table as usual.
+     */
+    private void prepareBatchAggregationBufferSetsDictionary(VectorizedRowBatch batch,
+        DictionaryBytesColumnVector keyColumn, VectorHashKeyWrapperBase[] keyWrappers, int n)
+        throws HiveException {
+      prepareDictionaryBuffers(keyColumn, keyWrappers.length);
+      final int[] ids = keyColumn.ids;
+      final boolean[] isNull = keyColumn.isNull;
+      final boolean noNulls = keyColumn.noNulls;
+      final boolean isRepeating = keyColumn.isRepeating;
+      final boolean selectedInUse = batch.selectedInUse;
+      final int[] selected = batch.selected;
+
+      int missCount = 0;
+      for (int i = 0; i < n; ++i) {
+        final int row = isRepeating ? 0 : (selectedInUse ? selected[i] : i);
+        VectorAggregationBufferRow aggregationBuffer =
+            (noNulls || !isNull[row]) ? dictionaryBuffers[ids[row]] : null;
+        if (aggregationBuffer == null) {
+          dictionaryMissRows[missCount] = i;
+          dictionaryMissKeyWrappers[missCount] = keyWrappers[i];
+          missCount++;
         } else {
           // for access tracking
           aggregationBuffer.incrementAccessCount();
           totalAccessCount++;
+          aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, i);
         }
+      }
+      if (missCount == 0) {
+        return;
+      }
+
+      if (hashTable != null) {
+        hashTable.probeBatch(dictionaryMissKeyWrappers, missCount, batchSlots);
+      }
+      for (int m = 0; m < missCount; ++m) {
+        final int i = dictionaryMissRows[m];
+        VectorAggregationBufferRow aggregationBuffer = (hashTable != null) ?
+            findOrAllocateAggregationBuffer(batchSlots[m]) :
+            findOrAllocateAggregationBuffer(keyWrappers[i]);
         aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, i);
+        final int row = isRepeating ? 0 : (selectedInUse ? selected[i] : i);
+        if (noNulls || !isNull[row]) {
+          dictionaryBuffers[ids[row]] = aggregationBuffer;
+        }
+      }
+    }
+
+    private void prepareDictionaryBuffers(DictionaryBytesColumnVector keyColumn, int batchCapacity) {
+      if (dictionaryMissRows == null || dictionaryMissRows.length < batchCapacity) {
+        dictionaryMissRows = new int[batchCapacity];
+        dictionaryMissKeyWrappers = new VectorHashKeyWrapperBase[batchCapacity];
+      }
+      final int dictionarySize = keyColumn.dictionarySize;
+      if (keyColumn.dictionaryKey != dictionaryKey) {
+        dictionaryKey = keyColumn.dictionaryKey;
+        if (dictionaryBuffers == null || dictionaryBuffers.length < dictionarySize) {
+          dictionaryBuffers = new VectorAggregationBufferRow[dictionarySize];
+        } else {
+          Arrays.fill(dictionaryBuffers, null);
+        }
+      } else if (dictionaryBuffers.length < dictionarySize) {
+        dictionaryBuffers = Arrays.copyOf(dictionaryBuffers,
+            Math.max(dictionarySize, dictionaryBuffers.length * 2));
+      }
+    }
+
+    /**
+     * Forgets the aggregation buffer sets of the dictionary ids, since a flush removes entries
+     * and reuses their buffer sets.
+     */
+    private void clearDictionaryBuffers() {
+      if (dictionaryKey != null) {
+        dictionaryKey = null;
+        Arrays.fill(dictionaryBuffers, null);
       }
     }
 
@@ -620,10 +816,16 @@ private KeyWrapper cloneKeyWrapper(VectorHashKeyWrapperBase from) {
     private void computeMemoryLimits() {
       JavaDataModel model = JavaDataModel.get();
 
-      fixedHashEntrySize =
-          model.hashMapEntry() +
-          keyWrappersBatch.getKeysFixedSize() +
-          aggregationBatchInfo.getAggregatorsFixedSize();
+      if (hashTable != null) {
+        fixedHashEntrySize =
+            hashTable.getEntryFixedSize(model) +
+            aggregationBatchInfo.getAggregatorsFixedSize();
+      } else {
+        fixedHashEntrySize =
+            model.hashMapEntry() +
+            keyWrappersBatch.getKeysFixedSize() +
+            aggregationBatchInfo.getAggregatorsFixedSize();
+      }
 
       MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
       maxMemory = isLlap ? getConf().getMaxMemoryAvailable() : memoryMXBean.getHeapMemoryUsage().getMax();
@@ -679,6 +881,12 @@ private void flush(boolean all) throws HiveException {
             gcCanary.get() == null ? "dead" : "alive"));
       }
       int avgAccess = computeAvgAccess();
+      clearDictionaryBuffers();
+
+      if (hashTable != null) {
+        flushHashTable(all, entriesToFlush, avgAccess);
+        return;
+      }
 
       /* Iterate the global (keywrapper,aggregationbuffers) map and emit
        a row for each key */
@@ -731,6 +939,57 @@ private void flush(boolean all) throws HiveException {
       }
     }
 
+    /**
+     * Same as the HashMap part of flush, iterating the slots of the primitive hash table.
+     */
+    private void flushHashTable(boolean all, int entriesToFlush, int avgAccess)
+        throws HiveException {
+      int entriesFlushed = 0;
+
+      final int capacity = hashTable.getCapacity();
+      for (int slot = 0; slot < capacity; slot++) {
+        if (!hashTable.isFull(slot)) {
+          continue;
+        }
+        VectorAggregationBufferRow bufferRow = hashTable.getValue(slot);
+        if (!all && avgAccess >= 1) {
+          if (bufferRow.getAccessCount() > avgAccess) {
+            // resetting to give chance for other entries
+            totalAccessCount -= bufferRow.getAccessCount();
+            bufferRow.resetAccessCount();
+            continue;
+          }
+        }
+
+        finishAggregators(bufferRow, false);
+        hashTable.readKey(slot, flushKeyWrapper);
+        writeSingleRow(flushKeyWrapper, bufferRow);
+
+        if (!all) {
+          totalAccessCount -= bufferRow.getAccessCount();
+          reusableAggregationBufferRows.add(bufferRow);
+          bufferRow.resetAccessCount();
+          hashTable.remove(slot);
+          --numEntriesHashTable;
+          if (++entriesFlushed >= entriesToFlush) {
+            break;
+          }
+        }
+      }
+
+      if (!all) {
+        numFlushedOutEntriesBeforeFinalFlush += entriesFlushed;
+      } else {
+        hashTable.clear();
+        totalAccessCount = 0;
+        numEntriesHashTable = 0;
+        numFlushedOutEntriesBeforeFinalFlush = 0;
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(String.format("GC canary caused %d flushes", gcCanaryFlushes));
+        }
+      }
+    }
+
     /**
      * Returns true if the memory threshold for the hash table was reached.
      * WARN: Frequent flushing can reduce Op throughput
@@ -1020,6 +1279,418 @@ public void close(boolean aborted) throws HiveException {
     }
   }
 
+  /**
+   * Reduce hash processing mode.  As first operator in a REDUCER fed by an unordered edge,
+   * partial aggregations come UNSORTED.  They are aggregated in to a hash table and the full
+   * aggregations are emitted on closeOp.
+   *
+   * The hash table is split in partitions on the key hash code.  When the memory threshold is
+   * reached the largest partition is spilled: its groups stay in memory and keep aggregating,
+   * but the input rows of keys it does not have yet are written to local disk with a
+   * VectorRowBytesContainer.  After the in memory groups are emitted, the spilled rows of each
+   * partition are read back and aggregated alone, partitioned on different hash bits in case
+   * they spill again.
+   *
+   * NOTE: Unlike the hash mode, groups cannot be flushed early to make room since the
+   * aggregators produce full aggregations.  That is why spilled partitions keep their groups.
+   */
+  final class ProcessingModeReduceHash extends ProcessingModeBase {
+
+    /**
+     * A spilled partition is partitioned again (on different hash bits) at most this many times.
+     * The last level does not spill.
+     */
+    private static final int MAX_SPILL_LEVEL = 3;
+
+    private int partitionMask;
+
+    /**
+     * The groups of each partition.
+     */
+    private Map<KeyWrapper, VectorAggregationBufferRow>[] partitionMaps;
+
+    /**
+     * The spilled input rows of each partition, or null if the partition did not spill.
+     */
+    private VectorRowBytesContainer[] spillContainers;
+
+    /**
+     * The spilled partitions waiting to be aggregated.
+     */
+    private final Queue<SpilledPartition> spilledPartitions = new ArrayDeque<>();
+
+    private String spillLocalDirs;
+
+    /**
+     * Level of the partitioning of the rows being aggregated.  0 for the input of the operator.
+     */
+    private int level;
+
+    private int numEntries;
+    private int numEntriesAtLastSpill;
+    private int numEntriesSinceCheck;
+    private int checkInterval;
+    private long fixedHashEntrySize;
+    private int avgVariableSize;
+    private long sumBatchSize;
+
+    /**
+     * A soft reference used to detect memory pressure
+     */
+    private SoftReference<Object> gcCanary = new SoftReference<Object>(new Object());
+
+    /**
+     * The batch rows that are aggregated, when some rows of the batch are spilled.
+     */
+    private int[] aggregatedSelected;
+
+    private VectorSerializeRow<LazyBinarySerializeWrite> spillSerializeRow;
+    private VectorDeserializeRow<LazyBinaryDeserializeRead> spillDeserializeRow;
+    private VectorizedRowBatch spillReadBatch;
+
+    private long spilledRowCount;
+    private int spilledPartitionCount;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void initialize(Configuration hconf) throws HiveException {
+      final int partitionCount;
+      // hconf is null in unit testing
+      if (null != hconf) {
+        partitionCount = HiveConf.getIntVar(hconf,
+            HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_PARTITIONS);
+        checkInterval = HiveConf.getIntVar(hconf,
+            HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_CHECKINTERVAL);
+        spillLocalDirs = HiveUtils.getLocalDirList(hconf);
+      } else {
+        partitionCount =
+            HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_PARTITIONS.defaultIntVal;
+        checkInterval =
+            HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_CHECKINTERVAL.defaultIntVal;
+      }
+      Preconditions.checkState(partitionCount > 0 && (partitionCount & (partitionCount - 1)) == 0,
+          "Number of reduce hash partitions %s is not a power of 2", partitionCount);
+      partitionMask = partitionCount - 1;
+
+      partitionMaps = new HashMap[partitionCount];
+      for (int i = 0; i < partitionCount; i++) {
+        partitionMaps[i] = new HashMap<KeyWrapper, VectorAggregationBufferRow>();
+      }
+      spillContainers = new VectorRowBytesContainer[partitionCount];
+      aggregatedSelected = new int[VectorizedRowBatch.DEFAULT_SIZE];
+
+      computeMemoryLimits();
+      LOG.info("using reduce hash aggregation processing mode with {} partitions", partitionCount);
+    }
+
+    private void computeMemoryLimits() {
+      JavaDataModel model = JavaDataModel.get();
+      fixedHashEntrySize =
+          model.hashMapEntry() +
+          keyWrappersBatch.getKeysFixedSize() +
+          aggregationBatchInfo.getAggregatorsFixedSize();
+
+      MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+      maxMemory = isLlap ? getConf().getMaxMemoryAvailable() : memoryMXBean.getHeapMemoryUsage().getMax();
+      memoryThreshold = conf.getMemoryThreshold();
+      // Tests may leave this unitialized, so better set it to 1
+      if (memoryThreshold == 0.0f) {
+        memoryThreshold = 1.0f;
+      }
+      maxHashTblMemory = (long) (maxMemory * memoryThreshold);
+    }
+
+    @VisibleForTesting
+    long getSpilledRowCount() {
+      return spilledRowCount;
+    }
+
+    @VisibleForTesting
+    int getSpilledPartitionCount() {
+      return spilledPartitionCount;
+    }
+
+    @Override
+    public void doProcessBatch(VectorizedRowBatch batch, boolean isFirstGroupingSet,
+        boolean[] currentGroupingSetsOverrideIsNulls) throws HiveException {
+
+      for (int i = 0; i < keyExpressions.length; ++i) {
+        keyExpressions[i].evaluate(batch);
+      }
+      keyWrappersBatch.evaluateBatch(batch);
+
+      aggregateOrSpillBatch(batch);
+
+      if (sumBatchSize == 0 || numEntriesSinceCheck >= checkInterval) {
+        // Sample the first batch and then every checkInterval new entries for variable sizes.
+        updateAvgVariableSize(batch);
+        numEntriesSinceCheck = 0;
+      }
+      sumBatchSize += batch.size;
+
+      if (shouldSpill()) {
+        spillLargestPartition();
+      }
+    }
+
+    private int partition(int hashCode) {
+      // Mix the hash code differently at each level, so the rows of a spilled partition
+      // spread over the partitions of the next level.
+      return HashCodeUtil.calculateIntHashCode(hashCode + level) & partitionMask;
+    }
+
+    /**
+     * Locates the aggregation buffer set of each row of the batch and aggregates the batch.
+     * The rows with keys new to a spilled partition are spilled instead, and left out of the
+     * aggregation with the batch selected array.
+     */
+    private void aggregateOrSpillBatch(VectorizedRowBatch batch) throws HiveException {
+      aggregationBatchInfo.startBatch();
+
+      VectorHashKeyWrapperBase[] keyWrappers = keyWrappersBatch.getVectorHashKeyWrappers();
+      final int size = batch.size;
+      final boolean selectedInUse = batch.selectedInUse;
+      final int[] selected = batch.selected;
+
+      int aggregatedCount = 0;
+      for (int i = 0; i < size; i++) {
+        final int batchIndex = selectedInUse ? selected[i] : i;
+        VectorHashKeyWrapperBase kw = keyWrappers[i];
+        final int partition = partition(kw.hashCode());
+        Map<KeyWrapper, VectorAggregationBufferRow> map = partitionMaps[partition];
+        VectorAggregationBufferRow aggregationBuffer = map.get(kw);
+        if (null == aggregationBuffer) {
+          if (spillContainers[partition] != null) {
+            spillRow(batch, batchIndex, spillContainers[partition]);
+            continue;
+          }
+          // The key wrapper of the batch is reused, so a copy goes in to the map.
+          aggregationBuffer = allocateAggregationBuffer();
+          map.put(kw.copyKey(), aggregationBuffer);
+          numEntries++;
+          numEntriesSinceCheck++;
+        }
+        aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, aggregatedCount);
+        aggregatedSelected[aggregatedCount++] = batchIndex;
+      }
+
+      if (aggregatedCount == size) {
+        processAggregators(batch);
+      } else if (aggregatedCount > 0) {
+        // Aggregate just the rows that were not spilled.
+        batch.selected = aggregatedSelected;
+        batch.selectedInUse = true;
+        batch.size = aggregatedCount;
+        try {
+          processAggregators(batch);
+        } finally {
+          batch.selected = selected;
+          batch.selectedInUse = selectedInUse;
+          batch.size = size;
+        }
+      }
+    }
+
+    private void spillRow(VectorizedRowBatch batch, int batchIndex,
+        VectorRowBytesContainer spillContainer) throws HiveException {
+      if (spillSerializeRow == null) {
+        setupSpillSerDe(batch);
+      }
+      try {
+        Output output = spillContainer.getOuputForRowBytes();
+        spillSerializeRow.setOutputAppend(output);
+        spillSerializeRow.serializeWrite(batch, batchIndex);
+        spillContainer.finishRow();
+      } catch (IOException e) {
+        throw new HiveException(e);
+      }
+      spilledRowCount++;
+    }
+
+    /**
+     * Spilled rows have the input columns of the operator; key expressions and aggregator
+     * inputs are evaluated again when they are read back.
+     */
+    private void setupSpillSerDe(VectorizedRowBatch batch) throws HiveException {
+      TypeInfo[] typeInfos = VectorizedBatchUtil.typeInfosFromStructObjectInspector(
+          (StructObjectInspector) inputObjInspectors[0]);
+      final int columnCount = typeInfos.length;
+      int[] columnMap = new int[columnCount];
+      DataTypePhysicalVariation[] dataTypePhysicalVariations =
+          new DataTypePhysicalVariation[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        columnMap[i] = i;
+        dataTypePhysicalVariations[i] =
+            (batch.cols[i] instanceof Decimal64ColumnVector) ?
+                DataTypePhysicalVariation.DECIMAL_64 : DataTypePhysicalVariation.NONE;
+      }
+
+      spillSerializeRow =
+          new VectorSerializeRow<LazyBinarySerializeWrite>(
+              new LazyBinarySerializeWrite(columnCount));
+      spillSerializeRow.init(typeInfos, columnMap);
+
+      spillDeserializeRow =
+          new VectorDeserializeRow<LazyBinaryDeserializeRead>(
+              new LazyBinaryDeserializeRead(
+                  typeInfos, dataTypePhysicalVariations, /* useExternalBuffer */ true));
+      spillDeserializeRow.init(columnMap);
+
+      spillReadBatch = VectorizedBatchUtil.makeLike(batch);
+    }
+
+    /**
+     * Returns true if the memory threshold for the hash table was reached, and entries were
+     * added since the last spill.
+     */
+    private boolean shouldSpill() {
+      if (level >= MAX_SPILL_LEVEL || numEntries <= numEntriesAtLastSpill) {
+        return false;
+      }
+      long currMemUsed = numEntries * (fixedHashEntrySize + avgVariableSize);
+      if (currMemUsed > maxHashTblMemory) {
+        return true;
+      }
+      if (gcCanary.get() == null) {
+        gcCanary = new SoftReference<Object>(new Object());
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Stops adding groups to the partition with the most groups among the ones that did not
+     * spill yet.
+     */
+    private void spillLargestPartition() {
+      int largest = -1;
+      for (int i = 0; i < partitionMaps.length; i++) {
+        if (spillContainers[i] == null &&
+            (largest == -1 || partitionMaps[i].size() > partitionMaps[largest].size())) {
+          largest = i;
+        }
+      }
+      numEntriesAtLastSpill = numEntries;
+      if (largest == -1) {
+        return;
+      }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format(
+            "Spill partition %d (level %d) entries:%d of %d fixed:%d variable:%d max:%dMb",
+            largest, level, partitionMaps[largest].size(), numEntries,
+            fixedHashEntrySize, avgVariableSize, maxHashTblMemory/1024/1024));
+      }
+      spillContainers[largest] = new VectorRowBytesContainer(spillLocalDirs);
+      spilledPartitionCount++;
+    }
+
+    private void updateAvgVariableSize(VectorizedRowBatch batch) {
+      int keyVariableSize = keyWrappersBatch.getVariableSize(batch.size);
+      int aggVariableSize = aggregationBatchInfo.getVariableSize(batch.size);
+
+      // This assumes the distribution of variable size keys/aggregates in the input
+      // is the same as the distribution of variable sizes in the hash entries
+      avgVariableSize = (int)((avgVariableSize * sumBatchSize + keyVariableSize + aggVariableSize) /
+          (sumBatchSize + batch.size));
+    }
+
+    /**
+     * Emits the groups in memory and queues the partitions spilled at the current level.
+     */
+    private void emitGroups() throws HiveException {
+      for (int i = 0; i < partitionMaps.length; i++) {
+        for (Map.Entry<KeyWrapper, VectorAggregationBufferRow> pair :
+            partitionMaps[i].entrySet()) {
+          VectorAggregationBufferRow bufferRow = pair.getValue();
+          finishAggregators(bufferRow, false);
+          writeSingleRow((VectorHashKeyWrapperBase) pair.getKey(), bufferRow);
+        }
+        partitionMaps[i].clear();
+
+        if (spillContainers[i] != null) {
+          spilledPartitions.add(new SpilledPartition(spillContainers[i], level + 1));
+          spillContainers[i] = null;
+        }
+      }
+      numEntries = 0;
+      numEntriesAtLastSpill = 0;
+    }
+
+    /**
+     * Reads back the rows of a spilled partition and aggregates them.
+     */
+    private void aggregateSpilledPartition(SpilledPartition spilledPartition)
+        throws HiveException {
+      level = spilledPartition.level;
+      VectorRowBytesContainer spillContainer = spilledPartition.rows;
+      VectorizedRowBatch batch = spillReadBatch;
+      try {
+        spillContainer.prepareForReading();
+        while (spillContainer.readNext()) {
+          spillDeserializeRow.setBytes(spillContainer.currentBytes(),
+              spillContainer.currentOffset(), spillContainer.currentLength());
+          spillDeserializeRow.deserialize(batch, batch.size);
+          if (++batch.size == VectorizedRowBatch.DEFAULT_SIZE) {
+            doProcessBatch(batch, false, null);
+            batch.reset();
+          }
+        }
+        if (batch.size > 0) {
+          doProcessBatch(batch, false, null);
+          batch.reset();
+        }
+      } catch (IOException e) {
+        throw new HiveException(e);
+      } finally {
+        spillContainer.clear();
+      }
+    }
+
+    @Override
+    public void close(boolean aborted) throws HiveException {
+      super.close(aborted);
+
+      try {
+        if (!aborted) {
+          emitGroups();
+          while (!spilledPartitions.isEmpty()) {
+            aggregateSpilledPartition(spilledPartitions.peek());
+            spilledPartitions.remove();
+            emitGroups();
+          }
+          if (spilledRowCount > 0) {
+            LOG.info("Reduce hash aggregation spilled {} rows of {} partitions",
+                spilledRowCount, spilledPartitionCount);
+          }
+        }
+      } finally {
+        for (SpilledPartition spilledPartition : spilledPartitions) {
+          spilledPartition.rows.clear();
+        }
+        spilledPartitions.clear();
+        for (int i = 0; i < spillContainers.length; i++) {
+          if (spillContainers[i] != null) {
+            spillContainers[i].clear();
+            spillContainers[i] = null;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The spilled rows of a reduce hash partition, and the partitioning level to aggregate them at.
+   */
+  private static final class SpilledPartition {
+    final VectorRowBytesContainer rows;
+    final int level;
+
+    SpilledPartition(VectorRowBytesContainer rows, int level) {
+      this.rows = rows;
+      this.level = level;
+    }
+  }
+
   /**
    * Current processing mode. Processing mode can change (eg. hash -> streaming).
    */
@@ -1211,6 +1882,11 @@ protected void initializeOp(Configuration hconf) throws HiveException {
     case STREAMING:
       processingMode = this.new ProcessingModeStreaming();
       break;
+    case REDUCE_HASH:
+      Preconditions.checkState(outputKeyLength > 0);
+      Preconditions.checkState(!groupingSetsPresent);
+      processingMode = this.new ProcessingModeReduceHash();
+      break;
     default:
       throw new RuntimeException("Unsupported vector GROUP BY processing mode " +
           vectorDesc.getProcessingMode().name());
@@ -991,6 +991,20 @@ public void closeOp(boolean abort) throws HiveException {
     super.closeOp(abort);
   }
 
+  /*
+   * The batches the input format hands out belong to the caller of the record reader, which may
+   * reuse them across splits; only the batch of the deserializers is given back, once the
+   * operators below no longer refer to its rows.
+   */
+  @Override
+  public void close(boolean abort) throws HiveException {
+    super.close(abort);
+    if (state == State.CLOSE && deserializerBatch != null) {
+      batchContext.releaseVectorizedRowBatch(deserializerBatch);
+      deserializerBatch = null;
+    }
+  }
+
   @Override
   public String getName() {
     return getOperatorName();
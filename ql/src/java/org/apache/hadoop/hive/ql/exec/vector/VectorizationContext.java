@@ -36,6 +36,7 @@
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.common.type.Date;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.BucketNumExpression;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.CastBooleanToCharViaLongToChar;
@@ -183,6 +184,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector.Type;
 import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor.ArgumentType;
 import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor.InputExpressionType;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFExpression;
 import org.apache.hadoop.hive.ql.exec.vector.udf.VectorUDFAdaptor;
 import org.apache.hadoop.hive.ql.exec.vector.udf.VectorUDFArgDesc;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -253,7 +255,7 @@ public enum HiveVectorAdaptorUsageMode {
     CHOSEN,
     ALL;
 
-    public static HiveVectorAdaptorUsageMode getHiveConfValue(HiveConf hiveConf) {
+    public static HiveVectorAdaptorUsageMode getHiveConfValue(Configuration hiveConf) {
       String string = HiveConf.getVar(hiveConf,
           HiveConf.ConfVars.HIVE_VECTOR_ADAPTOR_USAGE_MODE);
       return valueOf(string.toUpperCase());
@@ -268,7 +270,7 @@ public enum HiveVectorIfStmtMode {
     GOOD,
     BETTER;
 
-    public static HiveVectorIfStmtMode getHiveConfValue(HiveConf hiveConf) {
+    public static HiveVectorIfStmtMode getHiveConfValue(Configuration hiveConf) {
       String string = HiveConf.getVar(hiveConf,
           HiveConf.ConfVars.HIVE_VECTORIZED_IF_EXPR_MODE);
       return valueOf(string.toUpperCase());
@@ -285,7 +287,11 @@ public static HiveVectorIfStmtMode getHiveConfValue(HiveConf hiveConf) {
 
   private boolean adaptorSuppressEvaluateExceptions;
 
-  private void setHiveConfVars(HiveConf hiveConf) {
+  /**
+   * Sets the configuration the vector expressions are built with; a plain Configuration is
+   * enough, e.g. for the contexts built outside of the compiler.
+   */
+  public void setHiveConfVars(Configuration hiveConf) {
     hiveVectorAdaptorUsageMode = HiveVectorAdaptorUsageMode.getHiveConfValue(hiveConf);
     testVectorAdaptorOverride =
         HiveConf.getBoolVar(hiveConf, ConfVars.HIVE_TEST_VECTOR_ADAPTOR_OVERRIDE);
@@ -997,7 +1003,8 @@ public VectorExpression getVectorExpression(ExprNodeDesc exprDesc, VectorExpress
       }
       if (ve == null) {
         // Ok, no vectorized class available.  No problem -- try to use the VectorUDFAdaptor
-        // when configured.
+        // when configured.  A batch UDF (see VectorBatchUDF) is built on the same path and
+        // follows the same usage mode, except that it counts as chosen.
         //
         // NOTE: We assume if hiveVectorAdaptorUsageMode has not been set it because we are
         // executing a test that didn't create a HiveConf, etc.  No usage of VectorUDFAdaptor in
@@ -1010,7 +1017,7 @@ public VectorExpression getVectorExpression(ExprNodeDesc exprDesc, VectorExpress
                 "Could not vectorize expression (mode = " + mode.name() + "): " + exprDesc.toString()
                   + " because hive.vectorized.adaptor.usage.mode=none");
           case CHOSEN:
-            if (isNonVectorizedPathUDF(expr, mode)) {
+            if (isNonVectorizedPathUDF(expr, mode) || isBatchUDF(expr)) {
               ve = getCustomUDFExpression(expr, mode);
             } else {
               throw new HiveException(
@@ -4084,7 +4091,19 @@ private VectorExpression getWhenExpression(List<ExprNodeDesc> childExpr,
   }
 
   /*
-   * Return vector expression for a custom (i.e. not built-in) UDF.
+   * Is the function a VectorBatchUDF that supports the argument types?
+   */
+  private static boolean isBatchUDF(ExprNodeGenericFuncDesc expr) {
+    List<ExprNodeDesc> childExprList = expr.getChildren();
+    TypeInfo[] argumentTypeInfos = new TypeInfo[childExprList.size()];
+    for (int i = 0; i < argumentTypeInfos.length; i++) {
+      argumentTypeInfos[i] = childExprList.get(i).getTypeInfo();
+    }
+    return VectorBatchUDFExpression.getBatchUDF(expr.getGenericUDF(), argumentTypeInfos) != null;
+  }
+
+  /*
+   * Return vector expression for a custom (i.e. not built-in) UDF, or for a batch UDF.
    */
   private VectorExpression getCustomUDFExpression(ExprNodeGenericFuncDesc expr, VectorExpressionDescriptor.Mode mode)
       throws HiveException {
@@ -4177,8 +4196,14 @@ private VectorExpression getCustomUDFExpression(ExprNodeGenericFuncDesc expr, Ve
     final int outputColumnNum = ocm.allocateOutputColumn(expr.getTypeInfo());
 
     // Make vectorized operator
-    VectorUDFAdaptor ve = new VectorUDFAdaptor(expr, outputColumnNum, resultTypeName, argDescs);
-    ve.setSuppressEvaluateExceptions(adaptorSuppressEvaluateExceptions);
+    final VectorExpression ve;
+    if (isBatchUDF(expr)) {
+      ve = new VectorBatchUDFExpression(expr, outputColumnNum, resultTypeName, argDescs);
+    } else {
+      VectorUDFAdaptor adaptor = new VectorUDFAdaptor(expr, outputColumnNum, resultTypeName, argDescs);
+      adaptor.setSuppressEvaluateExceptions(adaptorSuppressEvaluateExceptions);
+      ve = adaptor;
+    }
 
     // Set child expressions
     VectorExpression[] childVEs = null;
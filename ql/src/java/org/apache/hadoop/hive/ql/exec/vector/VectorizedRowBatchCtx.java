@@ -81,6 +81,9 @@ public class VectorizedRowBatchCtx {
   private String[] scratchColumnTypeNames;
   private DataTypePhysicalVariation[] scratchDataTypePhysicalVariations;
 
+  // Identifies the batches created by equivalent contexts in the VectorizedRowBatchPool.
+  private transient String batchLayout;
+
 
   /**
    * Constructor for VectorizedRowBatchCtx
@@ -152,6 +155,7 @@ public DataTypePhysicalVariation[] getRowdataTypePhysicalVariations() {
   public void setRowDataTypePhysicalVariations(
     final DataTypePhysicalVariation[] rowDataTypePhysicalVariations) {
     this.rowDataTypePhysicalVariations = rowDataTypePhysicalVariations;
+    batchLayout = null;
   }
 
   public int[] getDataColumnNums() {
@@ -222,6 +226,7 @@ public void init(StructObjectInspector structObjectInspector, String[] scratchCo
     virtualColumnCount = 0;
     neededVirtualColumns = new VirtualColumn[0];
     dataColumnCount = rowColumnTypeInfos.length;
+    batchLayout = null;
 
     // Scratch column information.
     this.scratchColumnTypeNames = scratchColumnTypeNames;
@@ -250,6 +255,7 @@ public void init(StructObjectInspector structObjectInspector, String[] scratchCo
     virtualColumnCount = 0;
     neededVirtualColumns = new VirtualColumn[0];
     dataColumnCount = rowColumnTypeInfos.length;
+    batchLayout = null;
 
     // Scratch column information.
     this.scratchColumnTypeNames = scratchColumnTypeNames;
@@ -320,11 +326,49 @@ private ColumnVector createColumnVectorFromRowColumnTypeInfos(int columnNum) {
   }
 
   /**
-   * Creates a Vectorized row batch and the column vectors.
+   * Creates a Vectorized row batch and the column vectors, or takes one from the
+   * VectorizedRowBatchPool when batches are pooled.
    *
    * @return VectorizedRowBatch
    */
   public VectorizedRowBatch createVectorizedRowBatch()
+  {
+    VectorizedRowBatchPool batchPool = VectorizedRowBatchPool.get();
+    if (batchPool == null) {
+      return createNewVectorizedRowBatch();
+    }
+    VectorizedRowBatch result = batchPool.take(getBatchLayout());
+    if (result == null) {
+      result = createNewVectorizedRowBatch();
+      batchPool.setBufferAllocator(result);
+    } else {
+      result.reset();
+    }
+    return result;
+  }
+
+  /**
+   * Gives a batch created by createVectorizedRowBatch back to the VectorizedRowBatchPool,
+   * if batches are pooled. Neither the batch nor its column vectors may be used afterwards.
+   */
+  public void releaseVectorizedRowBatch(VectorizedRowBatch batch) {
+    VectorizedRowBatchPool batchPool = VectorizedRowBatchPool.get();
+    if (batchPool != null && batch != null) {
+      batchPool.offer(getBatchLayout(), batch);
+    }
+  }
+
+  private String getBatchLayout() {
+    if (batchLayout == null) {
+      batchLayout = Arrays.toString(rowColumnTypeInfos) + Arrays.toString(rowDataTypePhysicalVariations)
+          + Arrays.toString(dataColumnNums) + dataColumnCount + ',' + partitionColumnCount
+          + Arrays.toString(neededVirtualColumns) + Arrays.toString(scratchColumnTypeNames)
+          + Arrays.toString(scratchDataTypePhysicalVariations);
+    }
+    return batchLayout;
+  }
+
+  private VectorizedRowBatch createNewVectorizedRowBatch()
   {
     final int nonScratchColumnCount = rowColumnTypeInfos.length;
     final int totalColumnCount =
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A process wide pool of VectorizedRowBatches and of the buffers of their BytesColumnVectors,
+ * used by the LLAP daemon so that the fragments running on its executors reuse the batches
+ * of the fragments before them instead of allocating new ones.
+ *
+ * Batches are pooled by the layout of their columns (see VectorizedRowBatchCtx); the
+ * buffers by power of two size classes. The total size retained by the pool is bounded.
+ */
+public class VectorizedRowBatchPool implements BytesColumnVector.BufferAllocator {
+  private static final Logger LOG = LoggerFactory.getLogger(VectorizedRowBatchPool.class);
+
+  // The default size of the BytesColumnVector buffers.
+  private static final int MIN_BUFFER_SIZE_CLASS =
+      Integer.numberOfTrailingZeros(16 * VectorizedRowBatch.DEFAULT_SIZE);
+  // Bigger buffers are only needed by batches with very large values and are not kept.
+  private static final int MAX_BUFFER_SIZE_CLASS = 24;
+
+  private static volatile VectorizedRowBatchPool instance;
+
+  private final int maxBatchesPerLayout;
+  private final long maxRetainedBytes;
+
+  // The pools of each batch layout; all the pools are guarded by the pool object.
+  private final Map<String, VectorUtilBatchObjectPool<VectorizedRowBatch>> batchPools = new HashMap<>();
+  private final ArrayDeque<byte[]>[] bufferPools;
+
+  private final AtomicLong retainedBytes = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  @SuppressWarnings("unchecked")
+  @VisibleForTesting
+  VectorizedRowBatchPool(int maxBatchesPerLayout, long maxRetainedBytes) {
+    this.maxBatchesPerLayout = maxBatchesPerLayout;
+    this.maxRetainedBytes = maxRetainedBytes;
+    bufferPools = new ArrayDeque[MAX_BUFFER_SIZE_CLASS + 1];
+    for (int i = MIN_BUFFER_SIZE_CLASS; i <= MAX_BUFFER_SIZE_CLASS; ++i) {
+      bufferPools[i] = new ArrayDeque<>();
+    }
+  }
+
+  /**
+   * Creates the pool of the process, unless it is disabled by the configuration.
+   */
+  public static synchronized void initialize(Configuration conf) {
+    long maxRetainedBytes = HiveConf.getSizeVar(conf, ConfVars.LLAP_DAEMON_VECTOR_BATCH_POOL_MAX_SIZE);
+    int maxBatchesPerLayout = HiveConf.getIntVar(conf, ConfVars.LLAP_DAEMON_VECTOR_BATCH_POOL_BATCHES);
+    if (maxRetainedBytes <= 0 || maxBatchesPerLayout <= 0) {
+      instance = null;
+      return;
+    }
+    LOG.info("Pooling up to {} batches per layout and {} bytes", maxBatchesPerLayout, maxRetainedBytes);
+    instance = new VectorizedRowBatchPool(maxBatchesPerLayout, maxRetainedBytes);
+  }
+
+  /**
+   * @return The pool of the process, or null if batches are not pooled.
+   */
+  public static VectorizedRowBatchPool get() {
+    return instance;
+  }
+
+  /**
+   * @return A pooled batch of the layout, or null if there is none.
+   */
+  public VectorizedRowBatch take(String layout) {
+    VectorizedRowBatch batch = null;
+    synchronized (this) {
+      VectorUtilBatchObjectPool<VectorizedRowBatch> batchPool = batchPools.get(layout);
+      if (batchPool != null) {
+        try {
+          batch = batchPool.getFromPool();
+        } catch (HiveException e) {
+          throw new AssertionError(e); // The allocator does not throw.
+        }
+      }
+    }
+    if (batch == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    retainedBytes.addAndGet(-getRetainedSize(batch));
+    return batch;
+  }
+
+  /**
+   * Returns a batch of the layout to the pool; the caller must not use it anymore.
+   */
+  public void offer(String layout, VectorizedRowBatch batch) {
+    long size = getRetainedSize(batch);
+    if (retainedBytes.addAndGet(size) > maxRetainedBytes) {
+      retainedBytes.addAndGet(-size);
+      releaseBuffers(batch);
+      return;
+    }
+    synchronized (this) {
+      batchPools.computeIfAbsent(layout, key -> new VectorUtilBatchObjectPool<>(maxBatchesPerLayout,
+          new VectorUtilBatchObjectPool.IAllocator<VectorizedRowBatch>() {
+            @Override
+            public VectorizedRowBatch alloc() {
+              return null; // Let the caller create it.
+            }
+
+            @Override
+            public void free(VectorizedRowBatch t) {
+              retainedBytes.addAndGet(-getRetainedSize(t));
+              releaseBuffers(t);
+            }
+          })).putInPool(batch);
+    }
+  }
+
+  /**
+   * Makes the BytesColumnVectors of the batch allocate their buffers from the pool.
+   */
+  public void setBufferAllocator(VectorizedRowBatch batch) {
+    for (ColumnVector cv : batch.cols) {
+      if (cv instanceof BytesColumnVector) {
+        ((BytesColumnVector) cv).setBufferAllocator(this);
+      }
+    }
+  }
+
+  @Override
+  public byte[] allocate(int minSize) {
+    int sizeClass = getSizeClass(minSize);
+    if (sizeClass > MAX_BUFFER_SIZE_CLASS) {
+      return new byte[minSize];
+    }
+    byte[] buffer;
+    synchronized (this) {
+      buffer = bufferPools[sizeClass].poll();
+    }
+    if (buffer == null) {
+      missCount.incrementAndGet();
+      return new byte[1 << sizeClass];
+    }
+    hitCount.incrementAndGet();
+    retainedBytes.addAndGet(-buffer.length);
+    return buffer;
+  }
+
+  @Override
+  public void release(byte[] buffer) {
+    int sizeClass = Integer.numberOfTrailingZeros(buffer.length);
+    if (buffer.length != (1 << sizeClass) || sizeClass < MIN_BUFFER_SIZE_CLASS
+        || sizeClass > MAX_BUFFER_SIZE_CLASS) {
+      return; // Not allocated by the pool.
+    }
+    if (retainedBytes.addAndGet(buffer.length) > maxRetainedBytes) {
+      retainedBytes.addAndGet(-buffer.length);
+      return;
+    }
+    synchronized (this) {
+      bufferPools[sizeClass].push(buffer);
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getRetainedBytes() {
+    return retainedBytes.get();
+  }
+
+  private static int getSizeClass(int size) {
+    int sizeClass = 32 - Integer.numberOfLeadingZeros(size - 1);
+    return Math.max(sizeClass, MIN_BUFFER_SIZE_CLASS);
+  }
+
+  private void releaseBuffers(VectorizedRowBatch batch) {
+    for (ColumnVector cv : batch.cols) {
+      if (cv instanceof BytesColumnVector) {
+        ((BytesColumnVector) cv).releaseBuffers();
+      }
+    }
+  }
+
+  /*
+   * An estimate that only accounts for the value arrays and the string buffers.
+   */
+  private static long getRetainedSize(VectorizedRowBatch batch) {
+    long size = 0;
+    for (ColumnVector cv : batch.cols) {
+      if (cv == null) {
+        continue;
+      }
+      size += (long) cv.isNull.length * Long.BYTES;
+      if (cv instanceof BytesColumnVector) {
+        size += ((BytesColumnVector) cv).bufferSize();
+      }
+    }
+    return size;
+  }
+}
@@ -32,6 +32,7 @@
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -51,6 +52,9 @@ public abstract class AbstractFilterStringColLikeStringScalar extends VectorExpr
   // Transient members initialized by transientInit method.
   transient Checker checker;
 
+  // Evaluates the checker once per dictionary entry of dictionary encoded input.
+  private transient StringDictionaryFilter dictionaryFilter;
+
   public AbstractFilterStringColLikeStringScalar(int colNum, String pattern) {
     super();
     this.colNum = colNum;
@@ -70,6 +74,7 @@ public void transientInit(Configuration conf) throws HiveException {
     super.transientInit(conf);
 
     checker = createChecker(pattern);
+    dictionaryFilter = new StringDictionaryFilter(checker::check);
   }
 
   protected abstract List<CheckerFactory> getCheckerFactories();
@@ -109,6 +114,11 @@ public void evaluate(VectorizedRowBatch batch) throws HiveException {
       return;
     }
 
+    if (StringDictionaryFilter.isDictionaryEncoded(inputColVector)) {
+      dictionaryFilter.filter(batch, (DictionaryBytesColumnVector) inputColVector);
+      return;
+    }
+
     if (inputColVector.noNulls) {
       if (inputColVector.isRepeating) {
 
@@ -22,6 +22,7 @@
 import java.util.Arrays;
 
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor.Descriptor;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -41,6 +42,9 @@ public class FilterStringColumnInList extends VectorExpression implements IStrin
   // of the data type of the column.
   private transient CuckooSetBytes inSet;
 
+  // Evaluates the IN once per dictionary entry of dictionary encoded input.
+  private transient StringDictionaryFilter dictionaryFilter;
+
   public FilterStringColumnInList() {
     super();
     inSet = null;
@@ -64,6 +68,7 @@ public void evaluate(VectorizedRowBatch batch) throws HiveException {
     if (inSet == null) {
       inSet = new CuckooSetBytes(inListValues.length);
       inSet.load(inListValues);
+      dictionaryFilter = new StringDictionaryFilter(inSet::lookup);
     }
 
     BytesColumnVector inputColVector = (BytesColumnVector) batch.cols[inputCol];
@@ -79,6 +84,11 @@ public void evaluate(VectorizedRowBatch batch) throws HiveException {
       return;
     }
 
+    if (StringDictionaryFilter.isDictionaryEncoded(inputColVector)) {
+      dictionaryFilter.filter(batch, (DictionaryBytesColumnVector) inputColVector);
+      return;
+    }
+
     if (inputColVector.noNulls) {
       if (inputColVector.isRepeating) {
 
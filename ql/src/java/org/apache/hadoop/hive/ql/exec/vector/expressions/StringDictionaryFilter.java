@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+
+/**
+ * Evaluates a string filter on a dictionary encoded DictionaryBytesColumnVector once per
+ * dictionary entry.  The result of each entry is cached by its id for as long as the input
+ * keeps the same dictionary.
+ */
+public class StringDictionaryFilter {
+
+  /**
+   * A filter condition that is a function of the string value alone.
+   */
+  public interface Predicate {
+    boolean test(byte[] bytes, int start, int length);
+  }
+
+  private static final byte UNKNOWN = 0;
+  private static final byte PASSES = 1;
+  private static final byte FAILS = 2;
+
+  private static final int INITIAL_SIZE = 256;
+
+  private final Predicate predicate;
+
+  private Object dictionaryKey;
+  private byte[] results = new byte[0];
+
+  public StringDictionaryFilter(Predicate predicate) {
+    this.predicate = predicate;
+  }
+
+  public static boolean isDictionaryEncoded(ColumnVector colVector) {
+    return colVector instanceof DictionaryBytesColumnVector &&
+        ((DictionaryBytesColumnVector) colVector).isDictionaryEncoded;
+  }
+
+  /**
+   * Filters a non-empty batch on the dictionary encoded input column, like the row by row loops
+   * of the string filter expressions do.
+   */
+  public void filter(VectorizedRowBatch batch, DictionaryBytesColumnVector inputColVector) {
+    prepare(inputColVector);
+
+    final int n = batch.size;
+    final int[] sel = batch.selected;
+    final boolean noNulls = inputColVector.noNulls;
+    final boolean[] isNull = inputColVector.isNull;
+
+    if (inputColVector.isRepeating) {
+
+      // All must be selected otherwise size would be zero.  Repeating property will not change.
+      if ((!noNulls && isNull[0]) || !passes(inputColVector, 0)) {
+
+        // Entire batch is filtered out.
+        batch.size = 0;
+      }
+    } else if (batch.selectedInUse) {
+      int newSize = 0;
+      for (int j = 0; j != n; j++) {
+        final int i = sel[j];
+        if ((noNulls || !isNull[i]) && passes(inputColVector, i)) {
+          sel[newSize++] = i;
+        }
+      }
+      batch.size = newSize;
+    } else {
+      int newSize = 0;
+      for (int i = 0; i != n; i++) {
+        if ((noNulls || !isNull[i]) && passes(inputColVector, i)) {
+          sel[newSize++] = i;
+        }
+      }
+      if (newSize < n) {
+        batch.size = newSize;
+        batch.selectedInUse = true;
+      }
+    }
+  }
+
+  private boolean passes(DictionaryBytesColumnVector inputColVector, int i) {
+    final int id = inputColVector.ids[i];
+    byte result = results[id];
+    if (result == UNKNOWN) {
+      result = predicate.test(
+          inputColVector.vector[i], inputColVector.start[i], inputColVector.length[i]) ?
+              PASSES : FAILS;
+      results[id] = result;
+    }
+    return result == PASSES;
+  }
+
+  private void prepare(DictionaryBytesColumnVector inputColVector) {
+    final int dictionarySize = inputColVector.dictionarySize;
+    if (inputColVector.dictionaryKey != dictionaryKey) {
+      dictionaryKey = inputColVector.dictionaryKey;
+      if (results.length < dictionarySize) {
+        results = new byte[Math.max(dictionarySize, INITIAL_SIZE)];
+      } else {
+        Arrays.fill(results, UNKNOWN);
+      }
+    } else if (results.length < dictionarySize) {
+      results = Arrays.copyOf(results, Math.max(dictionarySize, results.length * 2));
+    }
+  }
+}
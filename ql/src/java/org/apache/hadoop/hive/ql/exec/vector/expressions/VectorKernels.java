@@ -0,0 +1,1364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+
+/**
+ * The inner loops of the generated long and double arithmetic, comparison and filter
+ * expressions over the non-repeating input columns of a batch, either over rows 0 to size - 1
+ * or over the rows of the selected vector.
+ *
+ * This implementation is plain loops, one per operator, that the JIT can auto-vectorize.  On
+ * Java 17 and later the multi-release hive-exec jar also carries an implementation using the
+ * incubating JDK Vector API (see VectorKernelsProvider), used when
+ * hive.vectorized.execution.vector.api.enabled is set.
+ */
+public class VectorKernels {
+
+  public enum ArithmeticOp {
+    ADD,
+    SUBTRACT,
+    MULTIPLY
+  }
+
+  public enum CompareOp {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_EQUAL,
+    GREATER,
+    GREATER_EQUAL;
+
+    /*
+     * @return The operator with the operands swapped, e.g. a < b is b > a.
+     */
+    public CompareOp swap() {
+      switch (this) {
+      case LESS:
+        return GREATER;
+      case LESS_EQUAL:
+        return GREATER_EQUAL;
+      case GREATER:
+        return LESS;
+      case GREATER_EQUAL:
+        return LESS_EQUAL;
+      default:
+        return this;
+      }
+    }
+  }
+
+  public static final VectorKernels SCALAR = new VectorKernels();
+
+  protected VectorKernels() {
+  }
+
+  public static VectorKernels get(Configuration conf) {
+    if (conf == null ||
+        !HiveConf.getBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_VECTOR_API_ENABLED)) {
+      return SCALAR;
+    }
+    VectorKernels vectorApiKernels = VectorKernelsProvider.getVectorApiKernels();
+    return (vectorApiKernels != null ? vectorApiKernels : SCALAR);
+  }
+
+  public void arithmetic(ArithmeticOp op, long[] vector1, long[] vector2, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] + vector2[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] - vector2[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] * vector2[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, long[] vector, long value, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] + value;
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] - value;
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] * value;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, long value, long[] vector, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = value + vector[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = value - vector[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = value * vector[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double[] vector1, double[] vector2, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] + vector2[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] - vector2[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] * vector2[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double[] vector, double value, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] + value;
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] - value;
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] * value;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double value, double[] vector, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      for (int i = 0; i < size; i++) {
+        output[i] = value + vector[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int i = 0; i < size; i++) {
+        output[i] = value - vector[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int i = 0; i < size; i++) {
+        output[i] = value * vector[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, long[] vector1, long[] vector2, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] == vector2[i] ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] != vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] < vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] <= vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] > vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] >= vector2[i] ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, long[] vector, long value, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] == value ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] != value ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] < value ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] <= value ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] > value ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] >= value ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, double[] vector1, double[] vector2, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] == vector2[i] ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] != vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] < vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] <= vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] > vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector1[i] >= vector2[i] ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, double[] vector, double value, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] == value ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] != value ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] < value ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] <= value ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] > value ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        output[i] = vector[i] >= value ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  /*
+   * Stores the rows that pass the comparison in selected.
+   *
+   * @return The number of rows that passed.
+   */
+  public int filter(CompareOp op, long[] vector1, long[] vector2, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] == vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] != vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] < vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] <= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] > vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] >= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filter(CompareOp op, long[] vector, long value, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filter(CompareOp op, double[] vector1, double[] vector2, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] == vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] != vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] < vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] <= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] > vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector1[i] >= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filter(CompareOp op, double[] vector, double value, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  /*
+   * The same operations over the rows in sel[0] to sel[size - 1].
+   */
+  public void arithmetic(ArithmeticOp op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] + vector2[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] - vector2[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] * vector2[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, long[] vector, long value,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] + value;
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] - value;
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] * value;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, long value, long[] vector,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value + vector[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value - vector[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value * vector[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double[] vector1, double[] vector2,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] + vector2[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] - vector2[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] * vector2[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double[] vector, double value,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] + value;
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] - value;
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] * value;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void arithmetic(ArithmeticOp op, double value, double[] vector,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value + vector[i];
+      }
+      break;
+    case SUBTRACT:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value - vector[i];
+      }
+      break;
+    case MULTIPLY:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = value * vector[i];
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] == vector2[i] ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] != vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] < vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] <= vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] > vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] >= vector2[i] ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, long[] vector, long value, long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] == value ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] != value ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] < value ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] <= value ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] > value ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] >= value ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, double[] vector1, double[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] == vector2[i] ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] != vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] < vector2[i] ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] <= vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] > vector2[i] ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector1[i] >= vector2[i] ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  public void compare(CompareOp op, double[] vector, double value,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] == value ? 1 : 0;
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] != value ? 1 : 0;
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] < value ? 1 : 0;
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] <= value ? 1 : 0;
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] > value ? 1 : 0;
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = sel[j];
+        output[i] = vector[i] >= value ? 1 : 0;
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  /*
+   * Keeps the rows of selected[0] to selected[size - 1] that pass the comparison, in place.
+   *
+   * @return The number of rows that passed.
+   */
+  public int filterSelected(CompareOp op, long[] vector1, long[] vector2,
+      int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] == vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] != vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] < vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] <= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] > vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] >= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filterSelected(CompareOp op, long[] vector, long value, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filterSelected(CompareOp op, double[] vector1, double[] vector2,
+      int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] == vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] != vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] < vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] <= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] > vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector1[i] >= vector2[i]) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filterSelected(CompareOp op, double[] vector, double value, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  /*
+   * The filters of a column with nulls, where the null rows never pass.
+   */
+  public int filter(CompareOp op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filterSelected(CompareOp op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filter(CompareOp op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int i = 0; i < size; i++) {
+        if (!isNull[i] && vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+
+  public int filterSelected(CompareOp op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    switch (op) {
+    case EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] == value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case NOT_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] != value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] < value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case LESS_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] <= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] > value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    case GREATER_EQUAL:
+      for (int j = 0; j < size; j++) {
+        final int i = selected[j];
+        if (!isNull[i] && vector[i] >= value) {
+          selected[newSize++] = i;
+        }
+      }
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+    return newSize;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import java.lang.reflect.Constructor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the JDK Vector API implementation of VectorKernels.
+ *
+ * JdkVectorKernels is compiled from src/java17 into META-INF/versions/17 of the multi-release
+ * hive-exec jar, so it is loaded reflectively: on Java 8 and 11 it is not found, and on Java 17
+ * and later it only links when the JVM is started with --add-modules jdk.incubator.vector.  In
+ * both cases the scalar kernels are used.
+ */
+public final class VectorKernelsProvider {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VectorKernelsProvider.class);
+
+  static final String VECTOR_API_KERNELS_CLASS =
+      "org.apache.hadoop.hive.ql.exec.vector.expressions.JdkVectorKernels";
+
+  private static final VectorKernels VECTOR_API_KERNELS = createVectorApiKernels();
+
+  private VectorKernelsProvider() {
+  }
+
+  private static VectorKernels createVectorApiKernels() {
+    try {
+      Constructor<? extends VectorKernels> constructor =
+          Class.forName(VECTOR_API_KERNELS_CLASS).asSubclass(VectorKernels.class)
+              .getDeclaredConstructor();
+      constructor.setAccessible(true);
+      VectorKernels kernels = constructor.newInstance();
+      LOG.info("Using the JDK Vector API for vector expressions");
+      return kernels;
+    } catch (ClassNotFoundException e) {
+      LOG.warn("The JDK Vector API kernels need Java 17 or later");
+    } catch (LinkageError e) {
+      LOG.warn("The jdk.incubator.vector module is not available; add " +
+          "--add-modules jdk.incubator.vector to the JVM options to use the JDK Vector API", e);
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Unable to create the JDK Vector API kernels", e);
+    }
+    return null;
+  }
+
+  /*
+   * @return The JDK Vector API kernels, or null when not available.
+   */
+  public static VectorKernels getVectorApiKernels() {
+    return VECTOR_API_KERNELS;
+  }
+}
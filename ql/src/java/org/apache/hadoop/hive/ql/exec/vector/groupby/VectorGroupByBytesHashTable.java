@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.groupby;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorColumnSetInfo;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.StringExpr;
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBase;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+
+/**
+ * Vectorized GROUP BY hash table for general keys made of long, double and string columns
+ * (the keys of VectorHashKeyWrapperGeneral).
+ *
+ * Each key is serialized into a byte slab: per key column a null byte followed, for non-NULL
+ * values, by 8 bytes for longs and doubles (raw bits, matching the double array equality of
+ * the key wrapper) or a 4 byte length and the bytes for strings.  Slots keep a reference to
+ * the serialized key and its length.
+ */
+public class VectorGroupByBytesHashTable extends VectorGroupByHashTable {
+
+  private static final int SLAB_SIZE = 1 << 20;
+
+  private final int keyCount;
+  private final ColumnVector.Type[] columnVectorTypes;
+  private final int[] columnTypeSpecificIndices;
+
+  private long[] keyRefs;
+  private int[] keyLengths;
+
+  private byte[][] slabs;
+  private int slabCount;
+  private int slabPosition;
+
+  private byte[] scratch;
+
+  public VectorGroupByBytesHashTable(VectorColumnSetInfo columnSetInfo, int initialCapacity) {
+    super(initialCapacity);
+    keyCount = columnSetInfo.keyCount;
+    columnVectorTypes = columnSetInfo.columnVectorTypes;
+    columnTypeSpecificIndices = columnSetInfo.columnTypeSpecificIndices;
+    keyRefs = new long[getCapacity()];
+    keyLengths = new int[getCapacity()];
+    slabs = new byte[4][];
+    slabCount = 0;
+    slabPosition = 0;
+    scratch = new byte[64];
+  }
+
+  @Override
+  public void probeBatch(VectorHashKeyWrapperBase[] keyWrappers, int count, int[] slots) {
+    ensureCapacity(count);
+
+    for (int i = 0; i < count; i++) {
+      final VectorHashKeyWrapperBase kw = keyWrappers[i];
+
+      // Clustered input often repeats the previous key.
+      if (i > 0 && kw.equals(keyWrappers[i - 1])) {
+        slots[i] = slots[i - 1];
+        continue;
+      }
+
+      final int keyLength = serializeKey(kw);
+      final int hash = kw.hashCode();
+
+      int slot = hash & capacityMask;
+      int firstDeleted = -1;
+      byte state;
+      while ((state = slotStates[slot]) != SLOT_EMPTY) {
+        if (state == SLOT_FULL && slotHashes[slot] == hash && keyLengths[slot] == keyLength) {
+          final long ref = keyRefs[slot];
+          if (StringExpr.equal(scratch, 0, keyLength,
+              slabs[(int) (ref >>> 32)], (int) ref, keyLength)) {
+            break;
+          }
+        }
+        if (state == SLOT_DELETED && firstDeleted == -1) {
+          firstDeleted = slot;
+        }
+        slot = (slot + 1) & capacityMask;
+      }
+      if (state == SLOT_EMPTY) {
+        if (firstDeleted != -1) {
+          slot = firstDeleted;
+        }
+        keyRefs[slot] = storeKey(scratch, 0, keyLength);
+        keyLengths[slot] = keyLength;
+        occupy(slot, SLOT_FULL, hash);
+      }
+      slots[i] = slot;
+    }
+  }
+
+  @Override
+  public void readKey(int slot, VectorHashKeyWrapperBase keyWrapper) {
+    final long ref = keyRefs[slot];
+    final byte[] slab = slabs[(int) (ref >>> 32)];
+    int pos = (int) ref;
+
+    keyWrapper.clearIsNull();
+    for (int keyIndex = 0; keyIndex < keyCount; keyIndex++) {
+      final int index = columnTypeSpecificIndices[keyIndex];
+      final boolean isNull = slab[pos++] != 0;
+      switch (columnVectorTypes[keyIndex]) {
+      case LONG:
+      case DECIMAL_64:
+        if (isNull) {
+          keyWrapper.assignNullLong(keyIndex, index);
+        } else {
+          keyWrapper.assignLong(keyIndex, index, readLong(slab, pos));
+          pos += 8;
+        }
+        break;
+      case DOUBLE:
+        if (isNull) {
+          keyWrapper.assignNullDouble(keyIndex, index);
+        } else {
+          keyWrapper.assignDouble(index, Double.longBitsToDouble(readLong(slab, pos)));
+          pos += 8;
+        }
+        break;
+      case BYTES:
+        if (isNull) {
+          keyWrapper.assignNullString(keyIndex, index);
+        } else {
+          final int length = readInt(slab, pos);
+          pos += 4;
+          keyWrapper.assignString(index, slab, pos, length);
+          pos += length;
+        }
+        break;
+      default:
+        throw new RuntimeException("Unexpected column vector type " + columnVectorTypes[keyIndex]);
+      }
+    }
+  }
+
+  /**
+   * Serializes the key of a wrapper into the scratch buffer and returns its length.
+   */
+  private int serializeKey(VectorHashKeyWrapperBase kw) {
+    int pos = 0;
+    for (int keyIndex = 0; keyIndex < keyCount; keyIndex++) {
+      final int index = columnTypeSpecificIndices[keyIndex];
+      ensureScratch(pos + 1 + 8);
+      if (kw.isNull(keyIndex)) {
+        scratch[pos++] = 1;
+        continue;
+      }
+      scratch[pos++] = 0;
+      switch (columnVectorTypes[keyIndex]) {
+      case LONG:
+      case DECIMAL_64:
+        writeLong(scratch, pos, kw.getLongValue(index));
+        pos += 8;
+        break;
+      case DOUBLE:
+        writeLong(scratch, pos, Double.doubleToLongBits(kw.getDoubleValue(index)));
+        pos += 8;
+        break;
+      case BYTES:
+        {
+          final int length = kw.getByteLength(index);
+          ensureScratch(pos + 4 + length);
+          writeInt(scratch, pos, length);
+          pos += 4;
+          System.arraycopy(kw.getBytes(index), kw.getByteStart(index), scratch, pos, length);
+          pos += length;
+        }
+        break;
+      default:
+        throw new RuntimeException("Unexpected column vector type " + columnVectorTypes[keyIndex]);
+      }
+    }
+    return pos;
+  }
+
+  private void ensureScratch(int length) {
+    if (scratch.length < length) {
+      scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+    }
+  }
+
+  /**
+   * Appends key bytes to the current slab and returns the (slab index, offset) reference.
+   */
+  private long storeKey(byte[] bytes, int start, int length) {
+    if (slabCount == 0 || slabPosition + length > slabs[slabCount - 1].length) {
+      if (slabCount == slabs.length) {
+        slabs = Arrays.copyOf(slabs, slabs.length * 2);
+      }
+      slabs[slabCount++] = new byte[Math.max(SLAB_SIZE, length)];
+      slabPosition = 0;
+    }
+    final int offset = slabPosition;
+    System.arraycopy(bytes, start, slabs[slabCount - 1], offset, length);
+    slabPosition += length;
+    return (((long) (slabCount - 1)) << 32) | offset;
+  }
+
+  @Override
+  protected void rehashKeys(int[] oldToNewSlot, int newCapacity) {
+    final long[] oldKeyRefs = keyRefs;
+    final int[] oldKeyLengths = keyLengths;
+    final byte[][] oldSlabs = slabs;
+    keyRefs = new long[newCapacity];
+    keyLengths = new int[newCapacity];
+
+    // Copying the live keys into fresh slabs reclaims the bytes of removed keys.
+    slabs = new byte[4][];
+    slabCount = 0;
+    slabPosition = 0;
+    for (int oldSlot = 0; oldSlot < oldToNewSlot.length; oldSlot++) {
+      final int newSlot = oldToNewSlot[oldSlot];
+      if (newSlot != -1) {
+        final long ref = oldKeyRefs[oldSlot];
+        final int length = oldKeyLengths[oldSlot];
+        keyRefs[newSlot] = storeKey(oldSlabs[(int) (ref >>> 32)], (int) ref, length);
+        keyLengths[newSlot] = length;
+      }
+    }
+  }
+
+  @Override
+  protected long getKeySlotSize(JavaDataModel model) {
+    // The serialized key bytes are accounted as variable size.
+    return model.primitive2() + model.primitive1();
+  }
+
+  @Override
+  protected void clearKeys() {
+    // Keep the first slab for reuse.
+    if (slabCount > 1) {
+      Arrays.fill(slabs, 1, slabCount, null);
+      slabCount = 1;
+    }
+    slabPosition = 0;
+  }
+
+  private static void writeLong(byte[] bytes, int pos, long value) {
+    for (int i = 7; i >= 0; i--) {
+      bytes[pos + i] = (byte) value;
+      value >>>= 8;
+    }
+  }
+
+  private static long readLong(byte[] bytes, int pos) {
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (bytes[pos + i] & 0xFF);
+    }
+    return value;
+  }
+
+  private static void writeInt(byte[] bytes, int pos, int value) {
+    bytes[pos] = (byte) (value >>> 24);
+    bytes[pos + 1] = (byte) (value >>> 16);
+    bytes[pos + 2] = (byte) (value >>> 8);
+    bytes[pos + 3] = (byte) value;
+  }
+
+  private static int readInt(byte[] bytes, int pos) {
+    return ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16) |
+        ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+  }
+}
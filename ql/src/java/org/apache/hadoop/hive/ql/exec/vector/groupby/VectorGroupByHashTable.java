@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.groupby;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.VectorAggregationBufferRow;
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBase;
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBatch;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Open addressing (linear probing) hash table used by the vectorized GROUP BY hash aggregation
+ * mode in place of a java.util.HashMap keyed by cloned key wrappers.
+ *
+ * Keys are kept in flat primitive arrays (or byte slabs) owned by the subclasses, so adding a
+ * new group does not allocate a key wrapper copy nor a map entry.  The aggregation buffer row
+ * of each group is kept in a parallel array indexed by slot.
+ *
+ * A whole batch of key wrappers is probed at once by {@link #probeBatch}, which reserves the
+ * capacity up front so slot numbers handed out for a batch stay valid until the next call.
+ *
+ * Removed slots become tombstones so entries can be removed while iterating the slots during
+ * a partial flush.  Tombstones are purged by the next rehash.
+ */
+public abstract class VectorGroupByHashTable {
+
+  protected static final byte SLOT_EMPTY = 0;
+  protected static final byte SLOT_DELETED = 1;
+
+  // A full slot has SLOT_FULL set; the null flags of the key columns are OR'ed in.
+  protected static final byte SLOT_FULL = 2;
+  protected static final byte SLOT_NULL0 = 4;
+  protected static final byte SLOT_NULL1 = 8;
+
+  private static final int MIN_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  protected byte[] slotStates;
+  protected int[] slotHashes;
+  protected VectorAggregationBufferRow[] values;
+  protected int capacityMask;
+
+  private int size;
+  private int deletedCount;
+  private int resizeThreshold;
+
+  protected VectorGroupByHashTable(int initialCapacity) {
+    allocateSlots(capacityFor(initialCapacity));
+  }
+
+  /**
+   * Creates the hash table variant matching the key wrappers allocated for the key
+   * columns, or returns null when the keys are not supported (no keys, or decimal,
+   * timestamp and interval keys which do not have a cheap canonical serialization).
+   */
+  public static VectorGroupByHashTable create(VectorHashKeyWrapperBatch keyWrappersBatch,
+      int initialCapacity) {
+    if (keyWrappersBatch.keyCount == 0 ||
+        keyWrappersBatch.decimalIndices.length > 0 ||
+        keyWrappersBatch.timestampIndices.length > 0 ||
+        keyWrappersBatch.intervalDayTimeIndices.length > 0) {
+      return null;
+    }
+
+    // Mirror the wrapper selection of VectorHashKeyWrapperFactory.
+    final int longCount = keyWrappersBatch.longIndices.length;
+    if (keyWrappersBatch.doubleIndices.length == 0 && keyWrappersBatch.stringIndices.length == 0) {
+      if (longCount == 1) {
+        return new VectorGroupByLongHashTable(initialCapacity);
+      } else if (longCount == 2) {
+        return new VectorGroupByTwoLongHashTable(initialCapacity);
+      }
+    }
+    return new VectorGroupByBytesHashTable(keyWrappersBatch, initialCapacity);
+  }
+
+  /**
+   * Finds or adds the keys of the first count key wrappers and stores the slot of each
+   * key in slots.  Newly added slots have a null value that the caller must set.
+   */
+  public abstract void probeBatch(VectorHashKeyWrapperBase[] keyWrappers, int count,
+      int[] slots);
+
+  /**
+   * Copies the key stored in a full slot into a key wrapper of the type produced by the
+   * key wrapper batch, so it can be written to the output batch.
+   */
+  public abstract void readKey(int slot, VectorHashKeyWrapperBase keyWrapper);
+
+  /**
+   * Moves the keys of the full slots to their new position after a rehash.
+   * oldToNewSlot is -1 for slots that were not full.
+   */
+  protected abstract void rehashKeys(int[] oldToNewSlot, int newCapacity);
+
+  /**
+   * Per key size of the key storage, in bytes.
+   */
+  protected abstract long getKeySlotSize(JavaDataModel model);
+
+  /**
+   * Releases the key storage after all entries were removed.
+   */
+  protected abstract void clearKeys();
+
+  /**
+   * Amortized fixed memory cost of one entry, including the empty slots implied by the
+   * load factor.  Used by the operator memory accounting in place of a HashMap entry size.
+   */
+  public long getEntryFixedSize(JavaDataModel model) {
+    long slotSize = 1 + 4 + model.ref() + getKeySlotSize(model);
+    return (long) (slotSize / LOAD_FACTOR);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Slots are numbered 0 to getCapacity() - 1; use {@link #isFull} to skip the unused ones.
+   */
+  public int getCapacity() {
+    return slotStates.length;
+  }
+
+  public boolean isFull(int slot) {
+    return slotStates[slot] >= SLOT_FULL;
+  }
+
+  public VectorAggregationBufferRow getValue(int slot) {
+    return values[slot];
+  }
+
+  public void setValue(int slot, VectorAggregationBufferRow value) {
+    values[slot] = value;
+  }
+
+  /**
+   * Removes the entry of a full slot.  Safe to call while iterating the slots.
+   */
+  public void remove(int slot) {
+    Preconditions.checkState(isFull(slot));
+    slotStates[slot] = SLOT_DELETED;
+    values[slot] = null;
+    size--;
+    deletedCount++;
+  }
+
+  /**
+   * Removes all the entries; the slot arrays are kept for reuse.
+   */
+  public void clear() {
+    Arrays.fill(slotStates, SLOT_EMPTY);
+    Arrays.fill(values, null);
+    size = 0;
+    deletedCount = 0;
+    clearKeys();
+  }
+
+  /**
+   * Marks a slot found by a probe as full.
+   */
+  protected final void occupy(int slot, byte state, int hash) {
+    if (slotStates[slot] == SLOT_DELETED) {
+      deletedCount--;
+    }
+    slotStates[slot] = state;
+    slotHashes[slot] = hash;
+    size++;
+  }
+
+  /**
+   * Makes room for count more keys so a batch probe never rehashes midway.
+   */
+  protected final void ensureCapacity(int count) {
+    if (size + deletedCount + count <= resizeThreshold) {
+      return;
+    }
+    // When mostly tombstones are in the way a same size rehash is enough.
+    rehash(capacityFor(size + count));
+  }
+
+  private static int capacityFor(int entries) {
+    long capacity = MIN_CAPACITY;
+    while (capacity * LOAD_FACTOR < entries) {
+      capacity <<= 1;
+    }
+    Preconditions.checkState(capacity <= MAX_CAPACITY,
+        "Vector GROUP BY hash table capacity exceeded for %s entries", entries);
+    return (int) capacity;
+  }
+
+  private void allocateSlots(int capacity) {
+    slotStates = new byte[capacity];
+    slotHashes = new int[capacity];
+    values = new VectorAggregationBufferRow[capacity];
+    capacityMask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  private void rehash(int newCapacity) {
+    final byte[] oldStates = slotStates;
+    final int[] oldHashes = slotHashes;
+    final VectorAggregationBufferRow[] oldValues = values;
+    final int oldCapacity = oldStates.length;
+
+    allocateSlots(newCapacity);
+
+    int[] oldToNewSlot = new int[oldCapacity];
+    for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      final byte state = oldStates[oldSlot];
+      if (state < SLOT_FULL) {
+        oldToNewSlot[oldSlot] = -1;
+        continue;
+      }
+      final int hash = oldHashes[oldSlot];
+      int slot = hash & capacityMask;
+      while (slotStates[slot] != SLOT_EMPTY) {
+        slot = (slot + 1) & capacityMask;
+      }
+      slotStates[slot] = state;
+      slotHashes[slot] = hash;
+      values[slot] = oldValues[oldSlot];
+      oldToNewSlot[oldSlot] = slot;
+    }
+    deletedCount = 0;
+
+    rehashKeys(oldToNewSlot, newCapacity);
+  }
+}
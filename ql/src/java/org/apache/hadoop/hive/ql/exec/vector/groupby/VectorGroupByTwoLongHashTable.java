@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.groupby;
+
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBase;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+
+/**
+ * Vectorized GROUP BY hash table for two long keys
+ * (the keys of VectorHashKeyWrapperTwoLong).
+ */
+public class VectorGroupByTwoLongHashTable extends VectorGroupByHashTable {
+
+  private long[] keys0;
+  private long[] keys1;
+
+  public VectorGroupByTwoLongHashTable(int initialCapacity) {
+    super(initialCapacity);
+    keys0 = new long[getCapacity()];
+    keys1 = new long[getCapacity()];
+  }
+
+  @Override
+  public void probeBatch(VectorHashKeyWrapperBase[] keyWrappers, int count, int[] slots) {
+    ensureCapacity(count);
+
+    for (int i = 0; i < count; i++) {
+      final VectorHashKeyWrapperBase kw = keyWrappers[i];
+
+      // Clustered input often repeats the previous key.
+      if (i > 0 && kw.equals(keyWrappers[i - 1])) {
+        slots[i] = slots[i - 1];
+        continue;
+      }
+
+      final boolean isNull0 = kw.isNull(0);
+      final boolean isNull1 = kw.isNull(1);
+      final long key0 = isNull0 ? 0 : kw.getLongValue(0);
+      final long key1 = isNull1 ? 0 : kw.getLongValue(1);
+      byte fullState = SLOT_FULL;
+      if (isNull0) {
+        fullState |= SLOT_NULL0;
+      }
+      if (isNull1) {
+        fullState |= SLOT_NULL1;
+      }
+      final int hash = kw.hashCode();
+
+      int slot = hash & capacityMask;
+      int firstDeleted = -1;
+      byte state;
+      while ((state = slotStates[slot]) != SLOT_EMPTY) {
+        if (state == fullState && keys0[slot] == key0 && keys1[slot] == key1) {
+          break;
+        }
+        if (state == SLOT_DELETED && firstDeleted == -1) {
+          firstDeleted = slot;
+        }
+        slot = (slot + 1) & capacityMask;
+      }
+      if (state == SLOT_EMPTY) {
+        if (firstDeleted != -1) {
+          slot = firstDeleted;
+        }
+        keys0[slot] = key0;
+        keys1[slot] = key1;
+        occupy(slot, fullState, hash);
+      }
+      slots[i] = slot;
+    }
+  }
+
+  @Override
+  public void readKey(int slot, VectorHashKeyWrapperBase keyWrapper) {
+    final byte state = slotStates[slot];
+    if ((state & SLOT_NULL0) != 0) {
+      keyWrapper.assignNullLong(0, 0);
+    } else {
+      keyWrapper.assignLong(0, 0, keys0[slot]);
+    }
+    if ((state & SLOT_NULL1) != 0) {
+      keyWrapper.assignNullLong(1, 1);
+    } else {
+      keyWrapper.assignLong(1, 1, keys1[slot]);
+    }
+  }
+
+  @Override
+  protected void rehashKeys(int[] oldToNewSlot, int newCapacity) {
+    final long[] oldKeys0 = keys0;
+    final long[] oldKeys1 = keys1;
+    keys0 = new long[newCapacity];
+    keys1 = new long[newCapacity];
+    for (int oldSlot = 0; oldSlot < oldToNewSlot.length; oldSlot++) {
+      final int newSlot = oldToNewSlot[oldSlot];
+      if (newSlot != -1) {
+        keys0[newSlot] = oldKeys0[oldSlot];
+        keys1[newSlot] = oldKeys1[oldSlot];
+      }
+    }
+  }
+
+  @Override
+  protected long getKeySlotSize(JavaDataModel model) {
+    return 2 * model.primitive2();
+  }
+
+  @Override
+  protected void clearKeys() {
+    // Stale keys are ignored since their slots are empty.
+  }
+}
@@ -36,6 +36,7 @@
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainerSerDe;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorColumnMapping;
 import org.apache.hadoop.hive.ql.exec.vector.VectorColumnOutputMapping;
 import org.apache.hadoop.hive.ql.exec.vector.VectorColumnSourceMapping;
@@ -48,6 +49,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.optimized.VectorMapJoinOptimizedCreateHashTable;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTable;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinTableContainer;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast.VectorMapJoinFastHashTableLoader;
@@ -275,6 +277,17 @@ protected void initLoggingPrefix(String className) {
   protected transient long batchCounter;
   protected transient long rowCounter;
 
+  // The Bloom filter over the small table keys, when the hash table has one.  Big table rows
+  // it rules out are dropped before the hash table lookups.
+  protected transient VectorMapJoinBloomFilter bloomFilter;
+
+  // The Bloom filter is given up on when it drops too few rows to pay for itself.
+  protected transient long bloomFilterProbeCount;
+  protected transient long bloomFilterDropCount;
+
+  private static final long BLOOM_FILTER_CHECK_ROWS = 100000;
+  private static final double BLOOM_FILTER_MIN_DROP_RATIO = 0.1;
+
   /** Kryo ctor. */
   protected VectorMapJoinCommonOperator() {
     super();
@@ -780,6 +793,107 @@ public void firstBatchSetup(VectorizedRowBatch batch) throws HiveException {
    * Perform any Native Vector MapJoin operator specific hash table setup.
    */
   public void hashTableSetup() throws HiveException {
+    bloomFilter = vectorMapJoinHashTable.bloomFilter();
+    bloomFilterProbeCount = 0;
+    bloomFilterDropCount = 0;
+  }
+
+  /*
+   * Drop the rows of a batch whose single long key is NULL, outside the small table min / max
+   * range or not in the Bloom filter, by shrinking batch.selected.  Only valid for the join
+   * variations that never output a non-matching big table row.
+   *
+   * A repeating key column is left alone since its key is only looked up once anyway.
+   */
+  protected void prefilterLongKeys(VectorizedRowBatch batch, LongColumnVector joinColVector,
+      boolean useMinMax, long min, long max) {
+    if (joinColVector.isRepeating || (bloomFilter == null && !useMinMax)) {
+      return;
+    }
+    final VectorMapJoinBloomFilter bloomFilter = this.bloomFilter;
+    final int inputLogicalSize = batch.size;
+    final int[] selected = batch.selected;
+    final boolean selectedInUse = batch.selectedInUse;
+    final long[] vector = joinColVector.vector;
+    final boolean noNulls = joinColVector.noNulls;
+    final boolean[] isNull = joinColVector.isNull;
+
+    int bloomFilterDrops = 0;
+    int newSize = 0;
+    for (int logical = 0; logical < inputLogicalSize; logical++) {
+      final int batchIndex = (selectedInUse ? selected[logical] : logical);
+      if (!noNulls && isNull[batchIndex]) {
+        continue;
+      }
+      final long key = vector[batchIndex];
+      if (useMinMax && (key < min || key > max)) {
+        continue;
+      }
+      if (bloomFilter != null && !bloomFilter.mightContainLong(key)) {
+        bloomFilterDrops++;
+        continue;
+      }
+      selected[newSize++] = batchIndex;
+    }
+    finishPrefilter(batch, newSize, bloomFilterDrops);
+  }
+
+  /*
+   * Drop the rows of a batch whose single bytes key is NULL or not in the Bloom filter.
+   *
+   * See prefilterLongKeys.
+   */
+  protected void prefilterBytesKeys(VectorizedRowBatch batch, BytesColumnVector joinColVector) {
+    if (joinColVector.isRepeating || bloomFilter == null) {
+      return;
+    }
+    final VectorMapJoinBloomFilter bloomFilter = this.bloomFilter;
+    final int inputLogicalSize = batch.size;
+    final int[] selected = batch.selected;
+    final boolean selectedInUse = batch.selectedInUse;
+    final byte[][] vector = joinColVector.vector;
+    final int[] start = joinColVector.start;
+    final int[] length = joinColVector.length;
+    final boolean noNulls = joinColVector.noNulls;
+    final boolean[] isNull = joinColVector.isNull;
+
+    int bloomFilterDrops = 0;
+    int newSize = 0;
+    for (int logical = 0; logical < inputLogicalSize; logical++) {
+      final int batchIndex = (selectedInUse ? selected[logical] : logical);
+      if (!noNulls && isNull[batchIndex]) {
+        continue;
+      }
+      if (!bloomFilter.mightContainBytes(
+          vector[batchIndex], start[batchIndex], length[batchIndex])) {
+        bloomFilterDrops++;
+        continue;
+      }
+      selected[newSize++] = batchIndex;
+    }
+    finishPrefilter(batch, newSize, bloomFilterDrops);
+  }
+
+  private void finishPrefilter(VectorizedRowBatch batch, int newSize, int bloomFilterDrops) {
+    if (newSize < batch.size) {
+      batch.size = newSize;
+      batch.selectedInUse = true;
+    }
+
+    if (bloomFilter != null) {
+      bloomFilterProbeCount += newSize + bloomFilterDrops;
+      bloomFilterDropCount += bloomFilterDrops;
+      if (bloomFilterProbeCount >= BLOOM_FILTER_CHECK_ROWS) {
+        if (bloomFilterDropCount < bloomFilterProbeCount * BLOOM_FILTER_MIN_DROP_RATIO) {
+          // Most rows match; the hash table lookups alone are cheaper.
+          LOG.info(getLoggingPrefix() + " Bloom filter dropped only " + bloomFilterDropCount +
+              " of " + bloomFilterProbeCount + " rows, no longer using it");
+          bloomFilter = null;
+        }
+        bloomFilterProbeCount = 0;
+        bloomFilterDropCount = 0;
+      }
+    }
   }
 
   /*
@@ -133,8 +133,7 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         ve.evaluate(batch);
       }
 
-      final int inputLogicalSize = batch.size;
-      if (inputLogicalSize == 0) {
+      if (batch.size == 0) {
         return;
       }
 
@@ -145,6 +144,14 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         }
       }
 
+      // Drop the rows whose key cannot be in the small table before the lookups.
+      prefilterBytesKeys(batch, (BytesColumnVector) batch.cols[singleJoinColumn]);
+
+      final int inputLogicalSize = batch.size;
+      if (inputLogicalSize == 0) {
+        return;
+      }
+
       // We rebuild in-place the selected array with rows destine to be forwarded.
       int numSel = 0;
 
@@ -140,8 +140,7 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         ve.evaluate(batch);
       }
 
-      final int inputLogicalSize = batch.size;
-      if (inputLogicalSize == 0) {
+      if (batch.size == 0) {
         return;
       }
 
@@ -152,6 +151,14 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         }
       }
 
+      // Drop the rows whose key cannot be in the small table before the lookups.
+      prefilterLongKeys(batch, (LongColumnVector) batch.cols[singleJoinColumn], useMinMax, min, max);
+
+      final int inputLogicalSize = batch.size;
+      if (inputLogicalSize == 0) {
+        return;
+      }
+
       /*
        * Single-Column Long specific declarations.
        */
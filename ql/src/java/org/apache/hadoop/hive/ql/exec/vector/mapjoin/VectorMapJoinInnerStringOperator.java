@@ -131,8 +131,7 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         ve.evaluate(batch);
       }
 
-      final int inputLogicalSize = batch.size;
-      if (inputLogicalSize == 0) {
+      if (batch.size == 0) {
         return;
       }
 
@@ -143,6 +142,14 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         }
       }
 
+      // Drop the rows whose key cannot be in the small table before the lookups.
+      prefilterBytesKeys(batch, (BytesColumnVector) batch.cols[singleJoinColumn]);
+
+      final int inputLogicalSize = batch.size;
+      if (inputLogicalSize == 0) {
+        return;
+      }
+
       /*
        * Single-Column String specific declarations.
        */
@@ -69,7 +69,7 @@ public static int calculateHashCode(long refWord, WriteBuffers writeBuffers,
 
       // And, if current value is big we must read it.
       actualKeyLength = writeBuffers.readVInt(readPos);
-      keyAbsoluteOffset = absoluteOffset + actualKeyLength;
+      keyAbsoluteOffset = writeBuffers.getReadPoint(readPos);
     } else {
       keyAbsoluteOffset = absoluteOffset;
     }
@@ -23,6 +23,7 @@
 import org.apache.hadoop.hive.ql.util.JavaDataModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBytesHashTable;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.serde2.WriteBuffers;
@@ -119,6 +120,18 @@ protected void expandAndRehash() {
     metricExpands++;
   }
 
+  @Override
+  public void addKeysToBloomFilter(VectorMapJoinBloomFilter bloomFilter) {
+    for (int slot = 0; slot < logicalHashBucketCount; slot++) {
+      final long refWord = slots[slot];
+      if (refWord != 0) {
+        bloomFilter.add(
+            VectorMapJoinFastBytesHashKeyRef.calculateHashCode(
+                refWord, writeBuffers, unsafeReadPos));
+      }
+    }
+  }
+
   /*
    * The hash table slots for fast HashMap.
    */
@@ -23,6 +23,7 @@
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.hive.ql.exec.mapjoin.MapJoinMemoryExhaustionError;
 import org.apache.hadoop.hive.ql.exec.persistence.MatchTracker;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTable;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinNonMatchedIterator;
 
@@ -48,6 +49,8 @@ public abstract class VectorMapJoinFastHashTable implements VectorMapJoinHashTab
   protected int resizeThreshold;
   protected int metricExpands;
 
+  protected VectorMapJoinBloomFilter bloomFilter;
+
   // 2^30 (we cannot use Integer.MAX_VALUE which is 2^31-1).
   public static final int HIGHEST_INT_POWER_OF_2 = 1073741824;
 
@@ -101,6 +104,20 @@ public int size() {
     return keysAssigned;
   }
 
+  /*
+   * Adds the hash codes of all the keys to a Bloom filter; used once the table is loaded.
+   */
+  public abstract void addKeysToBloomFilter(VectorMapJoinBloomFilter bloomFilter);
+
+  public void setBloomFilter(VectorMapJoinBloomFilter bloomFilter) {
+    this.bloomFilter = bloomFilter;
+  }
+
+  @Override
+  public VectorMapJoinBloomFilter bloomFilter() {
+    return bloomFilter;
+  }
+
   protected final boolean checkResize() {
     // resize small hashtables up to a higher width (4096 items), but when there are collisions
     return (resizeThreshold <= keysAssigned)
@@ -115,6 +132,9 @@ public long getEstimatedMemorySize() {
     if (isFullOuter) {
       size += MatchTracker.calculateEstimatedMemorySize(logicalHashBucketCount);
     }
+    if (bloomFilter != null) {
+      size += bloomFilter.getEstimatedMemorySize();
+    }
     return size;
   }
 
@@ -18,8 +18,16 @@
 package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.hadoop.hive.llap.LlapDaemonInfo;
 import org.apache.hadoop.hive.ql.exec.MemoryMonitorInfo;
@@ -39,6 +47,7 @@
 import org.apache.hadoop.hive.ql.exec.tez.TezContext;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.plan.MapJoinDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc;
 import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.tez.runtime.api.Input;
@@ -46,6 +55,9 @@
 import org.apache.tez.runtime.library.api.KeyValueReader;
 import org.apache.tez.runtime.api.AbstractLogicalInput;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * HashTableLoader for Tez constructs the hashtable from records read from
  * a broadcast edge.
@@ -54,6 +66,9 @@ public class VectorMapJoinFastHashTableLoader implements org.apache.hadoop.hive.
 
   private static final Logger LOG = LoggerFactory.getLogger(VectorMapJoinFastHashTableLoader.class.getName());
 
+  // Row batches queued per sub-table builder.
+  private static final int PARTITION_QUEUE_SIZE = 4;
+
   private Configuration hconf;
   protected MapJoinDesc desc;
   private TezContext tezContext;
@@ -149,25 +164,32 @@ public void load(MapJoinTableContainer[] mapJoinTables,
 
         vectorMapJoinFastTableContainer.setSerde(null, null); // No SerDes here.
         long startTime = System.currentTimeMillis();
-        while (kvReader.next()) {
-          vectorMapJoinFastTableContainer.putRow((BytesWritable)kvReader.getCurrentKey(),
-              (BytesWritable)kvReader.getCurrentValue());
-          numEntries++;
-          if (doMemCheck && (numEntries % memoryMonitorInfo.getMemoryCheckInterval() == 0)) {
-              final long estMemUsage = vectorMapJoinFastTableContainer.getEstimatedMemorySize();
-              if (estMemUsage > effectiveThreshold) {
-                String msg = "Hash table loading exceeded memory limits for input: " + inputName +
-                  " numEntries: " + numEntries + " estimatedMemoryUsage: " + estMemUsage +
-                  " effectiveThreshold: " + effectiveThreshold + " memoryMonitorInfo: " + memoryMonitorInfo;
-                LOG.error(msg);
-                throw new MapJoinMemoryExhaustionError(msg);
-              } else {
-                if (LOG.isInfoEnabled()) {
-                  LOG.info("Checking hash table loader memory usage for input: {} numEntries: {} " +
-                      "estimatedMemoryUsage: {} effectiveThreshold: {}", inputName, numEntries, estMemUsage,
-                    effectiveThreshold);
+        VectorMapJoinFastPartitionedHashTable partitionedHashTable =
+            vectorMapJoinFastTableContainer.partitionedHashTable();
+        if (partitionedHashTable != null) {
+          numEntries = loadPartitioned(kvReader, partitionedHashTable, inputName,
+              doMemCheck, effectiveThreshold, memoryMonitorInfo);
+        } else {
+          while (kvReader.next()) {
+            vectorMapJoinFastTableContainer.putRow((BytesWritable)kvReader.getCurrentKey(),
+                (BytesWritable)kvReader.getCurrentValue());
+            numEntries++;
+            if (doMemCheck && (numEntries % memoryMonitorInfo.getMemoryCheckInterval() == 0)) {
+                final long estMemUsage = vectorMapJoinFastTableContainer.getEstimatedMemorySize();
+                if (estMemUsage > effectiveThreshold) {
+                  String msg = "Hash table loading exceeded memory limits for input: " + inputName +
+                    " numEntries: " + numEntries + " estimatedMemoryUsage: " + estMemUsage +
+                    " effectiveThreshold: " + effectiveThreshold + " memoryMonitorInfo: " + memoryMonitorInfo;
+                  LOG.error(msg);
+                  throw new MapJoinMemoryExhaustionError(msg);
+                } else {
+                  if (LOG.isInfoEnabled()) {
+                    LOG.info("Checking hash table loader memory usage for input: {} numEntries: {} " +
+                        "estimatedMemoryUsage: {} effectiveThreshold: {}", inputName, numEntries, estMemUsage,
+                      effectiveThreshold);
+                  }
                 }
-              }
+            }
           }
         }
         long delta = System.currentTimeMillis() - startTime;
@@ -192,4 +214,218 @@ public void load(MapJoinTableContainer[] mapJoinTables,
       }
     }
   }
+
+  /*
+   * A batch of small table rows of one partition handed from the reading thread to the thread
+   * building the partition's sub-table.  The reader reuses its key and value buffers so the
+   * rows are copied.
+   */
+  private static final class RowBatch {
+    private static final int SIZE = 1024;
+
+    private final BytesWritable[] keys = new BytesWritable[SIZE];
+    private final BytesWritable[] values = new BytesWritable[SIZE];
+    private int count;
+
+    private void add(BytesWritable key, BytesWritable value) {
+      keys[count] = new BytesWritable(Arrays.copyOf(key.getBytes(), key.getLength()));
+      values[count] = new BytesWritable(Arrays.copyOf(value.getBytes(), value.getLength()));
+      count++;
+    }
+
+    private boolean isFull() {
+      return count == SIZE;
+    }
+  }
+
+  /*
+   * The pool building the sub-tables of the partitioned hash tables, shared by all the loads of
+   * the process so that concurrent fragments don't add threads of their own.
+   */
+  private static ExecutorService buildPool = null;
+
+  private static synchronized ExecutorService getBuildPool(Configuration conf) {
+    if (buildPool == null) {
+      int poolSize = HiveConf.getIntVar(conf, HiveConf.ConfVars.HIVE_MAPJOIN_FAST_HASHTABLE_LOAD_POOL_SIZE);
+      if (poolSize <= 0) {
+        poolSize = LlapDaemonInfo.INSTANCE.isLlap() ? LlapDaemonInfo.INSTANCE.getNumExecutors()
+            : Runtime.getRuntime().availableProcessors();
+      }
+      LOG.info("Creating the hash table build pool with {} threads", poolSize);
+      buildPool = Executors.newFixedThreadPool(Math.max(1, poolSize),
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("HashTableLoader-%d").build());
+    }
+    return buildPool;
+  }
+
+  private long loadPartitioned(KeyValueReader kvReader,
+      VectorMapJoinFastPartitionedHashTable partitionedHashTable, String inputName,
+      boolean doMemCheck, long effectiveThreshold, MemoryMonitorInfo memoryMonitorInfo)
+      throws Exception {
+    VectorMapJoinFastKeyPartitioner keyPartitioner = new VectorMapJoinFastKeyPartitioner(
+        ((VectorMapJoinDesc) desc.getVectorDesc()).getHashTableKeyType(), desc.getKeyTblDesc(),
+        partitionedHashTable.getPartitionCount());
+    return loadPartitioned(kvReader, partitionedHashTable, keyPartitioner, getBuildPool(hconf), inputName,
+        doMemCheck, effectiveThreshold, memoryMonitorInfo);
+  }
+
+  /*
+   * Loads a partitioned hash table: this thread reads and partitions the rows while the pool
+   * builds the sub-tables, one batch task at a time per sub-table so no sub-table is shared
+   * between threads.  The batch tasks never wait, so the loads sharing a busy pool only slow
+   * down.  The batches in flight per sub-table are bounded to keep the rows in memory small.
+   */
+  @VisibleForTesting
+  static long loadPartitioned(KeyValueReader kvReader,
+      VectorMapJoinFastPartitionedHashTable partitionedHashTable,
+      VectorMapJoinFastKeyPartitioner keyPartitioner, Executor pool, String inputName,
+      boolean doMemCheck, long effectiveThreshold, MemoryMonitorInfo memoryMonitorInfo)
+      throws Exception {
+
+    final int partitionCount = partitionedHashTable.getPartitionCount();
+    PartitionBuilder[] builders = new PartitionBuilder[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      builders[i] = new PartitionBuilder(partitionedHashTable.getPartition(i), pool);
+    }
+    try {
+      long numEntries = 0;
+      RowBatch[] batches = new RowBatch[partitionCount];
+      while (kvReader.next()) {
+        BytesWritable currentKey = (BytesWritable) kvReader.getCurrentKey();
+        int partition = keyPartitioner.partition(currentKey);
+        // NULL keys are not stored.
+        if (partition != -1) {
+          if (batches[partition] == null) {
+            batches[partition] = new RowBatch();
+          }
+          batches[partition].add(currentKey, (BytesWritable) kvReader.getCurrentValue());
+          if (batches[partition].isFull()) {
+            builders[partition].add(batches[partition]);
+            batches[partition] = null;
+          }
+        }
+        numEntries++;
+        if (doMemCheck && (numEntries % memoryMonitorInfo.getMemoryCheckInterval() == 0)) {
+          long estMemUsage = 0;
+          for (int i = 0; i < partitionCount; i++) {
+            estMemUsage += builders[i].estimatedMemorySize;
+          }
+          if (estMemUsage > effectiveThreshold) {
+            String msg = "Hash table loading exceeded memory limits for input: " + inputName +
+              " numEntries: " + numEntries + " estimatedMemoryUsage: " + estMemUsage +
+              " effectiveThreshold: " + effectiveThreshold + " memoryMonitorInfo: " + memoryMonitorInfo;
+            LOG.error(msg);
+            throw new MapJoinMemoryExhaustionError(msg);
+          } else {
+            if (LOG.isInfoEnabled()) {
+              LOG.info("Checking hash table loader memory usage for input: {} numEntries: {} " +
+                  "estimatedMemoryUsage: {} effectiveThreshold: {}", inputName, numEntries, estMemUsage,
+                effectiveThreshold);
+            }
+          }
+        }
+      }
+      for (int i = 0; i < partitionCount; i++) {
+        if (batches[i] != null) {
+          builders[i].add(batches[i]);
+        }
+      }
+      for (PartitionBuilder builder : builders) {
+        builder.finish();
+      }
+      return numEntries;
+    } finally {
+      for (PartitionBuilder builder : builders) {
+        builder.cancel();
+      }
+    }
+  }
+
+  /*
+   * Builds one sub-table from the batches handed over by the reading thread.  At most one task
+   * of a builder is queued or running in the pool at a time; it drains the batches added so far
+   * and ends instead of waiting for more.
+   */
+  private static final class PartitionBuilder implements Runnable {
+    private final VectorMapJoinFastHashTable hashTable;
+    private final Executor pool;
+    private final ConcurrentLinkedQueue<RowBatch> batches = new ConcurrentLinkedQueue<>();
+    // A permit per batch that may be in flight; all of them are back once every batch is built.
+    private final Semaphore slots = new Semaphore(PARTITION_QUEUE_SIZE);
+    private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+    private volatile boolean isCancelled = false;
+    private volatile Throwable error = null;
+    private volatile long estimatedMemorySize = 0;
+
+    private PartitionBuilder(VectorMapJoinFastHashTable hashTable, Executor pool) {
+      this.hashTable = hashTable;
+      this.pool = pool;
+    }
+
+    private void add(RowBatch batch) throws Exception {
+      acquire(1);
+      batches.add(batch);
+      schedule();
+    }
+
+    /* Waits for the batches added so far to be built. */
+    private void finish() throws Exception {
+      acquire(PARTITION_QUEUE_SIZE);
+      slots.release(PARTITION_QUEUE_SIZE);
+      checkError();
+    }
+
+    private void cancel() {
+      isCancelled = true;
+      batches.clear();
+    }
+
+    /* Fails early when the builder has failed rather than waiting for batches nobody builds. */
+    private void acquire(int permits) throws Exception {
+      while (!slots.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+        checkError();
+      }
+    }
+
+    private void checkError() throws Exception {
+      Throwable cause = error;
+      if (cause == null) {
+        return;
+      }
+      if (cause instanceof Error) {
+        // E.g. MapJoinMemoryExhaustionError when a sub-table cannot grow any more.
+        throw (Error) cause;
+      }
+      throw new HiveException("Failed to build hash table partition", cause);
+    }
+
+    private void schedule() {
+      if (isScheduled.compareAndSet(false, true)) {
+        pool.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        RowBatch batch;
+        while (!isCancelled && error == null && (batch = batches.poll()) != null) {
+          for (int r = 0; r < batch.count; r++) {
+            hashTable.putRow(batch.keys[r], batch.values[r]);
+          }
+          estimatedMemorySize = hashTable.getEstimatedMemorySize();
+          slots.release();
+        }
+      } catch (Throwable t) {
+        error = t;
+      } finally {
+        isScheduled.set(false);
+      }
+      // A batch added after the last poll, while this task was still marked as scheduled.
+      if (!isCancelled && error == null && !batches.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hadoop.hive.serde2.binarysortable.fast.BinarySortableDeserializeRead;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hive.common.util.HashCodeUtil;
+
+/*
+ * Assigns the small table rows to the sub-tables of a partitioned fast hash table.
+ *
+ * The partition is derived from the same hash code the sub-tables (and the lookups) compute
+ * for the key: the long key for the long family, the string bytes for STRING and the
+ * serialized key bytes for MULTI_KEY.  The hash code is mixed once more so the partition does
+ * not correlate with the low bits used for the slot or the high bits kept as partial hash code.
+ *
+ * Not thread-safe; each reading thread needs its own instance.
+ */
+public class VectorMapJoinFastKeyPartitioner {
+
+  private final HashTableKeyType hashTableKeyType;
+  private final int partitionMask;
+
+  private final BinarySortableDeserializeRead keyBinarySortableDeserializeRead;
+
+  public VectorMapJoinFastKeyPartitioner(HashTableKeyType hashTableKeyType,
+      TableDesc keyTableDesc, int partitionCount) {
+    if (partitionCount < 2 || Integer.bitCount(partitionCount) != 1) {
+      throw new IllegalArgumentException("Partition count must be a power of 2 greater than 1");
+    }
+    this.hashTableKeyType = hashTableKeyType;
+    this.partitionMask = partitionCount - 1;
+
+    if (hashTableKeyType == HashTableKeyType.MULTI_KEY) {
+      // The serialized key is used as is.
+      keyBinarySortableDeserializeRead = null;
+    } else {
+      PrimitiveTypeInfo[] primitiveTypeInfos = { hashTableKeyType.getPrimitiveTypeInfo() };
+      keyBinarySortableDeserializeRead = BinarySortableDeserializeRead.with(
+          primitiveTypeInfos, false, keyTableDesc.getProperties());
+    }
+  }
+
+  public int getPartitionCount() {
+    return partitionMask + 1;
+  }
+
+  /*
+   * @return The partition of the key, or -1 for a NULL key (which is not stored).
+   */
+  public int partition(BytesWritable currentKey) throws HiveException {
+    byte[] keyBytes = currentKey.getBytes();
+    int keyLength = currentKey.getLength();
+    if (keyBinarySortableDeserializeRead == null) {
+      return partition(HashCodeUtil.murmurHash(keyBytes, 0, keyLength));
+    }
+
+    keyBinarySortableDeserializeRead.set(keyBytes, 0, keyLength);
+    try {
+      if (!keyBinarySortableDeserializeRead.readNextField()) {
+        return -1;
+      }
+    } catch (Exception e) {
+      throw new HiveException(
+          "\nDeserializeRead details: " +
+              keyBinarySortableDeserializeRead.getDetailedReadPositionString() +
+          "\nException: " + e.toString());
+    }
+
+    if (hashTableKeyType == HashTableKeyType.STRING) {
+      return partition(HashCodeUtil.murmurHash(
+          keyBinarySortableDeserializeRead.currentBytes,
+          keyBinarySortableDeserializeRead.currentBytesStart,
+          keyBinarySortableDeserializeRead.currentBytesLength));
+    }
+    long key = VectorMapJoinFastLongHashUtil.deserializeLongKey(
+        keyBinarySortableDeserializeRead, hashTableKeyType);
+    return partition(HashCodeUtil.calculateLongHashCode(key));
+  }
+
+  public int partition(long hashCode) {
+    return partition(hashCode, partitionMask);
+  }
+
+  public static int partition(long hashCode, int partitionMask) {
+    return HashCodeUtil.calculateIntHashCode((int) hashCode) & partitionMask;
+  }
+}
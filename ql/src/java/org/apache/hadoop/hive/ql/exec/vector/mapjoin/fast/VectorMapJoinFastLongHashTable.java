@@ -25,6 +25,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.hive.ql.exec.JoinUtil;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashMap;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinLongHashMap;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinLongHashTable;
@@ -216,6 +217,15 @@ private void expandAndRehash() {
     metricExpands++;
   }
 
+  @Override
+  public void addKeysToBloomFilter(VectorMapJoinBloomFilter bloomFilter) {
+    for (int pairIndex = 0; pairIndex < slotPairs.length; pairIndex += 2) {
+      if (slotPairs[pairIndex] != 0) {
+        bloomFilter.add(HashCodeUtil.calculateLongHashCode(slotPairs[pairIndex + 1]));
+      }
+    }
+  }
+
   protected boolean containsKey(long key) {
     long hashCode = HashCodeUtil.calculateLongHashCode(key);
     return findReadSlot(key, hashCode) != -1;
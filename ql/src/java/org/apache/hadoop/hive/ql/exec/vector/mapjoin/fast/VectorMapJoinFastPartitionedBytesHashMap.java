@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hive.ql.exec.JoinUtil;
+import org.apache.hadoop.hive.ql.exec.persistence.MatchTracker;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBytesHashMap;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashMapResult;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hive.common.util.HashCodeUtil;
+
+/*
+ * A partitioned bytes key (string or serialized multi-key) hash map optimized for
+ * vector map join.
+ */
+public class VectorMapJoinFastPartitionedBytesHashMap
+        extends VectorMapJoinFastPartitionedHashTable
+        implements VectorMapJoinBytesHashMap {
+
+  public VectorMapJoinFastPartitionedBytesHashMap(VectorMapJoinFastHashTable[] partitions,
+      HashTableKeyType hashTableKeyType, TableDesc keyTableDesc) {
+    super(partitions, hashTableKeyType, keyTableDesc);
+  }
+
+  @Override
+  public VectorMapJoinHashMapResult createHashMapResult() {
+    return ((VectorMapJoinBytesHashMap) partitions[0]).createHashMapResult();
+  }
+
+  private VectorMapJoinBytesHashMap bytesPartition(byte[] keyBytes, int keyStart, int keyLength) {
+    return (VectorMapJoinBytesHashMap)
+        partitions[partition(HashCodeUtil.murmurHash(keyBytes, keyStart, keyLength))];
+  }
+
+  @Override
+  public JoinUtil.JoinResult lookup(byte[] keyBytes, int keyStart, int keyLength,
+      VectorMapJoinHashMapResult hashMapResult) throws IOException {
+    return bytesPartition(keyBytes, keyStart, keyLength)
+        .lookup(keyBytes, keyStart, keyLength, hashMapResult);
+  }
+
+  @Override
+  public JoinUtil.JoinResult lookup(byte[] keyBytes, int keyStart, int keyLength,
+      VectorMapJoinHashMapResult hashMapResult, MatchTracker matchTracker) throws IOException {
+    return bytesPartition(keyBytes, keyStart, keyLength)
+        .lookup(keyBytes, keyStart, keyLength, hashMapResult, matchTracker);
+  }
+}
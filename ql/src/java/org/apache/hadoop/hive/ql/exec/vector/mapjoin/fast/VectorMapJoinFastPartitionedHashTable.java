@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hive.ql.exec.persistence.MatchTracker;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTable;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinNonMatchedIterator;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKind;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hadoop.io.BytesWritable;
+
+/*
+ * A fast hash table made of independent sub-tables, one per key hash partition, so the
+ * sub-tables can be built concurrently by different threads.
+ *
+ * Once loaded, lookups are routed to the sub-table of the key's partition.  FULL OUTER is not
+ * supported since the match tracking is per hash table.
+ */
+public abstract class VectorMapJoinFastPartitionedHashTable implements VectorMapJoinHashTable {
+
+  protected final VectorMapJoinFastHashTable[] partitions;
+  protected final int partitionMask;
+
+  // Only used by putRow; concurrent loading routes the rows with a partitioner of its own.
+  private final VectorMapJoinFastKeyPartitioner keyPartitioner;
+
+  private VectorMapJoinBloomFilter bloomFilter;
+
+  public VectorMapJoinFastPartitionedHashTable(VectorMapJoinFastHashTable[] partitions,
+      HashTableKeyType hashTableKeyType, TableDesc keyTableDesc) {
+    this.partitions = partitions;
+    keyPartitioner =
+        new VectorMapJoinFastKeyPartitioner(hashTableKeyType, keyTableDesc, partitions.length);
+    partitionMask = partitions.length - 1;
+  }
+
+  public static VectorMapJoinFastPartitionedHashTable create(VectorMapJoinFastHashTable[] partitions,
+      HashTableKeyType hashTableKeyType, HashTableKind hashTableKind, TableDesc keyTableDesc) {
+    switch (hashTableKeyType) {
+    case BOOLEAN:
+    case BYTE:
+    case SHORT:
+    case INT:
+    case DATE:
+    case LONG:
+      switch (hashTableKind) {
+      case HASH_MAP:
+        return new VectorMapJoinFastPartitionedLongHashMap(partitions, hashTableKeyType, keyTableDesc);
+      case HASH_MULTISET:
+        return new VectorMapJoinFastPartitionedLongHashMultiSet(partitions, hashTableKeyType, keyTableDesc);
+      case HASH_SET:
+        return new VectorMapJoinFastPartitionedLongHashSet(partitions, hashTableKeyType, keyTableDesc);
+      }
+      break;
+    case STRING:
+    case MULTI_KEY:
+      switch (hashTableKind) {
+      case HASH_MAP:
+        return new VectorMapJoinFastPartitionedBytesHashMap(partitions, hashTableKeyType, keyTableDesc);
+      case HASH_MULTISET:
+        return new VectorMapJoinFastPartitionedBytesHashMultiSet(partitions, hashTableKeyType, keyTableDesc);
+      case HASH_SET:
+        return new VectorMapJoinFastPartitionedBytesHashSet(partitions, hashTableKeyType, keyTableDesc);
+      }
+      break;
+    }
+    throw new RuntimeException("Unexpected hash table key type " + hashTableKeyType.name() +
+        " and kind " + hashTableKind.name());
+  }
+
+  public int getPartitionCount() {
+    return partitions.length;
+  }
+
+  public VectorMapJoinFastHashTable getPartition(int partition) {
+    return partitions[partition];
+  }
+
+  protected final int partition(long hashCode) {
+    return VectorMapJoinFastKeyPartitioner.partition(hashCode, partitionMask);
+  }
+
+  @Override
+  public void putRow(BytesWritable currentKey, BytesWritable currentValue)
+      throws HiveException, IOException {
+    int partition = keyPartitioner.partition(currentKey);
+    if (partition != -1) {
+      partitions[partition].putRow(currentKey, currentValue);
+    }
+  }
+
+  @Override
+  public boolean containsLongKey(long currentKey) {
+    // Only supported for Long-Hash implementations
+    throw new RuntimeException("Not supported yet!");
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (VectorMapJoinFastHashTable partition : partitions) {
+      size += partition.size();
+    }
+    return size;
+  }
+
+  public void addKeysToBloomFilter(VectorMapJoinBloomFilter bloomFilter) {
+    for (VectorMapJoinFastHashTable partition : partitions) {
+      partition.addKeysToBloomFilter(bloomFilter);
+    }
+  }
+
+  public void setBloomFilter(VectorMapJoinBloomFilter bloomFilter) {
+    this.bloomFilter = bloomFilter;
+  }
+
+  @Override
+  public VectorMapJoinBloomFilter bloomFilter() {
+    return bloomFilter;
+  }
+
+  @Override
+  public MatchTracker createMatchTracker() {
+    throw new RuntimeException("Not supported for partitioned hash tables");
+  }
+
+  @Override
+  public VectorMapJoinNonMatchedIterator createNonMatchedIterator(MatchTracker matchTracker) {
+    throw new RuntimeException("Not supported for partitioned hash tables");
+  }
+
+  @Override
+  public int spillPartitionId() {
+    throw new RuntimeException("Not implemented");
+  }
+
+  @Override
+  public long getEstimatedMemorySize() {
+    JavaDataModel jdm = JavaDataModel.get();
+    long size = 0;
+    for (VectorMapJoinFastHashTable partition : partitions) {
+      size += partition.getEstimatedMemorySize();
+    }
+    if (bloomFilter != null) {
+      size += bloomFilter.getEstimatedMemorySize();
+    }
+    size += jdm.lengthForObjectArrayOfSize(partitions.length);
+    size += jdm.primitive1();
+    size += (3 * jdm.object());
+    return size;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinLongHashTable;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hive.common.util.HashCodeUtil;
+
+/*
+ * A partitioned single long key hash table.  The min/max span all the sub-tables.
+ */
+public abstract class VectorMapJoinFastPartitionedLongHashTable
+        extends VectorMapJoinFastPartitionedHashTable
+        implements VectorMapJoinLongHashTable {
+
+  public VectorMapJoinFastPartitionedLongHashTable(VectorMapJoinFastHashTable[] partitions,
+      HashTableKeyType hashTableKeyType, TableDesc keyTableDesc) {
+    super(partitions, hashTableKeyType, keyTableDesc);
+  }
+
+  protected final VectorMapJoinFastLongHashTable longPartition(long key) {
+    return (VectorMapJoinFastLongHashTable)
+        partitions[partition(HashCodeUtil.calculateLongHashCode(key))];
+  }
+
+  @Override
+  public boolean containsLongKey(long currentKey) {
+    return longPartition(currentKey).containsLongKey(currentKey);
+  }
+
+  @Override
+  public boolean useMinMax() {
+    return ((VectorMapJoinFastLongHashTable) partitions[0]).useMinMax();
+  }
+
+  @Override
+  public long min() {
+    long min = Long.MAX_VALUE;
+    for (VectorMapJoinFastHashTable partition : partitions) {
+      min = Math.min(min, ((VectorMapJoinFastLongHashTable) partition).min());
+    }
+    return min;
+  }
+
+  @Override
+  public long max() {
+    long max = Long.MIN_VALUE;
+    for (VectorMapJoinFastHashTable partition : partitions) {
+      max = Math.max(max, ((VectorMapJoinFastLongHashTable) partition).max());
+    }
+    return max;
+  }
+}
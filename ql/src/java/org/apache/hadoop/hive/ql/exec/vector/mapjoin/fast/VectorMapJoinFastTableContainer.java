@@ -29,6 +29,7 @@
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinObjectSerDeContext;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer.NonMatchedSmallTableIterator;
 import org.apache.hadoop.hive.ql.exec.persistence.MatchTracker;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTable;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinTableContainer;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -60,7 +61,7 @@ public class VectorMapJoinFastTableContainer implements VectorMapJoinTableContai
   private final long estimatedKeyCount;
 
 
-  private final VectorMapJoinFastHashTable vectorMapJoinFastHashTable;
+  private final VectorMapJoinHashTable vectorMapJoinFastHashTable;
   private String key;
 
   public VectorMapJoinFastTableContainer(MapJoinDesc desc, Configuration hconf,
@@ -81,7 +82,41 @@ public VectorMapJoinFastTableContainer(MapJoinDesc desc, Configuration hconf,
 
     // LOG.debug("VectorMapJoinFastTableContainer load newThreshold " + newThreshold);
 
-    vectorMapJoinFastHashTable = createHashTable(newThreshold);
+    VectorMapJoinDesc vectorDesc = (VectorMapJoinDesc) desc.getVectorDesc();
+    int partitionCount = getPartitionCount(
+        HiveConf.getIntVar(hconf, HiveConf.ConfVars.HIVE_MAPJOIN_FAST_HASHTABLE_LOAD_THREADS),
+        vectorDesc.getIsFullOuter());
+    if (partitionCount > 1) {
+      VectorMapJoinFastHashTable[] partitions = new VectorMapJoinFastHashTable[partitionCount];
+      for (int i = 0; i < partitionCount; i++) {
+        partitions[i] = createHashTable(Math.max(newThreshold / partitionCount, 1),
+            estimatedKeyCount == -1 ? -1 : estimatedKeyCount / partitionCount);
+      }
+      vectorMapJoinFastHashTable = VectorMapJoinFastPartitionedHashTable.create(partitions,
+          vectorDesc.getHashTableKeyType(), vectorDesc.getHashTableKind(), desc.getKeyTblDesc());
+    } else {
+      vectorMapJoinFastHashTable = createHashTable(newThreshold, estimatedKeyCount);
+    }
+  }
+
+  /*
+   * The number of sub-tables to build concurrently: the load threads rounded down to a power
+   * of 2, or 1 for a single table.  FULL OUTER needs one match tracker over the whole table so
+   * it is never partitioned.
+   */
+  static int getPartitionCount(int loadThreads, boolean isFullOuter) {
+    if (isFullOuter || loadThreads <= 1) {
+      return 1;
+    }
+    return Integer.highestOneBit(loadThreads);
+  }
+
+  /*
+   * @return The partitioned hash table, or null when the hash table is a single table.
+   */
+  public VectorMapJoinFastPartitionedHashTable partitionedHashTable() {
+    return vectorMapJoinFastHashTable instanceof VectorMapJoinFastPartitionedHashTable ?
+        (VectorMapJoinFastPartitionedHashTable) vectorMapJoinFastHashTable : null;
   }
 
   @Override
@@ -99,7 +134,7 @@ public String getKey() {
     return key;
   }
 
-  private VectorMapJoinFastHashTable createHashTable(int newThreshold) {
+  private VectorMapJoinFastHashTable createHashTable(int newThreshold, long estimatedKeyCount) {
 
     VectorMapJoinDesc vectorDesc = (VectorMapJoinDesc) desc.getVectorDesc();
     HashTableImplementationType hashTableImplementationType = vectorDesc.getHashTableImplementationType();
@@ -199,7 +234,26 @@ public MapJoinKey putRow(Writable currentKey, Writable currentValue)
 
   @Override
   public void seal() {
-    // Do nothing
+    VectorMapJoinDesc vectorDesc = (VectorMapJoinDesc) desc.getVectorDesc();
+    int keyCount = vectorMapJoinFastHashTable.size();
+    if (!vectorDesc.getBloomFilterEnabled() || keyCount == 0) {
+      return;
+    }
+
+    // The keys are all in now, so build the Bloom filter the big table rows are probed against
+    // before the hash table lookups.
+    VectorMapJoinBloomFilter bloomFilter = new VectorMapJoinBloomFilter(keyCount);
+    VectorMapJoinFastPartitionedHashTable partitionedHashTable = partitionedHashTable();
+    if (partitionedHashTable != null) {
+      partitionedHashTable.addKeysToBloomFilter(bloomFilter);
+      partitionedHashTable.setBloomFilter(bloomFilter);
+    } else {
+      VectorMapJoinFastHashTable fastHashTable = (VectorMapJoinFastHashTable) vectorMapJoinFastHashTable;
+      fastHashTable.addKeysToBloomFilter(bloomFilter);
+      fastHashTable.setBloomFilter(bloomFilter);
+    }
+    LOG.info("Built map join Bloom filter of " + bloomFilter.getBitSize() + " bits for " +
+        keyCount + " keys");
   }
 
   @Override
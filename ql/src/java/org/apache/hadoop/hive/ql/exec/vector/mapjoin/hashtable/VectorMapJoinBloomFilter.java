@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable;
+
+import org.apache.hadoop.hive.common.MemoryEstimate;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hive.common.util.HashCodeUtil;
+
+/*
+ * A blocked Bloom filter over the keys of a vector map join hash table, used to drop big table
+ * rows that cannot match before they are looked up.
+ *
+ * The filter is built from the hash codes the hash table computes for its keys
+ * (HashCodeUtil.calculateLongHashCode for long keys and HashCodeUtil.murmurHash for bytes keys),
+ * so it can be filled from an already loaded table.  All the bits of a key are set in one block
+ * of 8 longs (a 64 byte cache line) so a test touches a single cache line.
+ */
+public class VectorMapJoinBloomFilter implements MemoryEstimate {
+
+  private static final int BLOCK_LONGS = 8;
+  private static final int BLOCK_LONGS_SHIFT = 3;
+  private static final int BLOCK_BITS = BLOCK_LONGS * Long.SIZE;
+
+  // With 10 bits per key and 6 bits set per key the false positive rate of a blocked filter is
+  // about 1.5%.
+  private static final int BITS_PER_KEY = 10;
+  private static final int HASH_FUNCTIONS = 6;
+
+  // 2^31 bits (256MB).
+  private static final long MAX_BITS = 1L << 31;
+
+  private final long[] bits;
+  private final int blockMask;
+
+  public VectorMapJoinBloomFilter(long expectedKeyCount) {
+    long numBits = Math.min(Math.max(expectedKeyCount, 1), MAX_BITS / BITS_PER_KEY) * BITS_PER_KEY;
+    numBits = Math.min(Math.max(Long.highestOneBit(numBits - 1) << 1, BLOCK_BITS), MAX_BITS);
+    bits = new long[(int) (numBits / Long.SIZE)];
+    blockMask = (int) (numBits / BLOCK_BITS) - 1;
+  }
+
+  public void add(int hashCode) {
+    final int blockStart = block(hashCode);
+    final int hash2 = hash2(hashCode);
+    for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+      final int combinedHash = hashCode + i * hash2;
+      bits[blockStart + (combinedHash & (BLOCK_LONGS - 1))] |=
+          1L << (combinedHash >>> BLOCK_LONGS_SHIFT);
+    }
+  }
+
+  /*
+   * @return false when the key with the hash code is definitely not in the hash table.
+   */
+  public boolean mightContain(int hashCode) {
+    final int blockStart = block(hashCode);
+    final int hash2 = hash2(hashCode);
+    for (int i = 1; i <= HASH_FUNCTIONS; i++) {
+      final int combinedHash = hashCode + i * hash2;
+      if ((bits[blockStart + (combinedHash & (BLOCK_LONGS - 1))] &
+          (1L << (combinedHash >>> BLOCK_LONGS_SHIFT))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean mightContainLong(long key) {
+    return mightContain(HashCodeUtil.calculateLongHashCode(key));
+  }
+
+  public boolean mightContainBytes(byte[] keyBytes, int keyStart, int keyLength) {
+    return mightContain(HashCodeUtil.murmurHash(keyBytes, keyStart, keyLength));
+  }
+
+  private int block(int hashCode) {
+    // Remix so the block does not follow the low bits the hash table uses for its slots.
+    return (HashCodeUtil.calculateIntHashCode(hashCode) & blockMask) << BLOCK_LONGS_SHIFT;
+  }
+
+  private static int hash2(int hashCode) {
+    // Odd, so the bits of a key are spread over the whole block.
+    return (Integer.rotateLeft(hashCode, 16) * 0x9E3779B9) | 1;
+  }
+
+  public long getBitSize() {
+    return (long) bits.length * Long.SIZE;
+  }
+
+  @Override
+  public long getEstimatedMemorySize() {
+    JavaDataModel jdm = JavaDataModel.get();
+    return jdm.object() + jdm.primitive1() + jdm.lengthForLongArrayOfSize(bits.length);
+  }
+}
@@ -60,4 +60,9 @@ void putRow(BytesWritable currentKey, BytesWritable currentValue)
   VectorMapJoinNonMatchedIterator createNonMatchedIterator(MatchTracker matchTracker);
 
   int spillPartitionId();
+
+  /*
+   * @return The Bloom filter over the keys of the hash table, or null when there is none.
+   */
+  VectorMapJoinBloomFilter bloomFilter();
 }
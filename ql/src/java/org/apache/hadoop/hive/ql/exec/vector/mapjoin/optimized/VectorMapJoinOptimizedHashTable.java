@@ -31,6 +31,7 @@
 import org.apache.hadoop.hive.ql.exec.persistence.ReusableGetAdaptorDirectAccess;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer.ReusableGetAdaptor;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBytesHashTable;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTable;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashTableResult;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinNonMatchedIterator;
@@ -81,6 +82,12 @@ public boolean containsLongKey(long currentKey) {
     throw new RuntimeException("Not implemented");
   }
 
+  @Override
+  public VectorMapJoinBloomFilter bloomFilter() {
+    // Only built by FAST HashTable implementations
+    return null;
+  }
+
   protected void putRowInternal(BytesWritable key, BytesWritable value)
       throws SerDeException, HiveException, IOException {
 
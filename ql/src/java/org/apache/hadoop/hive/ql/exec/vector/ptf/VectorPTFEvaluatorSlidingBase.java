@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+import java.util.ArrayDeque;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This is the base class of the evaluators for a bounded ROWS window frame
+ * (e.g. ROWS BETWEEN 3 PRECEDING AND 2 FOLLOWING).
+ *
+ * The argument values of the partition rows are kept in a ring buffer from the start of the
+ * current frame on.  The frame of each row is computed by sliding the window rows
+ * [windowStart, windowEnd) forward, so the subclasses only have to add rows entering the frame
+ * and remove rows leaving it.
+ *
+ * When the frame ends after the current row, the result of a row is only known once the
+ * following rows have been read.  The batches are kept pending until the result of all their rows
+ * has been written; getPendingBatchCount tells the operator how many batches are still waiting.
+ * The rows at the end of the partition are written by finishPartition.
+ */
+public abstract class VectorPTFEvaluatorSlidingBase extends VectorPTFEvaluatorBase {
+
+  protected final int startOffset;
+  protected final int endOffset;
+
+  // The number of partition rows read and the number of partition rows written.
+  protected long rowCount;
+  protected long outputRowCount;
+
+  // The partition rows of the current frame.
+  protected long windowStart;
+  protected long windowEnd;
+
+  private final ArrayDeque<VectorizedRowBatch> pendingBatches;
+  private int pendingBatchIndex;
+
+  public VectorPTFEvaluatorSlidingBase(WindowFrameDef windowFrameDef, VectorExpression inputVecExpr,
+      int outputColumnNum) {
+    super(windowFrameDef, inputVecExpr, outputColumnNum);
+    Preconditions.checkState(
+        !windowFrameDef.getStart().isUnbounded() && !windowFrameDef.getEnd().isUnbounded());
+    startOffset = windowFrameDef.getStart().getRelativeOffset();
+    endOffset = windowFrameDef.getEnd().getRelativeOffset();
+    pendingBatches = new ArrayDeque<VectorizedRowBatch>();
+  }
+
+  /*
+   * Store the argument values of the batch rows, which become partition rows
+   * rowCount .. rowCount + size - 1.
+   */
+  protected abstract void storeValues(ColumnVector colVector, int size);
+
+  // Add a partition row to the frame.
+  protected abstract void addRow(long row);
+
+  // Remove a partition row from the frame.
+  protected abstract void removeRow(long row);
+
+  // Write the result over the current (non-empty) frame.
+  protected abstract void writeFrameResult(ColumnVector outputColVector, int index);
+
+  // Reset the frame calculation variable(s) and the stored values.
+  protected abstract void resetFrame();
+
+  @Override
+  public void evaluateGroupBatch(VectorizedRowBatch batch)
+      throws HiveException {
+
+    evaluateInputExpr(batch);
+
+    // We do not filter when PTF is in reducer.
+    Preconditions.checkState(!batch.selectedInUse);
+
+    final int size = batch.size;
+    if (size == 0) {
+      return;
+    }
+
+    storeValues(batch.cols[inputColumnNum], size);
+    rowCount += size;
+
+    ColumnVector outputColVector = batch.cols[outputColumnNum];
+    outputColVector.isRepeating = false;
+    outputColVector.noNulls = true;
+    pendingBatches.add(batch);
+
+    // Rows whose frame end has been read.
+    writeRows(rowCount - Math.max(endOffset, 0));
+  }
+
+  /*
+   * Write the rows that still wait for following rows, using the end of the partition as their
+   * frame end.
+   */
+  public void finishPartition() {
+    writeRows(rowCount);
+  }
+
+  public boolean hasLookahead() {
+    return endOffset > 0;
+  }
+
+  // The number of batches, oldest first, with rows that have not been written yet.
+  public int getPendingBatchCount() {
+    return pendingBatches.size();
+  }
+
+  private void writeRows(long endRow) {
+    while (outputRowCount < endRow) {
+      VectorizedRowBatch batch = pendingBatches.peek();
+      ColumnVector outputColVector = batch.cols[outputColumnNum];
+      final int index = pendingBatchIndex;
+
+      final long frameStart = Math.max(outputRowCount + startOffset, 0);
+      final long frameEnd = Math.min(outputRowCount + endOffset, rowCount - 1);
+      if (frameStart > frameEnd) {
+        setNull(outputColVector, index);
+      } else {
+        while (windowEnd <= frameEnd) {
+          addRow(windowEnd++);
+        }
+        while (windowStart < frameStart) {
+          removeRow(windowStart++);
+        }
+        writeFrameResult(outputColVector, index);
+      }
+
+      outputRowCount++;
+      if (++pendingBatchIndex >= batch.size) {
+        pendingBatches.remove();
+        pendingBatchIndex = 0;
+      }
+    }
+  }
+
+  // Set a row result to NULL (e.g. the frame has no non-null values).
+  protected static void setNull(ColumnVector outputColVector, int index) {
+    outputColVector.isNull[index] = true;
+    outputColVector.noNulls = false;
+  }
+
+  @Override
+  public boolean streamsResult() {
+    // Each row has its own frame.
+    return true;
+  }
+
+  @Override
+  public void resetEvaluator() {
+    rowCount = 0;
+    outputRowCount = 0;
+    windowStart = 0;
+    windowEnd = 0;
+    pendingBatches.clear();
+    pendingBatchIndex = 0;
+    resetFrame();
+  }
+}
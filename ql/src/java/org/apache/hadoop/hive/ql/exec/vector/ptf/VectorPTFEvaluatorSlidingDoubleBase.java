@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+
+/**
+ * This is the base class of the bounded ROWS frame evaluators with a double argument.
+ *
+ * The values are kept in a power of 2 ring buffer indexed by partition row.
+ */
+public abstract class VectorPTFEvaluatorSlidingDoubleBase extends VectorPTFEvaluatorSlidingBase {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private double[] values;
+  private boolean[] valueIsNull;
+  private int mask;
+
+  public VectorPTFEvaluatorSlidingDoubleBase(WindowFrameDef windowFrameDef,
+      VectorExpression inputVecExpr, int outputColumnNum) {
+    super(windowFrameDef, inputVecExpr, outputColumnNum);
+    values = new double[INITIAL_CAPACITY];
+    valueIsNull = new boolean[INITIAL_CAPACITY];
+    mask = INITIAL_CAPACITY - 1;
+  }
+
+  protected final boolean isNull(long row) {
+    return valueIsNull[(int) row & mask];
+  }
+
+  protected final double value(long row) {
+    return values[(int) row & mask];
+  }
+
+  @Override
+  protected void storeValues(ColumnVector colVector, int size) {
+    ensureCapacity(rowCount + size - windowStart);
+
+    DoubleColumnVector doubleColVector = (DoubleColumnVector) colVector;
+    long row = rowCount;
+    if (doubleColVector.isRepeating) {
+      final boolean isNull = !doubleColVector.noNulls && doubleColVector.isNull[0];
+      final double repeatedValue = doubleColVector.vector[0];
+      for (int i = 0; i < size; i++, row++) {
+        values[(int) row & mask] = repeatedValue;
+        valueIsNull[(int) row & mask] = isNull;
+      }
+    } else {
+      double[] vector = doubleColVector.vector;
+      boolean[] isNull = doubleColVector.isNull;
+      final boolean noNulls = doubleColVector.noNulls;
+      for (int i = 0; i < size; i++, row++) {
+        values[(int) row & mask] = vector[i];
+        valueIsNull[(int) row & mask] = !noNulls && isNull[i];
+      }
+    }
+  }
+
+  /*
+   * Grow the ring buffer so it holds the rows from the window start on.
+   */
+  private void ensureCapacity(long neededCapacity) {
+    if (neededCapacity <= values.length) {
+      return;
+    }
+    int newCapacity = values.length;
+    while (newCapacity < neededCapacity) {
+      newCapacity <<= 1;
+    }
+    final int newMask = newCapacity - 1;
+    double[] newValues = new double[newCapacity];
+    boolean[] newValueIsNull = new boolean[newCapacity];
+    for (long row = windowStart; row < rowCount; row++) {
+      newValues[(int) row & newMask] = values[(int) row & mask];
+      newValueIsNull[(int) row & newMask] = valueIsNull[(int) row & mask];
+    }
+    values = newValues;
+    valueIsNull = newValueIsNull;
+    mask = newMask;
+  }
+
+  @Override
+  protected void resetFrame() {
+    // The stored values are overwritten by the next partition.
+    if (values.length > INITIAL_CAPACITY) {
+      values = new double[INITIAL_CAPACITY];
+      valueIsNull = new boolean[INITIAL_CAPACITY];
+      mask = INITIAL_CAPACITY - 1;
+    }
+  }
+}
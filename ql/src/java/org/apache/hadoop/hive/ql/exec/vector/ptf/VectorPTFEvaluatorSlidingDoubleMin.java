@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector.Type;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+
+/**
+ * This class evaluates double min() over a bounded ROWS frame.
+ *
+ * Keep a monotonic deque of the non-null frame rows with increasing values; the first row has
+ * the frame minimum.
+ */
+public class VectorPTFEvaluatorSlidingDoubleMin extends VectorPTFEvaluatorSlidingDoubleBase {
+
+  protected final VectorPTFRowDeque deque;
+
+  public VectorPTFEvaluatorSlidingDoubleMin(WindowFrameDef windowFrameDef,
+      VectorExpression inputVecExpr, int outputColumnNum) {
+    super(windowFrameDef, inputVecExpr, outputColumnNum);
+    deque = new VectorPTFRowDeque();
+    resetEvaluator();
+  }
+
+  @Override
+  protected void addRow(long row) {
+    if (isNull(row)) {
+      return;
+    }
+    final double value = value(row);
+    while (!deque.isEmpty() && value(deque.peekLast()) >= value) {
+      deque.removeLast();
+    }
+    deque.addLast(row);
+  }
+
+  @Override
+  protected void removeRow(long row) {
+    if (!deque.isEmpty() && deque.peekFirst() == row) {
+      deque.removeFirst();
+    }
+  }
+
+  @Override
+  protected void writeFrameResult(ColumnVector outputColVector, int index) {
+    if (deque.isEmpty()) {
+      setNull(outputColVector, index);
+    } else {
+      outputColVector.isNull[index] = false;
+      ((DoubleColumnVector) outputColVector).vector[index] = value(deque.peekFirst());
+    }
+  }
+
+  @Override
+  public Type getResultColumnVectorType() {
+    return Type.DOUBLE;
+  }
+
+  @Override
+  protected void resetFrame() {
+    super.resetFrame();
+    deque.clear();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector.Type;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+
+/**
+ * This class evaluates long avg() over a bounded ROWS frame.
+ *
+ * Keep a running sum and count of the non-null frame values; the row result is
+ * sum / non-null count.
+ */
+public class VectorPTFEvaluatorSlidingLongAvg extends VectorPTFEvaluatorSlidingLongBase {
+
+  protected long sum;
+  protected long nonNullCount;
+
+  public VectorPTFEvaluatorSlidingLongAvg(WindowFrameDef windowFrameDef,
+      VectorExpression inputVecExpr, int outputColumnNum) {
+    super(windowFrameDef, inputVecExpr, outputColumnNum);
+    resetEvaluator();
+  }
+
+  @Override
+  protected void addRow(long row) {
+    if (!isNull(row)) {
+      sum += value(row);
+      nonNullCount++;
+    }
+  }
+
+  @Override
+  protected void removeRow(long row) {
+    if (!isNull(row)) {
+      sum -= value(row);
+      nonNullCount--;
+    }
+  }
+
+  @Override
+  protected void writeFrameResult(ColumnVector outputColVector, int index) {
+    if (nonNullCount == 0) {
+      setNull(outputColVector, index);
+    } else {
+      outputColVector.isNull[index] = false;
+      ((DoubleColumnVector) outputColVector).vector[index] = ((double) sum) / nonNullCount;
+    }
+  }
+
+  @Override
+  public Type getResultColumnVectorType() {
+    return Type.DOUBLE;
+  }
+
+  @Override
+  protected void resetFrame() {
+    super.resetFrame();
+    sum = 0;
+    nonNullCount = 0;
+  }
+}
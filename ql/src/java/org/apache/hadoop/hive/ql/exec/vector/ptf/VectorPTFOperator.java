@@ -19,6 +19,8 @@
 package org.apache.hadoop.hive.ql.exec.vector.ptf;
 
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
@@ -129,6 +131,14 @@ public class VectorPTFOperator extends Operator<PTFDesc>
 
   private transient boolean allEvaluatorsAreStreaming;
 
+  // The sliding evaluators whose ROWS frame ends after the current row, or null.
+  private transient VectorPTFEvaluatorSlidingBase[] lookaheadEvaluators;
+
+  // With lookahead evaluators, copies of the batches waiting for their results (oldest first)
+  // and the forwarded copies available for reuse.
+  private transient ArrayDeque<VectorizedRowBatch> pendingBatches;
+  private transient ArrayDeque<VectorizedRowBatch> freePendingBatches;
+
   private transient boolean isFirstPartition;
 
   private transient boolean[] currentPartitionIsNull;
@@ -307,6 +317,16 @@ protected void initializeOp(Configuration hconf) throws HiveException {
 
     allEvaluatorsAreStreaming = (streamingEvaluatorNums.length == evaluatorCount);
 
+    lookaheadEvaluators = getLookaheadEvaluators(evaluators);
+    if (lookaheadEvaluators != null) {
+      if (!allEvaluatorsAreStreaming) {
+        throw new HiveException(
+            "FOLLOWING end of a bounded ROWS frame requires all evaluators to be streaming");
+      }
+      pendingBatches = new ArrayDeque<VectorizedRowBatch>();
+      freePendingBatches = new ArrayDeque<VectorizedRowBatch>();
+    }
+
     /*
      * Setup the overflow batch.
      */
@@ -370,15 +390,31 @@ public void process(Object row, int tag) throws HiveException {
         setCurrentPartition(batch);
       } else if (isPartitionChanged(batch)) {
         setCurrentPartition(batch);
+        finishLookaheadPartition();
         groupBatches.resetEvaluators();
       }
     }
 
     if (allEvaluatorsAreStreaming) {
 
-      // We can process this batch immediately.
-      groupBatches.evaluateStreamingGroupBatch(batch, isLastGroupBatch);
-      forward(batch, null);
+      if (lookaheadEvaluators == null) {
+
+        // We can process this batch immediately.
+        groupBatches.evaluateStreamingGroupBatch(batch, isLastGroupBatch);
+        forward(batch, null);
+      } else {
+
+        // The results of the last rows wait for the following rows.  Since the reduce processor
+        // reuses its batch, the evaluators work on a copy.
+        if (batch.size > 0) {
+          groupBatches.evaluateStreamingGroupBatch(copyToPendingBatch(batch), isLastGroupBatch);
+        }
+        if (!isPartitionOrderBy && isLastGroupBatch) {
+          finishLookaheadPartition();
+        } else {
+          forwardFinishedPendingBatches();
+        }
+      }
 
     } else {
 
@@ -409,6 +445,83 @@ public void process(Object row, int tag) throws HiveException {
     }
   }
 
+  private static VectorPTFEvaluatorSlidingBase[] getLookaheadEvaluators(
+      VectorPTFEvaluatorBase[] evaluators) {
+    ArrayList<VectorPTFEvaluatorSlidingBase> lookaheadEvaluatorList =
+        new ArrayList<VectorPTFEvaluatorSlidingBase>();
+    for (VectorPTFEvaluatorBase evaluator : evaluators) {
+      if (evaluator instanceof VectorPTFEvaluatorSlidingBase &&
+          ((VectorPTFEvaluatorSlidingBase) evaluator).hasLookahead()) {
+        lookaheadEvaluatorList.add((VectorPTFEvaluatorSlidingBase) evaluator);
+      }
+    }
+    if (lookaheadEvaluatorList.isEmpty()) {
+      return null;
+    }
+    return lookaheadEvaluatorList.toArray(new VectorPTFEvaluatorSlidingBase[0]);
+  }
+
+  /*
+   * Copy the reducer input columns of the batch into a pending batch with the same columns.
+   */
+  private VectorizedRowBatch copyToPendingBatch(VectorizedRowBatch batch) throws HiveException {
+    VectorizedRowBatch pendingBatch = freePendingBatches.poll();
+    if (pendingBatch == null) {
+      pendingBatch = new VectorizedRowBatch(batch.numCols);
+      for (int i = 0; i < batch.numCols; i++) {
+        if (batch.cols[i] != null) {
+          pendingBatch.cols[i] = VectorizedBatchUtil.makeLikeColumnVector(batch.cols[i]);
+          pendingBatch.cols[i].init();
+        }
+      }
+      pendingBatch.projectedColumns = batch.projectedColumns;
+      pendingBatch.projectionSize = batch.projectionSize;
+    }
+
+    final int size = batch.size;
+    for (int columnNum : keyInputColumnMap) {
+      VectorizedBatchUtil.copyNonSelectedColumnVector(batch, columnNum, pendingBatch, columnNum, size);
+    }
+    for (int columnNum : nonKeyInputColumnMap) {
+      VectorizedBatchUtil.copyNonSelectedColumnVector(batch, columnNum, pendingBatch, columnNum, size);
+    }
+    pendingBatch.size = size;
+
+    pendingBatches.add(pendingBatch);
+    return pendingBatch;
+  }
+
+  /*
+   * Forward the oldest pending batches whose rows have all been written by the lookahead
+   * evaluators.  The batches an evaluator still waits on are always the newest ones.
+   */
+  private void forwardFinishedPendingBatches() throws HiveException {
+    int waitingBatchCount = 0;
+    for (VectorPTFEvaluatorSlidingBase lookaheadEvaluator : lookaheadEvaluators) {
+      waitingBatchCount = Math.max(waitingBatchCount, lookaheadEvaluator.getPendingBatchCount());
+    }
+    while (pendingBatches.size() > waitingBatchCount) {
+      VectorizedRowBatch pendingBatch = pendingBatches.remove();
+      forward(pendingBatch, null);
+      pendingBatch.reset();
+      freePendingBatches.add(pendingBatch);
+    }
+  }
+
+  /*
+   * At the end of a partition, write the rows still waiting for following rows and forward all
+   * the pending batches.
+   */
+  private void finishLookaheadPartition() throws HiveException {
+    if (lookaheadEvaluators == null) {
+      return;
+    }
+    for (VectorPTFEvaluatorSlidingBase lookaheadEvaluator : lookaheadEvaluators) {
+      lookaheadEvaluator.finishPartition();
+    }
+    forwardFinishedPendingBatches();
+  }
+
   private boolean isPartitionChanged(VectorizedRowBatch batch) {
 
     final int count = partitionColumnMap.length;
@@ -541,6 +654,11 @@ public void forward(Object row, ObjectInspector rowInspector) throws HiveExcepti
 
   @Override
   protected void closeOp(boolean abort) throws HiveException {
+    if (!abort) {
+
+      // The last partition has ended; its last rows no longer wait for following rows.
+      finishLookaheadPartition();
+    }
     super.closeOp(abort);
 
     // We do not try to finish and flush an in-progress group because correct values require the
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+/**
+ * A deque of partition row numbers without boxing, used as the monotonic deque of the bounded
+ * ROWS frame min() and max() evaluators.
+ */
+public class VectorPTFRowDeque {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] rows;
+  private int mask;
+  private int head;
+  private int count;
+
+  public VectorPTFRowDeque() {
+    rows = new long[INITIAL_CAPACITY];
+    mask = INITIAL_CAPACITY - 1;
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public long peekFirst() {
+    return rows[head];
+  }
+
+  public long peekLast() {
+    return rows[(head + count - 1) & mask];
+  }
+
+  public void addLast(long row) {
+    if (count == rows.length) {
+      grow();
+    }
+    rows[(head + count) & mask] = row;
+    count++;
+  }
+
+  public void removeFirst() {
+    head = (head + 1) & mask;
+    count--;
+  }
+
+  public void removeLast() {
+    count--;
+  }
+
+  public void clear() {
+    head = 0;
+    count = 0;
+  }
+
+  private void grow() {
+    final int newCapacity = rows.length << 1;
+    long[] newRows = new long[newCapacity];
+    for (int i = 0; i < count; i++) {
+      newRows[i] = rows[(head + i) & mask];
+    }
+    rows = newRows;
+    mask = newCapacity - 1;
+    head = 0;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.udf;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+/**
+ * A function that evaluates whole batches of column vectors.
+ *
+ * A GenericUDF (or a UDF called through GenericUDFBridge) that implements this interface is
+ * vectorized with VectorBatchUDFExpression instead of the row at a time VectorUDFAdaptor.
+ * A GenericUDF is initialized with the argument object inspectors before the first batch.
+ */
+public interface VectorBatchUDF {
+
+  /**
+   * @param argumentTypeInfos the argument types
+   * @return true if evaluateBatch supports the argument types; otherwise the function is evaluated
+   *   with the VectorUDFAdaptor.
+   */
+  boolean supportsBatch(TypeInfo[] argumentTypeInfos);
+
+  /**
+   * Evaluate the function over the rows of a batch.
+   *
+   * A constant argument is a repeating column vector; the other arguments may be repeating too.
+   * The output column vector has been reset (noNulls is true, isRepeating is false and a
+   * BytesColumnVector buffer has been initialized).  The implementation writes the rows
+   * selected[0 .. size - 1] (or 0 .. size - 1 when selectedInUse is false) and marks NULL results
+   * with isNull and noNulls.
+   *
+   * @param arguments the argument column vectors
+   * @param selectedInUse whether selected has the batch rows
+   * @param selected the batch rows
+   * @param size the number of rows
+   * @param output the output column vector
+   */
+  void evaluateBatch(ColumnVector[] arguments, boolean selectedInUse, int[] selected, int size,
+      ColumnVector output) throws HiveException;
+}
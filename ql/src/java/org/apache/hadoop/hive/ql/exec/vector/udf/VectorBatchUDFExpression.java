@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.udf;
+
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorAssignRow;
+import org.apache.hadoop.hive.ql.exec.vector.VectorExpressionDescriptor;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedBatchUtil;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriter;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriterFactory;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBridge;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hive.common.util.ReflectionUtil;
+
+/**
+ * A vectorized expression for invoking a function that implements VectorBatchUDF on zero or more
+ * input vectors or constants which are the function arguments.
+ *
+ * Unlike the VectorUDFAdaptor, the arguments are not converted to objects row by row; the
+ * function evaluates the whole batch over the argument column vectors.
+ */
+public class VectorBatchUDFExpression extends VectorExpression {
+
+  private static final long serialVersionUID = 1L;
+
+  private String resultType;
+  private VectorUDFArgDesc[] argDescs;
+  private ExprNodeGenericFuncDesc expr;
+
+  private transient VectorBatchUDF batchUDF;
+  private transient ColumnVector[] arguments;
+
+  // Constant arguments as repeating column vectors.
+  private transient ColumnVector[] constantArguments;
+
+  public VectorBatchUDFExpression() {
+    super();
+  }
+
+  public VectorBatchUDFExpression(
+      ExprNodeGenericFuncDesc expr,
+      int outputColumnNum,
+      String resultType,
+      VectorUDFArgDesc[] argDescs) throws HiveException {
+
+    super(outputColumnNum);
+    this.expr = expr;
+    this.resultType = resultType;
+    this.argDescs = argDescs;
+  }
+
+  /**
+   * @return the batch function of a GenericUDF (or of the UDF called by a GenericUDFBridge), or
+   *   null when the function does not implement VectorBatchUDF or does not support the argument
+   *   types.
+   */
+  public static VectorBatchUDF getBatchUDF(GenericUDF genericUDF, TypeInfo[] argumentTypeInfos) {
+    final VectorBatchUDF batchUDF;
+    if (genericUDF instanceof VectorBatchUDF) {
+      batchUDF = (VectorBatchUDF) genericUDF;
+    } else if (genericUDF instanceof GenericUDFBridge) {
+      Class<?> udfClass;
+      try {
+        udfClass = ((GenericUDFBridge) genericUDF).getUdfClass();
+      } catch (RuntimeException e) {
+        return null;
+      }
+      if (udfClass == null || !VectorBatchUDF.class.isAssignableFrom(udfClass)) {
+        return null;
+      }
+      batchUDF = (VectorBatchUDF) ReflectionUtil.newInstance(udfClass, null);
+    } else {
+      return null;
+    }
+    return batchUDF.supportsBatch(argumentTypeInfos) ? batchUDF : null;
+  }
+
+  // Initialize transient fields. To be called after deserialization of other fields.
+  public void init() throws HiveException {
+    final int argumentCount = argDescs.length;
+    TypeInfo[] argumentTypeInfos = new TypeInfo[argumentCount];
+    for (int i = 0; i < argumentCount; i++) {
+      argumentTypeInfos[i] = expr.getChildren().get(i).getTypeInfo();
+    }
+
+    GenericUDF genericUDF = expr.getGenericUDF();
+    batchUDF = getBatchUDF(genericUDF, argumentTypeInfos);
+    if (batchUDF == null) {
+      throw new HiveException("Function " + expr.getExprString() + " is not a batch function");
+    }
+    if (batchUDF == genericUDF) {
+      VectorExpressionWriter[] writers =
+          VectorExpressionWriterFactory.getExpressionWriters(expr.getChildren());
+      ObjectInspector[] childrenOIs = new ObjectInspector[argumentCount];
+      for (int i = 0; i < argumentCount; i++) {
+        childrenOIs[i] = writers[i].getObjectInspector();
+      }
+      MapredContext context = MapredContext.get();
+      if (context != null) {
+        context.setup(genericUDF);
+      }
+      genericUDF.initialize(childrenOIs);
+    }
+
+    arguments = new ColumnVector[argumentCount];
+    constantArguments = new ColumnVector[argumentCount];
+    VectorizedRowBatch constantBatch = new VectorizedRowBatch(argumentCount, 1);
+    for (int i = 0; i < argumentCount; i++) {
+      if (!argDescs[i].isConstant()) {
+        continue;
+      }
+      argDescs[i].prepareConstant();
+      ExprNodeDesc child = expr.getChildren().get(i);
+      TypeInfo typeInfo = child.getTypeInfo();
+      if (typeInfo.equals(TypeInfoFactory.voidTypeInfo)) {
+
+        // A NULL constant of no particular type.
+        constantBatch.cols[i] = new LongColumnVector(1);
+        VectorizedBatchUtil.setNullColIsNullValue(constantBatch.cols[i], 0);
+      } else {
+        constantBatch.cols[i] = VectorizedBatchUtil.createColumnVector(typeInfo);
+        VectorAssignRow constantAssignRow = new VectorAssignRow();
+        constantAssignRow.init(typeInfo, i);
+        constantAssignRow.assignRowColumn(
+            constantBatch, /* batchIndex */ 0, /* logicalColumnIndex */ 0,
+            argDescs[i].getConstantValue());
+      }
+      constantBatch.cols[i].isRepeating = true;
+      constantArguments[i] = constantBatch.cols[i];
+    }
+  }
+
+  @Override
+  public void evaluate(VectorizedRowBatch batch) throws HiveException {
+
+    if (batchUDF == null) {
+      init();
+    }
+
+    if (childExpressions != null) {
+      super.evaluateChildren(batch);
+    }
+
+    ColumnVector outputColVector = batch.cols[outputColumnNum];
+    outputColVector.reset();
+    if (outputColVector instanceof BytesColumnVector) {
+      ((BytesColumnVector) outputColVector).initBuffer();
+    }
+
+    final int n = batch.size;
+    if (n == 0) {
+      // Nothing to do
+      return;
+    }
+
+    boolean hasVariableArgument = false;
+    boolean allVariableArgumentsRepeating = true;
+    for (int i = 0; i < argDescs.length; i++) {
+      if (argDescs[i].isConstant()) {
+        arguments[i] = constantArguments[i];
+      } else {
+        arguments[i] = batch.cols[argDescs[i].getColumnNum()];
+        hasVariableArgument = true;
+        if (!arguments[i].isRepeating) {
+          allVariableArgumentsRepeating = false;
+        }
+      }
+    }
+
+    if (hasVariableArgument && allVariableArgumentsRepeating) {
+
+      // Evaluate the function once for the repeated arguments.
+      batchUDF.evaluateBatch(arguments, false, batch.selected, 1, outputColVector);
+      outputColVector.isRepeating = true;
+      return;
+    }
+
+    batchUDF.evaluateBatch(arguments, batch.selectedInUse, batch.selected, n, outputColVector);
+  }
+
+  @Override
+  public String vectorExpressionParameters() {
+    return expr.getExprString();
+  }
+
+  @Override
+  public VectorExpressionDescriptor.Descriptor getDescriptor() {
+    return (new VectorExpressionDescriptor.Builder()).build();
+  }
+
+  public VectorUDFArgDesc[] getArgDescs() {
+    return argDescs;
+  }
+
+  public void setArgDescs(final VectorUDFArgDesc[] argDescs) {
+    this.argDescs = argDescs;
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.udf;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+/**
+ * Argument and result helpers for VectorBatchUDF implementations.
+ *
+ * The row methods take the batch row and follow the isRepeating flag of the argument.
+ */
+public final class VectorBatchUDFUtil {
+
+  private VectorBatchUDFUtil() {
+  }
+
+  private static PrimitiveCategory getPrimitiveCategory(TypeInfo typeInfo) {
+    return (typeInfo instanceof PrimitiveTypeInfo ?
+        ((PrimitiveTypeInfo) typeInfo).getPrimitiveCategory() : null);
+  }
+
+  /*
+   * STRING or VARCHAR; CHAR is excluded since its row mode value is padded.
+   */
+  public static boolean isStringFamily(TypeInfo typeInfo) {
+    final PrimitiveCategory primitiveCategory = getPrimitiveCategory(typeInfo);
+    return (primitiveCategory == PrimitiveCategory.STRING ||
+        primitiveCategory == PrimitiveCategory.VARCHAR);
+  }
+
+  /*
+   * TINYINT, SMALLINT or INT (i.e. converts to a java Integer).
+   */
+  public static boolean isIntFamily(TypeInfo typeInfo) {
+    final PrimitiveCategory primitiveCategory = getPrimitiveCategory(typeInfo);
+    return (primitiveCategory == PrimitiveCategory.BYTE ||
+        primitiveCategory == PrimitiveCategory.SHORT ||
+        primitiveCategory == PrimitiveCategory.INT);
+  }
+
+  public static boolean isIntOrLong(TypeInfo typeInfo) {
+    final PrimitiveCategory primitiveCategory = getPrimitiveCategory(typeInfo);
+    return (primitiveCategory == PrimitiveCategory.INT ||
+        primitiveCategory == PrimitiveCategory.LONG);
+  }
+
+  public static boolean isNull(ColumnVector colVector, int row) {
+    return !colVector.noNulls && colVector.isNull[colVector.isRepeating ? 0 : row];
+  }
+
+  public static String getString(BytesColumnVector colVector, int row) {
+    final int index = (colVector.isRepeating ? 0 : row);
+    return new String(
+        colVector.vector[index], colVector.start[index], colVector.length[index],
+        StandardCharsets.UTF_8);
+  }
+
+  /*
+   * @return the value of a repeating non-NULL string argument, or null.
+   */
+  public static String getRepeatingString(BytesColumnVector colVector) {
+    if (!colVector.isRepeating || isNull(colVector, 0)) {
+      return null;
+    }
+    return getString(colVector, 0);
+  }
+
+  public static void setNull(ColumnVector outputColVector, int row) {
+    outputColVector.isNull[row] = true;
+    outputColVector.noNulls = false;
+  }
+
+  /*
+   * Set a string result; a null value is a NULL result.
+   */
+  public static void setString(BytesColumnVector outputColVector, int row, String value) {
+    if (value == null) {
+      setNull(outputColVector, row);
+    } else {
+      outputColVector.setVal(row, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
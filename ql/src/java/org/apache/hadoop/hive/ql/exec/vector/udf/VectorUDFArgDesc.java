@@ -141,6 +141,13 @@ public void prepareConstant() {
     constObjVal = new GenericUDF.DeferredJavaObject(writableValue);
   }
 
+  /**
+   * @return the prepared (writable) constant value; null for a NULL constant.
+   */
+  public Object getConstantValue() throws HiveException {
+    return constObjVal.get();
+  }
+
   /**
    * Set this argument to be a "variable" one which is to be taken from
    * a specified column vector number i.
@@ -67,6 +67,13 @@ public void setHashKey() {
     throw new RuntimeException("Not implemented");
   }
 
+  /**
+   * Sets the hash code setHashKey() computed for an equal key.
+   */
+  public void setHashKey(int hashcode) {
+    this.hashcode = hashcode;
+  }
+
   @Override
   public int hashCode() {
     return hashcode;
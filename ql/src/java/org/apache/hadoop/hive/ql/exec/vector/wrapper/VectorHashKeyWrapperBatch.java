@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.hive.ql.exec.vector.wrapper;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
@@ -28,6 +29,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector.Type;
 import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.IntervalDayTimeColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
@@ -51,7 +53,7 @@ public VectorHashKeyWrapperBatch(int keyCount) {
   /**
    * Number of object references in 'this' (for size computation)
    */
-  private static final int MODEL_REFERENCES_COUNT = 7;
+  private static final int MODEL_REFERENCES_COUNT = 10;
 
   /**
    * The key expressions that require evaluation and output the primitive values for each key.
@@ -76,6 +78,14 @@ public VectorHashKeyWrapperBatch(int keyCount) {
    */
   private final VectorHashKeyWrapperBase.HashContext hashCtx = new VectorHashKeyWrapperBase.HashContext();
 
+  /**
+   * The hash codes of the entries of the current dictionary of a single dictionary encoded
+   * string key, by dictionary id.
+   */
+  private Object dictionaryKey;
+  private int[] dictionaryHashCodes;
+  private boolean[] hasDictionaryHashCode;
+
    /**
    * Returns the compiled fixed size for the key wrappers.
    * @return
@@ -161,11 +171,63 @@ public void evaluateBatch(VectorizedRowBatch batch) throws HiveException {
 
       evaluateIntervalDayTimeColumnVector(batch, columnVector, keyIndex, i);
     }
+    if (keyCount == 1 && stringIndices.length == 1) {
+      columnIndex = keyExpressions[stringIndices[0]].getOutputColumnNum();
+      ColumnVector columnVector = batch.cols[columnIndex];
+      if (columnVector instanceof DictionaryBytesColumnVector &&
+          ((DictionaryBytesColumnVector) columnVector).isDictionaryEncoded) {
+        setDictionaryHashKeys(batch, (DictionaryBytesColumnVector) columnVector);
+        return;
+      }
+    }
     for(int i=0;i<batch.size;++i) {
       vectorHashKeyWrappers[i].setHashKey();
     }
   }
 
+  /**
+   * Sets the hash codes of the key wrappers of a single dictionary encoded string key.  The hash
+   * code of each dictionary entry is computed once and reused for all the rows with its id.
+   */
+  private void setDictionaryHashKeys(VectorizedRowBatch batch, DictionaryBytesColumnVector columnVector) {
+    prepareDictionaryHashCodes(columnVector);
+    final int size = batch.size;
+    final int[] selected = batch.selected;
+    for (int i = 0; i < size; ++i) {
+      final VectorHashKeyWrapperBase kw = vectorHashKeyWrappers[i];
+      final int row = columnVector.isRepeating ? 0 : (batch.selectedInUse ? selected[i] : i);
+      if (!columnVector.noNulls && columnVector.isNull[row]) {
+        kw.setHashKey();
+        continue;
+      }
+      final int id = columnVector.ids[row];
+      if (hasDictionaryHashCode[id]) {
+        kw.setHashKey(dictionaryHashCodes[id]);
+      } else {
+        kw.setHashKey();
+        dictionaryHashCodes[id] = kw.hashCode();
+        hasDictionaryHashCode[id] = true;
+      }
+    }
+  }
+
+  private void prepareDictionaryHashCodes(DictionaryBytesColumnVector columnVector) {
+    final int dictionarySize = columnVector.dictionarySize;
+    if (columnVector.dictionaryKey != dictionaryKey) {
+      dictionaryKey = columnVector.dictionaryKey;
+      if (dictionaryHashCodes == null || dictionaryHashCodes.length < dictionarySize) {
+        dictionaryHashCodes = new int[dictionarySize];
+        hasDictionaryHashCode = new boolean[dictionarySize];
+      } else {
+        Arrays.fill(hasDictionaryHashCode, false);
+      }
+    } else if (dictionaryHashCodes.length < dictionarySize) {
+      final int newSize = Math.max(dictionarySize, dictionaryHashCodes.length * 2);
+      dictionaryHashCodes = Arrays.copyOf(dictionaryHashCodes, newSize);
+      hasDictionaryHashCode = Arrays.copyOf(hasDictionaryHashCode, newSize);
+    }
+  }
+
   public void evaluateBatchGroupingSets(VectorizedRowBatch batch,
       boolean[] groupingSetsOverrideIsNulls) throws HiveException {
 
@@ -38,6 +38,8 @@
 import org.apache.hadoop.hive.ql.exec.TableScanOperator;
 import org.apache.hadoop.hive.ql.exec.Utilities;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.VectorizedParquetInputFormat;
 import org.apache.hadoop.hive.ql.log.PerfLogger;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.HiveStoragePredicateHandler;
@@ -260,6 +262,12 @@ public static InputFormat<WritableComparable, Writable> wrapForLlap(
       // See if we can use re-encoding to read the format thru IO elevator.
       isSupported = isSerdeBased = checkInputFormatForLlapEncode(conf, ifName);
     }
+    if (!isSupported && isCacheOnly && Utilities.getIsVectorized(conf)
+        && (inputFormat instanceof MapredParquetInputFormat || inputFormat instanceof VectorizedParquetInputFormat)
+        && HiveConf.getBoolVar(conf, ConfVars.LLAP_IO_PARQUET_ENABLED)) {
+      // Parquet can also be decoded by the IO elevator; the caches are injected if it cannot be used.
+      isSupported = true;
+    }
     if ((!isSupported || !isVectorized) && !isCacheOnly) {
       if (LOG.isInfoEnabled()) {
         LOG.info("Not using llap for " + ifName + ": supported = "
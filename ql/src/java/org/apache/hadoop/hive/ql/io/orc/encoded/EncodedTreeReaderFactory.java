@@ -28,6 +28,7 @@
 import org.apache.hadoop.hive.common.io.encoded.EncodedColumnBatch;
 import org.apache.hadoop.hive.common.io.encoded.EncodedColumnBatch.ColumnStreamData;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
 import org.apache.hadoop.hive.ql.io.orc.encoded.Reader.OrcEncodedColumnBatch;
 import org.apache.orc.CompressionCodec;
 import org.apache.orc.TypeDescription;
@@ -233,6 +234,7 @@ protected static class StringStreamReader extends StringTreeReader
     private SettableUncompressedStream _lengthStream;
     private SettableUncompressedStream _dictionaryStream;
     private List<ColumnVector> vectors;
+    private final StringDictionaryIds dictionaryIds;
       private int vectorIndex = 0;
 
     private StringStreamReader(int columnId, SettableUncompressedStream present,
@@ -242,6 +244,7 @@ private StringStreamReader(int columnId, SettableUncompressedStream present,
         TreeReaderFactory.Context context, List<ColumnVector> vectors) throws IOException {
       super(columnId, present, data, length, dictionary, encoding, context);
       this._isDictionaryEncoding = dictionary != null;
+      this.dictionaryIds = _isDictionaryEncoding ? new StringDictionaryIds() : null;
       this._isFileCompressed = isFileCompressed;
       this._presentStream = present;
       this._dataStream = data;
@@ -303,6 +306,9 @@ public void nextVector(
         ColumnVector previousVector, boolean[] isNull, int batchSize) throws IOException {
       if (vectors == null) {
         super.nextVector(previousVector, isNull, batchSize);
+        if (dictionaryIds != null && previousVector instanceof DictionaryBytesColumnVector) {
+          dictionaryIds.assignIds((DictionaryBytesColumnVector) previousVector, batchSize);
+        }
         return;
       }
       vectors.get(vectorIndex++).shallowCopyTo(previousVector);
@@ -1683,6 +1689,7 @@ protected static class VarcharStreamReader extends VarcharTreeReader implements
     private SettableUncompressedStream _lengthStream;
     private SettableUncompressedStream _dictionaryStream;
     private List<ColumnVector> vectors;
+    private final StringDictionaryIds dictionaryIds;
       private int vectorIndex = 0;
 
     private VarcharStreamReader(int columnId, int maxLength,
@@ -1693,6 +1700,7 @@ private VarcharStreamReader(int columnId, int maxLength,
       super(columnId, maxLength, present, data, length,
           dictionary, encoding);
       this._isDictionaryEncoding = dictionary != null;
+      this.dictionaryIds = _isDictionaryEncoding ? new StringDictionaryIds() : null;
       this._isFileCompressed = isFileCompressed;
       this._presentStream = present;
       this._dataStream = data;
@@ -1753,6 +1761,9 @@ public void nextVector(
         ColumnVector previousVector, boolean[] isNull, int batchSize) throws IOException {
       if (vectors == null) {
         super.nextVector(previousVector, isNull, batchSize);
+        if (dictionaryIds != null && previousVector instanceof DictionaryBytesColumnVector) {
+          dictionaryIds.assignIds((DictionaryBytesColumnVector) previousVector, batchSize);
+        }
         return;
       }
       vectors.get(vectorIndex++).shallowCopyTo(previousVector);
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.io.orc.encoded;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
+import org.apache.hive.common.util.HashCodeUtil;
+
+/**
+ * Assigns the dictionary ids of a DictionaryBytesColumnVector read by a dictionary encoded
+ * string tree reader.
+ *
+ * ORC sets the values of a dictionary encoded column by reference into the dictionary bytes of
+ * the stripe, so the start offset of a value identifies its dictionary entry.  The entries are
+ * distinct and stored back to back; only the empty entry can share its start with the next one,
+ * so it gets a key of its own.  The ids are handed out in the order the entries are first seen;
+ * new dictionary bytes start a new dictionary.
+ */
+class StringDictionaryIds {
+
+  // Larger dictionaries are not worth the memory of the map (or of the consumers' caches).
+  static final int MAX_DICTIONARY_SIZE = 1 << 18;
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int FREE_SLOT = Integer.MIN_VALUE;
+  private static final int EMPTY_VALUE_KEY = -1;
+
+  private byte[] dictionaryBytes;
+  private Object dictionaryKey;
+  private boolean isOverflow;
+
+  // Open addressing map from the start offset (or EMPTY_VALUE_KEY) to the id.
+  private int[] keys;
+  private int[] values;
+  private int size;
+
+  /**
+   * Assigns the ids of the values just read into the column vector.  The vector is left not
+   * dictionary encoded when a value does not reference the dictionary bytes.
+   */
+  void assignIds(DictionaryBytesColumnVector colVector, int batchSize) {
+    final int n = colVector.isRepeating ? 1 : batchSize;
+    final boolean noNulls = colVector.noNulls;
+    final boolean[] isNull = colVector.isNull;
+    final byte[][] vector = colVector.vector;
+    final int[] ids = colVector.ids;
+
+    int i = 0;
+    while (i < n && !noNulls && isNull[i]) {
+      i++;
+    }
+    if (i < n && vector[i] != dictionaryBytes) {
+      startDictionary(vector[i]);
+    }
+    if (isOverflow) {
+      return;
+    }
+    if (dictionaryKey == null) {
+      // Only NULLs so far.
+      startDictionary(null);
+    }
+
+    for (; i < n; i++) {
+      if (!noNulls && isNull[i]) {
+        continue;
+      }
+      if (vector[i] != dictionaryBytes) {
+        return;
+      }
+      final int id = getId(colVector.length[i] == 0 ? EMPTY_VALUE_KEY : colVector.start[i]);
+      if (id == -1) {
+        return;
+      }
+      ids[i] = id;
+    }
+    colVector.setDictionary(dictionaryKey, size);
+  }
+
+  private void startDictionary(byte[] bytes) {
+    dictionaryBytes = bytes;
+    dictionaryKey = new Object();
+    isOverflow = false;
+    if (keys == null) {
+      keys = new int[INITIAL_CAPACITY];
+      values = new int[INITIAL_CAPACITY];
+    }
+    Arrays.fill(keys, FREE_SLOT);
+    size = 0;
+  }
+
+  /*
+   * @return The id of the entry, or -1 when the dictionary has grown too large.
+   */
+  private int getId(int key) {
+    int mask = keys.length - 1;
+    int slot = HashCodeUtil.calculateIntHashCode(key) & mask;
+    int slotKey;
+    while ((slotKey = keys[slot]) != FREE_SLOT) {
+      if (slotKey == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (size == MAX_DICTIONARY_SIZE) {
+      isOverflow = true;
+      return -1;
+    }
+    final int id = size++;
+    keys[slot] = key;
+    values[slot] = id;
+    if (size * 2 > keys.length) {
+      expand();
+    }
+    return id;
+  }
+
+  private void expand() {
+    final int[] oldKeys = keys;
+    final int[] oldValues = values;
+    final int capacity = oldKeys.length * 2;
+    final int mask = capacity - 1;
+    keys = new int[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, FREE_SLOT);
+    for (int i = 0; i < oldKeys.length; i++) {
+      final int key = oldKeys[i];
+      if (key == FREE_SLOT) {
+        continue;
+      }
+      int slot = HashCodeUtil.calculateIntHashCode(key) & mask;
+      while (keys[slot] != FREE_SLOT) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = oldValues[i];
+    }
+  }
+}
@@ -214,6 +214,9 @@ public void initialize(
         !HiveConf.getBoolVar(cacheConf, ConfVars.LLAP_IO_USE_FILEID_PATH));
     }
     if (cacheKey != null) {
+      if (cache != null) {
+        cache.touchFilePath(cacheKey, split.getPath().toUri().toString());
+      }
       if (HiveConf.getBoolVar(cacheConf, ConfVars.LLAP_TRACK_CACHE_USAGE)) {
         PartitionDesc partitionDesc = LlapHiveUtils.partitionDescForPath(split.getPath(), parts);
         cacheTag = LlapHiveUtils.getDbAndTableNameForMetrics(file, true, partitionDesc);
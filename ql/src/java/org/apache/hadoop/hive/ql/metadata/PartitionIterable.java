@@ -172,4 +172,20 @@ public PartitionIterable(Hive db, Table table, Map<String, String> partialPartit
     }
   }
 
+  private PartitionIterable(Hive db, Table table, List<String> partitionNames, int batchSize) {
+    this.currType = Type.LAZY_FETCH_PARTITIONS;
+    this.db = db;
+    this.table = table;
+    this.partitionNames = partitionNames;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Fetches the partitions with the given names, in batches.
+   */
+  public static PartitionIterable ofNames(Hive db, Table table, List<String> partitionNames,
+                                          int batchSize) {
+    return new PartitionIterable(db, table, partitionNames, batchSize);
+  }
+
 }
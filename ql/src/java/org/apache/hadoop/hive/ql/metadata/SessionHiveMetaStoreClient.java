@@ -85,6 +85,7 @@
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
 import org.apache.hadoop.hive.metastore.api.NotNullConstraintsRequest;
 import org.apache.hadoop.hive.metastore.api.NotNullConstraintsResponse;
+import org.apache.hadoop.hive.metastore.api.NotificationEvent;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.PartitionListComposingSpec;
 import org.apache.hadoop.hive.metastore.api.PartitionSpec;
@@ -110,8 +111,10 @@
 import org.apache.hadoop.hive.metastore.client.builder.PartitionBuilder;
 import org.apache.hadoop.hive.metastore.parser.ExpressionTree;
 import org.apache.hadoop.hive.metastore.partition.spec.PartitionSpecProxy;
+import org.apache.hadoop.hive.metastore.messaging.MessageBuilder;
 import org.apache.hadoop.hive.metastore.utils.MetaStoreUtils;
 import org.apache.hadoop.hive.ql.io.AcidUtils;
+import org.apache.hadoop.hive.ql.metadata.events.EventConsumer;
 import org.apache.hadoop.hive.ql.parse.SemanticAnalyzer;
 import org.apache.hadoop.hive.metastore.utils.MetaStoreServerUtils;
 import org.apache.hadoop.hive.metastore.utils.SecurityUtils;
@@ -2445,6 +2448,46 @@ protected GetValidWriteIdsResponse getValidWriteIdsInternal(GetValidWriteIdsRequ
     return super.getValidWriteIdsInternal(rqst);
   }
 
+  // EventConsumer to remove the entries of the changed tables (alter table, add partition, etc) from the HS2 level
+  // metastore client cache.
+  public static class InvalidationEventConsumer implements EventConsumer {
+    Configuration conf;
+
+    @Override
+    public Configuration getConf() {
+      return conf;
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+      this.conf = conf;
+    }
+
+    @Override
+    public void accept(NotificationEvent event) {
+      switch (event.getEventType()) {
+      case MessageBuilder.ADD_PARTITION_EVENT:
+      case MessageBuilder.ALTER_PARTITION_EVENT:
+      case MessageBuilder.DROP_PARTITION_EVENT:
+      case MessageBuilder.ALTER_TABLE_EVENT:
+      case MessageBuilder.DROP_TABLE_EVENT:
+      case MessageBuilder.INSERT_EVENT:
+      case MessageBuilder.UPDATE_TBL_COL_STAT_EVENT:
+      case MessageBuilder.DELETE_TBL_COL_STAT_EVENT:
+      case MessageBuilder.UPDATE_PART_COL_STAT_EVENT:
+      case MessageBuilder.DELETE_PART_COL_STAT_EVENT:
+        break;
+      default:
+        return;
+      }
+      if (event.getDbName() == null || event.getTableName() == null) {
+        LOG.info("Possibly malformed notification event, missing db or table name: {}", event);
+        return;
+      }
+      HiveMetaStoreClientWithLocalCache.invalidateTable(event.getDbName(), event.getTableName());
+    }
+  }
+
   /**
    * Wrapper to create a cache around a Map.
    */
@@ -25,17 +25,21 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.GroupByOperator;
 import org.apache.hadoop.hive.ql.exec.Operator;
 import org.apache.hadoop.hive.ql.exec.ReduceSinkOperator;
 import org.apache.hadoop.hive.ql.exec.Utilities;
 import org.apache.hadoop.hive.ql.lib.Node;
 import org.apache.hadoop.hive.ql.lib.SemanticNodeProcessor;
 import org.apache.hadoop.hive.ql.lib.NodeProcessorCtx;
+import org.apache.hadoop.hive.ql.parse.GenTezUtils;
 import org.apache.hadoop.hive.ql.parse.OptimizeTezProcContext;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc.ExprNodeDescEqualityWrapper;
+import org.apache.hadoop.hive.ql.plan.GroupByDesc;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.ql.plan.ReduceSinkDesc;
+import org.apache.hadoop.hive.ql.plan.Statistics;
 import org.apache.hadoop.hive.ql.stats.StatsUtils;
 
 import static org.apache.hadoop.hive.ql.plan.ReduceSinkDesc.ReducerTraits.AUTOPARALLEL;
@@ -109,7 +113,61 @@ public Object process(Node nd, Stack<Node> stack,
       desc.setReducerTraits(EnumSet.of(FIXED)); // usually controlled by bucketing
     }
 
+    if (context.conf.getBoolVar(HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_ENABLED)) {
+      checkReduceSideHashAggregation(context, sink);
+    }
+
     return false;
   }
 
+  /**
+   * Marks the MERGEPARTIAL GROUP BY fed by the reduce sink for reduce side hash aggregation
+   * when the groups estimated for one reducer are small enough.  If the reducer is vectorized
+   * the Vectorizer then replaces the sorted edge with an unordered one.
+   */
+  private void checkReduceSideHashAggregation(OptimizeTezProcContext context,
+      ReduceSinkOperator sink) {
+    ReduceSinkDesc desc = sink.getConf();
+    if (desc.getNumReducers() <= 0 || desc.getTopN() >= 0 ||
+        desc.isDeduplicated() || desc.hasOrderBy()) {
+      return;
+    }
+    if (sink.getChildOperators().size() != 1 ||
+        !(sink.getChildOperators().get(0) instanceof GroupByOperator)) {
+      return;
+    }
+    GroupByOperator groupBy = (GroupByOperator) sink.getChildOperators().get(0);
+    GroupByDesc groupByDesc = groupBy.getConf();
+    if (groupBy.getParentOperators().size() != 1 ||
+        groupByDesc.getMode() != GroupByDesc.Mode.MERGEPARTIAL ||
+        groupByDesc.getKeys().isEmpty() ||
+        groupByDesc.isDistinct() ||
+        groupByDesc.isGroupingSetsPresent() ||
+        !GenTezUtils.isOrderInsensitive(groupBy)) {
+      return;
+    }
+    Statistics stats = groupBy.getStatistics();
+    if (stats == null) {
+      return;
+    }
+
+    // Auto reduce parallelism may run fewer reducers than planned.
+    int numReducers = desc.getNumReducers();
+    if (desc.isAutoParallel()) {
+      float minPartitionFactor = context.conf.getFloatVar(HiveConf.ConfVars.TEZ_MIN_PARTITION_FACTOR);
+      numReducers = Math.max(1, (int) (numReducers * minPartitionFactor));
+    }
+    long bytesPerReducer = stats.getDataSize() / numReducers;
+    long maxBytesPerReducer = context.conf.getLongVar(
+        HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_REDUCE_HASH_MAX_BYTES_PER_REDUCER);
+    if (bytesPerReducer > maxBytesPerReducer) {
+      LOG.debug("Not using reduce side hash aggregation for " + groupBy + ": " + bytesPerReducer +
+          " bytes per reducer");
+      return;
+    }
+    LOG.info("Using reduce side hash aggregation for " + groupBy + ": " + bytesPerReducer +
+        " bytes per reducer");
+    groupByDesc.setReduceSideHashAggregation(true);
+  }
+
 }
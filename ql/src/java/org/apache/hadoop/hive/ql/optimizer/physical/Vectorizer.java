@@ -84,6 +84,7 @@
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.VectorMapJoinFullOuterMultiKeyOperator;
 import org.apache.hadoop.hive.ql.exec.vector.mapjoin.VectorMapJoinFullOuterStringOperator;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFOperator;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFExpression;
 import org.apache.hadoop.hive.ql.exec.vector.udf.VectorUDFAdaptor;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector.Type;
@@ -112,7 +113,9 @@
 import org.apache.hadoop.hive.ql.lib.TaskGraphWalker;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.VirtualColumn;
+import org.apache.hadoop.hive.ql.parse.GenTezUtils;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.WindowType;
 import org.apache.hadoop.hive.ql.plan.AbstractOperatorDesc;
 import org.apache.hadoop.hive.ql.plan.AggregationDesc;
 import org.apache.hadoop.hive.ql.plan.AppMasterEventDesc;
@@ -991,6 +994,15 @@ private Operator<? extends OperatorDesc> doProcessChild(
     return vectorChild;
   }
 
+  private static boolean isReduceHashGroupBy(Operator<? extends OperatorDesc> reducer) {
+    if (!(reducer instanceof VectorizationOperator)) {
+      return false;
+    }
+    VectorDesc vectorDesc = ((VectorizationOperator) reducer).getVectorDesc();
+    return vectorDesc instanceof VectorGroupByDesc &&
+        ((VectorGroupByDesc) vectorDesc).getProcessingMode() == ProcessingMode.REDUCE_HASH;
+  }
+
   class VectorizationDispatcher implements SemanticDispatcher {
 
     @Override
@@ -1032,6 +1044,11 @@ public Object dispatch(Node nd, Stack<Node> stack, Object... nodeOutputs)
             // We are only vectorizing Reduce under Tez/Spark.
             if (isReduceVectorizationEnabled) {
               convertReduceWork(reduceWork);
+
+              // The reduce side hash aggregation does not need the shuffle to sort.
+              if (reduceWork.getVectorMode() && isReduceHashGroupBy(reduceWork.getReducer())) {
+                GenTezUtils.setUnorderedInputEdges(work, reduceWork);
+              }
             }
 
             logReduceWorkExplainVectorization(reduceWork);
@@ -2737,6 +2754,11 @@ private boolean validateGroupByOperator(GroupByOperator op, boolean isReduce,
      *     STREAMING      Rows come from PARENT operator ALREADY GROUPED -->
      *                        aggregate the rows and emit full aggregation on key change / closeOp
      *
+     *     REDUCE_HASH    As first operator in a REDUCER, partial aggregations come unsorted from
+     *                    an unordered edge -->
+     *                        aggregate the partial aggregations in to a hash table and emit
+     *                        full aggregations on closeOp
+     *
      *     NOTE: Hash can spill partial result rows prematurely if it runs low on memory.
      *     NOTE: Streaming has to compare keys where MergePartial gets an endGroup call.
      *
@@ -2762,6 +2784,16 @@ private boolean validateGroupByOperator(GroupByOperator op, boolean isReduce,
 
     ProcessingMode processingMode =
         VectorGroupByDesc.groupByDescModeToVectorProcessingMode(desc.getMode(), hasKeys);
+
+    // The planner marks MERGEPARTIAL GROUP BYs with few enough groups per reducer.  They are
+    // hash aggregated when first in a Tez reducer, and the sorted edge replaced with an
+    // unordered one once the whole reducer vectorized.
+    if (processingMode == ProcessingMode.MERGE_PARTIAL && isReduce &&
+        desc.isReduceSideHashAggregation() &&
+        (op.getParentOperators() == null || op.getParentOperators().isEmpty()) &&
+        GenTezUtils.isOrderInsensitive(op)) {
+      processingMode = ProcessingMode.REDUCE_HASH;
+    }
     if (desc.isGroupingSetsPresent() &&
         (processingMode != ProcessingMode.HASH && processingMode != ProcessingMode.STREAMING)) {
       setOperatorIssue("Vectorized GROUPING SETS only expected for HASH and STREAMING processing modes");
@@ -2900,6 +2932,8 @@ private boolean validatePTFOperator(PTFOperator op, VectorizationContext vContex
     WindowFrameDef[] evaluatorWindowFrameDefs = vectorPTFDesc.getEvaluatorWindowFrameDefs();
     List<ExprNodeDesc>[] evaluatorInputExprNodeDescLists = vectorPTFDesc.getEvaluatorInputExprNodeDescLists();
 
+    boolean hasFollowingRowSliding = false;
+    boolean allAreStreaming = true;
     for (int i = 0; i < count; i++) {
       String functionName = evaluatorFunctionNames[i];
       SupportedFunctionType supportedFunctionType = VectorPTFDesc.supportedFunctionsMap.get(functionName);
@@ -2908,10 +2942,6 @@ private boolean validatePTFOperator(PTFOperator op, VectorizationContext vContex
         return false;
       }
       WindowFrameDef windowFrameDef = evaluatorWindowFrameDefs[i];
-      if (!windowFrameDef.isStartUnbounded()) {
-        setOperatorIssue(functionName + " only UNBOUNDED start frame is supported");
-        return false;
-      }
       List<ExprNodeDesc> exprNodeDescList = evaluatorInputExprNodeDescLists[i];
       final boolean isSingleParameter =
           (exprNodeDescList != null &&
@@ -2924,6 +2954,29 @@ private boolean validatePTFOperator(PTFOperator op, VectorizationContext vContex
           (singleTypeInfo instanceof PrimitiveTypeInfo ?
               ((PrimitiveTypeInfo) singleTypeInfo).getPrimitiveCategory() : null);
 
+      // A ROWS frame with a bounded start and end (e.g. 2 PRECEDING AND 2 FOLLOWING) slides.
+      final boolean isRowSliding =
+          (windowFrameDef.getWindowType() == WindowType.ROWS &&
+           !windowFrameDef.isStartUnbounded() &&
+           !windowFrameDef.isEndUnbounded());
+      if (!windowFrameDef.isStartUnbounded()) {
+        if (!isRowSliding) {
+          setOperatorIssue(functionName + " only UNBOUNDED start frame is supported");
+          return false;
+        }
+        if (!isSlidingWindowFunction(supportedFunctionType, singleTypeInfo)) {
+          setOperatorIssue(functionName +
+              " bounded ROWS frame is only supported for AVG, MAX, MIN and SUM of a long or double");
+          return false;
+        }
+        if (windowFrameDef.getEnd().getRelativeOffset() > 0) {
+          hasFollowingRowSliding = true;
+        }
+      }
+      if (!isStreamingWindowFunction(supportedFunctionType, windowFrameDef)) {
+        allAreStreaming = false;
+      }
+
       switch (windowFrameDef.getWindowType()) {
       case RANGE:
         if (!windowFrameDef.getEnd().isCurrentRow()) {
@@ -2941,7 +2994,7 @@ private boolean validatePTFOperator(PTFOperator op, VectorizationContext vContex
                supportedFunctionType == SupportedFunctionType.SUM) &&
               isSingleParameter &&
               singlePrimitiveCategory != null);
-          if (!isRowEndCurrent && !windowFrameDef.isEndUnbounded()) {
+          if (!isRowEndCurrent && !isRowSliding && !windowFrameDef.isEndUnbounded()) {
             setOperatorIssue(
                 functionName + " UNBOUNDED end frame is required for ROWS window type");
             return false;
@@ -2999,9 +3052,63 @@ private boolean validatePTFOperator(PTFOperator op, VectorizationContext vContex
         }
       }
     }
+
+    // The rows of a FOLLOWING frame end are forwarded once the following rows have been read,
+    // which requires every result to be streamed.
+    if (hasFollowingRowSliding && !allAreStreaming) {
+      setOperatorIssue("FOLLOWING end of a bounded ROWS frame requires all functions to be streaming");
+      return false;
+    }
     return true;
   }
 
+  private static boolean isSlidingWindowFunction(SupportedFunctionType supportedFunctionType,
+      TypeInfo singleTypeInfo) throws HiveException {
+    switch (supportedFunctionType) {
+    case AVG:
+    case MAX:
+    case MIN:
+    case SUM:
+      break;
+    default:
+      return false;
+    }
+    if (!(singleTypeInfo instanceof PrimitiveTypeInfo)) {
+      return false;
+    }
+    switch (VectorizationContext.getColumnVectorTypeFromTypeInfo(singleTypeInfo)) {
+    case LONG:
+    case DOUBLE:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /*
+   * Mirrors the streaming evaluators chosen by VectorPTFDesc.getEvaluator.
+   */
+  private static boolean isStreamingWindowFunction(SupportedFunctionType supportedFunctionType,
+      WindowFrameDef windowFrameDef) {
+    switch (supportedFunctionType) {
+    case ROW_NUMBER:
+    case RANK:
+    case DENSE_RANK:
+    case FIRST_VALUE:
+      return true;
+    case AVG:
+    case MAX:
+    case MIN:
+    case SUM:
+      return
+          windowFrameDef.getWindowType() == WindowType.ROWS &&
+          !windowFrameDef.isEndUnbounded() &&
+          (windowFrameDef.getEnd().isCurrentRow() || !windowFrameDef.isStartUnbounded());
+    default:
+      return false;
+    }
+  }
+
   private boolean validateExprNodeDesc(List<ExprNodeDesc> descs, String expressionTitle) {
     return validateExprNodeDesc(
         descs, expressionTitle, VectorExpressionDescriptor.Mode.PROJECTION, /* allowComplex */ true);
@@ -3520,6 +3627,18 @@ Operator<? extends OperatorDesc> specializeMapJoinOperator(Operator<? extends Op
     boolean minMaxEnabled = HiveConf.getBoolVar(hiveConf,
         HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_MINMAX_ENABLED);
 
+    // The Bloom filter is built from the fast hash table keys and only drops big table rows,
+    // so it is limited to the variations that output matching rows only.  MultiKey is left out
+    // since its keys are serialized per row by the lookup itself.
+    boolean bloomFilterEnabled =
+        HiveConf.getBoolVar(hiveConf,
+            HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_BLOOM_FILTER_ENABLED) &&
+        hashTableImplementationType == HashTableImplementationType.FAST &&
+        hashTableKeyType != HashTableKeyType.MULTI_KEY &&
+        (vectorMapJoinVariation == VectorMapJoinVariation.INNER ||
+            vectorMapJoinVariation == VectorMapJoinVariation.INNER_BIG_ONLY ||
+            vectorMapJoinVariation == VectorMapJoinVariation.LEFT_SEMI);
+
     vectorDesc.setHashTableImplementationType(hashTableImplementationType);
     vectorDesc.setHashTableKind(hashTableKind);
     vectorDesc.setHashTableKeyType(hashTableKeyType);
@@ -3529,6 +3648,7 @@ Operator<? extends OperatorDesc> specializeMapJoinOperator(Operator<? extends Op
       vectorDesc.setIsFullOuter(true);
     }
     vectorDesc.setMinMaxEnabled(minMaxEnabled);
+    vectorDesc.setBloomFilterEnabled(bloomFilterEnabled);
     vectorDesc.setVectorMapJoinInfo(vectorMapJoinInfo);
 
     vectorOp = OperatorFactory.getVectorOperator(
@@ -4778,9 +4898,10 @@ private static VectorExpression fixDecimalDataTypePhysicalVariations(final Vecto
       }
       // fix up the input column numbers and output column numbers
       if (inputArgsChanged) {
-        if (parent instanceof VectorUDFAdaptor) {
-          VectorUDFAdaptor parentAdaptor = (VectorUDFAdaptor) parent;
-          VectorUDFArgDesc[] argDescs = parentAdaptor.getArgDescs();
+        if (parent instanceof VectorUDFAdaptor || parent instanceof VectorBatchUDFExpression) {
+          VectorUDFArgDesc[] argDescs = (parent instanceof VectorUDFAdaptor ?
+              ((VectorUDFAdaptor) parent).getArgDescs() :
+              ((VectorBatchUDFExpression) parent).getArgDescs());
           for (int i = 0; i < argDescs.length; ++i) {
             if (argDescs[i].getColumnNum() != children[i].getOutputColumnNum()) {
               argDescs[i].setColumnNum(children[i].getOutputColumnNum());
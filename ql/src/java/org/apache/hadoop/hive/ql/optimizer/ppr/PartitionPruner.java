@@ -42,6 +42,7 @@
 import org.apache.hadoop.hive.ql.metadata.Hive;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.Partition;
+import org.apache.hadoop.hive.ql.metadata.PartitionIterable;
 import org.apache.hadoop.hive.ql.metadata.Table;
 import org.apache.hadoop.hive.ql.optimizer.PrunerUtils;
 import org.apache.hadoop.hive.ql.optimizer.Transform;
@@ -452,8 +453,13 @@ private static PrunedPartitionList getPartitionsFromServer(Table tab, final Stri
       if (!doEvalClientSide) {
         perfLogger.perfLogBegin(CLASS_NAME, PerfLogger.PARTITION_RETRIEVING);
         try {
-          hasUnknownPartitions = Hive.get().getPartitionsByExpr(
-              tab, compactExpr, conf, partitions);
+          int pageSize = HiveConf.getIntVar(conf, HiveConf.ConfVars.HIVE_OPTIMIZE_PPR_PAGE_SIZE);
+          if (pageSize > 0) {
+            hasUnknownPartitions = getPartitionsByExprPaged(tab, compactExpr, conf, partitions, pageSize);
+          } else {
+            hasUnknownPartitions = Hive.get().getPartitionsByExpr(
+                tab, compactExpr, conf, partitions);
+          }
         } catch (IMetaStoreClient.IncompatibleMetastoreException ime) {
           // TODO: backward compat for Hive <= 0.12. Can be removed later.
           LOG.warn("Metastore doesn't support getPartitionsByExpr", ime);
@@ -480,6 +486,26 @@ private static PrunedPartitionList getPartitionsFromServer(Table tab, final Stri
     }
   }
 
+  /**
+   * Gets the partitions matching the expression in pages: the metastore filters the partition
+   * names by the expression, and the partitions are fetched by name, a page at a time. The pages
+   * only bound the size of each metastore response: the pruned partition list still holds all the
+   * partitions, since its users need all of them.
+   * @return true iff the partition pruning expression cannot decide some of the partitions.
+   */
+  private static boolean getPartitionsByExprPaged(Table tab, ExprNodeGenericFuncDesc compactExpr,
+      HiveConf conf, List<Partition> partitions, int pageSize) throws HiveException, MetaException {
+    List<String> partNames = Hive.get().getPartitionNames(tab, compactExpr, null, (short) -1);
+    // The metastore only returns the names; evaluate the expression on them again for the partitions
+    // it cannot decide.
+    boolean hasUnknownPartitions = prunePartitionNames(extractPartColNames(tab), extractPartColTypes(tab),
+        compactExpr, conf.getVar(HiveConf.ConfVars.DEFAULTPARTITIONNAME), partNames);
+    for (Partition part : PartitionIterable.ofNames(Hive.get(), tab, partNames, pageSize)) {
+      partitions.add(part);
+    }
+    return hasUnknownPartitions;
+  }
+
   private static Set<Partition> getAllPartitions(Table tab) throws HiveException {
     PerfLogger perfLogger = SessionState.getPerfLogger();
     perfLogger.perfLogBegin(CLASS_NAME, PerfLogger.PARTITION_RETRIEVING);
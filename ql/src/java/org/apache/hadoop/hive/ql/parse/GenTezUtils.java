@@ -37,6 +37,7 @@
 import org.apache.hadoop.hive.ql.exec.Operator;
 import org.apache.hadoop.hive.ql.exec.OperatorUtils;
 import org.apache.hadoop.hive.ql.exec.ReduceSinkOperator;
+import org.apache.hadoop.hive.ql.exec.SelectOperator;
 import org.apache.hadoop.hive.ql.exec.SerializationUtilities;
 import org.apache.hadoop.hive.ql.exec.TableScanOperator;
 import org.apache.hadoop.hive.ql.exec.UnionOperator;
@@ -562,6 +563,40 @@ public static EdgeType determineEdgeType(BaseWork preceedingWork, BaseWork follo
     return EdgeType.SIMPLE_EDGE;
   }
 
+  /**
+   * Returns true if the result of the operators below op, up to the next ReduceSink or
+   * FileSink, does not depend on the order of the rows op outputs.  Used to check that the
+   * GROUP BY of a reducer may aggregate unsorted input.
+   */
+  public static boolean isOrderInsensitive(Operator<?> op) {
+    for (Operator<?> child : op.getChildOperators()) {
+      if (child instanceof ReduceSinkOperator || child instanceof FileSinkOperator) {
+        continue;
+      }
+      if (!(child instanceof SelectOperator || child instanceof FilterOperator) ||
+          !isOrderInsensitive(child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the sorted edges into a reduce work with unordered partitioned edges.  Only valid
+   * when the reducer does not need its input grouped by key, like the vectorized reduce side
+   * hash aggregation.
+   */
+  public static void setUnorderedInputEdges(TezWork tezWork, ReduceWork reduceWork) {
+    for (BaseWork parentWork : tezWork.getParents(reduceWork)) {
+      TezEdgeProperty edgeProperty = tezWork.getEdgeProperty(parentWork, reduceWork);
+      if (edgeProperty.getEdgeType() == EdgeType.SIMPLE_EDGE) {
+        LOG.info("Using unordered edge from " + parentWork.getName() + " to " +
+            reduceWork.getName());
+        edgeProperty.setEdgeType(EdgeType.CUSTOM_SIMPLE_EDGE);
+      }
+    }
+  }
+
   public static void processDynamicSemiJoinPushDownOperator(
           GenTezProcContext procCtx, RuntimeValuesInfo runtimeValuesInfo,
           ReduceSinkOperator rs)
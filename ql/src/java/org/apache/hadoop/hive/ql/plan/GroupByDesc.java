@@ -77,6 +77,7 @@ public static enum Mode {
   private float minReductionHashAggrLowerBound;
   transient private boolean isDistinct;
   private boolean dontResetAggrsDistinct;
+  private boolean reduceSideHashAggregation;
 
   public GroupByDesc() {
   }
@@ -337,6 +338,18 @@ public void setDistinct(boolean isDistinct) {
     this.isDistinct = isDistinct;
   }
 
+  /**
+   * True when the planner estimated that the groups of this MERGEPARTIAL GROUP BY fit in the
+   * memory of a reducer, so a vectorized reducer may hash aggregate its unsorted input.
+   */
+  public boolean isReduceSideHashAggregation() {
+    return reduceSideHashAggregation;
+  }
+
+  public void setReduceSideHashAggregation(boolean reduceSideHashAggregation) {
+    this.reduceSideHashAggregation = reduceSideHashAggregation;
+  }
+
   @Override
   public Object clone() {
     List<String> outputColumnNames = new ArrayList<>();
@@ -48,7 +48,14 @@ public class VectorGroupByDesc extends AbstractVectorDesc  {
    *     STREAMING      Rows come from PARENT operator already grouped --&gt;
    *                        aggregate the rows and emit full aggregation on key change / closeOp
    *
+   *     REDUCE_HASH    As first operator in a REDUCER, partial aggregations come unsorted from
+   *                    an unordered partitioned edge --&gt;
+   *                        aggregate the partial aggregations in to a partitioned hash table and
+   *                        emit full aggregations on closeOp
+   *
    *     NOTE: Hash can spill partial result rows prematurely if it runs low on memory.
+   *     NOTE: ReduceHash spills input rows of hash partitions to local disk if it runs low on
+   *           memory and aggregates them after the in memory partitions.
    *     NOTE: Streaming has to compare keys where MergePartial gets an endGroup call.
    */
   public static enum ProcessingMode {
@@ -56,7 +63,8 @@ public static enum ProcessingMode {
     GLOBAL,
     HASH,
     MERGE_PARTIAL,
-    STREAMING
+    STREAMING,
+    REDUCE_HASH
   };
 
   private ProcessingMode processingMode;
@@ -101,6 +101,7 @@ public static enum VectorMapJoinVariation {
   private HashTableKeyType hashTableKeyType;
   private VectorMapJoinVariation vectorMapJoinVariation;
   private boolean minMaxEnabled;
+  private boolean bloomFilterEnabled;
 
   private VectorExpression[] allBigTableKeyExpressions;
   private VectorExpression[] allBigTableValueExpressions;
@@ -113,6 +114,7 @@ public VectorMapJoinDesc() {
     hashTableKeyType = HashTableKeyType.NONE;
     vectorMapJoinVariation = null;
     minMaxEnabled = false;
+    bloomFilterEnabled = false;
 
     allBigTableKeyExpressions = null;
     allBigTableValueExpressions = null;
@@ -128,6 +130,7 @@ public VectorMapJoinDesc clone() {
     clone.hashTableKeyType = this.hashTableKeyType;
     clone.vectorMapJoinVariation = this.vectorMapJoinVariation;
     clone.minMaxEnabled = this.minMaxEnabled;
+    clone.bloomFilterEnabled = this.bloomFilterEnabled;
     if (vectorMapJoinInfo != null) {
       throw new RuntimeException("Cloning VectorMapJoinInfo not supported");
     }
@@ -174,6 +177,14 @@ public void setMinMaxEnabled(boolean minMaxEnabled) {
     this.minMaxEnabled = minMaxEnabled;
   }
 
+  public boolean getBloomFilterEnabled() {
+    return bloomFilterEnabled;
+  }
+
+  public void setBloomFilterEnabled(boolean bloomFilterEnabled) {
+    this.bloomFilterEnabled = bloomFilterEnabled;
+  }
+
   public VectorExpression[] getAllBigTableKeyExpressions() {
     return allBigTableKeyExpressions;
   }
@@ -54,6 +54,14 @@
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorLongSum;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorRank;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorRowNumber;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingDoubleAvg;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingDoubleMax;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingDoubleMin;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingDoubleSum;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingLongAvg;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingLongMax;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingLongMin;
+import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorSlidingLongSum;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorStreamingDecimalAvg;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorStreamingDecimalMax;
 import org.apache.hadoop.hive.ql.exec.vector.ptf.VectorPTFEvaluatorStreamingDecimalMin;
@@ -162,6 +170,12 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
         (windowFrameDef.getWindowType() == WindowType.ROWS &&
          windowFrameDef.getEnd().isCurrentRow());
 
+    // A ROWS frame with a bounded start and end (e.g. 2 PRECEDING AND 2 FOLLOWING) slides.
+    final boolean isRowSliding =
+        (windowFrameDef.getWindowType() == WindowType.ROWS &&
+         !windowFrameDef.getStart().isUnbounded() &&
+         !windowFrameDef.getEnd().isUnbounded());
+
     VectorPTFEvaluatorBase evaluator;
     switch (functionType) {
     case ROW_NUMBER:
@@ -177,6 +191,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
     case MIN:
       switch (columnVectorType) {
       case LONG:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingLongMin(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorLongMin(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -184,6 +203,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
                 windowFrameDef, inputVectorExpression, outputColumnNum);
         break;
       case DOUBLE:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingDoubleMin(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorDoubleMin(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -204,6 +228,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
     case MAX:
       switch (columnVectorType) {
       case LONG:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingLongMax(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorLongMax(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -211,6 +240,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
                 windowFrameDef, inputVectorExpression, outputColumnNum);
         break;
       case DOUBLE:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingDoubleMax(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorDoubleMax(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -231,6 +265,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
     case SUM:
       switch (columnVectorType) {
       case LONG:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingLongSum(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorLongSum(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -238,6 +277,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
                 windowFrameDef, inputVectorExpression, outputColumnNum);
         break;
       case DOUBLE:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingDoubleSum(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorDoubleSum(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -258,6 +302,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
     case AVG:
       switch (columnVectorType) {
       case LONG:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingLongAvg(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorLongAvg(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
@@ -265,6 +314,11 @@ public static VectorPTFEvaluatorBase getEvaluator(SupportedFunctionType function
                 windowFrameDef, inputVectorExpression, outputColumnNum);
         break;
       case DOUBLE:
+        if (isRowSliding) {
+          evaluator = new VectorPTFEvaluatorSlidingDoubleAvg(
+              windowFrameDef, inputVectorExpression, outputColumnNum);
+          break;
+        }
         evaluator = !isRowEndCurrent ?
             new VectorPTFEvaluatorDoubleAvg(
                 windowFrameDef, inputVectorExpression, outputColumnNum) :
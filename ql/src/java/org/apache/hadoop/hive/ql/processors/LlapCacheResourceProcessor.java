@@ -26,6 +26,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -39,14 +40,18 @@
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.GnuParser;
 import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.TableName;
 import org.apache.hadoop.hive.conf.VariableSubstitution;
+import org.apache.hadoop.hive.llap.LlapCachePrewarm;
 import org.apache.hadoop.hive.llap.daemon.rpc.LlapDaemonProtocolProtos;
 import org.apache.hadoop.hive.llap.impl.LlapManagementProtocolClientImpl;
 import org.apache.hadoop.hive.llap.registry.LlapServiceInstance;
 import org.apache.hadoop.hive.llap.registry.impl.LlapRegistryService;
+import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.Schema;
 import org.apache.hadoop.hive.ql.security.authorization.plugin.HiveOperationType;
@@ -67,6 +72,13 @@ public class LlapCacheResourceProcessor implements CommandProcessor {
 
   LlapCacheResourceProcessor() {
     CACHE_OPTIONS.addOption("purge", "purge", false, "Purge LLAP IO cache");
+    CACHE_OPTIONS.addOption("prewarm", "prewarm", true,
+        "Load the given table into LLAP IO cache in the background");
+    Option partitionOption = new Option("partition", "partition", true,
+        "Partition(s) to prewarm, as (partial) partition names, e.g. ds=2020-01-01/hr=10");
+    partitionOption.setArgs(Option.UNLIMITED_VALUES);
+    CACHE_OPTIONS.addOption(partitionOption);
+    CACHE_OPTIONS.addOption("columns", "columns", true, "Comma separated columns to prewarm");
   }
 
   @Override
@@ -91,6 +103,7 @@ private CommandProcessorResponse llapCacheCommandHandler(SessionState ss, String
       throws ParseException, CommandProcessorException {
     CommandLine args = parseCommandArgs(CACHE_OPTIONS, params);
     boolean purge = args.hasOption("purge");
+    boolean prewarm = args.hasOption("prewarm");
     String hs2Host = null;
     if (ss.isHiveServerQuery()) {
       hs2Host = ss.getHiveServer2Host();
@@ -113,6 +126,26 @@ private CommandProcessorResponse llapCacheCommandHandler(SessionState ss, String
         throw new CommandProcessorException(
             "LLAP Cache Processor Helper Failed: Error while purging LLAP IO Cache. err: " + e.getMessage());
       }
+    } else if (prewarm) {
+      List<String> fullCommand = Lists.newArrayList("llap", "cache");
+      fullCommand.addAll(Arrays.asList(params));
+      CommandProcessorResponse authErrResp =
+        CommandUtil.authorizeCommandAndServiceObject(ss, HiveOperationType.LLAP_CACHE_PREWARM, fullCommand, hs2Host);
+      if (authErrResp != null) {
+        // there was an authorization issue
+        return authErrResp;
+      }
+      try {
+        LlapCachePrewarm.Request request = createPrewarmRequest(ss, args);
+        LlapCachePrewarm.prewarm(ss.getConf(), ss.getUserName(), request);
+        ss.out.println(Joiner.on("\t").join(
+            TableName.getDbTable(request.getDbName(), request.getTableName()), "scheduled"));
+        return new CommandProcessorResponse(getPrewarmSchema(), null);
+      } catch (Exception e) {
+        LOG.error("Error while scheduling LLAP IO Cache prewarm. err: ", e);
+        throw new CommandProcessorException(
+            "LLAP Cache Processor Helper Failed: Error while scheduling LLAP IO Cache prewarm. err: " + e.getMessage());
+      }
     } else {
       String usage = getUsageAsString();
       throw new CommandProcessorException(
@@ -128,6 +161,35 @@ private Schema getSchema() {
     return sch;
   }
 
+  private Schema getPrewarmSchema() {
+    Schema sch = new Schema();
+    sch.addToFieldSchemas(new FieldSchema("tableName", "string", ""));
+    sch.addToFieldSchemas(new FieldSchema("status", "string", ""));
+    sch.putToProperties(SERIALIZATION_NULL_FORMAT, defaultNullString);
+    return sch;
+  }
+
+  private LlapCachePrewarm.Request createPrewarmRequest(SessionState ss, CommandLine args) throws Exception {
+    TableName tableName = TableName.fromString(args.getOptionValue("prewarm"), null, ss.getCurrentDatabase());
+    List<LinkedHashMap<String, String>> partSpecs = new ArrayList<>();
+    String[] partNames = args.getOptionValues("partition");
+    if (partNames != null) {
+      for (String partName : partNames) {
+        partSpecs.add(Warehouse.makeSpecFromName(partName));
+      }
+    }
+    List<String> columns = new ArrayList<>();
+    String columnList = args.getOptionValue("columns");
+    if (columnList != null) {
+      for (String column : columnList.split(",")) {
+        if (!column.trim().isEmpty()) {
+          columns.add(column.trim());
+        }
+      }
+    }
+    return new LlapCachePrewarm.Request(tableName.getDb(), tableName.getTable(), partSpecs, columns);
+  }
+
   private void llapCachePurge(final SessionState ss, final LlapRegistryService llapRegistryService) throws Exception {
     ExecutorService executorService = Executors.newCachedThreadPool();
     List<Future<Long>> futures = new ArrayList<>();
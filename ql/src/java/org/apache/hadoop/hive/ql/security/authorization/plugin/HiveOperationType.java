@@ -148,6 +148,7 @@ public enum HiveOperationType {
   DROP_MAPPING,
   LLAP_CLUSTER_INFO,
   LLAP_CACHE_PURGE,
+  LLAP_CACHE_PREWARM,
   CREATE_SCHEDULED_QUERY,
   ALTER_SCHEDULED_QUERY,
   DROP_SCHEDULED_QUERY,
@@ -29,6 +29,11 @@
 import com.google.common.collect.Iterators;
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDF;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDF;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFUtil;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.io.Text;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonParser.Feature;
@@ -58,7 +63,7 @@
     + "  ?() : Filter (script) expression.\n"
     + "  [,] : Union operator\n"
     + "  [start:end:step] : array slice operator\n")
-public class UDFJson extends UDF {
+public class UDFJson extends UDF implements VectorBatchUDF {
   private static final Pattern patternKey = Pattern.compile("^([a-zA-Z0-9_\\-\\:\\s]+).*");
   private static final Pattern patternIndex = Pattern.compile("\\[([0-9]+|\\*)\\]");
   private static final JavaType MAP_TYPE = TypeFactory.fromClass(Map.class);
@@ -197,6 +202,41 @@ public Text evaluate(String jsonString, String pathString) {
     return result;
   }
 
+  @Override
+  public boolean supportsBatch(TypeInfo[] argumentTypeInfos) {
+    return (argumentTypeInfos.length == 2 &&
+        VectorBatchUDFUtil.isStringFamily(argumentTypeInfos[0]) &&
+        VectorBatchUDFUtil.isStringFamily(argumentTypeInfos[1]));
+  }
+
+  @Override
+  public void evaluateBatch(ColumnVector[] arguments, boolean selectedInUse, int[] selected,
+      int size, ColumnVector output) {
+    BytesColumnVector jsonColVector = (BytesColumnVector) arguments[0];
+    BytesColumnVector pathColVector = (BytesColumnVector) arguments[1];
+    BytesColumnVector outputColVector = (BytesColumnVector) output;
+
+    // The path is usually a constant.
+    final String repeatingPath = VectorBatchUDFUtil.getRepeatingString(pathColVector);
+
+    for (int j = 0; j < size; j++) {
+      final int i = (selectedInUse ? selected[j] : j);
+      if (VectorBatchUDFUtil.isNull(jsonColVector, i) ||
+          VectorBatchUDFUtil.isNull(pathColVector, i)) {
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+        continue;
+      }
+      Text result = evaluate(
+          VectorBatchUDFUtil.getString(jsonColVector, i),
+          (repeatingPath != null ? repeatingPath : VectorBatchUDFUtil.getString(pathColVector, i)));
+      if (result == null) {
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+      } else {
+        outputColVector.setVal(i, result.getBytes(), 0, result.getLength());
+      }
+    }
+  }
+
   private Object extract(Object json, String path, boolean skipMapProc) {
     // skip MAP processing for the first path element if root is array
     if (!skipMapProc) {
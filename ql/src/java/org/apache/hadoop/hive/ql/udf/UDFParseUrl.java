@@ -24,6 +24,11 @@
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDF;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDF;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFUtil;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 
 /**
  * UDF to extract specfic parts from URL For example,
@@ -51,7 +56,7 @@
     + "  'query=1'\n"
     + "  > SELECT _FUNC_('http://facebook.com/path/p1.php?query=1', "
     + "'QUERY', 'query') FROM src LIMIT 1;\n" + "  '1'")
-public class UDFParseUrl extends UDF {
+public class UDFParseUrl extends UDF implements VectorBatchUDF {
   private String lastUrlStr = null;
   private URL url = null;
   private Pattern p = null;
@@ -123,4 +128,53 @@ public String evaluate(String urlStr, String partToExtract, String key) {
     }
     return null;
   }
+
+  @Override
+  public boolean supportsBatch(TypeInfo[] argumentTypeInfos) {
+    if (argumentTypeInfos.length != 2 && argumentTypeInfos.length != 3) {
+      return false;
+    }
+    for (TypeInfo argumentTypeInfo : argumentTypeInfos) {
+      if (!VectorBatchUDFUtil.isStringFamily(argumentTypeInfo)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void evaluateBatch(ColumnVector[] arguments, boolean selectedInUse, int[] selected,
+      int size, ColumnVector output) {
+    BytesColumnVector urlColVector = (BytesColumnVector) arguments[0];
+    BytesColumnVector partColVector = (BytesColumnVector) arguments[1];
+    BytesColumnVector keyColVector =
+        (arguments.length == 3 ? (BytesColumnVector) arguments[2] : null);
+    BytesColumnVector outputColVector = (BytesColumnVector) output;
+
+    // The part and key are usually constants.
+    final String repeatingPart = VectorBatchUDFUtil.getRepeatingString(partColVector);
+    final String repeatingKey =
+        (keyColVector == null ? null : VectorBatchUDFUtil.getRepeatingString(keyColVector));
+
+    for (int j = 0; j < size; j++) {
+      final int i = (selectedInUse ? selected[j] : j);
+      if (VectorBatchUDFUtil.isNull(urlColVector, i) ||
+          VectorBatchUDFUtil.isNull(partColVector, i) ||
+          (keyColVector != null && VectorBatchUDFUtil.isNull(keyColVector, i))) {
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+        continue;
+      }
+      final String urlStr = VectorBatchUDFUtil.getString(urlColVector, i);
+      final String partToExtract =
+          (repeatingPart != null ? repeatingPart : VectorBatchUDFUtil.getString(partColVector, i));
+      final String result;
+      if (keyColVector == null) {
+        result = evaluate(urlStr, partToExtract);
+      } else {
+        result = evaluate(urlStr, partToExtract,
+            (repeatingKey != null ? repeatingKey : VectorBatchUDFUtil.getString(keyColVector, i)));
+      }
+      VectorBatchUDFUtil.setString(outputColVector, i, result);
+    }
+  }
 }
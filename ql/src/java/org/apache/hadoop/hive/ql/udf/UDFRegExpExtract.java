@@ -24,6 +24,12 @@
 
 import org.apache.hadoop.hive.ql.exec.Description;
 import org.apache.hadoop.hive.ql.exec.UDF;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDF;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFUtil;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 
 /**
  * UDF to extract a specific group identified by a java regex. Note that if a
@@ -35,7 +41,7 @@
     extended = "Example:\n"
     + "  > SELECT _FUNC_('100-200', '(\\d+)-(\\d+)', 1) FROM src LIMIT 1;\n"
     + "  '100'")
-public class UDFRegExpExtract extends UDF {
+public class UDFRegExpExtract extends UDF implements VectorBatchUDF {
   private String lastRegex = null;
   private Pattern p = null;
 
@@ -62,4 +68,50 @@ public String evaluate(String s, String regex) {
     return this.evaluate(s, regex, 1);
   }
 
+  @Override
+  public boolean supportsBatch(TypeInfo[] argumentTypeInfos) {
+    return ((argumentTypeInfos.length == 2 || argumentTypeInfos.length == 3) &&
+        VectorBatchUDFUtil.isStringFamily(argumentTypeInfos[0]) &&
+        VectorBatchUDFUtil.isStringFamily(argumentTypeInfos[1]) &&
+        (argumentTypeInfos.length == 2 || VectorBatchUDFUtil.isIntFamily(argumentTypeInfos[2])));
+  }
+
+  @Override
+  public void evaluateBatch(ColumnVector[] arguments, boolean selectedInUse, int[] selected,
+      int size, ColumnVector output) {
+    BytesColumnVector strColVector = (BytesColumnVector) arguments[0];
+    BytesColumnVector regexColVector = (BytesColumnVector) arguments[1];
+    LongColumnVector indexColVector =
+        (arguments.length == 3 ? (LongColumnVector) arguments[2] : null);
+    BytesColumnVector outputColVector = (BytesColumnVector) output;
+
+    // The regex is usually a constant.
+    final String repeatingRegex = VectorBatchUDFUtil.getRepeatingString(regexColVector);
+
+    for (int j = 0; j < size; j++) {
+      final int i = (selectedInUse ? selected[j] : j);
+      if (VectorBatchUDFUtil.isNull(strColVector, i) ||
+          VectorBatchUDFUtil.isNull(regexColVector, i)) {
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+        continue;
+      }
+      final int extractIndex;
+      if (indexColVector == null) {
+        extractIndex = 1;
+      } else if (VectorBatchUDFUtil.isNull(indexColVector, i)) {
+
+        // Row mode fails to unbox the NULL index.
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+        continue;
+      } else {
+        extractIndex = (int) indexColVector.vector[indexColVector.isRepeating ? 0 : i];
+      }
+      VectorBatchUDFUtil.setString(outputColVector, i,
+          evaluate(
+              VectorBatchUDFUtil.getString(strColVector, i),
+              (repeatingRegex != null ? repeatingRegex : VectorBatchUDFUtil.getString(regexColVector, i)),
+              extractIndex));
+    }
+  }
+
 }
@@ -18,6 +18,7 @@
 
 package org.apache.hadoop.hive.ql.udf.generic;
 
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.ZoneId;
 import java.util.Date;
@@ -29,6 +30,11 @@
 import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDF;
+import org.apache.hadoop.hive.ql.exec.vector.udf.VectorBatchUDFUtil;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.session.SessionState;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
@@ -39,6 +45,7 @@
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.io.Text;
 
 /**
@@ -50,7 +57,7 @@
     extended = "Example:\n"
         + "  > SELECT _FUNC_(0, 'yyyy-MM-dd HH:mm:ss') FROM src LIMIT 1;\n"
         + "  '1970-01-01 00:00:00'")
-public class GenericUDFFromUnixTime extends GenericUDF {
+public class GenericUDFFromUnixTime extends GenericUDF implements VectorBatchUDF {
 
   private transient IntObjectInspector inputIntOI;
   private transient LongObjectInspector inputLongOI;
@@ -138,11 +145,7 @@ public Object evaluate(DeferredObject[] arguments) throws HiveException {
       if (format == null) {
         return null;
       }
-      if (!format.equals(lastFormat)) {
-        formatter = new SimpleDateFormat(format);
-        formatter.setTimeZone(TimeZone.getTimeZone(timeZone));
-        lastFormat = format;
-      }
+      setFormat(format);
     }
 
     // convert seconds to milliseconds
@@ -158,6 +161,61 @@ public Object evaluate(DeferredObject[] arguments) throws HiveException {
     return result;
   }
 
+  private void setFormat(String format) {
+    if (!format.equals(lastFormat)) {
+      formatter = new SimpleDateFormat(format);
+      formatter.setTimeZone(TimeZone.getTimeZone(timeZone));
+      lastFormat = format;
+    }
+  }
+
+  @Override
+  public boolean supportsBatch(TypeInfo[] argumentTypeInfos) {
+    return ((argumentTypeInfos.length == 1 || argumentTypeInfos.length == 2) &&
+        VectorBatchUDFUtil.isIntOrLong(argumentTypeInfos[0]) &&
+        (argumentTypeInfos.length == 1 || VectorBatchUDFUtil.isStringFamily(argumentTypeInfos[1])));
+  }
+
+  @Override
+  public void evaluateBatch(ColumnVector[] arguments, boolean selectedInUse, int[] selected,
+      int size, ColumnVector output) {
+    LongColumnVector unixTimeColVector = (LongColumnVector) arguments[0];
+    BytesColumnVector formatColVector =
+        (arguments.length == 2 ? (BytesColumnVector) arguments[1] : null);
+    BytesColumnVector outputColVector = (BytesColumnVector) output;
+
+    // The format is usually a constant; set it once.
+    boolean isFormatNull = false;
+    if (formatColVector != null && formatColVector.isRepeating) {
+      isFormatNull = VectorBatchUDFUtil.isNull(formatColVector, 0);
+      if (!isFormatNull) {
+        setFormat(VectorBatchUDFUtil.getString(formatColVector, 0));
+      }
+      formatColVector = null;
+    }
+
+    long[] vector = unixTimeColVector.vector;
+    for (int j = 0; j < size; j++) {
+      final int i = (selectedInUse ? selected[j] : j);
+      if (isFormatNull || VectorBatchUDFUtil.isNull(unixTimeColVector, i)) {
+        VectorBatchUDFUtil.setNull(outputColVector, i);
+        continue;
+      }
+      if (formatColVector != null) {
+        if (VectorBatchUDFUtil.isNull(formatColVector, i)) {
+          VectorBatchUDFUtil.setNull(outputColVector, i);
+          continue;
+        }
+        setFormat(VectorBatchUDFUtil.getString(formatColVector, i));
+      }
+
+      // convert seconds to milliseconds
+      final long unixtime = vector[unixTimeColVector.isRepeating ? 0 : i];
+      outputColVector.setVal(i,
+          formatter.format(new Date(unixtime * 1000L)).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
   protected String getName() {
     return "from_unixtime";
   }
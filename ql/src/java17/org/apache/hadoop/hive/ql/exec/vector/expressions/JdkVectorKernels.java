@@ -0,0 +1,1293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorKernels using the JDK Vector API, with the preferred vector size of the platform.
+ *
+ * Each public method dispatches once per call to a loop helper with a constant operator; the
+ * helpers are small enough to be inlined so the operator is constant folded and the lanewise
+ * operations compile to SIMD instructions.  The last partial vector of the rows is done with a
+ * lane mask.  For the rows of a selected vector the operands are gathered, and the results
+ * scattered, with the selected vector as the index map.
+ *
+ * Created reflectively by VectorKernelsProvider.
+ */
+final class JdkVectorKernels extends VectorKernels {
+
+  private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  JdkVectorKernels() {
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long[] vector1, long[] vector2, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector1, vector2, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector1, vector2, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector1, vector2, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long[] vector, long value, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector, value, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector, value, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector, value, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long value, long[] vector, long[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, value, vector, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, value, vector, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, value, vector, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double[] vector1, double[] vector2, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector1, vector2, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector1, vector2, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector1, vector2, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double[] vector, double value, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector, value, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector, value, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector, value, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double value, double[] vector, double[] output, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, value, vector, output, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, value, vector, output, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, value, vector, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, long[] vector1, long[] vector2, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector1, vector2, output, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector1, vector2, output, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector1, vector2, output, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector1, vector2, output, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector1, vector2, output, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector1, vector2, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, long[] vector, long value, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector, value, output, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector, value, output, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector, value, output, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector, value, output, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector, value, output, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector, value, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, double[] vector1, double[] vector2, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector1, vector2, output, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector1, vector2, output, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector1, vector2, output, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector1, vector2, output, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector1, vector2, output, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector1, vector2, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, double[] vector, double value, long[] output, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector, value, output, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector, value, output, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector, value, output, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector, value, output, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector, value, output, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector, value, output, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, long[] vector1, long[] vector2, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector1, vector2, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector1, vector2, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector1, vector2, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector1, vector2, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector1, vector2, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector1, vector2, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, long[] vector, long value, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector, value, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector, value, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector, value, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector, value, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector, value, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector, value, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, double[] vector1, double[] vector2, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector1, vector2, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector1, vector2, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector1, vector2, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector1, vector2, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector1, vector2, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector1, vector2, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, double[] vector, double value, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector, value, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector, value, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector, value, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector, value, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector, value, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector, value, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector1, vector2, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector1, vector2, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector1, vector2, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long[] vector, long value,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector, value, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector, value, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector, value, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, long value, long[] vector,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, value, vector, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, value, vector, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, value, vector, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double[] vector1, double[] vector2,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector1, vector2, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector1, vector2, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector1, vector2, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double[] vector, double value,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, vector, value, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, vector, value, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, vector, value, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void arithmetic(ArithmeticOp op, double value, double[] vector,
+      double[] output, int[] sel, int size) {
+    switch (op) {
+    case ADD:
+      lanewise(VectorOperators.ADD, value, vector, output, sel, size);
+      break;
+    case SUBTRACT:
+      lanewise(VectorOperators.SUB, value, vector, output, sel, size);
+      break;
+    case MULTIPLY:
+      lanewise(VectorOperators.MUL, value, vector, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected arithmetic operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector1, vector2, output, sel, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector1, vector2, output, sel, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector1, vector2, output, sel, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector1, vector2, output, sel, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector1, vector2, output, sel, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector1, vector2, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, long[] vector, long value, long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector, value, output, sel, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector, value, output, sel, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector, value, output, sel, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector, value, output, sel, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector, value, output, sel, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector, value, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, double[] vector1, double[] vector2,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector1, vector2, output, sel, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector1, vector2, output, sel, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector1, vector2, output, sel, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector1, vector2, output, sel, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector1, vector2, output, sel, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector1, vector2, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public void compare(CompareOp op, double[] vector, double value,
+      long[] output, int[] sel, int size) {
+    switch (op) {
+    case EQUAL:
+      compare(VectorOperators.EQ, vector, value, output, sel, size);
+      break;
+    case NOT_EQUAL:
+      compare(VectorOperators.NE, vector, value, output, sel, size);
+      break;
+    case LESS:
+      compare(VectorOperators.LT, vector, value, output, sel, size);
+      break;
+    case LESS_EQUAL:
+      compare(VectorOperators.LE, vector, value, output, sel, size);
+      break;
+    case GREATER:
+      compare(VectorOperators.GT, vector, value, output, sel, size);
+      break;
+    case GREATER_EQUAL:
+      compare(VectorOperators.GE, vector, value, output, sel, size);
+      break;
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, long[] vector1, long[] vector2,
+      int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector1, vector2, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector1, vector2, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector1, vector2, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector1, vector2, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector1, vector2, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector1, vector2, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, long[] vector, long value, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector, value, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector, value, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector, value, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector, value, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector, value, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector, value, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, double[] vector1, double[] vector2,
+      int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector1, vector2, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector1, vector2, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector1, vector2, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector1, vector2, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector1, vector2, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector1, vector2, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, double[] vector, double value, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector, value, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector, value, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector, value, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector, value, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector, value, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector, value, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector, value, isNull, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector, value, isNull, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector, value, isNull, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector, value, isNull, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector, value, isNull, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector, value, isNull, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector, value, isNull, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector, value, isNull, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector, value, isNull, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector, value, isNull, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector, value, isNull, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector, value, isNull, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filter(CompareOp op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filter(VectorOperators.EQ, vector, value, isNull, selected, size);
+    case NOT_EQUAL:
+      return filter(VectorOperators.NE, vector, value, isNull, selected, size);
+    case LESS:
+      return filter(VectorOperators.LT, vector, value, isNull, selected, size);
+    case LESS_EQUAL:
+      return filter(VectorOperators.LE, vector, value, isNull, selected, size);
+    case GREATER:
+      return filter(VectorOperators.GT, vector, value, isNull, selected, size);
+    case GREATER_EQUAL:
+      return filter(VectorOperators.GE, vector, value, isNull, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  @Override
+  public int filterSelected(CompareOp op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    switch (op) {
+    case EQUAL:
+      return filterSelected(VectorOperators.EQ, vector, value, isNull, selected, size);
+    case NOT_EQUAL:
+      return filterSelected(VectorOperators.NE, vector, value, isNull, selected, size);
+    case LESS:
+      return filterSelected(VectorOperators.LT, vector, value, isNull, selected, size);
+    case LESS_EQUAL:
+      return filterSelected(VectorOperators.LE, vector, value, isNull, selected, size);
+    case GREATER:
+      return filterSelected(VectorOperators.GT, vector, value, isNull, selected, size);
+    case GREATER_EQUAL:
+      return filterSelected(VectorOperators.GE, vector, value, isNull, selected, size);
+    default:
+      throw new RuntimeException("Unexpected comparison operator " + op);
+    }
+  }
+
+  //------------------------------------------------------------------------------------------------
+
+  private static void lanewise(VectorOperators.Binary op, long[] vector1, long[] vector2,
+      long[] output, int size) {
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      LongVector.fromArray(LONG_SPECIES, vector1, i)
+          .lanewise(op, LongVector.fromArray(LONG_SPECIES, vector2, i))
+          .intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      LongVector.fromArray(LONG_SPECIES, vector1, i, mask)
+          .lanewise(op, LongVector.fromArray(LONG_SPECIES, vector2, i, mask))
+          .intoArray(output, i, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, long[] vector, long value,
+      long[] output, int size) {
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      LongVector.fromArray(LONG_SPECIES, vector, i).lanewise(op, value).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      LongVector.fromArray(LONG_SPECIES, vector, i, mask).lanewise(op, value).intoArray(output, i, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, long value, long[] vector,
+      long[] output, int size) {
+    final LongVector values = LongVector.broadcast(LONG_SPECIES, value);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      values.lanewise(op, LongVector.fromArray(LONG_SPECIES, vector, i)).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      values.lanewise(op, LongVector.fromArray(LONG_SPECIES, vector, i, mask)).intoArray(output, i, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, long[] vector1, long[] vector2,
+      long[] output, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, i)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, i));
+      zeros.blend(1L, result).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, i, mask)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, i, mask));
+      zeros.blend(1L, result).intoArray(output, i, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, long[] vector, long value,
+      long[] output, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector, i).compare(op, value);
+      zeros.blend(1L, result).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, i, mask).compare(op, value);
+      zeros.blend(1L, result).intoArray(output, i, mask);
+    }
+  }
+
+  private static int filter(VectorOperators.Comparison op, long[] vector1, long[] vector2,
+      int[] selected, int size) {
+    int newSize = 0;
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, i)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, i));
+      newSize = select(result.toLong(), i, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, i, mask)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, i, mask));
+      newSize = select(result.and(mask).toLong(), i, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filter(VectorOperators.Comparison op, long[] vector, long value,
+      int[] selected, int size) {
+    int newSize = 0;
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector, i).compare(op, value);
+      newSize = select(result.toLong(), i, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, i, mask).compare(op, value);
+      newSize = select(result.and(mask).toLong(), i, selected, newSize);
+    }
+    return newSize;
+  }
+
+  //------------------------------------------------------------------------------------------------
+
+  private static void lanewise(VectorOperators.Binary op, double[] vector1, double[] vector2,
+      double[] output, int size) {
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i)
+          .lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i))
+          .intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i, mask)
+          .lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i, mask))
+          .intoArray(output, i, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, double[] vector, double value,
+      double[] output, int size) {
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector, i).lanewise(op, value).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector, i, mask).lanewise(op, value).intoArray(output, i, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, double value, double[] vector,
+      double[] output, int size) {
+    final DoubleVector values = DoubleVector.broadcast(DOUBLE_SPECIES, value);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      values.lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector, i)).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      values.lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector, i, mask)).intoArray(output, i, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, double[] vector1, double[] vector2,
+      long[] output, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i)
+          .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i));
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i, mask)
+          .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i, mask));
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, i, mask.cast(LONG_SPECIES));
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, double[] vector, double value,
+      long[] output, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector, i).compare(op, value);
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, i);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, i, mask).compare(op, value);
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, i, mask.cast(LONG_SPECIES));
+    }
+  }
+
+  private static int filter(VectorOperators.Comparison op, double[] vector1, double[] vector2,
+      int[] selected, int size) {
+    int newSize = 0;
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i)
+          .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i));
+      newSize = select(result.toLong(), i, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector1, i, mask)
+          .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, i, mask));
+      newSize = select(result.and(mask).toLong(), i, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filter(VectorOperators.Comparison op, double[] vector, double value,
+      int[] selected, int size) {
+    int newSize = 0;
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector, i).compare(op, value);
+      newSize = select(result.toLong(), i, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, i, mask).compare(op, value);
+      newSize = select(result.and(mask).toLong(), i, selected, newSize);
+    }
+    return newSize;
+  }
+
+  //------------------------------------------------------------------------------------------------
+  // The rows in sel: the operands are gathered and the results scattered with sel as the index map.
+
+  private static void lanewise(VectorOperators.Binary op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      LongVector.fromArray(LONG_SPECIES, vector1, 0, sel, j)
+          .lanewise(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, sel, j))
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      LongVector.fromArray(LONG_SPECIES, vector1, 0, sel, j, mask)
+          .lanewise(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, sel, j, mask))
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, long[] vector, long value,
+      long[] output, int[] sel, int size) {
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j).lanewise(op, value)
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j, mask).lanewise(op, value)
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, long value, long[] vector,
+      long[] output, int[] sel, int size) {
+    final LongVector values = LongVector.broadcast(LONG_SPECIES, value);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      values.lanewise(op, LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j))
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      values.lanewise(op, LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j, mask))
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, long[] vector1, long[] vector2,
+      long[] output, int[] sel, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, 0, sel, j)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, sel, j));
+      zeros.blend(1L, result).intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, 0, sel, j, mask)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, sel, j, mask));
+      zeros.blend(1L, result).intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, long[] vector, long value,
+      long[] output, int[] sel, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j).compare(op, value);
+      zeros.blend(1L, result).intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, 0, sel, j, mask).compare(op, value);
+      zeros.blend(1L, result).intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, long[] vector1, long[] vector2,
+      int[] selected, int size) {
+    int newSize = 0;
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector1, 0, selected, j)
+          .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, selected, j));
+      newSize = reselect(result.toLong(), j, null, selected, newSize);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector1, 0, selected, j, mask)
+              .compare(op, LongVector.fromArray(LONG_SPECIES, vector2, 0, selected, j, mask));
+      newSize = reselect(result.and(mask).toLong(), j, null, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    final int bound = LONG_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += LONG_SPECIES.length()) {
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, 0, selected, j).compare(op, value);
+      newSize = reselect(result.toLong(), j, isNull, selected, newSize);
+    }
+    if (j < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(j, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, 0, selected, j, mask).compare(op, value);
+      newSize = reselect(result.and(mask).toLong(), j, isNull, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, long[] vector, long value,
+      int[] selected, int size) {
+    return filterSelected(op, vector, value, null, selected, size);
+  }
+
+  private static int filter(VectorOperators.Comparison op, long[] vector, long value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    final int bound = LONG_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += LONG_SPECIES.length()) {
+      final VectorMask<Long> result = LongVector.fromArray(LONG_SPECIES, vector, i).compare(op, value);
+      newSize = select(result.toLong(), i, isNull, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Long> mask = LONG_SPECIES.indexInRange(i, size);
+      final VectorMask<Long> result =
+          LongVector.fromArray(LONG_SPECIES, vector, i, mask).compare(op, value);
+      newSize = select(result.and(mask).toLong(), i, isNull, selected, newSize);
+    }
+    return newSize;
+  }
+
+  //------------------------------------------------------------------------------------------------
+
+  private static void lanewise(VectorOperators.Binary op, double[] vector1, double[] vector2,
+      double[] output, int[] sel, int size) {
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, sel, j)
+          .lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, sel, j))
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, sel, j, mask)
+          .lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, sel, j, mask))
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, double[] vector, double value,
+      double[] output, int[] sel, int size) {
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j).lanewise(op, value)
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j, mask).lanewise(op, value)
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void lanewise(VectorOperators.Binary op, double value, double[] vector,
+      double[] output, int[] sel, int size) {
+    final DoubleVector values = DoubleVector.broadcast(DOUBLE_SPECIES, value);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      values.lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j))
+          .intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      values.lanewise(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j, mask))
+          .intoArray(output, 0, sel, j, mask);
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, double[] vector1, double[] vector2,
+      long[] output, int[] sel, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, sel, j)
+          .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, sel, j));
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, sel, j, mask)
+              .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, sel, j, mask));
+      zeros.blend(1L, result.cast(LONG_SPECIES))
+          .intoArray(output, 0, sel, j, mask.cast(LONG_SPECIES));
+    }
+  }
+
+  private static void compare(VectorOperators.Comparison op, double[] vector, double value,
+      long[] output, int[] sel, int size) {
+    final LongVector zeros = LongVector.zero(LONG_SPECIES);
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j).compare(op, value);
+      zeros.blend(1L, result.cast(LONG_SPECIES)).intoArray(output, 0, sel, j);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, sel, j, mask).compare(op, value);
+      zeros.blend(1L, result.cast(LONG_SPECIES))
+          .intoArray(output, 0, sel, j, mask.cast(LONG_SPECIES));
+    }
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, double[] vector1,
+      double[] vector2, int[] selected, int size) {
+    int newSize = 0;
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, selected, j)
+              .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, selected, j));
+      newSize = reselect(result.toLong(), j, null, selected, newSize);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector1, 0, selected, j, mask)
+              .compare(op, DoubleVector.fromArray(DOUBLE_SPECIES, vector2, 0, selected, j, mask));
+      newSize = reselect(result.and(mask).toLong(), j, null, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int j = 0;
+    for (; j < bound; j += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, selected, j).compare(op, value);
+      newSize = reselect(result.toLong(), j, isNull, selected, newSize);
+    }
+    if (j < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(j, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, 0, selected, j, mask).compare(op, value);
+      newSize = reselect(result.and(mask).toLong(), j, isNull, selected, newSize);
+    }
+    return newSize;
+  }
+
+  private static int filterSelected(VectorOperators.Comparison op, double[] vector, double value,
+      int[] selected, int size) {
+    return filterSelected(op, vector, value, null, selected, size);
+  }
+
+  private static int filter(VectorOperators.Comparison op, double[] vector, double value,
+      boolean[] isNull, int[] selected, int size) {
+    int newSize = 0;
+    final int bound = DOUBLE_SPECIES.loopBound(size);
+    int i = 0;
+    for (; i < bound; i += DOUBLE_SPECIES.length()) {
+      final VectorMask<Double> result = DoubleVector.fromArray(DOUBLE_SPECIES, vector, i).compare(op, value);
+      newSize = select(result.toLong(), i, isNull, selected, newSize);
+    }
+    if (i < size) {
+      final VectorMask<Double> mask = DOUBLE_SPECIES.indexInRange(i, size);
+      final VectorMask<Double> result =
+          DoubleVector.fromArray(DOUBLE_SPECIES, vector, i, mask).compare(op, value);
+      newSize = select(result.and(mask).toLong(), i, isNull, selected, newSize);
+    }
+    return newSize;
+  }
+
+  /*
+   * Appends the rows of the set lane bits to selected.
+   */
+  private static int select(long laneBits, int start, int[] selected, int newSize) {
+    while (laneBits != 0) {
+      selected[newSize++] = start + Long.numberOfTrailingZeros(laneBits);
+      laneBits &= (laneBits - 1);
+    }
+    return newSize;
+  }
+
+  /*
+   * Appends the rows of the set lane bits that are not null to selected.
+   */
+  private static int select(long laneBits, int start, boolean[] isNull, int[] selected,
+      int newSize) {
+    while (laneBits != 0) {
+      final int i = start + Long.numberOfTrailingZeros(laneBits);
+      if (!isNull[i]) {
+        selected[newSize++] = i;
+      }
+      laneBits &= (laneBits - 1);
+    }
+    return newSize;
+  }
+
+  /*
+   * Moves the selected rows of the set lane bits, from selected[start + lane], down to
+   * selected[newSize], skipping the null rows when isNull is given.  newSize never passes
+   * start + lane, so no row still to be read is overwritten.
+   */
+  private static int reselect(long laneBits, int start, boolean[] isNull, int[] selected,
+      int newSize) {
+    while (laneBits != 0) {
+      final int i = selected[start + Long.numberOfTrailingZeros(laneBits)];
+      if (isNull == null || !isNull[i]) {
+        selected[newSize++] = i;
+      }
+      laneBits &= (laneBits - 1);
+    }
+    return newSize;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.llap;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.junit.Test;
+
+/**
+ * Tests the queries built for LLAP cache prewarm requests.
+ */
+public class TestLlapCachePrewarm {
+
+  private final HiveConf conf = new HiveConf();
+
+  @Test
+  public void testUnpartitioned() {
+    List<String> queries = LlapCachePrewarm.buildQueries("db", "tab", Arrays.asList("a", "b`c"),
+        Collections.emptyList(), 10, conf);
+    assertEquals(Collections.singletonList("SELECT count(`a`), count(`b``c`) FROM `db`.`tab`"), queries);
+  }
+
+  @Test
+  public void testPartitionBatches() {
+    List<LinkedHashMap<String, String>> partSpecs = Arrays.asList(
+        partSpec("ds", "2020-01-01", "hr", "10"), partSpec("ds", "2020-01-02", "hr", "11"), partSpec("ds", "it's"));
+    List<String> queries = LlapCachePrewarm.buildQueries("db", "tab", Collections.singletonList("a"), partSpecs, 2,
+        conf);
+    assertEquals(Arrays.asList(
+        "SELECT count(`a`) FROM `db`.`tab` WHERE (`ds` = '2020-01-01' AND `hr` = '10')"
+            + " OR (`ds` = '2020-01-02' AND `hr` = '11')",
+        "SELECT count(`a`) FROM `db`.`tab` WHERE (`ds` = 'it\\'s')"), queries);
+  }
+
+  private static LinkedHashMap<String, String> partSpec(String... keysAndValues) {
+    LinkedHashMap<String, String> partSpec = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      partSpec.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+    return partSpec;
+  }
+}
@@ -21,16 +21,24 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.llap.registry.LlapCacheSummary;
+import org.apache.hadoop.hive.ql.io.HiveInputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSplit;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.split.TezGroupedSplit;
+import org.apache.hadoop.mapred.split.TezMapredSplitsGrouper;
+import org.apache.tez.dag.api.TaskLocationHint;
+import org.apache.tez.mapreduce.grouper.TezSplitGrouper;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -299,6 +307,91 @@ public void testOrcSplitsLocationAffinity() throws IOException {
     assertArrayEquals(retLoc13, retLoc132);
   }
 
+  @Test (timeout = 5000)
+  public void testCacheAwareLocations() throws IOException {
+    InputSplit os1 = createMockFileSplit(true, "path1", 0, 1000, new String[] {locations.get(0)});
+    String primary = new HostAffinitySplitLocationProvider(executorLocations).getLocations(os1)[0];
+    int primaryIndex = executorLocations.indexOf(primary);
+    String pathUri = new Path("path1").toUri().toString();
+
+    // Three other nodes have the file in the cache; the others have not published a summary.
+    List<LlapCacheSummary> summaries = new ArrayList<>(Collections.nCopies(executorLocations.size(), null));
+    for (int offset : new int[] { 3, 5, 7 }) {
+      summaries.set((primaryIndex + offset) % executorLocations.size(), LlapCacheSummary.deserialize(
+          LlapCacheSummary.create(Arrays.asList(pathUri), 10).serialize()));
+    }
+    HostAffinitySplitLocationProvider locationProvider =
+        new HostAffinitySplitLocationProvider(executorLocations, summaries, 2);
+
+    // The splits are grouped by the consistent location only.
+    assertArrayEquals(new String[] { primary }, locationProvider.getLocations(os1));
+    List<String> cacheLocations = locationProvider.getCacheLocations(os1);
+    assertEquals(Arrays.asList(executorLocations.get((primaryIndex + 3) % executorLocations.size()),
+        executorLocations.get((primaryIndex + 5) % executorLocations.size())), cacheLocations);
+    assertEquals(cacheLocations, locationProvider.getCacheLocations(os1));
+
+    // Nothing is added when no summary has the file.
+    LlapCacheSummary other = LlapCacheSummary.create(Arrays.asList("hdfs://nn/other"), 10);
+    locationProvider = new HostAffinitySplitLocationProvider(executorLocations,
+        new ArrayList<>(Collections.nCopies(executorLocations.size(), other)), 2);
+    assertArrayEquals(new String[] { primary }, locationProvider.getLocations(os1));
+    assertTrue(locationProvider.getCacheLocations(os1).isEmpty());
+  }
+
+  @Test (timeout = 10000)
+  public void testCacheLocationsKeepGrouping() throws IOException {
+    final int SPLIT_COUNT = 100, GROUP_COUNT = 20;
+    FileSplit[] splits = new FileSplit[SPLIT_COUNT];
+    List<String> pathUris = new ArrayList<>(SPLIT_COUNT);
+    for (int i = 0; i < splits.length; ++i) {
+      splits[i] = createMockFileSplit(false, "path" + i, 0, 1000, new String[] {});
+      pathUris.add(splits[i].getPath().toUri().toString());
+    }
+    // Every node might have every file in the cache.
+    LlapCacheSummary summary = LlapCacheSummary.create(pathUris, SPLIT_COUNT);
+    HostAffinitySplitLocationProvider cacheAware = new HostAffinitySplitLocationProvider(executorLocations,
+        new ArrayList<>(Collections.nCopies(executorLocations.size(), summary)), 2);
+
+    Configuration conf = new Configuration();
+    conf.setLong(TezSplitGrouper.TEZ_GROUPING_SPLIT_MIN_SIZE, 1);
+    conf.setBoolean(TezSplitGrouper.TEZ_GROUPING_NODE_LOCAL_ONLY, true);
+    InputSplit[] groups = groupSplits(conf, splits, GROUP_COUNT,
+        new HostAffinitySplitLocationProvider(executorLocations));
+    InputSplit[] cacheAwareGroups = groupSplits(conf, splits, GROUP_COUNT, cacheAware);
+    assertEquals(describeGroups(groups), describeGroups(cacheAwareGroups));
+
+    // The other locations only go to the location hints, after the location of the group.
+    List<TaskLocationHint> hints = new SplitGrouper().createTaskLocationHints(cacheAwareGroups, false, cacheAware);
+    assertEquals(cacheAwareGroups.length, hints.size());
+    for (int i = 0; i < cacheAwareGroups.length; ++i) {
+      String[] groupLocations = cacheAwareGroups[i].getLocations();
+      assertEquals(1, groupLocations.length);
+      List<String> hosts = new ArrayList<>(hints.get(i).getHosts());
+      assertEquals(3, hosts.size());
+      assertEquals(groupLocations[0], hosts.get(0));
+      assertEquals(hosts.subList(1, 3), cacheAware.getCacheLocations(cacheAwareGroups[i]));
+      assertTrue(executorLocationsSet.containsAll(hosts));
+    }
+  }
+
+  private static InputSplit[] groupSplits(Configuration conf, InputSplit[] splits, int groupCount,
+      HostAffinitySplitLocationProvider locationProvider) throws IOException {
+    return new TezMapredSplitsGrouper().getGroupedSplits(conf, splits, groupCount,
+        HiveInputFormat.class.getName(), null, locationProvider);
+  }
+
+  private static Set<String> describeGroups(InputSplit[] groups) throws IOException {
+    Set<String> result = new HashSet<>();
+    for (InputSplit group : groups) {
+      List<String> paths = new ArrayList<>();
+      for (InputSplit split : ((TezGroupedSplit) group).getGroupedSplits()) {
+        paths.add(((FileSplit) split).getPath().toString());
+      }
+      Collections.sort(paths);
+      result.add(Arrays.toString(group.getLocations()) + ": " + paths);
+    }
+    return result;
+  }
 
   private InputSplit createMockInputSplit(String[] locations) throws IOException {
     InputSplit inputSplit = mock(InputSplit.class);
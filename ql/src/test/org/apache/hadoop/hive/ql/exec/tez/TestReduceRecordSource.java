@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.tez;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.common.type.DataTypePhysicalVariation;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorGroupByOperator;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.PlanUtils;
+import org.apache.hadoop.hive.ql.plan.VectorDesc;
+import org.apache.hadoop.hive.ql.plan.VectorGroupByDesc;
+import org.apache.hadoop.hive.ql.plan.VectorGroupByDesc.ProcessingMode;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.binarysortable.fast.BinarySortableSerializeWrite;
+import org.apache.hadoop.hive.serde2.lazybinary.fast.LazyBinarySerializeWrite;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.tez.runtime.library.api.KeyValueReader;
+import org.junit.Test;
+
+/**
+ * Tests the batching of the unordered input of a reducer that aggregates in a hash table.
+ */
+public class TestReduceRecordSource {
+
+  /** Records the size and the rows of the batches it gets. */
+  private static class RecordingGroupByOperator extends VectorGroupByOperator {
+    private final VectorGroupByDesc vectorDesc = new VectorGroupByDesc();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final List<Long> keys = new ArrayList<>();
+    private long valueSum = 0;
+
+    RecordingGroupByOperator(ProcessingMode processingMode) {
+      vectorDesc.setProcessingMode(processingMode);
+    }
+
+    @Override
+    public VectorDesc getVectorDesc() {
+      return vectorDesc;
+    }
+
+    @Override
+    public void process(Object row, int tag) throws HiveException {
+      VectorizedRowBatch batch = (VectorizedRowBatch) row;
+      batchSizes.add(batch.size);
+      LongColumnVector keyColumn = (LongColumnVector) batch.cols[0];
+      LongColumnVector valueColumn = (LongColumnVector) batch.cols[1];
+      for (int i = 0; i < batch.size; i++) {
+        keys.add(keyColumn.vector[keyColumn.isRepeating ? 0 : i]);
+        valueSum += valueColumn.vector[i];
+      }
+    }
+  }
+
+  /** An unordered input of rows with a bigint key and a bigint value. */
+  private static class RowReader extends KeyValueReader {
+    private final long[] keys;
+    private int row = -1;
+    private final Output output = new Output();
+
+    RowReader(long[] keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+      return ++row < keys.length;
+    }
+
+    @Override
+    public Object getCurrentKey() throws IOException {
+      BinarySortableSerializeWrite keyWrite = new BinarySortableSerializeWrite(1);
+      output.reset();
+      keyWrite.set(output);
+      keyWrite.writeLong(keys[row]);
+      return new BytesWritable(Arrays.copyOf(output.getData(), output.getLength()));
+    }
+
+    @Override
+    public Object getCurrentValue() throws IOException {
+      LazyBinarySerializeWrite valueWrite = new LazyBinarySerializeWrite(1);
+      output.reset();
+      valueWrite.set(output);
+      valueWrite.writeLong(row);
+      return new BytesWritable(Arrays.copyOf(output.getData(), output.getLength()));
+    }
+  }
+
+  private static long[] unorderedKeys(int rowCount) {
+    long[] keys = new long[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      keys[i] = (i * 7919L) % 13;
+    }
+    return keys;
+  }
+
+  private static void pushAll(RecordingGroupByOperator reducer, long[] keys, int testingBatchSize)
+      throws Exception {
+    List<FieldSchema> keyFields = Arrays.asList(new FieldSchema("_col0", "bigint", null));
+    List<FieldSchema> valueFields = Arrays.asList(new FieldSchema("_col0", "bigint", null));
+    VectorizedRowBatchCtx batchContext = new VectorizedRowBatchCtx(
+        new String[] { "KEY._col0", "VALUE._col0" },
+        new TypeInfo[] { TypeInfoFactory.longTypeInfo, TypeInfoFactory.longTypeInfo },
+        new DataTypePhysicalVariation[] { DataTypePhysicalVariation.NONE, DataTypePhysicalVariation.NONE },
+        new int[] { 0, 1 }, 0, 0, null, new String[0], new DataTypePhysicalVariation[0]);
+
+    ReduceRecordSource source = new ReduceRecordSource();
+    source.init(new JobConf(), reducer, true,
+        PlanUtils.getReduceKeyTableDesc(keyFields, "+", "a"),
+        PlanUtils.getReduceValueTableDesc(valueFields),
+        new RowReader(keys), false, (byte) 0, batchContext, 0, testingBatchSize);
+    while (source.pushRecord()) {
+    }
+  }
+
+  @Test
+  public void testUnorderedInputIsBatched() throws Exception {
+    long[] keys = unorderedKeys(2500);
+    RecordingGroupByOperator reducer = new RecordingGroupByOperator(ProcessingMode.REDUCE_HASH);
+    pushAll(reducer, keys, 0);
+
+    assertEquals(Arrays.asList(1024, 1024, 452), reducer.batchSizes);
+    assertEquals(keys.length, reducer.keys.size());
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(keys[i], (long) reducer.keys.get(i));
+    }
+    assertEquals((long) keys.length * (keys.length - 1) / 2, reducer.valueSum);
+  }
+
+  @Test
+  public void testUnorderedInputHonorsTestingBatchSize() throws Exception {
+    RecordingGroupByOperator reducer = new RecordingGroupByOperator(ProcessingMode.REDUCE_HASH);
+    pushAll(reducer, unorderedKeys(25), 10);
+
+    assertEquals(Arrays.asList(10, 10, 5), reducer.batchSizes);
+    assertEquals(25 * 24 / 2, reducer.valueSum);
+  }
+
+  @Test
+  public void testOtherReducersGetOneBatchPerKey() throws Exception {
+    long[] keys = unorderedKeys(5);
+    RecordingGroupByOperator reducer = new RecordingGroupByOperator(ProcessingMode.MERGE_PARTIAL);
+    pushAll(reducer, keys, 0);
+
+    assertEquals(Arrays.asList(1, 1, 1, 1, 1), reducer.batchSizes);
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(keys[i], (long) reducer.keys.get(i));
+    }
+  }
+}
@@ -20,6 +20,7 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -28,6 +29,7 @@
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -83,6 +85,9 @@
 import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
 import org.apache.hadoop.hive.serde2.io.ShortWritable;
 import org.apache.hadoop.hive.serde2.io.TimestampWritableV2;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.apache.hadoop.io.BooleanWritable;
@@ -891,6 +896,87 @@ public void remove() {
     assertTrue(countRowsProduced < 0.3 * (1000 * 1024 / 16));
   }
 
+  @Test
+  public void testReduceHashSpill() throws HiveException {
+
+    List<String> mapColumnNames = new ArrayList<String>();
+    mapColumnNames.add("Key");
+    mapColumnNames.add("Value");
+    VectorizationContext ctx = new VectorizationContext("name", mapColumnNames);
+
+    Pair<GroupByDesc,VectorGroupByDesc> pair = buildKeyGroupByDesc (ctx, "max",
+        "Value", TypeInfoFactory.longTypeInfo,
+        new String[] {"Key"},
+        new TypeInfo[] {TypeInfoFactory.longTypeInfo});
+    GroupByDesc desc = pair.left;
+    VectorGroupByDesc vectorDesc = pair.right;
+    vectorDesc.setProcessingMode(ProcessingMode.REDUCE_HASH);
+
+    // Set the memory treshold so that we get 100Kb before we need to spill.
+    MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    long maxMemory = memoryMXBean.getHeapMemoryUsage().getMax();
+    float treshold = 100.0f*1024.0f/maxMemory;
+    desc.setMemoryThreshold(treshold);
+
+    CompilationOpContext cCtx = new CompilationOpContext();
+
+    Operator<? extends OperatorDesc> groupByOp = OperatorFactory.get(cCtx, desc);
+
+    VectorGroupByOperator vgo =
+        (VectorGroupByOperator) Vectorizer.vectorizeGroupByOperator(groupByOp, ctx, vectorDesc);
+
+    FakeCaptureVectorToRowOutputOperator out = FakeCaptureVectorToRowOutputOperator.addCaptureOutputChild(cCtx, vgo);
+
+    // Spilled rows are serialized with the input row types.
+    ObjectInspector inputObjectInspector =
+        ObjectInspectorFactory.getStandardStructObjectInspector(mapColumnNames,
+            Arrays.<ObjectInspector>asList(
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector));
+    vgo.initialize(hconf, new ObjectInspector[] {inputObjectInspector});
+
+    // Every key comes twice, in unsorted order.
+    final int keyCount = 20000;
+    List<Object> keys = new ArrayList<Object>();
+    List<Object> values = new ArrayList<Object>();
+    HashMap<Long, Long> expected = new HashMap<Long, Long>();
+    for (long i = 0; i < 2 * keyCount; i++) {
+      long key = (i * 7919) % keyCount;
+      keys.add(key);
+      values.add(i);
+      expected.put(key, i);
+    }
+
+    final HashMap<Long, Long> actual = new HashMap<Long, Long>();
+    out.setOutputInspector(new FakeCaptureVectorToRowOutputOperator.OutputInspector() {
+      @Override
+      public void inspectRow(Object row, int tag) throws HiveException {
+        Object[] fields = (Object[]) row;
+        long key = ((LongWritable) fields[0]).get();
+        long value = ((LongWritable) fields[1]).get();
+        assertNull("Key emitted twice: " + key, actual.put(key, value));
+      }
+    });
+
+    FakeVectorRowBatchFromObjectIterables data = new FakeVectorRowBatchFromObjectIterables(
+        100,
+        new String[] {"long", "long"},
+        keys,
+        values);
+    for (VectorizedRowBatch unit: data) {
+      vgo.process(unit,  0);
+    }
+
+    VectorGroupByOperator.ProcessingModeReduceHash processingMode =
+        (VectorGroupByOperator.ProcessingModeReduceHash) vgo.processingMode;
+    assertTrue(processingMode.getSpilledPartitionCount() > 0);
+
+    vgo.close(false);
+
+    assertTrue(processingMode.getSpilledRowCount() > 0);
+    assertEquals(expected, actual);
+  }
+
   @Test
   public void testMultiKeyIntStringInt() throws HiveException {
     testMultiKey(
@@ -1562,6 +1648,72 @@ public void testMinLongStringKeys() throws HiveException {
         buildHashMap("A", 7L, "B", 5L));
   }
 
+  @Test
+  public void testSumLongDictionaryStringKeys() throws HiveException {
+    Object dictionary1 = new Object();
+    String[] values1 = {"A", "B", "C"};
+    Object dictionary2 = new Object();
+    String[] values2 = {"B", "A"};
+
+    List<VectorizedRowBatch> batches = new ArrayList<VectorizedRowBatch>();
+    batches.add(buildDictionaryKeyBatch(dictionary1, values1,
+        new int[] {0, 1, 0, 2, -1, 1}, new long[] {1, 2, 3, 4, 5, 6}));
+    VectorizedRowBatch selectedBatch = buildDictionaryKeyBatch(dictionary1, values1,
+        new int[] {2, 2, 0, 1}, new long[] {10, 20, 30, 40});
+    selectedBatch.selectedInUse = true;
+    selectedBatch.selected[0] = 0;
+    selectedBatch.selected[1] = 2;
+    selectedBatch.selected[2] = 3;
+    selectedBatch.size = 3;
+    batches.add(selectedBatch);
+    // Id 0 is B in the second dictionary.
+    batches.add(buildDictionaryKeyBatch(dictionary2, values2,
+        new int[] {0, 1, 0}, new long[] {100, 200, 300}));
+    VectorizedRowBatch repeatingBatch = buildDictionaryKeyBatch(dictionary2, values2,
+        new int[] {1, 1}, new long[] {1000, 1000});
+    repeatingBatch.cols[0].isRepeating = true;
+    batches.add(repeatingBatch);
+
+    HashMap<Object, Object> expected = buildHashMap("A", 2234L, "B", 448L, "C", 14L, null, 5L);
+    testAggregateStringKeyIterable("sum", batches, TypeInfoFactory.longTypeInfo, expected);
+
+    // The same batches with the primitive hash table.
+    hconf.setBoolVar(HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED, true);
+    try {
+      testAggregateStringKeyIterable("sum", batches, TypeInfoFactory.longTypeInfo, expected);
+    } finally {
+      hconf.setBoolVar(HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_NATIVE_HASHTABLE_ENABLED, false);
+    }
+  }
+
+  /**
+   * Builds a batch of a dictionary encoded string key, where an id of -1 is a NULL key, and a
+   * long value.
+   */
+  private static VectorizedRowBatch buildDictionaryKeyBatch(Object dictionaryKey,
+      String[] dictionary, int[] ids, long[] values) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    DictionaryBytesColumnVector keyColumn = new DictionaryBytesColumnVector();
+    LongColumnVector valueColumn = new LongColumnVector();
+    batch.cols[0] = keyColumn;
+    batch.cols[1] = valueColumn;
+    keyColumn.initBuffer();
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] < 0) {
+        keyColumn.noNulls = false;
+        keyColumn.isNull[i] = true;
+      } else {
+        byte[] bytes = dictionary[ids[i]].getBytes(StandardCharsets.UTF_8);
+        keyColumn.setRef(i, bytes, 0, bytes.length);
+        keyColumn.ids[i] = ids[i];
+      }
+      valueColumn.vector[i] = values[i];
+    }
+    keyColumn.setDictionary(dictionaryKey, dictionary.length);
+    batch.size = ids.length;
+    return batch;
+  }
+
   @Test
   public void testMinLongKeyGroupByCompactBatch() throws HiveException {
     testAggregateLongKeyAggregate(
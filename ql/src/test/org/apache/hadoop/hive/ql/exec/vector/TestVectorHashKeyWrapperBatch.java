@@ -23,9 +23,13 @@
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Test;
+import org.apache.hadoop.hive.ql.exec.KeyWrapper;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.IdentityExpression;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.StringExpr;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
@@ -128,4 +132,141 @@ public void testVectorHashKeyWrapperGeneralCopyKey() throws HiveException {
         hashKey1.getBytes(0), hashKey1.getByteStart(0), hashKey1.getByteLength(0)));
   }
 
-}
\ No newline at end of file
+  private static VectorHashKeyWrapperBatch compileStringKey() throws HiveException {
+    return VectorHashKeyWrapperBatch.compileKeyWrapperBatch(
+        new VectorExpression[] { new IdentityExpression(0) },
+        new TypeInfo[] { TypeInfoFactory.stringTypeInfo });
+  }
+
+  private static VectorizedRowBatch createBatch(BytesColumnVector col, int size) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(1);
+    batch.cols[0] = col;
+    batch.size = size;
+    return batch;
+  }
+
+  /*
+   * A batch of a dictionary encoded string column; the values are the entries of the dictionary
+   * by id, -1 for NULL.
+   */
+  private static VectorizedRowBatch createDictionaryBatch(Object dictionaryKey, String[] dictionary,
+      int... ids) {
+    DictionaryBytesColumnVector col = new DictionaryBytesColumnVector();
+    col.reset();
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i] < 0) {
+        col.noNulls = false;
+        col.isNull[i] = true;
+      } else {
+        col.setRef(i, dictionary[ids[i]].getBytes(StandardCharsets.UTF_8), 0,
+            dictionary[ids[i]].length());
+        col.ids[i] = ids[i];
+      }
+    }
+    col.setDictionary(dictionaryKey, dictionary.length);
+    return createBatch(col, ids.length);
+  }
+
+  // The same values in a plain BytesColumnVector.
+  private static VectorizedRowBatch createPlainBatch(VectorizedRowBatch dictionaryBatch) {
+    DictionaryBytesColumnVector dictionaryCol = (DictionaryBytesColumnVector) dictionaryBatch.cols[0];
+    BytesColumnVector col = new BytesColumnVector();
+    col.reset();
+    col.noNulls = dictionaryCol.noNulls;
+    col.isRepeating = dictionaryCol.isRepeating;
+    for (int i = 0; i < dictionaryBatch.size; i++) {
+      col.isNull[i] = dictionaryCol.isNull[i];
+      col.setRef(i, dictionaryCol.vector[i], dictionaryCol.start[i], dictionaryCol.length[i]);
+    }
+    VectorizedRowBatch batch = createBatch(col, dictionaryBatch.size);
+    batch.selectedInUse = dictionaryBatch.selectedInUse;
+    batch.selected = dictionaryBatch.selected;
+    return batch;
+  }
+
+  private static void assertSameHashKeys(VectorHashKeyWrapperBatch dictionaryKeys,
+      VectorizedRowBatch dictionaryBatch) throws HiveException {
+    assertTrue(((DictionaryBytesColumnVector) dictionaryBatch.cols[0]).isDictionaryEncoded);
+    dictionaryKeys.evaluateBatch(dictionaryBatch);
+    VectorHashKeyWrapperBatch plainKeys = compileStringKey();
+    plainKeys.evaluateBatch(createPlainBatch(dictionaryBatch));
+    for (int i = 0; i < dictionaryBatch.size; i++) {
+      VectorHashKeyWrapperBase expected = plainKeys.getVectorHashKeyWrappers()[i];
+      VectorHashKeyWrapperBase actual = dictionaryKeys.getVectorHashKeyWrappers()[i];
+      assertEquals(expected.hashCode(), actual.hashCode());
+      assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testDictionaryHashKeys() throws HiveException {
+    String[] dictionary = new String[] { "red", "green", "blue" };
+    Object dictionaryKey = new Object();
+    VectorHashKeyWrapperBatch vhkwb = compileStringKey();
+
+    assertSameHashKeys(vhkwb, createDictionaryBatch(dictionaryKey, dictionary, 0, 1, 0, -1, 2, 1));
+
+    // The hash codes cached for the dictionary are reused by the next batches.
+    VectorizedRowBatch batch = createDictionaryBatch(dictionaryKey, dictionary, 2, 2, -1, 0, 1);
+    batch.selectedInUse = true;
+    batch.selected = new int[] { 0, 2, 4 };
+    batch.size = 3;
+    assertSameHashKeys(vhkwb, batch);
+
+    batch = createDictionaryBatch(dictionaryKey, dictionary, 1);
+    batch.cols[0].isRepeating = true;
+    batch.size = 100;
+    assertSameHashKeys(vhkwb, batch);
+
+    batch = createDictionaryBatch(dictionaryKey, dictionary, -1);
+    batch.cols[0].isRepeating = true;
+    batch.size = 100;
+    assertSameHashKeys(vhkwb, batch);
+
+    // The dictionary of the same key grows as the reader sees new entries.
+    String[] grown = new String[] { "red", "green", "blue", "yellow", "black" };
+    assertSameHashKeys(vhkwb, createDictionaryBatch(dictionaryKey, grown, 4, 3, 0));
+
+    // The ids of a new dictionary refer to other values.
+    String[] other = new String[] { "yellow", "red" };
+    assertSameHashKeys(vhkwb, createDictionaryBatch(new Object(), other, 0, 1, 1, 0));
+  }
+
+  @Test
+  public void testDictionaryGrouping() throws HiveException {
+    String[] dictionary = new String[] { "red", "green", "blue" };
+    String[] nextDictionary = new String[] { "blue", "red" };
+    VectorizedRowBatch[] batches = new VectorizedRowBatch[] {
+        createDictionaryBatch(dictionary, dictionary, 0, 1, 0, -1, 2),
+        createPlainBatch(createDictionaryBatch(dictionary, dictionary, 2, 0, -1)),
+        createDictionaryBatch(nextDictionary, nextDictionary, 0, 0, 1),
+        createDictionaryBatch(nextDictionary, nextDictionary, 1) };
+    batches[3].cols[0].isRepeating = true;
+    batches[3].size = 10;
+
+    // Group the rows of dictionary encoded and plain batches the way the hash aggregation does.
+    VectorHashKeyWrapperBatch vhkwb = compileStringKey();
+    Map<KeyWrapper, Integer> counts = new HashMap<>();
+    for (VectorizedRowBatch batch : batches) {
+      vhkwb.evaluateBatch(batch);
+      for (int i = 0; i < batch.size; i++) {
+        VectorHashKeyWrapperBase kw = vhkwb.getVectorHashKeyWrappers()[i];
+        Integer count = counts.get(kw);
+        counts.put(count == null ? kw.copyKey() : kw, count == null ? 1 : count + 1);
+      }
+    }
+
+    assertEquals(4, counts.size());
+    Map<String, Integer> countsByValue = new HashMap<>();
+    for (Map.Entry<KeyWrapper, Integer> entry : counts.entrySet()) {
+      VectorHashKeyWrapperGeneral kw = (VectorHashKeyWrapperGeneral) entry.getKey();
+      String value = kw.isNull(0) ? null :
+          new String(kw.getBytes(0), kw.getByteStart(0), kw.getByteLength(0), StandardCharsets.UTF_8);
+      countsByValue.put(value, entry.getValue());
+    }
+    assertEquals(Integer.valueOf(14), countsByValue.get("red"));
+    assertEquals(Integer.valueOf(1), countsByValue.get("green"));
+    assertEquals(Integer.valueOf(4), countsByValue.get("blue"));
+    assertEquals(Integer.valueOf(2), countsByValue.get(null));
+  }
+}
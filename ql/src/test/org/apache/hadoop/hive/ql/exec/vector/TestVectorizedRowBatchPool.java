@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for VectorizedRowBatchPool.
+ */
+public class TestVectorizedRowBatchPool {
+
+  private static final int DEFAULT_BUFFER_SIZE = 16 * VectorizedRowBatch.DEFAULT_SIZE;
+
+  @Test
+  public void testBufferSizeClasses() {
+    VectorizedRowBatchPool pool = new VectorizedRowBatchPool(4, 1L << 30);
+    byte[] buffer = pool.allocate(DEFAULT_BUFFER_SIZE + 1);
+    assertEquals(2 * DEFAULT_BUFFER_SIZE, buffer.length);
+    assertEquals(DEFAULT_BUFFER_SIZE, pool.allocate(10).length);
+    assertEquals(0, pool.getHitCount());
+
+    pool.release(buffer);
+    assertEquals(buffer.length, pool.getRetainedBytes());
+    assertSame(buffer, pool.allocate(2 * DEFAULT_BUFFER_SIZE - 1));
+    assertEquals(1, pool.getHitCount());
+    assertEquals(2, pool.getMissCount());
+    assertEquals(0, pool.getRetainedBytes());
+
+    // Not allocated by the pool.
+    pool.release(new byte[DEFAULT_BUFFER_SIZE + 1]);
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void testBytesColumnVectorBuffers() {
+    VectorizedRowBatchPool pool = new VectorizedRowBatchPool(4, 1L << 30);
+    BytesColumnVector cv = new BytesColumnVector();
+    cv.setBufferAllocator(pool);
+    cv.initBuffer();
+    assertEquals(DEFAULT_BUFFER_SIZE, cv.bufferSize());
+
+    // Grow the buffer; other vectors may refer to the values in the smaller one.
+    byte[] value = new byte[1000];
+    for (int i = 0; i < 20; i++) {
+      cv.setVal(i, value);
+    }
+    assertEquals(2 * DEFAULT_BUFFER_SIZE, cv.bufferSize());
+    assertEquals(0, pool.getRetainedBytes());
+    // The buffers are only given back when the batch is released.
+    cv.reset();
+    assertEquals(0, pool.getRetainedBytes());
+
+    cv.releaseBuffers();
+    assertEquals(3 * DEFAULT_BUFFER_SIZE, pool.getRetainedBytes());
+    cv.reset();
+    assertEquals(DEFAULT_BUFFER_SIZE, cv.bufferSize());
+    assertEquals(2 * DEFAULT_BUFFER_SIZE, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void testBuffersNotFromThePool() {
+    VectorizedRowBatchPool pool = new VectorizedRowBatchPool(4, 1L << 30);
+    BytesColumnVector cv = new BytesColumnVector();
+    cv.initBuffer();
+    cv.setBufferAllocator(pool);
+    cv.setVal(0, new byte[10]);
+    cv.releaseBuffers();
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void testBatchReuse() {
+    VectorizedRowBatchPool pool = new VectorizedRowBatchPool(1, 1L << 30);
+    VectorizedRowBatch batch = createBatch(pool);
+    VectorizedRowBatch other = createBatch(pool);
+    assertNull(pool.take("long,string"));
+
+    pool.offer("long,string", batch);
+    // Only one batch per layout is kept, the buffers of the other one are pooled.
+    pool.offer("long,string", other);
+    assertNull(pool.take("long"));
+    assertSame(batch, pool.take("long,string"));
+    assertNull(pool.take("long,string"));
+    assertEquals(DEFAULT_BUFFER_SIZE, pool.getRetainedBytes());
+  }
+
+  @Test
+  public void testMaxRetainedBytes() {
+    VectorizedRowBatchPool pool = new VectorizedRowBatchPool(4, DEFAULT_BUFFER_SIZE);
+    pool.offer("long,string", createBatch(pool));
+    assertNull(pool.take("long,string"));
+    assertEquals(DEFAULT_BUFFER_SIZE, pool.getRetainedBytes());
+  }
+
+  private static VectorizedRowBatch createBatch(VectorizedRowBatchPool pool) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    batch.cols[0] = new LongColumnVector();
+    batch.cols[1] = new BytesColumnVector();
+    pool.setBufferAllocator(batch);
+    batch.reset();
+    ((BytesColumnVector) batch.cols[1]).setVal(0, "value".getBytes(StandardCharsets.UTF_8));
+    batch.size = 1;
+    return batch;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.FilterStringGroupColEqualStringScalar;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.FilterStringGroupColLessStringScalar;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.junit.Test;
+
+/**
+ * Test the string filters over dictionary encoded input against plain input.
+ */
+public class TestStringDictionaryFilter {
+
+  private static final String[] DICTIONARY = {"", "apple", "banana", "cherry", "date"};
+
+  @Test
+  public void testEqual() throws HiveException {
+    verifyFilter(new FilterStringGroupColEqualStringScalar(0, bytes("banana")));
+  }
+
+  @Test
+  public void testLess() throws HiveException {
+    verifyFilter(new FilterStringGroupColLessStringScalar(0, bytes("c")));
+  }
+
+  @Test
+  public void testInList() throws HiveException {
+    FilterStringColumnInList expr = new FilterStringColumnInList(0);
+    expr.setInListValues(new byte[][] {bytes("apple"), bytes(""), bytes("date")});
+    verifyFilter(expr);
+  }
+
+  @Test
+  public void testLike() throws HiveException {
+    FilterStringColLikeStringScalar expr = new FilterStringColLikeStringScalar(0, bytes("%an%"));
+    expr.transientInit(new HiveConf());
+    verifyFilter(expr);
+  }
+
+  @Test
+  public void testDictionaryChange() throws HiveException {
+    FilterStringGroupColEqualStringScalar expr =
+        new FilterStringGroupColEqualStringScalar(0, bytes("apple"));
+
+    // The same ids stand for other values in the next dictionary.
+    VectorizedRowBatch batch = createBatch(new int[] {1, 2, 1}, false, new Object());
+    expr.evaluate(batch);
+    assertEquals(2, batch.size);
+
+    String[] otherDictionary = {"apple", "banana", "cherry"};
+    batch = createBatch(otherDictionary, new int[] {1, 2, 1}, false, new Object());
+    expr.evaluate(batch);
+    assertEquals(0, batch.size);
+  }
+
+  /*
+   * Compares the rows selected from dictionary encoded input with the ones from the same
+   * values in a plain BytesColumnVector, over a few batches sharing a dictionary.
+   */
+  private static void verifyFilter(VectorExpression expr) throws HiveException {
+    Object dictionaryKey = new Object();
+    int[][] idBatches = {
+        {0, 1, 2, 3, 4, 3, 2, 1, 0},
+        {4, 4, 2, 2, 1, 1},
+        {3},
+        {1, 2}};
+    for (int[] ids : idBatches) {
+      for (boolean withNulls : new boolean[] {false, true}) {
+        VectorizedRowBatch dictionaryBatch = createBatch(ids, withNulls, dictionaryKey);
+        VectorizedRowBatch plainBatch = createBatch(ids, withNulls, null);
+        expr.evaluate(dictionaryBatch);
+        expr.evaluate(plainBatch);
+        assertSelected(plainBatch, dictionaryBatch);
+
+        // Filter again over the selected rows only.
+        expr.evaluate(dictionaryBatch);
+        expr.evaluate(plainBatch);
+        assertSelected(plainBatch, dictionaryBatch);
+      }
+    }
+
+    // Repeating input.
+    for (int id = 0; id < DICTIONARY.length; id++) {
+      VectorizedRowBatch dictionaryBatch = createBatch(new int[] {id, id, id}, false, dictionaryKey);
+      VectorizedRowBatch plainBatch = createBatch(new int[] {id, id, id}, false, null);
+      dictionaryBatch.cols[0].isRepeating = true;
+      plainBatch.cols[0].isRepeating = true;
+      expr.evaluate(dictionaryBatch);
+      expr.evaluate(plainBatch);
+      assertEquals(plainBatch.size, dictionaryBatch.size);
+    }
+  }
+
+  private static void assertSelected(VectorizedRowBatch expected, VectorizedRowBatch actual) {
+    assertEquals(expected.size, actual.size);
+    assertEquals(expected.selectedInUse, actual.selectedInUse);
+    if (expected.selectedInUse) {
+      assertArrayEquals(Arrays.copyOf(expected.selected, expected.size),
+          Arrays.copyOf(actual.selected, actual.size));
+    }
+  }
+
+  private static VectorizedRowBatch createBatch(int[] ids, boolean withNulls,
+      Object dictionaryKey) {
+    return createBatch(DICTIONARY, ids, withNulls, dictionaryKey);
+  }
+
+  /*
+   * Creates a batch with the dictionary values of the ids referenced from a single buffer, like
+   * the readers of dictionary encoded columns do.  A null dictionaryKey gives a plain vector.
+   */
+  private static VectorizedRowBatch createBatch(String[] dictionary, int[] ids,
+      boolean withNulls, Object dictionaryKey) {
+    byte[][] entries = new byte[dictionary.length][];
+    int[] starts = new int[dictionary.length];
+    int bufferLength = 0;
+    for (int i = 0; i < dictionary.length; i++) {
+      entries[i] = bytes(dictionary[i]);
+      starts[i] = bufferLength;
+      bufferLength += entries[i].length;
+    }
+    byte[] buffer = new byte[bufferLength];
+    for (int i = 0; i < dictionary.length; i++) {
+      System.arraycopy(entries[i], 0, buffer, starts[i], entries[i].length);
+    }
+
+    VectorizedRowBatch batch = new VectorizedRowBatch(1);
+    BytesColumnVector colVector = dictionaryKey == null ?
+        new BytesColumnVector() : new DictionaryBytesColumnVector();
+    batch.cols[0] = colVector;
+    for (int i = 0; i < ids.length; i++) {
+      if (withNulls && i % 3 == 1) {
+        colVector.noNulls = false;
+        colVector.isNull[i] = true;
+        colVector.setRef(i, buffer, 0, 0);
+        continue;
+      }
+      colVector.setRef(i, buffer, starts[ids[i]], entries[ids[i]].length);
+    }
+    if (dictionaryKey != null) {
+      DictionaryBytesColumnVector dictionaryColVector = (DictionaryBytesColumnVector) colVector;
+      System.arraycopy(ids, 0, dictionaryColVector.ids, 0, ids.length);
+      dictionaryColVector.setDictionary(dictionaryKey, dictionary.length);
+    }
+    batch.size = ids.length;
+    return batch;
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
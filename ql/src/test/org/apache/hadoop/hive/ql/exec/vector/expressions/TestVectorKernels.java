@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorKernels.ArithmeticOp;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorKernels.CompareOp;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.FilterLongColLessLongColumn;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.LongColGreaterLongScalar;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.junit.Test;
+
+/**
+ * Unit tests for the VectorKernels of the generated arithmetic and comparison expressions.
+ */
+public class TestVectorKernels {
+
+  private static final int SIZE = 1021;
+
+  @Test
+  public void testGet() {
+    assertSame(VectorKernels.SCALAR, VectorKernels.get(null));
+    HiveConf conf = new HiveConf();
+    assertSame(VectorKernels.SCALAR, VectorKernels.get(conf));
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_VECTOR_API_ENABLED, true);
+    assertNotNull(VectorKernels.get(conf));
+  }
+
+  @Test
+  public void testLongKernels() {
+    verifyLongKernels(VectorKernels.SCALAR);
+  }
+
+  @Test
+  public void testDoubleKernels() {
+    verifyDoubleKernels(VectorKernels.SCALAR);
+  }
+
+  /*
+   * Also runs the Vector API kernels when they are available.
+   */
+  @Test
+  public void testConfiguredKernels() {
+    HiveConf conf = new HiveConf();
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_VECTOR_API_ENABLED, true);
+    verifyLongKernels(VectorKernels.get(conf));
+    verifyDoubleKernels(VectorKernels.get(conf));
+  }
+
+  /*
+   * Runs the JDK Vector API kernels; only available on Java 17 and later with the
+   * jdk.incubator.vector module, i.e. with the vector-api profile.
+   */
+  @Test
+  public void testVectorApiKernels() {
+    VectorKernels kernels = VectorKernelsProvider.getVectorApiKernels();
+    assumeNotNull(kernels);
+    assertEquals(VectorKernelsProvider.VECTOR_API_KERNELS_CLASS, kernels.getClass().getName());
+    verifyLongKernels(kernels);
+    verifyDoubleKernels(kernels);
+  }
+
+  @Test
+  public void testCompareOpSwap() {
+    for (CompareOp op : CompareOp.values()) {
+      assertSame(op, op.swap().swap());
+      for (long a = -1; a <= 1; a++) {
+        assertEquals(compare(op, a, 0), compare(op.swap(), 0, a));
+      }
+    }
+  }
+
+  @Test
+  public void testRepeatingLeftFilter() throws HiveException {
+    HiveConf conf = new HiveConf();
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_VECTOR_API_ENABLED, true);
+
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    LongColumnVector left = new LongColumnVector();
+    LongColumnVector right = new LongColumnVector();
+    batch.cols[0] = left;
+    batch.cols[1] = right;
+    left.fill(500);
+    for (int i = 0; i < VectorizedRowBatch.DEFAULT_SIZE; i++) {
+      right.vector[i] = i;
+    }
+    batch.size = VectorizedRowBatch.DEFAULT_SIZE;
+
+    FilterLongColLessLongColumn expr = new FilterLongColLessLongColumn(0, 1);
+    expr.transientInit(conf);
+    expr.evaluate(batch);
+    assertTrue(batch.selectedInUse);
+    assertEquals(VectorizedRowBatch.DEFAULT_SIZE - 501, batch.size);
+    for (int j = 0; j < batch.size; j++) {
+      assertEquals(501 + j, batch.selected[j]);
+    }
+  }
+
+  @Test
+  public void testCompareScalarWithNulls() throws HiveException {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    LongColumnVector input = new LongColumnVector();
+    LongColumnVector output = new LongColumnVector();
+    batch.cols[0] = input;
+    batch.cols[1] = output;
+    input.noNulls = false;
+    for (int i = 0; i < VectorizedRowBatch.DEFAULT_SIZE; i++) {
+      input.vector[i] = i;
+      input.isNull[i] = (i % 7 == 0);
+    }
+    batch.size = VectorizedRowBatch.DEFAULT_SIZE;
+
+    LongColGreaterLongScalar expr = new LongColGreaterLongScalar(0, 100, 1);
+    expr.transientInit(new HiveConf());
+    expr.evaluate(batch);
+    assertFalse(output.noNulls);
+    for (int i = 0; i < VectorizedRowBatch.DEFAULT_SIZE; i++) {
+      assertEquals(input.isNull[i], output.isNull[i]);
+      if (!output.isNull[i]) {
+        assertEquals(i > 100 ? 1 : 0, output.vector[i]);
+      }
+    }
+  }
+
+  private static void verifyLongKernels(VectorKernels kernels) {
+    Random random = new Random(7231);
+    long[] vector1 = new long[SIZE];
+    long[] vector2 = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      vector1[i] = random.nextInt(10) - 5;
+      vector2[i] = (i % 13 == 0 ? Long.MAX_VALUE : random.nextInt(10) - 5);
+    }
+    final long value = 2;
+
+    long[] output = new long[SIZE];
+    long[] expected = new long[SIZE];
+    for (ArithmeticOp op : ArithmeticOp.values()) {
+      kernels.arithmetic(op, vector1, vector2, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, vector1[i], vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output);
+
+      kernels.arithmetic(op, vector1, value, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, vector1[i], value);
+      }
+      assertArrayEquals(op.name(), expected, output);
+
+      kernels.arithmetic(op, value, vector2, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, value, vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output);
+    }
+
+    int[] selected = new int[SIZE];
+    for (CompareOp op : CompareOp.values()) {
+      kernels.compare(op, vector1, vector2, output, SIZE);
+      int newSize = kernels.filter(op, vector1, vector2, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = compare(op, vector1[i], vector2[i]) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), expected, output);
+      verifySelected(expected, selected, newSize);
+
+      kernels.compare(op, vector1, value, output, SIZE);
+      newSize = kernels.filter(op, vector1, value, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = compare(op, vector1[i], value) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), expected, output);
+      verifySelected(expected, selected, newSize);
+    }
+
+    // The rows of a selected vector.
+    final int[] sel = randomSelected(random);
+    final int n = sel.length;
+    for (ArithmeticOp op : ArithmeticOp.values()) {
+      Arrays.fill(output, -1);
+      Arrays.fill(expected, -1);
+      kernels.arithmetic(op, vector1, vector2, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, vector1[i], vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output);
+
+      kernels.arithmetic(op, vector1, value, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, vector1[i], value);
+      }
+      assertArrayEquals(op.name(), expected, output);
+
+      kernels.arithmetic(op, value, vector2, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, value, vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output);
+    }
+
+    final boolean[] isNull = randomIsNull(random);
+    for (CompareOp op : CompareOp.values()) {
+      Arrays.fill(output, -1);
+      Arrays.fill(expected, -1);
+      kernels.compare(op, vector1, vector2, output, sel, n);
+      System.arraycopy(sel, 0, selected, 0, n);
+      int newSize = kernels.filterSelected(op, vector1, vector2, selected, n);
+      for (int i : sel) {
+        expected[i] = compare(op, vector1[i], vector2[i]) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), expected, output);
+      verifySelected(expected, selected, newSize);
+
+      Arrays.fill(output, -1);
+      Arrays.fill(expected, -1);
+      kernels.compare(op, vector1, value, output, sel, n);
+      System.arraycopy(sel, 0, selected, 0, n);
+      newSize = kernels.filterSelected(op, vector1, value, selected, n);
+      for (int i : sel) {
+        expected[i] = compare(op, vector1[i], value) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), expected, output);
+      verifySelected(expected, selected, newSize);
+
+      // The null rows never pass.
+      System.arraycopy(sel, 0, selected, 0, n);
+      newSize = kernels.filterSelected(op, vector1, value, isNull, selected, n);
+      for (int i : sel) {
+        expected[i] = !isNull[i] && compare(op, vector1[i], value) ? 1 : 0;
+      }
+      verifySelected(expected, selected, newSize);
+
+      newSize = kernels.filter(op, vector1, value, isNull, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = !isNull[i] && compare(op, vector1[i], value) ? 1 : 0;
+      }
+      verifySelected(expected, selected, newSize);
+    }
+  }
+
+  private static void verifyDoubleKernels(VectorKernels kernels) {
+    Random random = new Random(7232);
+    double[] vector1 = new double[SIZE];
+    double[] vector2 = new double[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      vector1[i] = (random.nextInt(10) - 5) / 2.0;
+      vector2[i] = (i % 13 == 0 ? Double.NaN : (random.nextInt(10) - 5) / 2.0);
+    }
+    final double value = 0.5;
+
+    double[] output = new double[SIZE];
+    double[] expected = new double[SIZE];
+    for (ArithmeticOp op : ArithmeticOp.values()) {
+      kernels.arithmetic(op, vector1, vector2, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, vector1[i], vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+
+      kernels.arithmetic(op, vector1, value, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, vector1[i], value);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+
+      kernels.arithmetic(op, value, vector2, output, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        expected[i] = arithmetic(op, value, vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+    }
+
+    long[] compareOutput = new long[SIZE];
+    long[] compareExpected = new long[SIZE];
+    int[] selected = new int[SIZE];
+    for (CompareOp op : CompareOp.values()) {
+      kernels.compare(op, vector1, vector2, compareOutput, SIZE);
+      int newSize = kernels.filter(op, vector1, vector2, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        compareExpected[i] = compare(op, vector1[i], vector2[i]) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), compareExpected, compareOutput);
+      verifySelected(compareExpected, selected, newSize);
+
+      kernels.compare(op, vector2, value, compareOutput, SIZE);
+      newSize = kernels.filter(op, vector2, value, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        compareExpected[i] = compare(op, vector2[i], value) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), compareExpected, compareOutput);
+      verifySelected(compareExpected, selected, newSize);
+    }
+
+    // The rows of a selected vector.
+    final int[] sel = randomSelected(random);
+    final int n = sel.length;
+    for (ArithmeticOp op : ArithmeticOp.values()) {
+      Arrays.fill(output, -1);
+      Arrays.fill(expected, -1);
+      kernels.arithmetic(op, vector1, vector2, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, vector1[i], vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+
+      kernels.arithmetic(op, vector1, value, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, vector1[i], value);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+
+      kernels.arithmetic(op, value, vector2, output, sel, n);
+      for (int i : sel) {
+        expected[i] = arithmetic(op, value, vector2[i]);
+      }
+      assertArrayEquals(op.name(), expected, output, 0);
+    }
+
+    final boolean[] isNull = randomIsNull(random);
+    for (CompareOp op : CompareOp.values()) {
+      Arrays.fill(compareOutput, -1);
+      Arrays.fill(compareExpected, -1);
+      kernels.compare(op, vector1, vector2, compareOutput, sel, n);
+      System.arraycopy(sel, 0, selected, 0, n);
+      int newSize = kernels.filterSelected(op, vector1, vector2, selected, n);
+      for (int i : sel) {
+        compareExpected[i] = compare(op, vector1[i], vector2[i]) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), compareExpected, compareOutput);
+      verifySelected(compareExpected, selected, newSize);
+
+      Arrays.fill(compareOutput, -1);
+      Arrays.fill(compareExpected, -1);
+      kernels.compare(op, vector2, value, compareOutput, sel, n);
+      System.arraycopy(sel, 0, selected, 0, n);
+      newSize = kernels.filterSelected(op, vector2, value, selected, n);
+      for (int i : sel) {
+        compareExpected[i] = compare(op, vector2[i], value) ? 1 : 0;
+      }
+      assertArrayEquals(op.name(), compareExpected, compareOutput);
+      verifySelected(compareExpected, selected, newSize);
+
+      // The null rows never pass.
+      System.arraycopy(sel, 0, selected, 0, n);
+      newSize = kernels.filterSelected(op, vector2, value, isNull, selected, n);
+      for (int i : sel) {
+        compareExpected[i] = !isNull[i] && compare(op, vector2[i], value) ? 1 : 0;
+      }
+      verifySelected(compareExpected, selected, newSize);
+
+      newSize = kernels.filter(op, vector2, value, isNull, selected, SIZE);
+      for (int i = 0; i < SIZE; i++) {
+        compareExpected[i] = !isNull[i] && compare(op, vector2[i], value) ? 1 : 0;
+      }
+      verifySelected(compareExpected, selected, newSize);
+    }
+  }
+
+  /*
+   * @return About a third of the rows, in increasing order.
+   */
+  private static int[] randomSelected(Random random) {
+    int[] sel = new int[SIZE];
+    int n = 0;
+    for (int i = 0; i < SIZE; i++) {
+      if (random.nextInt(3) == 0) {
+        sel[n++] = i;
+      }
+    }
+    return Arrays.copyOf(sel, n);
+  }
+
+  private static boolean[] randomIsNull(Random random) {
+    boolean[] isNull = new boolean[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      isNull[i] = (random.nextInt(5) == 0);
+    }
+    return isNull;
+  }
+
+  private static void verifySelected(long[] expected, int[] selected, int newSize) {
+    int j = 0;
+    for (int i = 0; i < SIZE; i++) {
+      if (expected[i] == 1) {
+        assertEquals(i, selected[j++]);
+      }
+    }
+    assertEquals(j, newSize);
+  }
+
+  private static long arithmetic(ArithmeticOp op, long a, long b) {
+    switch (op) {
+    case ADD:
+      return a + b;
+    case SUBTRACT:
+      return a - b;
+    default:
+      return a * b;
+    }
+  }
+
+  private static double arithmetic(ArithmeticOp op, double a, double b) {
+    switch (op) {
+    case ADD:
+      return a + b;
+    case SUBTRACT:
+      return a - b;
+    default:
+      return a * b;
+    }
+  }
+
+  private static boolean compare(CompareOp op, long a, long b) {
+    switch (op) {
+    case EQUAL:
+      return a == b;
+    case NOT_EQUAL:
+      return a != b;
+    case LESS:
+      return a < b;
+    case LESS_EQUAL:
+      return a <= b;
+    case GREATER:
+      return a > b;
+    default:
+      return a >= b;
+    }
+  }
+
+  private static boolean compare(CompareOp op, double a, double b) {
+    switch (op) {
+    case EQUAL:
+      return a == b;
+    case NOT_EQUAL:
+      return a != b;
+    case LESS:
+      return a < b;
+    case LESS_EQUAL:
+      return a <= b;
+    case GREATER:
+      return a > b;
+    default:
+      return a >= b;
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.groupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorAggregationBufferRow;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.IdentityExpression;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.aggregates.VectorAggregateExpression;
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBase;
+import org.apache.hadoop.hive.ql.exec.vector.wrapper.VectorHashKeyWrapperBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.Test;
+
+/**
+ * Unit test for the vectorized GROUP BY primitive hash tables.
+ */
+public class TestVectorGroupByHashTable {
+
+  private static final int KEY_RANGE = 5000;
+
+  @Test
+  public void testCreate() throws HiveException {
+    assertTrue(create(TypeInfoFactory.longTypeInfo) instanceof VectorGroupByLongHashTable);
+    assertTrue(create(TypeInfoFactory.longTypeInfo, TypeInfoFactory.intTypeInfo)
+        instanceof VectorGroupByTwoLongHashTable);
+    assertTrue(create(TypeInfoFactory.stringTypeInfo) instanceof VectorGroupByBytesHashTable);
+    assertTrue(create(TypeInfoFactory.longTypeInfo, TypeInfoFactory.doubleTypeInfo,
+        TypeInfoFactory.stringTypeInfo) instanceof VectorGroupByBytesHashTable);
+    assertNull(create(TypeInfoFactory.timestampTypeInfo));
+    assertNull(create(TypeInfoFactory.getDecimalTypeInfo(38, 18)));
+  }
+
+  @Test
+  public void testLongKeys() throws HiveException {
+    verify(TypeInfoFactory.longTypeInfo);
+  }
+
+  @Test
+  public void testTwoLongKeys() throws HiveException {
+    verify(TypeInfoFactory.longTypeInfo, TypeInfoFactory.longTypeInfo);
+  }
+
+  @Test
+  public void testBytesKeys() throws HiveException {
+    verify(TypeInfoFactory.stringTypeInfo, TypeInfoFactory.doubleTypeInfo,
+        TypeInfoFactory.longTypeInfo);
+  }
+
+  private static VectorHashKeyWrapperBatch compile(TypeInfo... typeInfos) throws HiveException {
+    VectorExpression[] keyExpressions = new VectorExpression[typeInfos.length];
+    for (int i = 0; i < typeInfos.length; i++) {
+      keyExpressions[i] = new IdentityExpression(i);
+    }
+    return VectorHashKeyWrapperBatch.compileKeyWrapperBatch(keyExpressions, typeInfos);
+  }
+
+  private static VectorGroupByHashTable create(TypeInfo... typeInfos) throws HiveException {
+    return VectorGroupByHashTable.create(compile(typeInfos), 16);
+  }
+
+  /**
+   * Feeds random batches (with NULLs and repeated keys) into a hash table and a HashMap of
+   * copied key wrappers, removing entries on the way like a partial flush does, and checks
+   * both agree on the groups and that stored keys read back unchanged.
+   */
+  private void verify(TypeInfo... typeInfos) throws HiveException {
+    VectorHashKeyWrapperBatch keyWrappersBatch = compile(typeInfos);
+    VectorGroupByHashTable hashTable = VectorGroupByHashTable.create(keyWrappersBatch, 16);
+    assertNotNull(hashTable);
+
+    Map<VectorHashKeyWrapperBase, VectorAggregationBufferRow> expected = new HashMap<>();
+    int[] slots = new int[VectorizedRowBatch.DEFAULT_SIZE];
+    Random random = new Random(3479);
+
+    VectorizedRowBatch batch = new VectorizedRowBatch(typeInfos.length);
+    for (int i = 0; i < typeInfos.length; i++) {
+      switch (typeInfos[i].getTypeName()) {
+      case "string":
+        batch.cols[i] = new BytesColumnVector();
+        break;
+      case "double":
+        batch.cols[i] = new DoubleColumnVector();
+        break;
+      default:
+        batch.cols[i] = new LongColumnVector();
+      }
+    }
+
+    for (int b = 0; b < 50; b++) {
+      fillBatch(batch, random);
+      keyWrappersBatch.evaluateBatch(batch);
+      VectorHashKeyWrapperBase[] keyWrappers = keyWrappersBatch.getVectorHashKeyWrappers();
+      hashTable.probeBatch(keyWrappers, batch.size, slots);
+
+      for (int r = 0; r < batch.size; r++) {
+        VectorAggregationBufferRow value = hashTable.getValue(slots[r]);
+        VectorAggregationBufferRow expectedValue = expected.get(keyWrappers[r]);
+        if (expectedValue == null) {
+          assertNull(value);
+          value = new VectorAggregationBufferRow(new VectorAggregateExpression.AggregationBuffer[0]);
+          hashTable.setValue(slots[r], value);
+          expected.put((VectorHashKeyWrapperBase) keyWrappers[r].copyKey(), value);
+        } else {
+          assertTrue(expectedValue == value);
+        }
+      }
+      assertEquals(expected.size(), hashTable.size());
+
+      if (b % 10 == 9) {
+        // Remove a tenth of the entries, like a partial flush.
+        VectorHashKeyWrapperBase keyWrapper = keyWrappersBatch.allocateKeyWrapper();
+        for (int slot = 0; slot < hashTable.getCapacity(); slot++) {
+          if (hashTable.isFull(slot) && random.nextInt(10) == 0) {
+            hashTable.readKey(slot, keyWrapper);
+            keyWrapper.setHashKey();
+            assertTrue(expected.remove(keyWrapper) == hashTable.getValue(slot));
+            hashTable.remove(slot);
+          }
+        }
+        assertEquals(expected.size(), hashTable.size());
+      }
+    }
+
+    VectorHashKeyWrapperBase keyWrapper = keyWrappersBatch.allocateKeyWrapper();
+    int count = 0;
+    for (int slot = 0; slot < hashTable.getCapacity(); slot++) {
+      if (hashTable.isFull(slot)) {
+        hashTable.readKey(slot, keyWrapper);
+        keyWrapper.setHashKey();
+        assertTrue(expected.get(keyWrapper) == hashTable.getValue(slot));
+        count++;
+      }
+    }
+    assertEquals(expected.size(), count);
+
+    hashTable.clear();
+    assertEquals(0, hashTable.size());
+  }
+
+  private static void fillBatch(VectorizedRowBatch batch, Random random) {
+    batch.reset();
+    batch.size = VectorizedRowBatch.DEFAULT_SIZE;
+    for (int c = 0; c < batch.numCols; c++) {
+      batch.cols[c].noNulls = false;
+      if (batch.cols[c] instanceof BytesColumnVector) {
+        ((BytesColumnVector) batch.cols[c]).initBuffer();
+      }
+    }
+    for (int r = 0; r < batch.size; r++) {
+      // Repeat the previous row's key now and then.
+      final boolean repeat = r > 0 && random.nextInt(4) == 0;
+      for (int c = 0; c < batch.numCols; c++) {
+        final boolean isNull = repeat ? batch.cols[c].isNull[r - 1] : random.nextInt(20) == 0;
+        batch.cols[c].isNull[r] = isNull;
+        if (isNull) {
+          continue;
+        }
+        final int key = repeat ? -1 : random.nextInt(KEY_RANGE);
+        if (batch.cols[c] instanceof BytesColumnVector) {
+          BytesColumnVector bytesColVector = (BytesColumnVector) batch.cols[c];
+          if (repeat) {
+            bytesColVector.setVal(r, bytesColVector.vector[r - 1], bytesColVector.start[r - 1],
+                bytesColVector.length[r - 1]);
+          } else {
+            bytesColVector.setVal(r, ("key" + key).getBytes(StandardCharsets.UTF_8));
+          }
+        } else if (batch.cols[c] instanceof DoubleColumnVector) {
+          double[] vector = ((DoubleColumnVector) batch.cols[c]).vector;
+          vector[r] = repeat ? vector[r - 1] : key / 4.0;
+        } else {
+          long[] vector = ((LongColumnVector) batch.cols[c]).vector;
+          vector[r] = repeat ? vector[r - 1] : key - KEY_RANGE / 2;
+        }
+      }
+    }
+  }
+}
@@ -404,6 +404,13 @@ public static VectorMapJoinDesc createVectorMapJoinDesc(MapJoinTestDescription t
     vectorDesc.setHashTableKeyType(hashTableKeyType);
     vectorDesc.setVectorMapJoinVariation(testDesc.vectorMapJoinVariation);
     vectorDesc.setMinMaxEnabled(false);
+    vectorDesc.setBloomFilterEnabled(
+        HiveConf.getBoolVar(testDesc.hiveConf,
+            HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_BLOOM_FILTER_ENABLED) &&
+        hashTableKeyType != HashTableKeyType.MULTI_KEY &&
+        (testDesc.vectorMapJoinVariation == VectorMapJoinVariation.INNER ||
+            testDesc.vectorMapJoinVariation == VectorMapJoinVariation.INNER_BIG_ONLY ||
+            testDesc.vectorMapJoinVariation == VectorMapJoinVariation.LEFT_SEMI));
 
     VectorMapJoinInfo vectorMapJoinInfo = new VectorMapJoinInfo();
 
@@ -19,9 +19,11 @@
 package org.apache.hadoop.hive.ql.exec.vector.mapjoin;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.Map.Entry;
 
 import org.apache.hadoop.hive.ql.exec.MapJoinOperator;
@@ -226,6 +228,10 @@ public VectorizedRowBatch getBigTableBatch() {
     return bigTableBatch;
   }
 
+  public Set<RowTestObjects> getSmallTableKeys() {
+    return Collections.unmodifiableSet(smallTableKeyHashMap.keySet());
+  }
+
   public VectorizedRowBatch createBigTableBatch(MapJoinTestDescription testDesc) {
     final int bigTableColumnCount = testDesc.bigTableTypeInfos.length;
     VectorizedRowBatch batch = new VectorizedRowBatch(bigTableColumnCount);
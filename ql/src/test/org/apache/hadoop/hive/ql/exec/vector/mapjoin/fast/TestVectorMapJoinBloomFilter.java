@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBloomFilter;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.binarysortable.fast.BinarySortableSerializeWrite;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.Test;
+
+/*
+ * Checks the Bloom filter built from the keys of a fast hash table has no false negatives and
+ * a reasonable false positive rate.
+ */
+public class TestVectorMapJoinBloomFilter extends CommonFastHashTable {
+
+  @Test
+  public void testSize() {
+    assertEquals(512, new VectorMapJoinBloomFilter(0).getBitSize());
+    assertEquals(1024, new VectorMapJoinBloomFilter(100).getBitSize());
+    assertEquals(1L << 31, new VectorMapJoinBloomFilter(Long.MAX_VALUE / 16).getBitSize());
+  }
+
+  @Test
+  public void testHashCodes() {
+    random = new Random(4410);
+
+    final int keyCount = 10000;
+    VectorMapJoinBloomFilter bloomFilter = new VectorMapJoinBloomFilter(keyCount);
+    Set<Integer> hashCodes = new HashSet<>();
+    while (hashCodes.size() < keyCount) {
+      hashCodes.add(random.nextInt());
+    }
+    for (int hashCode : hashCodes) {
+      bloomFilter.add(hashCode);
+    }
+    for (int hashCode : hashCodes) {
+      assertTrue(bloomFilter.mightContain(hashCode));
+    }
+
+    int falsePositives = 0;
+    int probes = 0;
+    while (probes < 100000) {
+      int hashCode = random.nextInt();
+      if (!hashCodes.contains(hashCode)) {
+        probes++;
+        if (bloomFilter.mightContain(hashCode)) {
+          falsePositives++;
+        }
+      }
+    }
+    assertTrue("False positives " + falsePositives, falsePositives < probes / 20);
+  }
+
+  @Test
+  public void testLongHashSet() throws Exception {
+    random = new Random(7302);
+
+    TableDesc tableDesc = new TableDesc();
+    tableDesc.setProperties(new Properties());
+    VectorMapJoinFastLongHashSet hashSet = new VectorMapJoinFastLongHashSet(
+        false, false, HashTableKeyType.LONG, CAPACITY, LOAD_FACTOR, WB_SIZE, -1, tableDesc);
+
+    long[] keys = new long[5000];
+    BytesWritable emptyValue = new BytesWritable();
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+      BinarySortableSerializeWrite serializeWrite = new BinarySortableSerializeWrite(1);
+      Output output = new Output();
+      serializeWrite.set(output);
+      serializeWrite.writeLong(keys[i]);
+      hashSet.putRow(
+          new BytesWritable(Arrays.copyOf(output.getData(), output.getLength())), emptyValue);
+    }
+
+    VectorMapJoinBloomFilter bloomFilter = new VectorMapJoinBloomFilter(hashSet.size());
+    hashSet.addKeysToBloomFilter(bloomFilter);
+    for (long key : keys) {
+      assertTrue(bloomFilter.mightContainLong(key));
+    }
+  }
+
+  @Test
+  public void testMultiKeyHashSet() throws Exception {
+    random = new Random(1167);
+
+    VectorMapJoinFastMultiKeyHashSet hashSet = new VectorMapJoinFastMultiKeyHashSet(
+        false, CAPACITY, LOAD_FACTOR, MODERATE_WB_SIZE, -1);
+
+    // Include keys of 255 bytes and more, whose length is stored apart from the reference.
+    byte[][] keys = new byte[2000][];
+    BytesWritable emptyValue = new BytesWritable();
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new byte[1 + random.nextInt(600)];
+      random.nextBytes(keys[i]);
+      hashSet.putRow(new BytesWritable(keys[i]), emptyValue);
+    }
+
+    VectorMapJoinBloomFilter bloomFilter = new VectorMapJoinBloomFilter(hashSet.size());
+    hashSet.addKeysToBloomFilter(bloomFilter);
+    for (byte[] key : keys) {
+      assertTrue(bloomFilter.mightContainBytes(key, 0, key.length));
+    }
+  }
+}
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.mapjoin.fast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hive.ql.exec.JoinUtil;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBytesHashMultiSet;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinBytesHashSet;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashMapResult;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashMultiSetResult;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinHashSetResult;
+import org.apache.hadoop.hive.ql.exec.vector.mapjoin.hashtable.VectorMapJoinLongHashMap;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKeyType;
+import org.apache.hadoop.hive.ql.plan.VectorMapJoinDesc.HashTableKind;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.WriteBuffers.ByteSegmentRef;
+import org.apache.hadoop.hive.serde2.binarysortable.fast.BinarySortableSerializeWrite;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.tez.runtime.library.api.KeyValueReader;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+ * Checks that a partitioned fast hash table answers lookups like a single table loaded with
+ * the same rows.
+ */
+public class TestVectorMapJoinFastPartitionedHashTable extends CommonFastHashTable {
+
+  private static final int PARTITION_COUNT = 4;
+
+  private static TableDesc tableDesc = new TableDesc();
+
+  @Before
+  public void setUp() throws Exception {
+    tableDesc.setProperties(new Properties());
+  }
+
+  @Test
+  public void testPartitionCount() {
+    assertEquals(1, VectorMapJoinFastTableContainer.getPartitionCount(1, false));
+    assertEquals(2, VectorMapJoinFastTableContainer.getPartitionCount(3, false));
+    assertEquals(8, VectorMapJoinFastTableContainer.getPartitionCount(8, false));
+    assertEquals(1, VectorMapJoinFastTableContainer.getPartitionCount(8, true));
+  }
+
+  @Test
+  public void testLongHashMap() throws Exception {
+    random = new Random(2287);
+
+    VectorMapJoinFastLongHashMap single = new VectorMapJoinFastLongHashMap(
+        false, true, HashTableKeyType.LONG, CAPACITY, LOAD_FACTOR, WB_SIZE, -1, tableDesc);
+    VectorMapJoinFastHashTable[] partitions = new VectorMapJoinFastHashTable[PARTITION_COUNT];
+    for (int i = 0; i < PARTITION_COUNT; i++) {
+      partitions[i] = new VectorMapJoinFastLongHashMap(
+          false, true, HashTableKeyType.LONG, CAPACITY, LOAD_FACTOR, WB_SIZE, -1, tableDesc);
+    }
+    VectorMapJoinFastPartitionedHashTable partitioned = VectorMapJoinFastPartitionedHashTable.create(
+        partitions, HashTableKeyType.LONG, HashTableKind.HASH_MAP, tableDesc);
+    assertTrue(partitioned instanceof VectorMapJoinLongHashMap);
+
+    long[] keys = new long[500];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+    }
+    for (int i = 0; i < 2000; i++) {
+      BytesWritable key = random.nextInt(50) == 0 ?
+          serializeNull() : serializeLong(keys[random.nextInt(keys.length)]);
+      BytesWritable value = randomValue();
+      single.putRow(key, value);
+      partitioned.putRow(key, value);
+    }
+
+    assertEquals(single.size(), partitioned.size());
+    verifyPartitionsUsed(partitioned);
+
+    VectorMapJoinLongHashMap map = (VectorMapJoinLongHashMap) partitioned;
+    assertEquals(single.min(), map.min());
+    assertEquals(single.max(), map.max());
+
+    VectorMapJoinHashMapResult expectedResult = single.createHashMapResult();
+    VectorMapJoinHashMapResult result = map.createHashMapResult();
+    for (long key : keys) {
+      assertEquals(single.lookup(key, expectedResult), map.lookup(key, result));
+      assertEquals(values(expectedResult), values(result));
+      assertEquals(single.containsLongKey(key), map.containsLongKey(key));
+    }
+    for (int i = 0; i < 100; i++) {
+      long key = random.nextLong();
+      assertEquals(single.lookup(key, expectedResult), map.lookup(key, result));
+    }
+  }
+
+  @Test
+  public void testStringHashMultiSet() throws Exception {
+    random = new Random(9154);
+
+    VectorMapJoinFastStringHashMultiSet single = new VectorMapJoinFastStringHashMultiSet(
+        false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1, tableDesc);
+    VectorMapJoinFastHashTable[] partitions = new VectorMapJoinFastHashTable[PARTITION_COUNT];
+    for (int i = 0; i < PARTITION_COUNT; i++) {
+      partitions[i] = new VectorMapJoinFastStringHashMultiSet(
+          false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1, tableDesc);
+    }
+    VectorMapJoinFastPartitionedHashTable partitioned = VectorMapJoinFastPartitionedHashTable.create(
+        partitions, HashTableKeyType.STRING, HashTableKind.HASH_MULTISET, tableDesc);
+
+    byte[][] keys = new byte[300][];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = ("key" + random.nextInt()).getBytes(StandardCharsets.UTF_8);
+    }
+    for (int i = 0; i < 1000; i++) {
+      BytesWritable key = serializeString(keys[random.nextInt(keys.length)]);
+      single.putRow(key, randomValue());
+      partitioned.putRow(key, randomValue());
+    }
+
+    assertEquals(single.size(), partitioned.size());
+    verifyPartitionsUsed(partitioned);
+
+    VectorMapJoinBytesHashMultiSet multiSet = (VectorMapJoinBytesHashMultiSet) partitioned;
+    VectorMapJoinHashMultiSetResult expectedResult = single.createHashMultiSetResult();
+    VectorMapJoinHashMultiSetResult result = multiSet.createHashMultiSetResult();
+    for (byte[] key : keys) {
+      assertEquals(single.contains(key, 0, key.length, expectedResult),
+          multiSet.contains(key, 0, key.length, result));
+      assertEquals(expectedResult.count(), result.count());
+    }
+    byte[] missing = "missing".getBytes(StandardCharsets.UTF_8);
+    assertEquals(JoinUtil.JoinResult.NOMATCH,
+        multiSet.contains(missing, 0, missing.length, result));
+  }
+
+  @Test
+  public void testMultiKeyHashSet() throws Exception {
+    random = new Random(631);
+
+    VectorMapJoinFastMultiKeyHashSet single = new VectorMapJoinFastMultiKeyHashSet(
+        false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1);
+    VectorMapJoinFastHashTable[] partitions = new VectorMapJoinFastHashTable[PARTITION_COUNT];
+    for (int i = 0; i < PARTITION_COUNT; i++) {
+      partitions[i] = new VectorMapJoinFastMultiKeyHashSet(
+          false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1);
+    }
+    VectorMapJoinFastPartitionedHashTable partitioned = VectorMapJoinFastPartitionedHashTable.create(
+        partitions, HashTableKeyType.MULTI_KEY, HashTableKind.HASH_SET, tableDesc);
+
+    byte[][] keys = new byte[300][];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new byte[1 + random.nextInt(MAX_KEY_LENGTH)];
+      random.nextBytes(keys[i]);
+    }
+    BytesWritable emptyValue = new BytesWritable();
+    for (int i = 0; i < 1000; i++) {
+      BytesWritable key = new BytesWritable(keys[random.nextInt(keys.length)]);
+      single.putRow(key, emptyValue);
+      partitioned.putRow(key, emptyValue);
+    }
+
+    assertEquals(single.size(), partitioned.size());
+    verifyPartitionsUsed(partitioned);
+
+    VectorMapJoinBytesHashSet set = (VectorMapJoinBytesHashSet) partitioned;
+    VectorMapJoinHashSetResult expectedResult = single.createHashSetResult();
+    VectorMapJoinHashSetResult result = set.createHashSetResult();
+    for (byte[] key : keys) {
+      assertEquals(single.contains(key, 0, key.length, expectedResult),
+          set.contains(key, 0, key.length, result));
+    }
+  }
+
+  @Test
+  public void testLoadsSharingOneThread() throws Exception {
+    random = new Random(4410);
+
+    // More batches per sub-table than may be in flight, so the loads wait for the shared thread.
+    List<BytesWritable> keys = new ArrayList<>();
+    for (int i = 0; i < 40000; i++) {
+      byte[] key = new byte[8];
+      random.nextBytes(key);
+      keys.add(new BytesWritable(key));
+    }
+    VectorMapJoinFastMultiKeyHashSet single = new VectorMapJoinFastMultiKeyHashSet(
+        false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1);
+    BytesWritable emptyValue = new BytesWritable();
+    for (BytesWritable key : keys) {
+      single.putRow(key, emptyValue);
+    }
+
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    ExecutorService loaders = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<VectorMapJoinFastPartitionedHashTable>> loads = new ArrayList<>();
+      for (int l = 0; l < 2; l++) {
+        loads.add(loaders.submit(() -> {
+          VectorMapJoinFastHashTable[] partitions = new VectorMapJoinFastHashTable[PARTITION_COUNT];
+          for (int i = 0; i < PARTITION_COUNT; i++) {
+            partitions[i] = new VectorMapJoinFastMultiKeyHashSet(false, CAPACITY, LOAD_FACTOR, WB_SIZE, -1);
+          }
+          VectorMapJoinFastPartitionedHashTable partitioned = VectorMapJoinFastPartitionedHashTable.create(
+              partitions, HashTableKeyType.MULTI_KEY, HashTableKind.HASH_SET, tableDesc);
+          VectorMapJoinFastKeyPartitioner keyPartitioner = new VectorMapJoinFastKeyPartitioner(
+              HashTableKeyType.MULTI_KEY, tableDesc, PARTITION_COUNT);
+          long numEntries = VectorMapJoinFastHashTableLoader.loadPartitioned(new ListKeyValueReader(keys),
+              partitioned, keyPartitioner, pool, "test", false, 0, null);
+          assertEquals(keys.size(), numEntries);
+          return partitioned;
+        }));
+      }
+      for (Future<VectorMapJoinFastPartitionedHashTable> load : loads) {
+        VectorMapJoinFastPartitionedHashTable partitioned = load.get(60, TimeUnit.SECONDS);
+        assertEquals(single.size(), partitioned.size());
+        verifyPartitionsUsed(partitioned);
+        VectorMapJoinHashSetResult result = ((VectorMapJoinBytesHashSet) partitioned).createHashSetResult();
+        for (BytesWritable key : keys) {
+          assertEquals(JoinUtil.JoinResult.MATCH, ((VectorMapJoinBytesHashSet) partitioned).contains(
+              key.getBytes(), 0, key.getLength(), result));
+        }
+      }
+    } finally {
+      loaders.shutdownNow();
+      pool.shutdownNow();
+    }
+  }
+
+  private static final class ListKeyValueReader extends KeyValueReader {
+    private final Iterator<BytesWritable> keys;
+    private final BytesWritable value = new BytesWritable();
+    private BytesWritable key;
+
+    private ListKeyValueReader(List<BytesWritable> keys) {
+      this.keys = keys.iterator();
+    }
+
+    @Override
+    public boolean next() {
+      if (!keys.hasNext()) {
+        return false;
+      }
+      key = keys.next();
+      return true;
+    }
+
+    @Override
+    public Object getCurrentKey() {
+      return key;
+    }
+
+    @Override
+    public Object getCurrentValue() {
+      return value;
+    }
+  }
+
+  private static void verifyPartitionsUsed(VectorMapJoinFastPartitionedHashTable partitioned) {
+    assertEquals(PARTITION_COUNT, partitioned.getPartitionCount());
+    for (int i = 0; i < PARTITION_COUNT; i++) {
+      assertTrue(partitioned.getPartition(i).size() > 0);
+    }
+  }
+
+  private static List<String> values(VectorMapJoinHashMapResult hashMapResult) {
+    List<String> values = new ArrayList<>();
+    if (!hashMapResult.hasRows()) {
+      return values;
+    }
+    ByteSegmentRef ref = hashMapResult.first();
+    while (ref != null) {
+      byte[] bytes = ref.getBytes();
+      int offset = (int) ref.getOffset();
+      values.add(Arrays.toString(Arrays.copyOfRange(bytes, offset, offset + ref.getLength())));
+      ref = hashMapResult.next();
+    }
+    return values;
+  }
+
+  private static BytesWritable randomValue() {
+    byte[] value = new byte[random.nextInt(MAX_VALUE_LENGTH)];
+    random.nextBytes(value);
+    return new BytesWritable(value);
+  }
+
+  private static BytesWritable serializeLong(long key) throws IOException {
+    BinarySortableSerializeWrite serializeWrite = new BinarySortableSerializeWrite(1);
+    Output output = new Output();
+    serializeWrite.set(output);
+    serializeWrite.writeLong(key);
+    return new BytesWritable(Arrays.copyOf(output.getData(), output.getLength()));
+  }
+
+  private static BytesWritable serializeString(byte[] key) throws IOException {
+    BinarySortableSerializeWrite serializeWrite = new BinarySortableSerializeWrite(1);
+    Output output = new Output();
+    serializeWrite.set(output);
+    serializeWrite.writeString(key);
+    return new BytesWritable(Arrays.copyOf(output.getData(), output.getLength()));
+  }
+
+  private static BytesWritable serializeNull() throws IOException {
+    BinarySortableSerializeWrite serializeWrite = new BinarySortableSerializeWrite(1);
+    Output output = new Output();
+    serializeWrite.set(output);
+    serializeWrite.writeNull();
+    return new BytesWritable(Arrays.copyOf(output.getData(), output.getLength()));
+  }
+}
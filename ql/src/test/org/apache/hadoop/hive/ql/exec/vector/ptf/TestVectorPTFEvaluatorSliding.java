@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.ptf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.expressions.IdentityExpression;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.Direction;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.WindowType;
+import org.apache.hadoop.hive.ql.plan.ptf.BoundaryDef;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+import org.junit.Test;
+
+/**
+ * Tests the evaluators of a bounded ROWS frame against a row by row computation of each frame,
+ * and the lookahead of the frames that end after the current row.
+ */
+public class TestVectorPTFEvaluatorSliding {
+
+  private static final int INPUT_COLUMN = 0;
+  private static final int OUTPUT_COLUMN = 1;
+
+  private enum Function {
+    SUM, AVG, MIN, MAX
+  }
+
+  private static WindowFrameDef rowsFrame(int startOffset, int endOffset) {
+    return new WindowFrameDef(WindowType.ROWS, boundary(startOffset), boundary(endOffset));
+  }
+
+  private static BoundaryDef boundary(int offset) {
+    if (offset < 0) {
+      return new BoundaryDef(Direction.PRECEDING, -offset);
+    }
+    if (offset > 0) {
+      return new BoundaryDef(Direction.FOLLOWING, offset);
+    }
+    return new BoundaryDef(Direction.CURRENT, 0);
+  }
+
+  private static VectorPTFEvaluatorSlidingBase createEvaluator(Function function, boolean isLong,
+      WindowFrameDef windowFrameDef) {
+    IdentityExpression input = new IdentityExpression(INPUT_COLUMN);
+    switch (function) {
+    case SUM:
+      return isLong ?
+          new VectorPTFEvaluatorSlidingLongSum(windowFrameDef, input, OUTPUT_COLUMN) :
+          new VectorPTFEvaluatorSlidingDoubleSum(windowFrameDef, input, OUTPUT_COLUMN);
+    case AVG:
+      return isLong ?
+          new VectorPTFEvaluatorSlidingLongAvg(windowFrameDef, input, OUTPUT_COLUMN) :
+          new VectorPTFEvaluatorSlidingDoubleAvg(windowFrameDef, input, OUTPUT_COLUMN);
+    case MIN:
+      return isLong ?
+          new VectorPTFEvaluatorSlidingLongMin(windowFrameDef, input, OUTPUT_COLUMN) :
+          new VectorPTFEvaluatorSlidingDoubleMin(windowFrameDef, input, OUTPUT_COLUMN);
+    case MAX:
+      return isLong ?
+          new VectorPTFEvaluatorSlidingLongMax(windowFrameDef, input, OUTPUT_COLUMN) :
+          new VectorPTFEvaluatorSlidingDoubleMax(windowFrameDef, input, OUTPUT_COLUMN);
+    default:
+      throw new RuntimeException("Unexpected function " + function);
+    }
+  }
+
+  /*
+   * A batch with the partition values values[start .. start + size - 1] (null for a null entry).
+   */
+  private static VectorizedRowBatch createBatch(VectorPTFEvaluatorSlidingBase evaluator,
+      boolean isLong, Long[] values, int start, int size, boolean isRepeating) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    ColumnVector input = isLong ? new LongColumnVector() : new DoubleColumnVector();
+    for (int i = 0; i < size; i++) {
+      Long value = values[start + (isRepeating ? 0 : i)];
+      if (value == null) {
+        input.isNull[i] = true;
+        input.noNulls = false;
+      } else if (isLong) {
+        ((LongColumnVector) input).vector[i] = value;
+      } else {
+        ((DoubleColumnVector) input).vector[i] = value;
+      }
+    }
+    input.isRepeating = isRepeating;
+    batch.cols[INPUT_COLUMN] = input;
+    batch.cols[OUTPUT_COLUMN] =
+        evaluator.getResultColumnVectorType() == ColumnVector.Type.LONG ?
+            new LongColumnVector() : new DoubleColumnVector();
+    batch.size = size;
+    return batch;
+  }
+
+  /*
+   * The result of each row computed over its own frame, or null when the frame has no
+   * non-null value.
+   */
+  private static Double[] expectedResults(Function function, Long[] values, int startOffset,
+      int endOffset) {
+    Double[] results = new Double[values.length];
+    for (int row = 0; row < values.length; row++) {
+      final int frameStart = Math.max(row + startOffset, 0);
+      final int frameEnd = Math.min(row + endOffset, values.length - 1);
+      double sum = 0;
+      double min = Double.MAX_VALUE;
+      double max = -Double.MAX_VALUE;
+      int nonNullCount = 0;
+      for (int i = frameStart; i <= frameEnd; i++) {
+        if (values[i] != null) {
+          sum += values[i];
+          min = Math.min(min, values[i]);
+          max = Math.max(max, values[i]);
+          nonNullCount++;
+        }
+      }
+      if (nonNullCount == 0) {
+        continue;
+      }
+      switch (function) {
+      case SUM:
+        results[row] = sum;
+        break;
+      case AVG:
+        results[row] = sum / nonNullCount;
+        break;
+      case MIN:
+        results[row] = min;
+        break;
+      case MAX:
+        results[row] = max;
+        break;
+      }
+    }
+    return results;
+  }
+
+  private static Double getResult(VectorizedRowBatch batch, int index) {
+    ColumnVector output = batch.cols[OUTPUT_COLUMN];
+    if (!output.noNulls && output.isNull[index]) {
+      return null;
+    }
+    if (output instanceof LongColumnVector) {
+      return (double) ((LongColumnVector) output).vector[index];
+    }
+    return ((DoubleColumnVector) output).vector[index];
+  }
+
+  private static Long[] randomValues(Random random, int count, boolean withNulls) {
+    Long[] values = new Long[count];
+    for (int i = 0; i < count; i++) {
+      if (!withNulls || random.nextInt(5) != 0) {
+        values[i] = (long) (random.nextInt(2000) - 1000);
+      }
+    }
+    return values;
+  }
+
+  /*
+   * Evaluate one partition in batches of random sizes and compare the row results with the row by
+   * row computation.
+   */
+  private static void verifyPartition(VectorPTFEvaluatorSlidingBase evaluator, Function function,
+      boolean isLong, Long[] values, int startOffset, int endOffset, Random random)
+      throws Exception {
+    List<VectorizedRowBatch> batches = new ArrayList<VectorizedRowBatch>();
+    int start = 0;
+    while (start < values.length) {
+      final int size = Math.min(1 + random.nextInt(VectorizedRowBatch.DEFAULT_SIZE),
+          values.length - start);
+      VectorizedRowBatch batch = createBatch(evaluator, isLong, values, start, size, false);
+      evaluator.evaluateGroupBatch(batch);
+      batches.add(batch);
+      start += size;
+    }
+    evaluator.finishPartition();
+    assertEquals(0, evaluator.getPendingBatchCount());
+
+    Double[] expected = expectedResults(function, values, startOffset, endOffset);
+    int row = 0;
+    for (VectorizedRowBatch batch : batches) {
+      for (int i = 0; i < batch.size; i++, row++) {
+        String message = function + " row " + row + " of ROWS " + startOffset + "~" + endOffset;
+        if (expected[row] == null) {
+          assertEquals(message, null, getResult(batch, i));
+        } else {
+          assertEquals(message, expected[row], getResult(batch, i), 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFramesAgainstRowByRowResults() throws Exception {
+    final int[][] frames = {
+        {-2, 2}, {-2, 0}, {0, 0}, {0, 5}, {-5, -1}, {1, 3}, {-1, 1}, {-3000, 2}
+    };
+    Random random = new Random(8823);
+    for (Function function : Function.values()) {
+      for (boolean isLong : new boolean[] {true, false}) {
+        for (int[] frame : frames) {
+          VectorPTFEvaluatorSlidingBase evaluator =
+              createEvaluator(function, isLong, rowsFrame(frame[0], frame[1]));
+          Long[] values = randomValues(random, 1 + random.nextInt(5000), true);
+          verifyPartition(evaluator, function, isLong, values, frame[0], frame[1], random);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPartitionsAreIndependent() throws Exception {
+    Random random = new Random(230);
+    for (Function function : Function.values()) {
+      VectorPTFEvaluatorSlidingBase evaluator = createEvaluator(function, true, rowsFrame(-3, 2));
+      for (int partition = 0; partition < 4; partition++) {
+        Long[] values = randomValues(random, 1 + random.nextInt(3000), partition % 2 == 0);
+        verifyPartition(evaluator, function, true, values, -3, 2, random);
+        evaluator.resetEvaluator();
+      }
+    }
+  }
+
+  @Test
+  public void testNullsAndRepeatingInput() throws Exception {
+    VectorPTFEvaluatorSlidingBase evaluator =
+        createEvaluator(Function.SUM, true, rowsFrame(-1, 1));
+    Long[] values = new Long[] {null, null, null, 7L, 7L, 7L};
+
+    VectorizedRowBatch nullBatch = createBatch(evaluator, true, values, 0, 3, true);
+    VectorizedRowBatch repeatingBatch = createBatch(evaluator, true, values, 3, 3, true);
+    evaluator.evaluateGroupBatch(nullBatch);
+    evaluator.evaluateGroupBatch(repeatingBatch);
+    evaluator.finishPartition();
+
+    assertEquals(null, getResult(nullBatch, 0));
+    assertEquals(null, getResult(nullBatch, 1));
+    assertEquals(7.0, getResult(nullBatch, 2), 0);
+    assertEquals(14.0, getResult(repeatingBatch, 0), 0);
+    assertEquals(21.0, getResult(repeatingBatch, 1), 0);
+    assertEquals(14.0, getResult(repeatingBatch, 2), 0);
+    assertFalse(repeatingBatch.cols[OUTPUT_COLUMN].isRepeating);
+  }
+
+  @Test
+  public void testFrameEndingBeforeCurrentRowHasNoLookahead() throws Exception {
+    VectorPTFEvaluatorSlidingBase evaluator =
+        createEvaluator(Function.MAX, false, rowsFrame(-2, -1));
+    assertFalse(evaluator.hasLookahead());
+    assertTrue(evaluator.streamsResult());
+
+    Long[] values = new Long[] {4L, 9L, 1L, 3L};
+    VectorizedRowBatch first = createBatch(evaluator, false, values, 0, 2, false);
+    VectorizedRowBatch second = createBatch(evaluator, false, values, 2, 2, false);
+
+    // Each batch is written as soon as it is evaluated.
+    evaluator.evaluateGroupBatch(first);
+    assertEquals(0, evaluator.getPendingBatchCount());
+    evaluator.evaluateGroupBatch(second);
+    assertEquals(0, evaluator.getPendingBatchCount());
+
+    assertEquals(null, getResult(first, 0));
+    assertEquals(4.0, getResult(first, 1), 0);
+    assertEquals(9.0, getResult(second, 0), 0);
+    assertEquals(9.0, getResult(second, 1), 0);
+  }
+
+  @Test
+  public void testLookaheadWaitsForFollowingRows() throws Exception {
+    VectorPTFEvaluatorSlidingBase evaluator =
+        createEvaluator(Function.SUM, true, rowsFrame(0, 2));
+    assertTrue(evaluator.hasLookahead());
+
+    Long[] values = new Long[] {1L, 2L, 3L, 4L, 5L, 6L, 7L};
+    VectorizedRowBatch first = createBatch(evaluator, true, values, 0, 3, false);
+    VectorizedRowBatch second = createBatch(evaluator, true, values, 3, 1, false);
+    VectorizedRowBatch third = createBatch(evaluator, true, values, 4, 3, false);
+
+    // Only the first row has read its 2 following rows.
+    evaluator.evaluateGroupBatch(first);
+    assertEquals(1, evaluator.getPendingBatchCount());
+    assertEquals(6.0, getResult(first, 0), 0);
+
+    // The first batch still waits on its last row.
+    evaluator.evaluateGroupBatch(second);
+    assertEquals(2, evaluator.getPendingBatchCount());
+    assertEquals(9.0, getResult(first, 1), 0);
+
+    evaluator.evaluateGroupBatch(third);
+    assertEquals(1, evaluator.getPendingBatchCount());
+    assertEquals(12.0, getResult(first, 2), 0);
+    assertEquals(15.0, getResult(second, 0), 0);
+    assertEquals(18.0, getResult(third, 0), 0);
+
+    // The last rows have their frame cut by the end of the partition.
+    evaluator.finishPartition();
+    assertEquals(0, evaluator.getPendingBatchCount());
+    assertEquals(13.0, getResult(third, 1), 0);
+    assertEquals(7.0, getResult(third, 2), 0);
+  }
+
+  @Test
+  public void testLookaheadPastPartitionEnd() throws Exception {
+    VectorPTFEvaluatorSlidingBase evaluator =
+        createEvaluator(Function.AVG, false, rowsFrame(2, 4));
+
+    // No row of a 2 row partition has a frame inside the partition.
+    Long[] values = new Long[] {10L, 20L};
+    VectorizedRowBatch batch = createBatch(evaluator, false, values, 0, 2, false);
+    evaluator.evaluateGroupBatch(batch);
+    assertEquals(1, evaluator.getPendingBatchCount());
+    evaluator.finishPartition();
+    assertEquals(0, evaluator.getPendingBatchCount());
+    assertEquals(null, getResult(batch, 0));
+    assertEquals(null, getResult(batch, 1));
+  }
+
+  /*
+   * Like VectorPTFOperator, forward the oldest batches while more batches were read than any
+   * lookahead evaluator still waits on.
+   */
+  @Test
+  public void testPendingBatchesAreForwardedInOrder() throws Exception {
+    VectorPTFEvaluatorSlidingBase[] evaluators = new VectorPTFEvaluatorSlidingBase[] {
+        createEvaluator(Function.MIN, true, rowsFrame(-1, 1)),
+        new VectorPTFEvaluatorSlidingLongMax(
+            rowsFrame(0, 1500), new IdentityExpression(INPUT_COLUMN), OUTPUT_COLUMN + 1)
+    };
+    Random random = new Random(4711);
+    Long[] values = randomValues(random, 4000, false);
+
+    ArrayDeque<VectorizedRowBatch> pending = new ArrayDeque<VectorizedRowBatch>();
+    List<Integer> forwardedStarts = new ArrayList<Integer>();
+    List<Integer> starts = new ArrayList<Integer>();
+    int start = 0;
+    while (start < values.length) {
+      final int size = Math.min(VectorizedRowBatch.DEFAULT_SIZE, values.length - start);
+      VectorizedRowBatch batch = new VectorizedRowBatch(3);
+      batch.cols[INPUT_COLUMN] = createBatch(evaluators[0], true, values, start, size, false)
+          .cols[INPUT_COLUMN];
+      batch.cols[OUTPUT_COLUMN] = new LongColumnVector();
+      batch.cols[OUTPUT_COLUMN + 1] = new LongColumnVector();
+      batch.size = size;
+      for (VectorPTFEvaluatorSlidingBase evaluator : evaluators) {
+        evaluator.evaluateGroupBatch(batch);
+      }
+      pending.add(batch);
+      starts.add(start);
+      start += size;
+
+      int waitingBatchCount = 0;
+      for (VectorPTFEvaluatorSlidingBase evaluator : evaluators) {
+        waitingBatchCount = Math.max(waitingBatchCount, evaluator.getPendingBatchCount());
+      }
+      while (pending.size() > waitingBatchCount) {
+        pending.remove();
+        forwardedStarts.add(starts.get(forwardedStarts.size()));
+      }
+    }
+
+    // The 1500 following rows keep the last 2 batches pending until the end of the partition.
+    assertEquals(2, forwardedStarts.size());
+    assertEquals(2, pending.size());
+    for (VectorPTFEvaluatorSlidingBase evaluator : evaluators) {
+      evaluator.finishPartition();
+      assertEquals(0, evaluator.getPendingBatchCount());
+    }
+    assertEquals(Integer.valueOf(0), forwardedStarts.get(0));
+    assertEquals(Integer.valueOf(VectorizedRowBatch.DEFAULT_SIZE), forwardedStarts.get(1));
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector.udf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.UDFJson;
+import org.apache.hadoop.hive.ql.udf.UDFParseUrl;
+import org.apache.hadoop.hive.ql.udf.UDFRegExpExtract;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBridge;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFFromUnixTime;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.Test;
+
+/*
+ * Test the batch evaluation of the functions implementing VectorBatchUDF.
+ */
+public class TestVectorBatchUDFExpression {
+
+  @Test
+  public void testGetBatchUDF() {
+    GenericUDFBridge regExpExtract =
+        new GenericUDFBridge("regexp_extract", false, UDFRegExpExtract.class.getName());
+    assertNotNull(VectorBatchUDFExpression.getBatchUDF(regExpExtract,
+        new TypeInfo[] {TypeInfoFactory.stringTypeInfo, TypeInfoFactory.stringTypeInfo}));
+
+    // CHAR arguments are left to the VectorUDFAdaptor.
+    assertNull(VectorBatchUDFExpression.getBatchUDF(regExpExtract,
+        new TypeInfo[] {TypeInfoFactory.getCharTypeInfo(10), TypeInfoFactory.stringTypeInfo}));
+
+    // A UDF that does not evaluate batches.
+    GenericUDFBridge longUDF =
+        new GenericUDFBridge("longudf", false,
+            org.apache.hadoop.hive.ql.exec.vector.udf.legacy.LongUDF.class.getName());
+    assertNull(VectorBatchUDFExpression.getBatchUDF(longUDF,
+        new TypeInfo[] {TypeInfoFactory.longTypeInfo}));
+  }
+
+  @Test
+  public void testRegExpExtract() throws HiveException {
+    GenericUDFBridge udf =
+        new GenericUDFBridge("regexp_extract", false, UDFRegExpExtract.class.getName());
+    VectorBatchUDFExpression expr = createExpression(udf, TypeInfoFactory.stringTypeInfo,
+        new ExprNodeConstantDesc("(\\d+)-(\\d+)"), new ExprNodeConstantDesc(2));
+
+    String[] inputs = {"100-200", "abc", null, "7-8 and 9-10"};
+    VectorizedRowBatch batch = createStringBatch(inputs);
+    expr.evaluate(batch);
+
+    UDFRegExpExtract rowUDF = new UDFRegExpExtract();
+    BytesColumnVector out = (BytesColumnVector) batch.cols[1];
+    for (int i = 0; i < inputs.length; i++) {
+      assertEquals(
+          (inputs[i] == null ? null : rowUDF.evaluate(inputs[i], "(\\d+)-(\\d+)", 2)),
+          getString(out, i));
+    }
+    assertFalse(out.noNulls);
+  }
+
+  @Test
+  public void testParseUrl() throws HiveException {
+    GenericUDFBridge udf = new GenericUDFBridge("parse_url", false, UDFParseUrl.class.getName());
+    VectorBatchUDFExpression expr = createExpression(udf, TypeInfoFactory.stringTypeInfo,
+        new ExprNodeConstantDesc("QUERY"), new ExprNodeConstantDesc("k"));
+
+    String[] inputs = {
+        "http://facebook.com/path/p1.php?k=1", "http://facebook.com/path/p1.php?x=1",
+        "not a url", null};
+    VectorizedRowBatch batch = createStringBatch(inputs);
+    expr.evaluate(batch);
+
+    UDFParseUrl rowUDF = new UDFParseUrl();
+    BytesColumnVector out = (BytesColumnVector) batch.cols[1];
+    for (int i = 0; i < inputs.length; i++) {
+      assertEquals(
+          (inputs[i] == null ? null : rowUDF.evaluate(inputs[i], "QUERY", "k")),
+          getString(out, i));
+    }
+  }
+
+  @Test
+  public void testGetJsonObject() throws HiveException {
+    GenericUDFBridge udf = new GenericUDFBridge("get_json_object", false, UDFJson.class.getName());
+    VectorBatchUDFExpression expr = createExpression(udf, TypeInfoFactory.stringTypeInfo,
+        new ExprNodeConstantDesc("$.a.b"));
+
+    String[] inputs = {"{\"a\":{\"b\":1}}", "{\"a\":{\"c\":1}}", "not json", null};
+    VectorizedRowBatch batch = createStringBatch(inputs);
+
+    // Only some rows are selected.
+    batch.selectedInUse = true;
+    batch.selected[0] = 0;
+    batch.selected[1] = 2;
+    batch.size = 2;
+    expr.evaluate(batch);
+
+    BytesColumnVector out = (BytesColumnVector) batch.cols[1];
+    assertEquals("1", getString(out, 0));
+    assertNull(getString(out, 2));
+  }
+
+  @Test
+  public void testFromUnixTime() throws HiveException {
+    GenericUDFFromUnixTime udf = new GenericUDFFromUnixTime();
+    VectorBatchUDFExpression expr = createExpression(udf, TypeInfoFactory.longTypeInfo,
+        new ExprNodeConstantDesc("yyyy"));
+
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    LongColumnVector in = new LongColumnVector();
+    batch.cols[0] = in;
+    batch.cols[1] = new BytesColumnVector();
+    in.vector[0] = 0;
+    in.noNulls = false;
+    in.isNull[1] = true;
+    in.vector[2] = 1000L * 24 * 3600 * 365;
+    batch.size = 3;
+    expr.evaluate(batch);
+
+    BytesColumnVector out = (BytesColumnVector) batch.cols[1];
+    assertNotNull(getString(out, 0));
+    assertNull(getString(out, 1));
+    assertTrue(Integer.parseInt(getString(out, 2)) > 2900);
+
+    // A repeating argument gives a repeating result.
+    batch.cols[1].reset();
+    in.reset();
+    in.isRepeating = true;
+    in.vector[0] = 0;
+    expr.evaluate(batch);
+    assertTrue(out.isRepeating);
+  }
+
+  private static VectorBatchUDFExpression createExpression(GenericUDF udf, TypeInfo columnTypeInfo,
+      ExprNodeConstantDesc... constants) throws HiveException {
+    List<ExprNodeDesc> children = new ArrayList<ExprNodeDesc>();
+    children.add(new ExprNodeColumnDesc(columnTypeInfo, "col0", "tablename", false));
+    VectorUDFArgDesc[] argDescs = new VectorUDFArgDesc[1 + constants.length];
+    argDescs[0] = new VectorUDFArgDesc();
+    argDescs[0].setVariable(0);
+    for (int i = 0; i < constants.length; i++) {
+      children.add(constants[i]);
+      argDescs[i + 1] = new VectorUDFArgDesc();
+      argDescs[i + 1].setConstant(constants[i]);
+    }
+    ExprNodeGenericFuncDesc funcDesc = new ExprNodeGenericFuncDesc(
+        TypeInfoFactory.stringTypeInfo, udf, "batchudf", children);
+    return new VectorBatchUDFExpression(funcDesc, 1, "String", argDescs);
+  }
+
+  private static VectorizedRowBatch createStringBatch(String[] inputs) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    BytesColumnVector in = new BytesColumnVector();
+    in.initBuffer();
+    batch.cols[0] = in;
+    batch.cols[1] = new BytesColumnVector();
+    for (int i = 0; i < inputs.length; i++) {
+      if (inputs[i] == null) {
+        in.noNulls = false;
+        in.isNull[i] = true;
+      } else {
+        in.setVal(i, inputs[i].getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    batch.size = inputs.length;
+    return batch;
+  }
+
+  private static String getString(BytesColumnVector colVector, int row) {
+    final int index = (colVector.isRepeating ? 0 : row);
+    if (!colVector.noNulls && colVector.isNull[index]) {
+      return null;
+    }
+    return new String(colVector.vector[index], colVector.start[index], colVector.length[index],
+        StandardCharsets.UTF_8);
+  }
+}
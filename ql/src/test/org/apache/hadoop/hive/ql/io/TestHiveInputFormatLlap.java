@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.llap.io.api.LlapIo;
+import org.apache.hadoop.hive.llap.io.api.LlapProxy;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.VectorizedParquetInputFormat;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests which input formats HiveInputFormat reads thru LLAP IO.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class TestHiveInputFormatLlap {
+
+  private LlapIo<VectorizedRowBatch> llapIo;
+  private InputFormat<NullWritable, VectorizedRowBatch> llapInputFormat;
+  private JobConf conf;
+
+  @Before
+  public void setUp() {
+    llapIo = mock(LlapIo.class);
+    llapInputFormat = mock(InputFormat.class);
+    when(llapIo.getInputFormat(any(), any())).thenReturn(llapInputFormat);
+    LlapProxy.setIo(llapIo);
+
+    conf = new JobConf();
+    HiveConf.setBoolVar(conf, ConfVars.LLAP_IO_ENABLED, true);
+    HiveConf.setBoolVar(conf, ConfVars.LLAP_IO_PARQUET_ENABLED, true);
+    conf.setBoolean(Utilities.VECTOR_MODE, true);
+  }
+
+  @After
+  public void tearDown() {
+    LlapProxy.setIo(null);
+  }
+
+  private static InputFormat<WritableComparable, Writable> wrap(InputFormat inputFormat, JobConf conf)
+      throws Exception {
+    return HiveInputFormat.wrapForLlap(inputFormat, conf, null);
+  }
+
+  @Test
+  public void testParquetThruElevator() throws Exception {
+    InputFormat vectorized = new VectorizedParquetInputFormat();
+    assertSame(llapInputFormat, wrap(vectorized, conf));
+    verify(llapIo).getInputFormat(same(vectorized), isNull());
+
+    InputFormat mapred = new MapredParquetInputFormat();
+    assertSame(llapInputFormat, wrap(mapred, conf));
+    verify(llapIo).getInputFormat(same(mapred), isNull());
+    verify(llapIo, never()).initCacheOnlyInputFormat(any());
+  }
+
+  @Test
+  public void testParquetCacheOnly() throws Exception {
+    HiveConf.setBoolVar(conf, ConfVars.LLAP_IO_PARQUET_ENABLED, false);
+    InputFormat inputFormat = new VectorizedParquetInputFormat();
+    assertSame(inputFormat, wrap(inputFormat, conf));
+    verify(llapIo, never()).getInputFormat(any(), any());
+    verify(llapIo).initCacheOnlyInputFormat(inputFormat);
+  }
+
+  @Test
+  public void testParquetNotVectorized() throws Exception {
+    conf.setBoolean(Utilities.VECTOR_MODE, false);
+    InputFormat inputFormat = new MapredParquetInputFormat();
+    assertSame(inputFormat, wrap(inputFormat, conf));
+    verify(llapIo, never()).getInputFormat(any(), any());
+    verify(llapIo).initCacheOnlyInputFormat(inputFormat);
+  }
+
+  @Test
+  public void testParquetNotWrapped() throws Exception {
+    // For example without the LLAP cache; the caches are still injected if there are any.
+    when(llapIo.getInputFormat(any(), any())).thenReturn(null);
+    InputFormat inputFormat = new VectorizedParquetInputFormat();
+    assertSame(inputFormat, wrap(inputFormat, conf));
+    verify(llapIo).initCacheOnlyInputFormat(inputFormat);
+  }
+}
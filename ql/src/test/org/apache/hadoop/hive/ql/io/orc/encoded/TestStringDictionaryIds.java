@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc.encoded;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.hive.ql.exec.vector.DictionaryBytesColumnVector;
+import org.junit.Test;
+
+/**
+ * Tests the dictionary ids assigned to the string vectors of dictionary encoded columns.
+ */
+public class TestStringDictionaryIds {
+
+  // The entries "a", "bb", "", "ccc" stored back to back; the empty one starts where "ccc" does.
+  private static final byte[] DICTIONARY = "abbccc".getBytes(StandardCharsets.UTF_8);
+  private static final int[] STARTS = { 0, 1, 3, 3 };
+  private static final int[] LENGTHS = { 1, 2, 0, 3 };
+
+  // Sets the rows to the given dictionary entries by reference, like the tree reader does.
+  private static DictionaryBytesColumnVector read(byte[] dictionary, int... entries) {
+    DictionaryBytesColumnVector col = new DictionaryBytesColumnVector();
+    col.reset();
+    for (int i = 0; i < entries.length; i++) {
+      if (entries[i] < 0) {
+        col.noNulls = false;
+        col.isNull[i] = true;
+      } else {
+        col.setRef(i, dictionary, STARTS[entries[i]], LENGTHS[entries[i]]);
+      }
+    }
+    return col;
+  }
+
+  @Test
+  public void testIdsIdentifyTheEntries() {
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    DictionaryBytesColumnVector col = read(DICTIONARY, 3, 1, 3, 2, 0, 1);
+    dictionaryIds.assignIds(col, 6);
+
+    assertTrue(col.isDictionaryEncoded);
+    assertEquals(4, col.dictionarySize);
+    // Handed out in the order the entries are first seen.
+    assertEquals(0, col.ids[0]);
+    assertEquals(1, col.ids[1]);
+    assertEquals(0, col.ids[2]);
+    // The empty entry does not share the id of "ccc".
+    assertEquals(2, col.ids[3]);
+    assertEquals(3, col.ids[4]);
+    assertEquals(1, col.ids[5]);
+  }
+
+  @Test
+  public void testIdsAreKeptAcrossBatches() {
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    DictionaryBytesColumnVector first = read(DICTIONARY, 1, 0);
+    dictionaryIds.assignIds(first, 2);
+    Object dictionaryKey = first.dictionaryKey;
+
+    DictionaryBytesColumnVector second = read(DICTIONARY, 0, 3, 1);
+    dictionaryIds.assignIds(second, 3);
+    assertTrue(second.isDictionaryEncoded);
+    assertSame(dictionaryKey, second.dictionaryKey);
+    assertEquals(3, second.dictionarySize);
+    assertEquals(1, second.ids[0]);
+    assertEquals(2, second.ids[1]);
+    assertEquals(0, second.ids[2]);
+
+    // The dictionary bytes of the next stripe start a new dictionary.
+    byte[] nextDictionary = DICTIONARY.clone();
+    DictionaryBytesColumnVector third = read(nextDictionary, 3);
+    dictionaryIds.assignIds(third, 1);
+    assertTrue(third.isDictionaryEncoded);
+    assertNotSame(dictionaryKey, third.dictionaryKey);
+    assertEquals(1, third.dictionarySize);
+    assertEquals(0, third.ids[0]);
+  }
+
+  @Test
+  public void testNulls() {
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    DictionaryBytesColumnVector col = read(DICTIONARY, -1, 1, -1, 1, 0);
+    dictionaryIds.assignIds(col, 5);
+    assertTrue(col.isDictionaryEncoded);
+    assertEquals(2, col.dictionarySize);
+    assertEquals(0, col.ids[1]);
+    assertEquals(0, col.ids[3]);
+    assertEquals(1, col.ids[4]);
+
+    // A batch of only NULLs is encoded too, with whatever dictionary came before.
+    DictionaryBytesColumnVector nulls = read(DICTIONARY, -1, -1);
+    dictionaryIds.assignIds(nulls, 2);
+    assertTrue(nulls.isDictionaryEncoded);
+    assertSame(col.dictionaryKey, nulls.dictionaryKey);
+
+    StringDictionaryIds fresh = new StringDictionaryIds();
+    nulls = read(DICTIONARY, -1, -1);
+    fresh.assignIds(nulls, 2);
+    assertTrue(nulls.isDictionaryEncoded);
+    assertEquals(0, nulls.dictionarySize);
+  }
+
+  @Test
+  public void testRepeating() {
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    DictionaryBytesColumnVector col = read(DICTIONARY, 1);
+    col.isRepeating = true;
+    col.ids[1] = -1;
+    dictionaryIds.assignIds(col, 1024);
+    assertTrue(col.isDictionaryEncoded);
+    assertEquals(1, col.dictionarySize);
+    assertEquals(0, col.ids[0]);
+    // Only the first row is looked at.
+    assertEquals(-1, col.ids[1]);
+
+    DictionaryBytesColumnVector nulls = read(DICTIONARY, -1);
+    nulls.isRepeating = true;
+    dictionaryIds.assignIds(nulls, 1024);
+    assertTrue(nulls.isDictionaryEncoded);
+  }
+
+  @Test
+  public void testValueOutsideTheDictionary() {
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    DictionaryBytesColumnVector col = read(DICTIONARY, 0, 1, 2);
+    col.setRef(1, "bb".getBytes(StandardCharsets.UTF_8), 0, 2);
+    dictionaryIds.assignIds(col, 3);
+    assertFalse(col.isDictionaryEncoded);
+
+    // The ids handed out before are still valid for the next batch.
+    DictionaryBytesColumnVector next = read(DICTIONARY, 1, 0);
+    dictionaryIds.assignIds(next, 2);
+    assertTrue(next.isDictionaryEncoded);
+    assertEquals(0, next.ids[1]);
+  }
+
+  @Test
+  public void testLargeDictionary() {
+    final int entryCount = 5000;
+    byte[] dictionary = new byte[entryCount];
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    for (int first = 0; first < entryCount; first += 1000) {
+      DictionaryBytesColumnVector col = new DictionaryBytesColumnVector(2000);
+      col.reset();
+      // Every entry is seen twice, in reverse order the second time.
+      for (int i = 0; i < 1000; i++) {
+        col.setRef(i, dictionary, first + i, 1);
+        col.setRef(1999 - i, dictionary, first + i, 1);
+      }
+      dictionaryIds.assignIds(col, 2000);
+      assertTrue(col.isDictionaryEncoded);
+      assertEquals(first + 1000, col.dictionarySize);
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(first + i, col.ids[i]);
+        assertEquals(first + i, col.ids[1999 - i]);
+      }
+    }
+  }
+
+  @Test
+  public void testDictionaryTooLarge() {
+    final int entryCount = StringDictionaryIds.MAX_DICTIONARY_SIZE + 1;
+    byte[] dictionary = new byte[entryCount];
+    DictionaryBytesColumnVector col = new DictionaryBytesColumnVector(entryCount);
+    col.reset();
+    for (int i = 0; i < entryCount; i++) {
+      col.setRef(i, dictionary, i, 1);
+    }
+    StringDictionaryIds dictionaryIds = new StringDictionaryIds();
+    dictionaryIds.assignIds(col, entryCount);
+    assertFalse(col.isDictionaryEncoded);
+
+    // Not tracked for the rest of the dictionary.
+    DictionaryBytesColumnVector next = new DictionaryBytesColumnVector();
+    next.reset();
+    next.setRef(0, dictionary, 0, 1);
+    dictionaryIds.assignIds(next, 1);
+    assertFalse(next.isDictionaryEncoded);
+  }
+}
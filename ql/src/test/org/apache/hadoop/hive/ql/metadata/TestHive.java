@@ -22,6 +22,7 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -48,12 +49,16 @@
 import org.apache.hadoop.hive.metastore.api.hive_metastoreConstants;
 import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
 import org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat;
+import org.apache.hadoop.hive.ql.optimizer.ppr.PartitionPruner;
+import org.apache.hadoop.hive.ql.parse.PrunedPartitionList;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
 import org.apache.hadoop.hive.ql.session.SessionState;
 import org.apache.hadoop.hive.ql.stats.StatsUtils;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPAnd;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
 import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
 import org.apache.hadoop.hive.serde2.thrift.ThriftDeserializer;
@@ -675,6 +680,82 @@ public void testDropPartitionsWithPurge() throws Exception {
     }
   }
 
+  /**
+   * Test fetching the partitions with the given names in batches.
+   */
+  @Test
+  public void testPartitionIterableByNames() throws Exception {
+    String dbName = Warehouse.DEFAULT_DATABASE_NAME;
+    String tableName = "table_for_testPartitionIterableByNames";
+
+    try {
+      Table table = createPartitionedTable(dbName, tableName);
+      for (int i = 0; i < 5; ++i) {
+        hm.createPartition(table, ImmutableMap.of("ds", "20141216", "hr", String.valueOf(i)));
+      }
+      List<String> partitionNames = hm.getPartitionNames(dbName, tableName, (short) -1);
+      assertEquals(5, partitionNames.size());
+
+      List<String> iteratedNames = new ArrayList<>();
+      for (Partition partition : PartitionIterable.ofNames(hm, table, partitionNames, 2)) {
+        iteratedNames.add(partition.getName());
+      }
+      assertEquals(partitionNames.size(), iteratedNames.size());
+      assertEquals(new HashSet<>(partitionNames), new HashSet<>(iteratedNames));
+    } finally {
+      cleanUpTableQuietly(dbName, tableName);
+    }
+  }
+
+  /**
+   * Test that the partition pruner finds the same partitions, and the same unknown partitions, when
+   * it fetches them in pages.
+   */
+  @Test
+  public void testPrunePartitionsPaged() throws Exception {
+    String dbName = Warehouse.DEFAULT_DATABASE_NAME;
+    String tableName = "table_for_testPrunePartitionsPaged";
+
+    try {
+      Table table = createPartitionedTable(dbName, tableName);
+      for (int i = 0; i < 5; ++i) {
+        hm.createPartition(table, ImmutableMap.of("ds", "20141216", "hr", String.valueOf(i)));
+      }
+      // The expressions on hr cannot decide the default partition.
+      hm.createPartition(table, ImmutableMap.of("ds", "20141216",
+          "hr", hiveConf.getVar(ConfVars.DEFAULTPARTITIONNAME)));
+      HiveConf pagedConf = new HiveConf(hiveConf);
+      pagedConf.setIntVar(ConfVars.HIVE_OPTIMIZE_PPR_PAGE_SIZE, 2);
+
+      for (ExprNodeGenericFuncDesc expr : Arrays.asList(equalsExpr("ds", "20141216"), equalsExpr("hr", "1"),
+          equalsExpr("ds", "20141217"))) {
+        List<Partition> expected = new ArrayList<>();
+        boolean expectedUnknown = hm.getPartitionsByExpr(table, expr, hiveConf, expected);
+
+        PrunedPartitionList pruned = PartitionPruner.prune(table, expr, pagedConf, tableName, new HashMap<>());
+        assertEquals(expr.getExprString(), getNames(expected), getNames(pruned.getPartitions()));
+        assertEquals(expr.getExprString(), expectedUnknown, pruned.hasUnknownPartitions());
+      }
+    } finally {
+      cleanUpTableQuietly(dbName, tableName);
+    }
+  }
+
+  private static ExprNodeGenericFuncDesc equalsExpr(String partCol, String value) {
+    List<ExprNodeDesc> children = Lists.newArrayList(
+        new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, partCol, null, true),
+        new ExprNodeConstantDesc(value));
+    return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPEqual(), "=", children);
+  }
+
+  private static Set<String> getNames(Collection<Partition> partitions) {
+    Set<String> names = new HashSet<>();
+    for (Partition partition : partitions) {
+      names.add(partition.getName());
+    }
+    return names;
+  }
+
   /**
    * Test that tables set up with auto-purge skip trash-directory when tables/partitions are dropped.
    * @throws Throwable
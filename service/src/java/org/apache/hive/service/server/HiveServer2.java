@@ -54,7 +54,10 @@
 import org.apache.hadoop.hive.common.LogUtils;
 import org.apache.hadoop.hive.common.LogUtils.LogInitializationException;
 import org.apache.hadoop.hive.common.ServerUtils;
+import org.apache.hadoop.hive.common.metrics.common.Metrics;
+import org.apache.hadoop.hive.common.metrics.common.MetricsConstant;
 import org.apache.hadoop.hive.common.metrics.common.MetricsFactory;
+import org.apache.hadoop.hive.common.metrics.common.MetricsVariable;
 import org.apache.hadoop.hive.common.ZKDeRegisterWatcher;
 import org.apache.hadoop.hive.common.ZooKeeperHiveHelper;
 import org.apache.hadoop.hive.conf.HiveConf;
@@ -284,6 +287,15 @@ public synchronized void init(HiveConf hiveConf) {
     // setup metastore client cache
     if (hiveConf.getBoolVar(ConfVars.MSC_CACHE_ENABLED)) {
       HiveMetaStoreClientWithLocalCache.init(hiveConf);
+      Metrics metrics = MetricsFactory.getInstance();
+      if (metrics != null) {
+        metrics.addGauge(MetricsConstant.MSC_CACHE_HITS,
+            (MetricsVariable<Long>) HiveMetaStoreClientWithLocalCache::getHitCount);
+        metrics.addGauge(MetricsConstant.MSC_CACHE_MISSES,
+            (MetricsVariable<Long>) HiveMetaStoreClientWithLocalCache::getMissCount);
+        metrics.addGauge(MetricsConstant.MSC_CACHE_INVALIDATIONS,
+            (MetricsVariable<Long>) HiveMetaStoreClientWithLocalCache::getInvalidationCount);
+      }
     }
 
     try {
@@ -18,11 +18,17 @@
 package org.apache.hadoop.hive.metastore;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheWriter;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.metastore.api.AggrStats;
@@ -67,6 +73,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.apache.hadoop.hive.metastore.utils.MetaStoreUtils.DB_NAME;
 import static org.apache.hadoop.hive.metastore.utils.MetaStoreUtils.parseDbName;
 
 /**
@@ -87,11 +94,17 @@ public class HiveMetaStoreClientWithLocalCache extends HiveMetaStoreClient imple
   private static boolean recordStats;
   private static HashMap<Class<?>, ObjectEstimator> sizeEstimator = null;
   private static String cacheObjName = null;
+  private static Configuration cacheConf = null;
+  private static final AtomicLong invalidationCount = new AtomicLong(0);
+  // The keys of the cached entries of each table, by the lower case full table name; kept in sync
+  // with the cache by its writer, so that the entries of a table are removed without a scan.
+  private static final ConcurrentHashMap<String, Set<CacheKey>> tableKeys = new ConcurrentHashMap<>();
 
   public static synchronized void init(Configuration conf) {
     // init cache only once
     if (!INITIALIZED.get()) {
       LOG.info("Initializing local cache in HiveMetaStoreClient...");
+      cacheConf = conf;
       maxSize = MetastoreConf.getSizeVar(conf, MetastoreConf.ConfVars.MSC_CACHE_MAX_SIZE);
       recordStats = MetastoreConf.getBoolVar(conf, MetastoreConf.ConfVars.MSC_CACHE_RECORD_STATS);
       initSizeEstimator();
@@ -249,6 +262,7 @@ private static void initCache() {
         .initialCapacity(initSize)
         .maximumWeight(maxSize)
         .weigher(HiveMetaStoreClientWithLocalCache::getWeight)
+        .writer(new TableKeysWriter())
         .removalListener((key, val, cause) -> {
           if (LOG.isDebugEnabled()) {
             LOG.debug("Caffeine - ({}, {}) was removed ({})", key, val, cause);
@@ -492,6 +506,137 @@ protected GetPartitionsByNamesResult getPartitionsByNamesInternal(GetPartitionsB
   }
 
 
+  /**
+   * Removes the cached entries of the table, after the table was changed in the metastore. The
+   * entries are cached for a snapshot of the table, so they are still consistent; this frees the
+   * memory of the snapshots that are not going to be read anymore.
+   *
+   * @return The number of entries removed.
+   */
+  public static int invalidateTable(String dbName, String tableName) {
+    if (!INITIALIZED.get()) {
+      return 0;
+    }
+    String fullTableName = getFullTableName(dbName, tableName);
+    Set<CacheKey> keys = tableKeys.get(fullTableName);
+    if (keys == null) {
+      return 0;
+    }
+    int removed = 0;
+    // The writer removes the keys from the set as the entries are removed.
+    for (CacheKey key : new ArrayList<>(keys)) {
+      if (mscLocalCache.asMap().remove(key) != null) {
+        removed++;
+      }
+    }
+    invalidationCount.addAndGet(removed);
+    LOG.debug("HS2 level HMS cache: removed {} entries of {}", removed, fullTableName);
+    return removed;
+  }
+
+  /**
+   * @return The number of hits in the cache; only counted if
+   *         {@link MetastoreConf.ConfVars#MSC_CACHE_RECORD_STATS} is set.
+   */
+  public static long getHitCount() {
+    return INITIALIZED.get() ? mscLocalCache.stats().hitCount() : 0;
+  }
+
+  /**
+   * @return The number of misses in the cache; only counted if
+   *         {@link MetastoreConf.ConfVars#MSC_CACHE_RECORD_STATS} is set.
+   */
+  public static long getMissCount() {
+    return INITIALIZED.get() ? mscLocalCache.stats().missCount() : 0;
+  }
+
+  /**
+   * @return The number of entries removed by {@link #invalidateTable}.
+   */
+  public static long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  @VisibleForTesting
+  static Cache<CacheKey, Object> getLocalCache() {
+    return mscLocalCache;
+  }
+
+  @VisibleForTesting
+  static int getTableKeyCount(String dbName, String tableName) {
+    Set<CacheKey> keys = tableKeys.get(getFullTableName(dbName, tableName));
+    return keys == null ? 0 : keys.size();
+  }
+
+  /**
+   * Keeps the keys of the entries of each table in {@link #tableKeys}; the cache calls it
+   * atomically with the writes and the removals of the entries, evictions included.
+   */
+  private static class TableKeysWriter implements CacheWriter<CacheKey, Object> {
+    @Override
+    public void write(CacheKey key, Object value) {
+      String fullTableName = getFullTableName(key);
+      if (fullTableName != null) {
+        tableKeys.compute(fullTableName, (name, keys) -> {
+          if (keys == null) {
+            keys = ConcurrentHashMap.newKeySet();
+          }
+          keys.add(key);
+          return keys;
+        });
+      }
+    }
+
+    @Override
+    public void delete(CacheKey key, Object value, RemovalCause cause) {
+      String fullTableName = getFullTableName(key);
+      if (fullTableName != null) {
+        tableKeys.computeIfPresent(fullTableName, (name, keys) -> {
+          keys.remove(key);
+          return keys.isEmpty() ? null : keys;
+        });
+      }
+    }
+  }
+
+  /**
+   * @return The lower case name of the table the entry was cached for; null if the entry is not
+   *         for a table.
+   */
+  private static String getFullTableName(CacheKey key) {
+    switch (key.IDENTIFIER) {
+    case TABLE:
+      GetTableRequest tableRequest = (GetTableRequest) key.obj.get(0);
+      return getFullTableName(tableRequest.getDbName(), tableRequest.getTblName());
+    case PARTITIONS_BY_EXPR:
+    case PARTITIONS_SPEC_BY_EXPR:
+      PartitionsByExprRequest exprRequest = (PartitionsByExprRequest) key.obj.get(1);
+      return getFullTableName(exprRequest.getDbName(), exprRequest.getTblName());
+    case AGGR_COL_STATS:
+      PartitionsStatsRequest statsRequest = (PartitionsStatsRequest) key.obj.get(1);
+      return getFullTableName(statsRequest.getDbName(), statsRequest.getTblName());
+    case LIST_PARTITIONS_ALL:
+      return getFullTableName((String) key.obj.get(2), (String) key.obj.get(3));
+    case TABLE_COLUMN_STATS:
+    case PARTITIONS_BY_NAMES:
+      return getFullTableName((String) key.obj.get(1), (String) key.obj.get(2));
+    case VALID_WRITE_IDS:
+      return ((String) key.obj.get(0)).toLowerCase();
+    default:
+      return null;
+    }
+  }
+
+  private static String getFullTableName(String dbName, String tableName) {
+    try {
+      // The database name may be prepended with the catalog name.
+      dbName = parseDbName(dbName, cacheConf)[DB_NAME];
+    } catch (MetaException e) {
+      LOG.debug("Cannot parse the database name {}", dbName, e);
+    }
+    return (dbName + "." + tableName).toLowerCase();
+  }
+
   /**
    * Checks if cache is enabled and initialized
    *
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClientWithLocalCache.CacheKey;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClientWithLocalCache.KeyType;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClientWithLocalCache.TableWatermark;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.GetTableRequest;
+import org.apache.hadoop.hive.metastore.api.GetTableResult;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.TableValidWriteIds;
+import org.apache.hadoop.hive.metastore.conf.MetastoreConf;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests the removal of the entries of a table from the HS2 level metastore client cache.
+ */
+public class TestHiveMetaStoreClientWithLocalCache {
+
+  @BeforeClass
+  public static void setUp() {
+    HiveMetaStoreClientWithLocalCache.init(MetastoreConf.newMetastoreConf());
+  }
+
+  @Test
+  public void testInvalidateTable() {
+    Cache<CacheKey, Object> cache = HiveMetaStoreClientWithLocalCache.getLocalCache();
+    TableWatermark watermark = new TableWatermark("db1.t1:1:9223372036854775807::", 1L);
+    cache.put(new CacheKey(KeyType.TABLE, new GetTableRequest("db1", "t1")), new GetTableResult(new Table()));
+    cache.put(new CacheKey(KeyType.TABLE_COLUMN_STATS, watermark, "db1", "t1", "c1", "hive", null, "hive", 1L),
+        new ColumnStatisticsObj());
+    cache.put(new CacheKey(KeyType.VALID_WRITE_IDS, "db1.t1", "1:9223372036854775807::", 1L),
+        new TableValidWriteIds());
+    CacheKey otherTable = new CacheKey(KeyType.TABLE, new GetTableRequest("db1", "t2"));
+    cache.put(otherTable, new GetTableResult(new Table()));
+
+    assertEquals(3, HiveMetaStoreClientWithLocalCache.getTableKeyCount("db1", "t1"));
+
+    assertEquals(3, HiveMetaStoreClientWithLocalCache.invalidateTable("DB1", "T1"));
+    assertEquals(1, cache.estimatedSize());
+    assertNotNull(cache.getIfPresent(otherTable));
+    assertEquals(3, HiveMetaStoreClientWithLocalCache.getInvalidationCount());
+    assertEquals(0, HiveMetaStoreClientWithLocalCache.getTableKeyCount("db1", "t1"));
+    assertEquals(1, HiveMetaStoreClientWithLocalCache.getTableKeyCount("db1", "t2"));
+
+    // The entries removed otherwise leave the index too.
+    cache.invalidate(otherTable);
+    assertEquals(0, HiveMetaStoreClientWithLocalCache.getTableKeyCount("db1", "t2"));
+    assertEquals(0, HiveMetaStoreClientWithLocalCache.invalidateTable("db1", "t2"));
+  }
+}
@@ -965,32 +965,36 @@ public void alterPartitions(List<List<String>> partValsList, List<Partition> new
     }
 
     public void refreshPartitions(List<Partition> partitions, SharedCache sharedCache) {
+      // Build the new partition cache without the table lock, so that the readers of the table are
+      // only blocked while it replaces the old one.
       Map<String, PartitionWrapper> newPartitionCache = new HashMap<String, PartitionWrapper>();
+      int size = 0;
+      for (Partition part : partitions) {
+        PartitionWrapper wrapper = makePartitionWrapper(part, sharedCache);
+        newPartitionCache.put(CacheUtils.buildPartitionCacheKey(part.getValues()), wrapper);
+        size += getObjectSize(PartitionWrapper.class, wrapper);
+      }
+      Map<String, PartitionWrapper> oldPartitionCache;
       try {
         tableLock.writeLock().lock();
-        int size = 0;
-        for (Partition part : partitions) {
-          if (compareAndSetMemberCacheUpdated(MemberName.PARTITION_CACHE, true, false)) {
-            LOG.debug("Skipping partition cache update for table: " + getTable().getTableName()
-                + "; the partition list we have is dirty.");
-            return;
-          }
-          String key = CacheUtils.buildPartitionCacheKey(part.getValues());
-          PartitionWrapper wrapper = partitionCache.get(key);
-          if (wrapper != null) {
-            if (wrapper.getSdHash() != null) {
-              sharedCache.decrSd(wrapper.getSdHash());
-            }
-          }
-          wrapper = makePartitionWrapper(part, sharedCache);
-          newPartitionCache.put(key, wrapper);
-          size += getObjectSize(PartitionWrapper.class, wrapper);
+        if (compareAndSetMemberCacheUpdated(MemberName.PARTITION_CACHE, true, false)) {
+          LOG.debug("Skipping partition cache update for table: " + getTable().getTableName()
+              + "; the partition list we have is dirty.");
+          oldPartitionCache = newPartitionCache;
+        } else {
+          oldPartitionCache = partitionCache;
+          partitionCache = newPartitionCache;
+          updateMemberSize(MemberName.PARTITION_CACHE, size, SizeMode.Snapshot);
         }
-        partitionCache = newPartitionCache;
-        updateMemberSize(MemberName.PARTITION_CACHE, size, SizeMode.Snapshot);
       } finally {
         tableLock.writeLock().unlock();
       }
+      // Release the storage descriptors of the partition cache that is not used.
+      for (PartitionWrapper wrapper : oldPartitionCache.values()) {
+        if (wrapper.getSdHash() != null) {
+          sharedCache.decrSd(wrapper.getSdHash());
+        }
+      }
     }
 
     public boolean updateTableColStats(List<ColumnStatisticsObj> colStatsForTable) {
@@ -1022,19 +1026,19 @@ public boolean updateTableColStats(List<ColumnStatisticsObj> colStatsForTable) {
 
     public void refreshTableColStats(List<ColumnStatisticsObj> colStatsForTable) {
       Map<String, ColumnStatisticsObj> newTableColStatsCache = new HashMap<String, ColumnStatisticsObj>();
+      int statsSize = 0;
+      for (ColumnStatisticsObj colStatObj : colStatsForTable) {
+        String key = colStatObj.getColName();
+        // TODO: get rid of deepCopy after making sure callers don't use references
+        newTableColStatsCache.put(key, colStatObj.deepCopy());
+        statsSize += getObjectSize(ColumnStatisticsObj.class, colStatObj);
+      }
       try {
         tableLock.writeLock().lock();
-        int statsSize = 0;
-        for (ColumnStatisticsObj colStatObj : colStatsForTable) {
-          if (compareAndSetMemberCacheUpdated(MemberName.TABLE_COL_STATS_CACHE,true, false)) {
-            LOG.debug("Skipping table col stats cache update for table: " + getTable().getTableName()
-                + "; the table col stats list we have is dirty.");
-            return;
-          }
-          String key = colStatObj.getColName();
-          // TODO: get rid of deepCopy after making sure callers don't use references
-          newTableColStatsCache.put(key, colStatObj.deepCopy());
-          statsSize += getObjectSize(ColumnStatisticsObj.class, colStatObj);
+        if (compareAndSetMemberCacheUpdated(MemberName.TABLE_COL_STATS_CACHE, true, false)) {
+          LOG.debug("Skipping table col stats cache update for table: " + getTable().getTableName()
+              + "; the table col stats list we have is dirty.");
+          return;
         }
         tableColStatsCache = newTableColStatsCache;
         updateMemberSize(MemberName.TABLE_COL_STATS_CACHE, statsSize, SizeMode.Snapshot);
@@ -1242,33 +1246,28 @@ public void removeAllPartitionColStats() {
 
     public void refreshPartitionColStats(List<ColumnStatistics> partitionColStats) {
       Map<String, ColumnStatisticsObj> newPartitionColStatsCache = new HashMap<String, ColumnStatisticsObj>();
+      String tableName = StringUtils.normalizeIdentifier(getTable().getTableName());
+      int statsSize = 0;
+      for (ColumnStatistics cs : partitionColStats) {
+        List<String> partVal;
+        try {
+          partVal = Warehouse.makeValsFromName(cs.getStatsDesc().getPartName(), null);
+          List<ColumnStatisticsObj> colStatsObjs = cs.getStatsObj();
+          for (ColumnStatisticsObj colStatObj : colStatsObjs) {
+            String key = CacheUtils.buildPartitonColStatsCacheKey(partVal, colStatObj.getColName());
+            newPartitionColStatsCache.put(key, colStatObj.deepCopy());
+            statsSize += getObjectSize(ColumnStatisticsObj.class, colStatObj);
+          }
+        } catch (MetaException e) {
+          LOG.debug("Unable to cache partition column stats for table: " + tableName, e);
+        }
+      }
       try {
         tableLock.writeLock().lock();
-        String tableName = StringUtils.normalizeIdentifier(getTable().getTableName());
-        int statsSize = 0;
-        for (ColumnStatistics cs : partitionColStats) {
-          if (compareAndSetMemberCacheUpdated(MemberName.PARTITION_COL_STATS_CACHE, true, false)) {
-            LOG.debug("Skipping partition column stats cache update for table: " + getTable().getTableName()
-                + "; the partition column stats list we have is dirty");
-            return;
-          }
-          List<String> partVal;
-          try {
-            partVal = Warehouse.makeValsFromName(cs.getStatsDesc().getPartName(), null);
-            List<ColumnStatisticsObj> colStatsObjs = cs.getStatsObj();
-            for (ColumnStatisticsObj colStatObj : colStatsObjs) {
-              if (compareAndSetMemberCacheUpdated(MemberName.PARTITION_COL_STATS_CACHE, true, false)) {
-                LOG.debug("Skipping partition column stats cache update for table: " + getTable().getTableName()
-                    + "; the partition column list we have is dirty");
-                return;
-              }
-              String key = CacheUtils.buildPartitonColStatsCacheKey(partVal, colStatObj.getColName());
-              newPartitionColStatsCache.put(key, colStatObj.deepCopy());
-              statsSize += getObjectSize(ColumnStatisticsObj.class, colStatObj);
-            }
-          } catch (MetaException e) {
-            LOG.debug("Unable to cache partition column stats for table: " + tableName, e);
-          }
+        if (compareAndSetMemberCacheUpdated(MemberName.PARTITION_COL_STATS_CACHE, true, false)) {
+          LOG.debug("Skipping partition column stats cache update for table: " + getTable().getTableName()
+              + "; the partition column stats list we have is dirty");
+          return;
         }
         partitionColStatsCache = newPartitionColStatsCache;
         updateMemberSize(MemberName.PARTITION_COL_STATS_CACHE, statsSize, SizeMode.Snapshot);
@@ -4539,15 +4539,20 @@ private LockResponse checkLock(Connection dbConn, long extLockId, long txnId, bo
      */
     boolean isPartOfDynamicPartitionInsert = true;
     try {
-      List<LockInfo> locksBeingChecked = getLocksFromLockId(dbConn, extLockId); //being acquired now
+      /* The locks being acquired now. They are only needed to build the write set or to acquire them, so
+       * they are read lazily: a check that ends up WAITING then costs the conflict query alone. */
+      List<LockInfo> locksBeingChecked = null;
       response.setLockid(extLockId);
 
       //This is the set of entities that the statement represented by extLockId wants to update
       List<LockInfo> writeSet = new ArrayList<>();
 
-      for (LockInfo info : locksBeingChecked) {
-        if(!isPartOfDynamicPartitionInsert && info.type == LockType.SHARED_WRITE) {
-          writeSet.add(info);
+      if (!isPartOfDynamicPartitionInsert) {
+        locksBeingChecked = getLocksFromLockId(dbConn, extLockId);
+        for (LockInfo info : locksBeingChecked) {
+          if (info.type == LockType.SHARED_WRITE) {
+            writeSet.add(info);
+          }
         }
       }
       if(!writeSet.isEmpty()) {
@@ -4604,13 +4609,14 @@ private LockResponse checkLock(Connection dbConn, long extLockId, long txnId, bo
       }
 
       String queryStr =
-        " \"EX\".*, \"REQ\".\"HL_LOCK_INT_ID\" \"LOCK_INT_ID\", \"REQ\".\"HL_LOCK_TYPE\" \"LOCK_TYPE\" FROM (" +
+        " \"EX\".*, \"REQ\".\"HL_LOCK_INT_ID\" \"LOCK_INT_ID\", \"REQ\".\"HL_LOCK_TYPE\" \"LOCK_TYPE\"," +
+            " \"REQ\".\"HL_BLOCKEDBY_EXT_ID\" \"BLOCKEDBY_EXT_ID\", \"REQ\".\"HL_BLOCKEDBY_INT_ID\" \"BLOCKEDBY_INT_ID\" FROM (" +
             " SELECT \"HL_LOCK_EXT_ID\", \"HL_LOCK_INT_ID\", \"HL_TXNID\", \"HL_DB\", \"HL_TABLE\", \"HL_PARTITION\"," +
                 " \"HL_LOCK_STATE\", \"HL_LOCK_TYPE\" FROM \"HIVE_LOCKS\"" +
             " WHERE \"HL_LOCK_EXT_ID\" < " + extLockId + ") \"EX\"" +
         " INNER JOIN (" +
             " SELECT \"HL_LOCK_INT_ID\", \"HL_TXNID\", \"HL_DB\", \"HL_TABLE\", \"HL_PARTITION\"," +
-                " \"HL_LOCK_TYPE\" FROM \"HIVE_LOCKS\"" +
+                " \"HL_LOCK_TYPE\", \"HL_BLOCKEDBY_EXT_ID\", \"HL_BLOCKEDBY_INT_ID\" FROM \"HIVE_LOCKS\"" +
             " WHERE \"HL_LOCK_EXT_ID\" = " + extLockId + ") \"REQ\"" +
         " ON \"EX\".\"HL_DB\" = \"REQ\".\"HL_DB\"" +
             " AND (\"EX\".\"HL_TABLE\" IS NULL OR \"REQ\".\"HL_TABLE\" IS NULL" +
@@ -4659,6 +4665,9 @@ is performed on that db (e.g. show tables, created table, etc).
         LockInfo blockedBy = new LockInfo(rs);
         long intLockId = rs.getLong("LOCK_INT_ID");
         char lockChar = rs.getString("LOCK_TYPE").charAt(0);
+        long blockedByExtLockId = rs.getLong("BLOCKEDBY_EXT_ID");
+        boolean blockedBySameLock = !rs.wasNull() && blockedByExtLockId == blockedBy.extLockId
+            && rs.getLong("BLOCKEDBY_INT_ID") == blockedBy.intLockId;
 
         LOG.debug("Failure to acquire lock({} intLockId:{} {}), blocked by ({})", JavaUtils.lockIdToString(extLockId),
             intLockId, JavaUtils.txnIdToString(txnId), blockedBy);
@@ -4680,18 +4689,21 @@ is performed on that db (e.g. show tables, created table, etc).
             return response;
           }
         }
-        String updateBlockedByQuery = "UPDATE \"HIVE_LOCKS\"" +
-            " SET \"HL_BLOCKEDBY_EXT_ID\" = " + blockedBy.extLockId +
-            ", \"HL_BLOCKEDBY_INT_ID\" = " + blockedBy.intLockId +
-            " WHERE \"HL_LOCK_EXT_ID\" = " + extLockId + " AND \"HL_LOCK_INT_ID\" = " + intLockId;
+        // Clients poll checkLock() while waiting; only write the blocking lock's IDs when they change.
+        if (!blockedBySameLock) {
+          String updateBlockedByQuery = "UPDATE \"HIVE_LOCKS\"" +
+              " SET \"HL_BLOCKEDBY_EXT_ID\" = " + blockedBy.extLockId +
+              ", \"HL_BLOCKEDBY_INT_ID\" = " + blockedBy.intLockId +
+              " WHERE \"HL_LOCK_EXT_ID\" = " + extLockId + " AND \"HL_LOCK_INT_ID\" = " + intLockId;
 
-        LOG.debug("Going to execute query: <" + updateBlockedByQuery + ">");
-        int updCnt = stmt.executeUpdate(updateBlockedByQuery);
+          LOG.debug("Going to execute query: <" + updateBlockedByQuery + ">");
+          int updCnt = stmt.executeUpdate(updateBlockedByQuery);
 
-        if (updCnt != 1) {
-          LOG.error("Failure to update lock (extLockId={}, intLockId={}) with the blocking lock's IDs " +
-              "(extLockId={}, intLockId={})", extLockId, intLockId, blockedBy.extLockId, blockedBy.intLockId);
-          shouldNeverHappen(txnId, extLockId, intLockId);
+          if (updCnt != 1) {
+            LOG.error("Failure to update lock (extLockId={}, intLockId={}) with the blocking lock's IDs " +
+                "(extLockId={}, intLockId={})", extLockId, intLockId, blockedBy.extLockId, blockedBy.intLockId);
+            shouldNeverHappen(txnId, extLockId, intLockId);
+          }
         }
         dbConn.commit();
 
@@ -4699,6 +4711,9 @@ is performed on that db (e.g. show tables, created table, etc).
         return response;
       }
       // If here, there were no locks that would block any item from 'locksBeingChecked' - acquire them all
+      if (locksBeingChecked == null) {
+        locksBeingChecked = getLocksFromLockId(dbConn, extLockId);
+      }
       acquire(dbConn, stmt, locksBeingChecked);
 
       // We acquired all the locks, so commit and return acquired.
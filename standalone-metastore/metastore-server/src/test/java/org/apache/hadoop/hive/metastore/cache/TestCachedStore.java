@@ -948,6 +948,63 @@ public void testGetAllTablesPrewarmMemoryLimit() throws Exception {
     cachedStore.shutdown();
   }
 
+  @Test public void testSharedStoreRefreshPartitions() {
+    Configuration conf = MetastoreConf.newMetastoreConf();
+    MetastoreConf.setBoolVar(conf, MetastoreConf.ConfVars.HIVE_IN_TEST, true);
+    MetastoreConf.setVar(conf, MetastoreConf.ConfVars.CACHED_RAW_STORE_MAX_CACHE_MEMORY, "-1Kb");
+    MetaStoreTestUtils.setConfForStandloneMode(conf);
+    CachedStore cachedStore = new CachedStore();
+    CachedStore.clearSharedCache();
+    cachedStore.setConfForTest(conf);
+    SharedCache sharedCache = CachedStore.getSharedCache();
+    String dbName = "db1";
+    String tblName = "tbl1";
+    Database db = createDatabaseObject(dbName, "user1");
+    sharedCache.addDatabaseToCache(db);
+    List<FieldSchema> cols = new ArrayList<FieldSchema>();
+    cols.add(new FieldSchema("col1", "int", "integer column"));
+    Table tbl = createTable(dbName, tblName, cols, new ArrayList<FieldSchema>());
+    sharedCache.addTableToCache(DEFAULT_CATALOG_NAME, dbName, tblName, tbl);
+    int sdCount = sharedCache.getSdCache().size();
+
+    Partition part1 = new Partition();
+    StorageDescriptor sd1 = new StorageDescriptor();
+    sd1.setCols(cols);
+    sd1.setParameters(new HashMap<>());
+    sd1.setInputFormat("input1");
+    sd1.setLocation("loc1");
+    part1.setSd(sd1);
+    part1.setValues(Arrays.asList("201701"));
+
+    Partition part2 = new Partition();
+    StorageDescriptor sd2 = new StorageDescriptor();
+    sd2.setCols(cols);
+    sd2.setParameters(new HashMap<>());
+    sd2.setInputFormat("input2");
+    sd2.setLocation("loc2");
+    part2.setSd(sd2);
+    part2.setValues(Arrays.asList("201702"));
+
+    sharedCache.addPartitionToCache(DEFAULT_CATALOG_NAME, dbName, tblName, part1);
+    sharedCache.addPartitionToCache(DEFAULT_CATALOG_NAME, dbName, tblName, part2);
+    Assert.assertEquals(sdCount + 2, sharedCache.getSdCache().size());
+
+    // The partitions were changed since the refresh read them; the refresh is skipped.
+    sharedCache.refreshPartitionsInCache(DEFAULT_CATALOG_NAME, dbName, tblName, Arrays.asList(part1));
+    Assert.assertNotNull(sharedCache.getPartitionFromCache(DEFAULT_CATALOG_NAME, dbName, tblName,
+        Arrays.asList("201702")));
+    Assert.assertEquals(sdCount + 2, sharedCache.getSdCache().size());
+
+    // The partition that is not refreshed is removed, with its storage descriptor.
+    sharedCache.refreshPartitionsInCache(DEFAULT_CATALOG_NAME, dbName, tblName, Arrays.asList(part1));
+    Assert.assertNull(sharedCache.getPartitionFromCache(DEFAULT_CATALOG_NAME, dbName, tblName,
+        Arrays.asList("201702")));
+    Assert.assertEquals("loc1", sharedCache.getPartitionFromCache(DEFAULT_CATALOG_NAME, dbName, tblName,
+        Arrays.asList("201701")).getSd().getLocation());
+    Assert.assertEquals(sdCount + 1, sharedCache.getSdCache().size());
+    cachedStore.shutdown();
+  }
+
   //@Test
   public void testAggrStatsRepeatedRead() throws Exception {
     Configuration conf = MetastoreConf.newMetastoreConf();
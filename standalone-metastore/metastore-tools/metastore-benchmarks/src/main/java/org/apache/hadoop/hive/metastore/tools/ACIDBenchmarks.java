@@ -3,6 +3,8 @@
 import org.apache.hadoop.hive.metastore.api.DataOperationType;
 import org.apache.hadoop.hive.metastore.api.LockComponent;
 import org.apache.hadoop.hive.metastore.api.LockRequest;
+import org.apache.hadoop.hive.metastore.api.LockResponse;
+import org.apache.hadoop.hive.metastore.api.LockState;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.LoggerContext;
@@ -18,6 +20,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.apache.hadoop.hive.metastore.tools.BenchmarkUtils.createManyTables;
@@ -164,6 +167,72 @@ private void executeLock(HMSClient client, long txnId, List<LockComponent> lockC
     }
   }
 
+  /**
+   * Measures the lock checks of clients waiting for the same table, all blocked by one exclusive lock.
+   * The number of waiting clients is set by the number of benchmark threads.
+   */
+  @State(Scope.Benchmark)
+  public static class TestCheckLock extends CoreContext {
+    private static final String TABLE_NAME = "tmp_blocking_table";
+    private HMSClient client;
+    private long blockingTxnId;
+
+    @Setup
+    public void doSetup() throws Exception {
+      client = HMSConfig.getInstance().newClient();
+      blockingTxnId = client.openTxn(1).get(0);
+      LockComponent exclusive = new Util.LockComponentBuilder()
+          .setDbName("default")
+          .setTableName(TABLE_NAME)
+          .setExclusive()
+          .setOperationType(DataOperationType.NO_TXN)
+          .build();
+      LockRequest req = new LockRequest(Collections.singletonList(exclusive), "hclient", "localhost");
+      req.setTxnid(blockingTxnId);
+      LockResponse res = client.lock(req);
+      if (res.getState() != LockState.ACQUIRED) {
+        throw new IllegalStateException("Cannot acquire the blocking lock: " + res);
+      }
+    }
+
+    @TearDown
+    public void doTearDown() throws Exception {
+      client.abortTxns(Collections.singletonList(blockingTxnId));
+      client.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState extends CoreContext.ThreadState {
+      long txnId;
+      long lockId;
+
+      @Setup
+      public void lockSetup() throws TException {
+        txnId = client.openTxn(1).get(0);
+        LockComponent shared = new Util.LockComponentBuilder()
+            .setDbName("default")
+            .setTableName(TABLE_NAME)
+            .setShared()
+            .setOperationType(DataOperationType.SELECT)
+            .build();
+        LockRequest req = new LockRequest(Collections.singletonList(shared), "hclient", "localhost");
+        req.setTxnid(txnId);
+        lockId = client.lock(req).getLockid();
+      }
+
+      @TearDown
+      public void doTearDown() throws Exception {
+        client.abortTxns(Collections.singletonList(txnId));
+        LOG.debug("aborted the waiting txn");
+      }
+    }
+
+    @Benchmark
+    public LockResponse checkLock(TestCheckLock.ThreadState state) throws TException {
+      return state.client.checkLock(state.lockId);
+    }
+  }
+
   @State(Scope.Benchmark)
   public static class TestAllocateTableWriteIds extends CoreContext {
     String dbName = "test_db";
@@ -54,6 +54,7 @@
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkGetPartitionNames;
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkGetPartitions;
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkGetPartitionsByName;
+import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkGetPartitionsDuringUpdates;
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkGetTable;
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkListAllTables;
 import static org.apache.hadoop.hive.metastore.tools.HMSBenchmarks.benchmarkListDatabases;
@@ -211,6 +212,7 @@ private void runAcidBenchmarks() {
     String[] candidates = new String[] {
         ACIDBenchmarks.TestOpenTxn.class.getSimpleName(),
         ACIDBenchmarks.TestLocking.class.getSimpleName(),
+        ACIDBenchmarks.TestCheckLock.class.getSimpleName(),
         ACIDBenchmarks.TestGetValidWriteIds.class.getSimpleName(),
         ACIDBenchmarks.TestAllocateTableWriteIds.class.getSimpleName()
     };
@@ -278,6 +280,8 @@ private void runNonAcidBenchmarks() {
               () -> benchmarkListManyPartitions(bench, bData, howMany))
           .add("getPartitions" + '.' + howMany,
               () -> benchmarkGetPartitions(bench, bData, howMany))
+          .add("getPartitionsDuringUpdates" + '.' + howMany,
+              () -> benchmarkGetPartitionsDuringUpdates(bench, bData, howMany))
           .add("getPartitionNames" + '.' + howMany,
               () -> benchmarkGetPartitionNames(bench, bData, howMany))
           .add("getPartitionsByNames" + '.' + howMany,
@@ -22,6 +22,7 @@
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.api.AbortTxnsRequest;
 import org.apache.hadoop.hive.metastore.api.AllocateTableWriteIdsRequest;
+import org.apache.hadoop.hive.metastore.api.CheckLockRequest;
 import org.apache.hadoop.hive.metastore.api.CommitTxnRequest;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.DropPartitionsRequest;
@@ -293,6 +294,11 @@ List<Partition> getPartitions(@NotNull String dbName, @NotNull String tableName)
     return client.get_partitions(dbName, tableName, (short) -1);
   }
 
+  /** @return The value of the configuration of the server; only the keys of Hive can be read. */
+  String getConfigValue(@NotNull String name, @NotNull String defaultValue) throws TException {
+    return client.get_config_value(name, defaultValue);
+  }
+
   DropPartitionsResult dropPartitions(@NotNull String dbName, @NotNull String tableName,
                                       @Nullable List<String> partNames) throws TException {
     if (partNames == null) {
@@ -384,6 +390,10 @@ LockResponse lock(@NotNull LockRequest rqst) throws TException {
     return client.lock(rqst);
   }
 
+  LockResponse checkLock(long lockId) throws TException {
+    return client.check_lock(new CheckLockRequest(lockId));
+  }
+
   List<Long> openTxn(int howMany) throws TException {
     OpenTxnsResponse txns = openTxnsIntr("", howMany, null);
     return txns.getTxn_ids();
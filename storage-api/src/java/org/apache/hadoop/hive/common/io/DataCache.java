@@ -113,4 +113,13 @@ DiskRangeList getFileData(Object fileKey, DiskRangeList range, long baseOffset,
    */
   long[] putFileData(Object fileKey, DiskRange[] ranges,
       MemoryBuffer[] data, long baseOffset, CacheTag tag);
+
+  /**
+   * Notifies the cache that the file with the given key is being read from the given path, so
+   * that the cache can report the paths of the files it holds data for. Does nothing by default.
+   * @param fileKey Unique ID of the target file on the file system.
+   * @param path The path of the file, as used by the splits.
+   */
+  default void touchFilePath(Object fileKey, String path) {
+  }
 }
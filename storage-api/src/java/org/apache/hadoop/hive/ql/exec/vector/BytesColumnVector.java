@@ -60,6 +60,31 @@ public class BytesColumnVector extends ColumnVector {
 
   private int bufferAllocationCount;
 
+  // Where smallBuffer comes from; null allocates new arrays.
+  private BufferAllocator bufferAllocator;
+  // Whether smallBuffer was taken from bufferAllocator, and may be given back to it.
+  private boolean isSmallBufferAllocated;
+  // The small buffers taken from bufferAllocator and replaced by bigger ones. Other vectors may
+  // still refer to their values by reference, so they are only given back with releaseBuffers.
+  private byte[][] retiredBuffers;
+  private int retiredBufferCount;
+
+  /**
+   * Supplies the shared buffers that values are copied into, so that they can be reused
+   * across column vectors.
+   */
+  public interface BufferAllocator {
+    /**
+     * @return A buffer of at least minSize bytes.
+     */
+    byte[] allocate(int minSize);
+
+    /**
+     * Takes back a buffer that no value refers to anymore.
+     */
+    void release(byte[] buffer);
+  }
+
   // Estimate that there will be 16 bytes per entry
   static final int DEFAULT_BUFFER_SIZE = 16 * VectorizedRowBatch.DEFAULT_SIZE;
 
@@ -89,6 +114,33 @@ public BytesColumnVector(int size) {
     length = new int[size];
   }
 
+  /**
+   * Use the allocator for the shared buffer of by value strings, from the next reset on.
+   * @param bufferAllocator the allocator, or null to allocate new arrays
+   */
+  public void setBufferAllocator(BufferAllocator bufferAllocator) {
+    this.bufferAllocator = bufferAllocator;
+  }
+
+  /**
+   * Gives the buffers this vector took from the allocator back to it; the values set by value
+   * are no longer valid. The caller must make sure that no other vector refers to them either,
+   * e.g. because the operators that processed the batch are closed. The buffers are allocated
+   * again on the next reset.
+   */
+  public void releaseBuffers() {
+    releaseRetiredBuffers();
+    if (isSmallBufferAllocated && bufferAllocator != null) {
+      bufferAllocator.release(smallBuffer);
+    }
+    buffer = null;
+    smallBuffer = null;
+    isSmallBufferAllocated = false;
+    nextFree = 0;
+    smallBufferNextFree = 0;
+    bufferAllocationCount = 0;
+  }
+
   /**
    * Additional reset work for BytesColumnVector (releasing scratch bytes for by value strings).
    */
@@ -143,7 +195,7 @@ public void initBuffer(int estimatedValueSize) {
       if (bufferSize < DEFAULT_BUFFER_SIZE) {
         bufferSize = DEFAULT_BUFFER_SIZE;
       }
-      buffer = new byte[bufferSize];
+      buffer = allocateSmallBuffer(bufferSize);
       smallBuffer = buffer;
     }
     bufferAllocationCount = 0;
@@ -318,7 +370,8 @@ public void increaseBufferSpace(int nextElemLength) {
             newLength = Integer.MAX_VALUE;
           }
         }
-        smallBuffer = new byte[newLength];
+        retireSmallBuffer();
+        smallBuffer = allocateSmallBuffer(newLength);
         ++bufferAllocationCount;
         smallBufferNextFree = 0;
         // Update buffer
@@ -328,6 +381,33 @@ public void increaseBufferSpace(int nextElemLength) {
     }
   }
 
+  private byte[] allocateSmallBuffer(int size) {
+    isSmallBufferAllocated = bufferAllocator != null;
+    return isSmallBufferAllocated ? bufferAllocator.allocate(size) : new byte[size];
+  }
+
+  private void retireSmallBuffer() {
+    if (!isSmallBufferAllocated) {
+      return;
+    }
+    if (retiredBuffers == null) {
+      retiredBuffers = new byte[4][];
+    } else if (retiredBufferCount == retiredBuffers.length) {
+      retiredBuffers = Arrays.copyOf(retiredBuffers, retiredBufferCount * 2);
+    }
+    retiredBuffers[retiredBufferCount++] = smallBuffer;
+  }
+
+  private void releaseRetiredBuffers() {
+    for (int i = 0; i < retiredBufferCount; ++i) {
+      if (bufferAllocator != null) {
+        bufferAllocator.release(retiredBuffers[i]);
+      }
+      retiredBuffers[i] = null;
+    }
+    retiredBufferCount = 0;
+  }
+
   /** Copy the current object contents into the output. Only copy selected entries,
     * as indicated by selectedInUse and the sel array.
     */
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+/**
+ * A BytesColumnVector that also carries, for each value, an id in a dictionary of the column's
+ * values.  It is produced by readers of dictionary encoded columns.
+ * <p>
+ * The by reference fields of BytesColumnVector are always filled in, so this vector can be used
+ * wherever a BytesColumnVector is expected.  When isDictionaryEncoded is true, ids[i] is the id
+ * of the (non-NULL) value at row i, with ids[0] standing for all the rows when isRepeating.
+ * Rows with the same id have the same value, so an expression that is a function of the value
+ * alone can be evaluated once per id and cached for as long as dictionaryKey stays the same.
+ * All the ids are smaller than dictionarySize.
+ * <p>
+ * A producer never assigns an id to another value within the same dictionaryKey.  Writing values
+ * by setVal and friends clears isDictionaryEncoded; setRef does not, since the producer itself
+ * uses it to fill in the values before assigning the ids.
+ */
+public class DictionaryBytesColumnVector extends BytesColumnVector {
+
+  public int[] ids;
+
+  public boolean isDictionaryEncoded;
+
+  // Identifies the dictionary the ids refer to; compared by reference.
+  public Object dictionaryKey;
+
+  public int dictionarySize;
+
+  public DictionaryBytesColumnVector() {
+    this(VectorizedRowBatch.DEFAULT_SIZE);
+  }
+
+  public DictionaryBytesColumnVector(int size) {
+    super(size);
+    ids = new int[size];
+  }
+
+  /**
+   * Sets the dictionary of the ids just assigned by the producer.
+   */
+  public void setDictionary(Object dictionaryKey, int dictionarySize) {
+    this.dictionaryKey = dictionaryKey;
+    this.dictionarySize = dictionarySize;
+    isDictionaryEncoded = true;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    isDictionaryEncoded = false;
+  }
+
+  @Override
+  public void setVal(int elementNum, byte[] sourceBuf, int start, int length) {
+    isDictionaryEncoded = false;
+    super.setVal(elementNum, sourceBuf, start, length);
+  }
+
+  @Override
+  public void setValPreallocated(int elementNum, int length) {
+    isDictionaryEncoded = false;
+    super.setValPreallocated(elementNum, length);
+  }
+
+  @Override
+  public void setConcat(int elementNum, byte[] leftSourceBuf, int leftStart, int leftLen,
+      byte[] rightSourceBuf, int rightStart, int rightLen) {
+    isDictionaryEncoded = false;
+    super.setConcat(elementNum, leftSourceBuf, leftStart, leftLen,
+        rightSourceBuf, rightStart, rightLen);
+  }
+
+  @Override
+  public void fillWithNulls() {
+    isDictionaryEncoded = false;
+    super.fillWithNulls();
+  }
+
+  @Override
+  public void flatten(boolean selectedInUse, int[] sel, int size) {
+    if (isRepeating && isDictionaryEncoded) {
+      final int id = ids[0];
+      if (selectedInUse) {
+        for (int j = 0; j < size; j++) {
+          ids[sel[j]] = id;
+        }
+      } else {
+        for (int i = 0; i < size; i++) {
+          ids[i] = id;
+        }
+      }
+    }
+    super.flatten(selectedInUse, sel, size);
+  }
+
+  @Override
+  public void ensureSize(int size, boolean preserveData) {
+    super.ensureSize(size, preserveData);
+    if (size > ids.length) {
+      int[] oldIds = ids;
+      ids = new int[size];
+      if (preserveData) {
+        if (isRepeating) {
+          ids[0] = oldIds[0];
+        } else {
+          System.arraycopy(oldIds, 0, ids, 0, oldIds.length);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void shallowCopyTo(ColumnVector otherCv) {
+    super.shallowCopyTo(otherCv);
+    if (otherCv instanceof DictionaryBytesColumnVector) {
+      DictionaryBytesColumnVector other = (DictionaryBytesColumnVector) otherCv;
+      other.ids = ids;
+      other.isDictionaryEncoded = isDictionaryEncoded;
+      other.dictionaryKey = dictionaryKey;
+      other.dictionarySize = dictionarySize;
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TestDictionaryBytesColumnVector {
+
+  private static final byte[] DICTIONARY = "redgreenblue".getBytes(StandardCharsets.UTF_8);
+
+  // Sets red, green, blue, red by reference with the ids 0, 1, 2, 0.
+  private static DictionaryBytesColumnVector createEncoded(Object dictionaryKey) {
+    DictionaryBytesColumnVector col = new DictionaryBytesColumnVector();
+    col.reset();
+    col.setRef(0, DICTIONARY, 0, 3);
+    col.setRef(1, DICTIONARY, 3, 5);
+    col.setRef(2, DICTIONARY, 8, 4);
+    col.setRef(3, DICTIONARY, 0, 3);
+    col.ids[0] = 0;
+    col.ids[1] = 1;
+    col.ids[2] = 2;
+    col.ids[3] = 0;
+    col.setDictionary(dictionaryKey, 3);
+    return col;
+  }
+
+  @Test
+  public void testSetDictionary() {
+    Object dictionaryKey = new Object();
+    DictionaryBytesColumnVector col = createEncoded(dictionaryKey);
+    assertTrue(col.isDictionaryEncoded);
+    assertSame(dictionaryKey, col.dictionaryKey);
+    assertEquals(3, col.dictionarySize);
+    assertEquals("green", col.toString(1));
+
+    // Setting more values by reference keeps the ids; the producer assigns them afterwards.
+    col.setRef(4, DICTIONARY, 3, 5);
+    assertTrue(col.isDictionaryEncoded);
+
+    col.reset();
+    assertFalse(col.isDictionaryEncoded);
+  }
+
+  @Test
+  public void testCopiedValuesClearTheIds() {
+    DictionaryBytesColumnVector col = createEncoded(new Object());
+    col.initBuffer();
+    col.setVal(1, "yellow".getBytes(StandardCharsets.UTF_8));
+    assertFalse(col.isDictionaryEncoded);
+
+    col = createEncoded(new Object());
+    col.initBuffer();
+    col.setValPreallocated(1, 0);
+    assertFalse(col.isDictionaryEncoded);
+
+    col = createEncoded(new Object());
+    col.initBuffer();
+    col.setConcat(1, DICTIONARY, 0, 3, DICTIONARY, 8, 4);
+    assertFalse(col.isDictionaryEncoded);
+
+    col = createEncoded(new Object());
+    col.fillWithNulls();
+    assertFalse(col.isDictionaryEncoded);
+  }
+
+  @Test
+  public void testFlattenRepeating() {
+    DictionaryBytesColumnVector col = new DictionaryBytesColumnVector();
+    col.reset();
+    col.setRef(0, DICTIONARY, 8, 4);
+    col.ids[0] = 2;
+    col.isRepeating = true;
+    col.setDictionary(new Object(), 3);
+
+    int[] sel = new int[] { 1, 5, 7 };
+    col.flatten(true, sel, sel.length);
+    assertFalse(col.isRepeating);
+    assertTrue(col.isDictionaryEncoded);
+    for (int row : sel) {
+      assertEquals(2, col.ids[row]);
+      assertEquals("blue", col.toString(row));
+    }
+
+    col.unFlatten();
+    col.flatten(false, null, 10);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(2, col.ids[i]);
+    }
+  }
+
+  @Test
+  public void testEnsureSize() {
+    DictionaryBytesColumnVector col = createEncoded(new Object());
+    int size = VectorizedRowBatch.DEFAULT_SIZE * 2;
+    col.ensureSize(size, true);
+    assertEquals(size, col.ids.length);
+    assertEquals(0, col.ids[0]);
+    assertEquals(1, col.ids[1]);
+    assertEquals(2, col.ids[2]);
+    assertEquals(0, col.ids[3]);
+
+    col = createEncoded(new Object());
+    col.ids[0] = 1;
+    col.isRepeating = true;
+    col.ensureSize(size, true);
+    assertEquals(1, col.ids[0]);
+  }
+
+  @Test
+  public void testShallowCopyTo() {
+    Object dictionaryKey = new Object();
+    DictionaryBytesColumnVector col = createEncoded(dictionaryKey);
+
+    DictionaryBytesColumnVector other = new DictionaryBytesColumnVector();
+    col.shallowCopyTo(other);
+    assertSame(col.ids, other.ids);
+    assertTrue(other.isDictionaryEncoded);
+    assertSame(dictionaryKey, other.dictionaryKey);
+    assertEquals(3, other.dictionarySize);
+    assertEquals("red", other.toString(3));
+
+    // A plain BytesColumnVector only gets the values.
+    BytesColumnVector plain = new BytesColumnVector();
+    col.shallowCopyTo(plain);
+    assertEquals("blue", plain.toString(2));
+  }
+}
@@ -2688,6 +2688,11 @@ private void generateColumnCompareOperatorColumn(String[] tdesc, boolean filter,
     }
     templateString = templateString.replaceAll("<VectorExprArgType1>", vectorExprArgType1);
     templateString = templateString.replaceAll("<VectorExprArgType2>", vectorExprArgType2);
+    String kernelOperator = getKernelOperator(tdesc[1], operandType1, operandType2);
+    if (kernelOperator != null) {
+      templateString = templateString.replaceAll("<KernelOperator>", kernelOperator);
+    }
+    templateString = evaluateIfDefined(templateString, kernelOperator != null ? "KERNEL" : "");
     writeFile(templateFile.lastModified(), expressionOutputDirectory, expressionClassesDirectory,
         className, templateString);
 
@@ -2989,7 +2994,12 @@ private void generateColumnArithmeticOperatorColumn(String[] tdesc, String retur
     templateString = templateString.replaceAll("<ReturnType>", returnType);
     templateString = templateString.replaceAll("<CamelReturnType>", getCamelCaseType(returnType));
 
-    templateString = evaluateIfDefined(templateString, ifDefined);
+    String kernelOperator = getKernelOperator(operatorName, operandType1, operandType2);
+    if (kernelOperator != null) {
+      templateString = templateString.replaceAll("<KernelOperator>", kernelOperator);
+    }
+    templateString = evaluateIfDefined(templateString,
+        kernelOperator != null ? ifDefined + ",KERNEL" : ifDefined);
 
     writeFile(templateFile.lastModified(), expressionOutputDirectory, expressionClassesDirectory,
         className, templateString);
@@ -3010,6 +3020,40 @@ private void generateColumnArithmeticOperatorColumn(String[] tdesc, String retur
     }
   }
 
+  /*
+   * The VectorKernels operator for the dense loops of a long or double arithmetic or comparison
+   * with operands of the same type, or null when the expression has no kernel.
+   */
+  private static String getKernelOperator(String operatorName, String operandType1,
+      String operandType2) {
+    if (!operandType1.equals(operandType2) ||
+        !(operandType1.equals("long") || operandType1.equals("double"))) {
+      return null;
+    }
+    switch (operatorName) {
+    case "Add":
+      return "ArithmeticOp.ADD";
+    case "Subtract":
+      return "ArithmeticOp.SUBTRACT";
+    case "Multiply":
+      return "ArithmeticOp.MULTIPLY";
+    case "Equal":
+      return "CompareOp.EQUAL";
+    case "NotEqual":
+      return "CompareOp.NOT_EQUAL";
+    case "Less":
+      return "CompareOp.LESS";
+    case "LessEqual":
+      return "CompareOp.LESS_EQUAL";
+    case "Greater":
+      return "CompareOp.GREATER";
+    case "GreaterEqual":
+      return "CompareOp.GREATER_EQUAL";
+    default:
+      return null;
+    }
+  }
+
   private void generateColumnCompareOperatorScalar(String[] tdesc, boolean filter,
      String className) throws Exception {
     String operandType1 = tdesc[2];
@@ -3034,6 +3078,11 @@ private void generateColumnCompareOperatorScalar(String[] tdesc, boolean filter,
     String vectorExprArgType2 = operandType2;
     templateString = templateString.replaceAll("<VectorExprArgType1>", vectorExprArgType1);
     templateString = templateString.replaceAll("<VectorExprArgType2>", vectorExprArgType2);
+    String kernelOperator = getKernelOperator(tdesc[1], operandType1, operandType2);
+    if (kernelOperator != null) {
+      templateString = templateString.replaceAll("<KernelOperator>", kernelOperator);
+    }
+    templateString = evaluateIfDefined(templateString, kernelOperator != null ? "KERNEL" : "");
     writeFile(templateFile.lastModified(), expressionOutputDirectory, expressionClassesDirectory,
         className, templateString);
 
@@ -3077,7 +3126,12 @@ private void generateColumnArithmeticOperatorScalar(String[] tdesc, String retur
     templateString = templateString.replaceAll("<OperandType2>", operandType2);
     templateString = templateString.replaceAll("<ReturnType>", returnType);
     templateString = templateString.replaceAll("<CamelReturnType>", getCamelCaseType(returnType));
-    templateString = evaluateIfDefined(templateString, ifDefined);
+    String kernelOperator = getKernelOperator(operatorName, operandType1, operandType2);
+    if (kernelOperator != null) {
+      templateString = templateString.replaceAll("<KernelOperator>", kernelOperator);
+    }
+    templateString = evaluateIfDefined(templateString,
+        kernelOperator != null ? ifDefined + ",KERNEL" : ifDefined);
 
     writeFile(templateFile.lastModified(), expressionOutputDirectory, expressionClassesDirectory,
         className, templateString);